@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+#
+# Time to first successful request, from JVM launch to the first 200 on a route that goes
+# through security, Hibernate and JSON. Each factor is measured on its own:
+#
+#   fat          the regular fat jar (nested jars, context built at runtime)
+#   thin         the plain layout in target/cds (app.jar with a Class-Path manifest and lib/)
+#   thin-cds     thin, with a class data sharing archive trained without AOT
+#   thin-aot     thin, with the AOT-generated context (-Dspring.aot.enabled=true)
+#   thin-aot-cds thin-aot, with its own archive trained with AOT
+#
+#   mvn -Pcds,aot -DskipTests package
+#   scripts/startup-benchmark.sh [runs]
+#
+# Missing archives are created first by training runs: the build refreshes the context eagerly
+# and exits, dumping the classes it loaded. An archive only works on the JVM that wrote it, so
+# compare on the machine (or image) that will run the app.
+#
+# Environment: PORT (18080), URL, JAVA_OPTS, FAT_JAR, THIN_JAR, TRAIN=1 to retrain.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+URL=${URL:-"http://127.0.0.1:${PORT}/api/api/products/ratings?ids=1"}
+JAVA_OPTS=${JAVA_OPTS:-}
+FAT_JAR=${FAT_JAR:-$(ls target/complex-springboot-app-*.jar | grep -v -- '-cds' | head -1)}
+THIN_JAR=${THIN_JAR:-$(ls target/cds/*-cds.jar | head -1)}
+CDS_ARCHIVE="${THIN_JAR%.jar}.jsa"
+AOT_CDS_ARCHIVE="${THIN_JAR%.jar}-aot.jsa"
+WORK=$(mktemp -d)
+APP_ARGS=(--server.port="$PORT" --logging.file.name="$WORK/app.log")
+
+trap 'rm -rf "$WORK"' EXIT
+
+# Writes the archive given first from a training run with the remaining JVM options
+train() {
+  local archive=$1
+  shift
+  if [[ -f "$archive" && "${TRAIN:-0}" != 1 ]]; then
+    return
+  fi
+  echo "Training run for $archive"
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS -XX:ArchiveClassesAtExit="$archive" "$@" \
+    -Dspring.context.exit=onRefresh -Dspring.main.lazy-initialization=false \
+    -jar "$THIN_JAR" "${APP_ARGS[@]}" > "$WORK/training.log" 2>&1 \
+    || { echo "Training run failed:"; tail -20 "$WORK/training.log"; exit 1; }
+}
+
+train "$CDS_ARCHIVE"
+train "$AOT_CDS_ARCHIVE" -Dspring.aot.enabled=true
+
+# Prints the milliseconds until the first successful request of each run, then the median
+measure() {
+  local name=$1
+  shift
+  local times=()
+  for run in $(seq "$RUNS"); do
+    local start pid
+    start=$(date +%s%N)
+    # shellcheck disable=SC2086
+    java $JAVA_OPTS "$@" "${APP_ARGS[@]}" > "$WORK/$name-$run.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$name: the application exited during run $run:"
+        tail -20 "$WORK/$name-$run.log"
+        exit 1
+      fi
+      sleep 0.05
+    done
+    times+=($(( ($(date +%s%N) - start) / 1000000 )))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+  done
+  local sorted
+  sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+  printf '%-12s runs: %s ms, median %s ms\n' "$name" "${times[*]}" \
+    "$(echo "$sorted" | sed -n "$(( (RUNS + 1) / 2 ))p")"
+}
+
+measure fat -jar "$FAT_JAR"
+measure thin -jar "$THIN_JAR"
+measure thin-cds -XX:SharedArchiveFile="$CDS_ARCHIVE" -jar "$THIN_JAR"
+measure thin-aot -Dspring.aot.enabled=true -jar "$THIN_JAR"
+measure thin-aot-cds -XX:SharedArchiveFile="$AOT_CDS_ARCHIVE" -Dspring.aot.enabled=true -jar "$THIN_JAR"
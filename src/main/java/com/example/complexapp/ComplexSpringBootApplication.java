@@ -2,9 +2,8 @@ package com.example.complexapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cloud.openfeign.EnableFeignClients;
-import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -12,15 +11,19 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.example.complexapp.repository")
-@EnableElasticsearchRepositories(basePackages = "com.example.complexapp.search")
-@EnableFeignClients(basePackages = "com.example.complexapp.client")
 @EnableCaching
 @EnableAsync
 @EnableScheduling
 @EnableTransactionManagement
 public class ComplexSpringBootApplication {
 
+    // Enough for every startup step of a full context, bean instantiations included
+    private static final int STARTUP_STEPS = 10_000;
+
     public static void main(String[] args) {
-        SpringApplication.run(ComplexSpringBootApplication.class, args);
+        SpringApplication application = new SpringApplication(ComplexSpringBootApplication.class);
+        // Read by StartupReport and /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 }
@@ -0,0 +1,114 @@
+package com.example.complexapp.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Stops an AOT-processed build from starting with settings other than the ones it was built
+ * with. Spring AOT evaluates conditions and profiles at build time, so changing the profile,
+ * an {@code app.feature.*} flag, an {@code app.*.enabled} switch or
+ * {@code spring.threads.virtual.enabled} afterwards would silently have no effect.
+ * {@link AotBuildSettingsRecorder} writes the build-time values to {@link #RESOURCE}; with
+ * {@code -Dspring.aot.enabled=true} this post-processor compares them with the runtime
+ * environment and refuses to start on any difference.
+ */
+public class AotBuildSettings implements EnvironmentPostProcessor, Ordered {
+
+    static final String RESOURCE = "META-INF/aot-build-settings.properties";
+    static final String ACTIVE_PROFILES = "spring.profiles.active";
+    static final String VIRTUAL_THREADS = "spring.threads.virtual.enabled";
+    private static final Pattern FROZEN = Pattern.compile("app\\.feature\\..+|app\\.[a-z0-9.-]+\\.enabled");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        ClassPathResource resource = new ClassPathResource(RESOURCE, application.getClassLoader());
+        if (!resource.exists()) {
+            return;
+        }
+        Properties recorded;
+        try {
+            recorded = PropertiesLoaderUtils.loadProperties(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + RESOURCE, e);
+        }
+        List<String> differences = differences(recorded, environment);
+        if (!differences.isEmpty()) {
+            throw new IllegalStateException("This build was AOT-processed with other settings than the runtime ones: "
+                    + String.join("; ", differences)
+                    + ". Rebuild with the new values or start without -Dspring.aot.enabled=true.");
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    /**
+     * The settings AOT processing fixes, as the given environment resolves them.
+     */
+    static SortedMap<String, String> capture(ConfigurableEnvironment environment) {
+        SortedMap<String, String> settings = new TreeMap<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (source instanceof EnumerablePropertySource<?> enumerable) {
+                for (String name : enumerable.getPropertyNames()) {
+                    if (FROZEN.matcher(name).matches()) {
+                        settings.put(name, value(environment, name));
+                    }
+                }
+            }
+        }
+        settings.put(ACTIVE_PROFILES, String.join(",", environment.getActiveProfiles()));
+        settings.put(VIRTUAL_THREADS, environment.getProperty(VIRTUAL_THREADS, "false"));
+        return settings;
+    }
+
+    /**
+     * Every frozen setting whose runtime value differs from the recorded one, including flags
+     * set on only one side.
+     */
+    static List<String> differences(Map<?, ?> recorded, ConfigurableEnvironment environment) {
+        SortedMap<String, String> runtime = capture(environment);
+        SortedMap<String, String> built = new TreeMap<>();
+        recorded.forEach((key, value) -> built.put(key.toString(), value.toString()));
+        SortedSet<String> names = new TreeSet<>(built.keySet());
+        names.addAll(runtime.keySet());
+        List<String> differences = new ArrayList<>();
+        for (String name : names) {
+            String before = built.getOrDefault(name, "");
+            String now = runtime.getOrDefault(name, value(environment, name));
+            if (!before.equals(now)) {
+                differences.add(name + " was '" + before + "' at build time but is '" + now + "'");
+            }
+        }
+        return differences;
+    }
+
+    private static String value(PropertyResolver environment, String name) {
+        String value = environment.getProperty(name);
+        return value != null ? value : "";
+    }
+}
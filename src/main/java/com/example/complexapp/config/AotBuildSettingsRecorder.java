@@ -0,0 +1,26 @@
+package com.example.complexapp.config;
+
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.SortedMap;
+
+/**
+ * Writes the settings AOT processing was run with into the generated resources, for
+ * {@link AotBuildSettings} to check at startup.
+ */
+public class AotBuildSettingsRecorder implements BeanFactoryInitializationAotProcessor {
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        SortedMap<String, String> settings = AotBuildSettings.capture(beanFactory.getBean(ConfigurableEnvironment.class));
+        return (generationContext, code) -> {
+            StringBuilder content = new StringBuilder("# Settings this build was AOT-processed with\n");
+            settings.forEach((name, value) -> content.append(name).append('=')
+                    .append(value.replace("\\", "\\\\")).append('\n'));
+            generationContext.getGeneratedFiles().addResourceFile(AotBuildSettings.RESOURCE, content);
+        };
+    }
+}
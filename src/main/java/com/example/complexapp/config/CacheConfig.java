@@ -1,8 +1,12 @@
 package com.example.complexapp.config;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -24,15 +28,17 @@ import java.util.Map;
 @EnableCaching
 public class CacheConfig {
 
+    // With app.feature.redis.enabled=false Spring Boot's in-memory Caffeine cache manager takes over
     @Bean
     @Primary
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
+    @ConditionalOnProperty(name = "app.feature.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
         // Configure default cache settings
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
-                        new GenericJackson2JsonRedisSerializer(objectMapper)))
+                        new GenericJackson2JsonRedisSerializer(redisObjectMapper())))
                 .disableCachingNullValues();
 
         // Configure specific cache settings
@@ -61,20 +67,24 @@ public class CacheConfig {
         // Rate limiting cache - very short TTL
         cacheConfigurations.put("rate-limits", defaultConfig.entryTtl(Duration.ofMinutes(1)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        // Not a bean itself, so its initialization is up to us
+        redisCacheManager.afterPropertiesSet();
+        return new TimedCacheManager(redisCacheManager);
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
+    @ConditionalOnProperty(name = "app.feature.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         // Configure serializers
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(redisObjectMapper());
 
         template.setKeySerializer(stringSerializer);
         template.setValueSerializer(jsonSerializer);
@@ -85,9 +95,17 @@ public class CacheConfig {
         return template;
     }
 
-    @Bean
-    public ObjectMapper redisObjectMapper() {
+    /**
+     * Embeds type information so cached values read back as their own classes. Deliberately
+     * not a bean: as the only ObjectMapper in the context it would replace Spring Boot's and
+     * demand type ids in every HTTP request body.
+     */
+    static ObjectMapper redisObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
+        // Entities carry LocalDateTime fields and derived getters such as User.isAccountLocked()
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
         mapper.activateDefaultTyping(
                 LaissezFaireSubTypeValidator.instance,
                 ObjectMapper.DefaultTyping.NON_FINAL,
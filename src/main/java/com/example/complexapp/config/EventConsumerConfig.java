@@ -0,0 +1,59 @@
+package com.example.complexapp.config;
+
+import com.example.complexapp.event.DomainEvent;
+import com.example.complexapp.messaging.DomainEventDeserializer;
+import com.example.complexapp.messaging.EventHandler;
+import com.example.complexapp.messaging.KeyOrderedConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+@Configuration
+@ConditionalOnProperty(name = {"app.events.consumer.enabled", "app.feature.messaging.enabled"}, havingValue = "true",
+        matchIfMissing = true)
+public class EventConsumerConfig {
+
+    @Bean
+    public KeyOrderedConsumer<DomainEvent> domainEventConsumer(KafkaProperties kafkaProperties,
+                                                          ObjectProvider<SslBundles> sslBundles,
+                                                          List<EventHandler<DomainEvent>> handlers,
+                                                          MeterRegistry meterRegistry,
+                                                          Environment environment,
+                                                          @Qualifier(WorkloadExecutorConfig.EVENTS) Executor eventsExecutor,
+                                                          @Value("${app.events.consumer.group-id:complex-app-events}") String groupId,
+                                                          @Value("${app.events.consumer.max-in-flight:1000}") int maxInFlight,
+                                                          @Value("${app.events.consumer.max-attempts:3}") int maxAttempts,
+                                                          @Value("${app.events.consumer.retry-backoff-ms:200}") long retryBackoffMillis,
+                                                          @Value("${app.events.consumer.revoke-timeout-ms:5000}") long revokeTimeoutMillis) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        return new KeyOrderedConsumer<>("domain-events", properties, new DomainEventDeserializer(), handlers,
+                handlerExecutor(environment, eventsExecutor), maxInFlight, maxAttempts,
+                Duration.ofMillis(retryBackoffMillis), Duration.ofMillis(revokeTimeoutMillis), meterRegistry);
+    }
+
+    private Executor handlerExecutor(Environment environment, Executor eventsExecutor) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // One virtual thread per lane; max-in-flight already bounds the work
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("domain-events-handler-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        return eventsExecutor;
+    }
+}
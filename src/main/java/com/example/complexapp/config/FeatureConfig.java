@@ -0,0 +1,27 @@
+package com.example.complexapp.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
+
+/**
+ * Repository and client scanning for the optional subsystems, on only while their
+ * {@code app.feature.*} flag is; the matching auto-configurations are excluded by
+ * {@link FeatureExclusionEnvironmentPostProcessor}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FeatureConfig {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "app.feature.search.enabled", havingValue = "true", matchIfMissing = true)
+    @EnableElasticsearchRepositories(basePackages = "com.example.complexapp.search")
+    static class SearchRepositories {
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "app.feature.clients.enabled", havingValue = "true", matchIfMissing = true)
+    @EnableFeignClients(basePackages = "com.example.complexapp.client")
+    static class FeignClients {
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.complexapp.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps Spring Boot from auto-configuring the subsystems switched off under
+ * {@code app.feature.*}: their auto-configurations are added to
+ * {@code spring.autoconfigure.exclude}, next to any excludes already configured, so a pod
+ * without search or messaging does not build clients, connection pools or health checks
+ * for them. Our own wiring for those subsystems carries the same flag as a
+ * {@code @ConditionalOnProperty}, see {@link FeatureConfig}.
+ *
+ * <p>Runs after the config files are read, so flags from any property source count.
+ */
+public class FeatureExclusionEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String PROPERTY_SOURCE = "appFeatureExclusions";
+    private static final String EXCLUDE = "spring.autoconfigure.exclude";
+    private static final String BOOT = "org.springframework.boot.autoconfigure.";
+    private static final String ACTUATE = "org.springframework.boot.actuate.autoconfigure.";
+
+    static final Map<String, List<String>> AUTO_CONFIGURATIONS = Map.of(
+            "search", List.of(
+                    BOOT + "elasticsearch.ElasticsearchClientAutoConfiguration",
+                    BOOT + "elasticsearch.ElasticsearchRestClientAutoConfiguration",
+                    BOOT + "elasticsearch.ReactiveElasticsearchClientAutoConfiguration",
+                    BOOT + "data.elasticsearch.ElasticsearchDataAutoConfiguration",
+                    BOOT + "data.elasticsearch.ElasticsearchRepositoriesAutoConfiguration",
+                    BOOT + "data.elasticsearch.ReactiveElasticsearchRepositoriesAutoConfiguration",
+                    ACTUATE + "elasticsearch.ElasticsearchRestHealthContributorAutoConfiguration",
+                    ACTUATE + "data.elasticsearch.ElasticsearchReactiveHealthContributorAutoConfiguration"),
+            "messaging", List.of(
+                    BOOT + "kafka.KafkaAutoConfiguration",
+                    ACTUATE + "metrics.KafkaMetricsAutoConfiguration"),
+            "redis", List.of(
+                    BOOT + "data.redis.RedisAutoConfiguration",
+                    BOOT + "data.redis.RedisReactiveAutoConfiguration",
+                    BOOT + "data.redis.RedisRepositoriesAutoConfiguration",
+                    ACTUATE + "data.redis.RedisHealthContributorAutoConfiguration",
+                    ACTUATE + "data.redis.RedisReactiveHealthContributorAutoConfiguration",
+                    ACTUATE + "metrics.redis.LettuceMetricsAutoConfiguration"),
+            "batch", List.of(
+                    BOOT + "batch.BatchAutoConfiguration",
+                    ACTUATE + "observation.batch.BatchObservationAutoConfiguration"),
+            "quartz", List.of(
+                    BOOT + "quartz.QuartzAutoConfiguration",
+                    ACTUATE + "quartz.QuartzEndpointAutoConfiguration"),
+            "websocket", List.of(
+                    BOOT + "websocket.servlet.WebSocketServletAutoConfiguration",
+                    BOOT + "websocket.servlet.WebSocketMessagingAutoConfiguration"),
+            "clients", List.of(
+                    "org.springframework.cloud.openfeign.FeignAutoConfiguration"));
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        List<String> disabled = new ArrayList<>();
+        AUTO_CONFIGURATIONS.keySet().stream().sorted().forEach(feature -> {
+            if (!environment.getProperty("app.feature." + feature + ".enabled", Boolean.class, true)) {
+                disabled.add(feature);
+            }
+        });
+        if (disabled.isEmpty()) {
+            return;
+        }
+        Set<String> excludes = new LinkedHashSet<>(Binder.get(environment)
+                .bind(EXCLUDE, Bindable.listOf(String.class))
+                .orElse(List.of()));
+        disabled.forEach(feature -> excludes.addAll(AUTO_CONFIGURATIONS.get(feature)));
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put(EXCLUDE, String.join(",", excludes));
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE, properties));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.complexapp.config;
+
+import com.example.complexapp.monitoring.CacheOperationEvent;
+import com.example.complexapp.web.RequestTiming;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Adds the time spent in cache reads, writes and evictions to the request's
+ * {@code cache} {@link RequestTiming} phase and records each as a
+ * {@link CacheOperationEvent}. A value loader run on a miss is not cache time and is left
+ * out of the phase (the event spans it); the asynchronous {@code retrieve} variants are
+ * passed through.
+ */
+class TimedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    TimedCacheManager(CacheManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache == null) {
+            Cache target = delegate.getCache(name);
+            if (target == null) {
+                return null;
+            }
+            cache = caches.computeIfAbsent(name, key -> new TimedCache(target));
+        }
+        return cache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private static final class TimedCache implements Cache {
+
+        private final Cache delegate;
+
+        TimedCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            CacheOperationEvent event = begin();
+            long start = System.nanoTime();
+            ValueWrapper value = null;
+            try {
+                value = delegate.get(key);
+                return value;
+            } finally {
+                finish(event, "get", value != null, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            CacheOperationEvent event = begin();
+            long start = System.nanoTime();
+            T value = null;
+            try {
+                value = delegate.get(key, type);
+                return value;
+            } finally {
+                finish(event, "get", value != null, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            CacheOperationEvent event = begin();
+            // Stays negative unless the loader runs, i.e. on a hit
+            long[] loading = {-1};
+            long start = System.nanoTime();
+            try {
+                return delegate.get(key, () -> {
+                    long loadStart = System.nanoTime();
+                    try {
+                        return valueLoader.call();
+                    } finally {
+                        loading[0] = System.nanoTime() - loadStart;
+                    }
+                });
+            } finally {
+                finish(event, "get", loading[0] < 0, System.nanoTime() - start - Math.max(0, loading[0]));
+            }
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return delegate.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return delegate.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            CacheOperationEvent event = begin();
+            long start = System.nanoTime();
+            try {
+                delegate.put(key, value);
+            } finally {
+                finish(event, "put", false, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            CacheOperationEvent event = begin();
+            long start = System.nanoTime();
+            ValueWrapper existing = null;
+            try {
+                existing = delegate.putIfAbsent(key, value);
+                return existing;
+            } finally {
+                finish(event, "put", existing != null, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void evict(Object key) {
+            CacheOperationEvent event = begin();
+            long start = System.nanoTime();
+            try {
+                delegate.evict(key);
+            } finally {
+                finish(event, "evict", false, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            CacheOperationEvent event = begin();
+            long start = System.nanoTime();
+            boolean present = false;
+            try {
+                present = delegate.evictIfPresent(key);
+                return present;
+            } finally {
+                finish(event, "evict", present, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public boolean invalidate() {
+            return delegate.invalidate();
+        }
+
+        private static CacheOperationEvent begin() {
+            CacheOperationEvent event = new CacheOperationEvent();
+            event.begin();
+            return event;
+        }
+
+        private void finish(CacheOperationEvent event, String operation, boolean hit, long cacheNanos) {
+            RequestTiming.record(RequestTiming.Phase.CACHE, cacheNanos);
+            event.cache = delegate.getName();
+            event.operation = operation;
+            event.hit = hit;
+            event.attributeAndCommit();
+        }
+    }
+}
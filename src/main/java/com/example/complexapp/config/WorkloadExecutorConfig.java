@@ -0,0 +1,183 @@
+package com.example.complexapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bounded thread pool per kind of background work, so a mail campaign or a nightly
+ * archive run can't starve event handling. Route work with {@code @Async(EMAIL)} and so
+ * on; unqualified {@code @Async} keeps running on Spring Boot's application task executor,
+ * which uses virtual threads when {@code spring.threads.virtual.enabled} is on. Declaring
+ * these pools makes Boot back off from that executor, so it is declared here the way Boot
+ * would build it.
+ *
+ * <p>Each pool is sized under {@code app.executors.<workload>} with {@code core-size},
+ * {@code max-size}, {@code queue-capacity}, {@code keep-alive-seconds} and
+ * {@code rejection} ({@code abort}, {@code caller-runs}, {@code discard} or {@code wait},
+ * which blocks the submitter for up to {@code rejection-wait-ms} and then aborts). Spring Boot
+ * binds the pool gauges ({@code executor.active}, {@code executor.queued},
+ * {@code executor.pool.size}, ...) tagged {@code name=<workload>}; this class adds the
+ * {@code executor.idle} (queue wait) and {@code executor} (run time) timers and the
+ * {@code executor.rejected} counter under the same tag.
+ */
+@Configuration
+@Slf4j
+public class WorkloadExecutorConfig implements AsyncConfigurer {
+
+    public static final String EMAIL = "emailExecutor";
+    public static final String EVENTS = "eventsExecutor";
+    public static final String INDEXING = "indexingExecutor";
+    public static final String MAINTENANCE = "maintenanceExecutor";
+
+    private final Executor applicationTaskExecutor;
+
+    public WorkloadExecutorConfig(@Lazy @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                  Executor applicationTaskExecutor) {
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
+
+    // Also serves Spring MVC async requests; configured under spring.task.execution as usual
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(Environment environment,
+                                                     ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder,
+                                                     SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder) {
+        return Threading.VIRTUAL.isActive(environment)
+                ? simpleAsyncTaskExecutorBuilder.build()
+                : threadPoolTaskExecutorBuilder.build();
+    }
+
+    // Campaigns are long and block while the mail queue is full; callers are told when the pool is full
+    @Bean(EMAIL)
+    public ThreadPoolTaskExecutor emailExecutor(Environment environment, MeterRegistry meterRegistry) {
+        return workloadExecutor("email", 1, 2, 20, Rejection.ABORT, environment, meterRegistry);
+    }
+
+    // Runs the domain-event handler lanes; a full pool makes the Kafka poll loop wait briefly, then park the
+    // lane and pause, so handlers never run on the poll thread
+    @Bean(EVENTS)
+    public ThreadPoolTaskExecutor eventsExecutor(Environment environment, MeterRegistry meterRegistry) {
+        return workloadExecutor("events", 16, 16, 1000, Rejection.WAIT, environment, meterRegistry);
+    }
+
+    // Reserved for search indexing; idle threads time out, so it costs nothing until used
+    @Bean(INDEXING)
+    public ThreadPoolTaskExecutor indexingExecutor(Environment environment, MeterRegistry meterRegistry) {
+        return workloadExecutor("indexing", 2, 4, 500, Rejection.CALLER_RUNS, environment, meterRegistry);
+    }
+
+    // Purges and archive runs; a run that finds the pool full is skipped and the next schedule catches up
+    @Bean(MAINTENANCE)
+    public ThreadPoolTaskExecutor maintenanceExecutor(Environment environment, MeterRegistry meterRegistry) {
+        return workloadExecutor("maintenance", 1, 2, 10, Rejection.DISCARD, environment, meterRegistry);
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return applicationTaskExecutor;
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) ->
+                log.error("Async task {}.{} failed", method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+    }
+
+    private static ThreadPoolTaskExecutor workloadExecutor(String workload, int coreSize, int maxSize, int queueCapacity,
+                                                           Rejection rejection, Environment environment,
+                                                           MeterRegistry meterRegistry) {
+        String prefix = "app.executors." + workload + ".";
+        int core = environment.getProperty(prefix + "core-size", Integer.class, coreSize);
+        Rejection policy = Rejection.valueOf(environment.getProperty(prefix + "rejection", rejection.name())
+                .toUpperCase(Locale.ROOT).replace('-', '_'));
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(workload + "-");
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(Math.max(core, environment.getProperty(prefix + "max-size", Integer.class, maxSize)));
+        executor.setQueueCapacity(environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity));
+        executor.setKeepAliveSeconds(environment.getProperty(prefix + "keep-alive-seconds", Integer.class, 60));
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setTaskDecorator(timed(workload, meterRegistry));
+        executor.setRejectedExecutionHandler(counted(workload, policy,
+                environment.getProperty(prefix + "rejection-wait-ms", Long.class, 1000L), meterRegistry));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    private static TaskDecorator timed(String workload, MeterRegistry meterRegistry) {
+        Timer waitTimer = Timer.builder("executor.idle").tag("name", workload).register(meterRegistry);
+        Timer runTimer = Timer.builder("executor").tag("name", workload).register(meterRegistry);
+        // Decoration happens at submission, so the wrapper sees both the enqueue and the start time
+        return task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    runTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+
+    private static RejectedExecutionHandler counted(String workload, Rejection policy, long waitMillis,
+                                                    MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("executor.rejected").tag("name", workload).register(meterRegistry);
+        RejectedExecutionHandler delegate = switch (policy) {
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD -> (task, pool) -> log.warn("Discarded {} task, pool and queue are full", workload);
+            case WAIT -> waitForRoom(workload, waitMillis);
+        };
+        return (task, pool) -> {
+            rejected.increment();
+            delegate.rejectedExecution(task, pool);
+        };
+    }
+
+    private static RejectedExecutionHandler waitForRoom(String workload, long waitMillis) {
+        return (task, pool) -> {
+            try {
+                if (!pool.isShutdown() && pool.getQueue().offer(task, waitMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RejectedExecutionException("No room in the " + workload + " pool after " + waitMillis + " ms");
+        };
+    }
+
+    enum Rejection {
+        ABORT, CALLER_RUNS, DISCARD, WAIT
+    }
+}
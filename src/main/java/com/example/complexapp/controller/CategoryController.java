@@ -0,0 +1,144 @@
+package com.example.complexapp.controller;
+
+import com.example.complexapp.domain.Category;
+import com.example.complexapp.domain.Product;
+import com.example.complexapp.dto.CategoryRequestDto;
+import com.example.complexapp.dto.ProductSummaryDto;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.service.CategoryService;
+import com.example.complexapp.service.CategoryTreeService;
+import com.example.complexapp.service.CategoryTreeSnapshot;
+import com.example.complexapp.service.VersionFingerprint;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/categories")
+@RequiredArgsConstructor
+@Tag(name = "Categories", description = "Category tree APIs")
+public class CategoryController {
+
+    private final CategoryTreeService categoryTreeService;
+    private final CategoryService categoryService;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get category", description = "Get a category with its rolled-up product count")
+    public ResponseEntity<CategoryTreeSnapshot.Node> getCategory(@PathVariable Long id) {
+        String eTag = treeETag();
+        return ResponseEntity.ok().eTag(eTag).body(categoryTreeService.getNode(id));
+    }
+
+    @GetMapping("/slug/{slug}")
+    @Operation(summary = "Get category by slug", description = "Resolve a category from its URL slug")
+    public ResponseEntity<CategoryTreeSnapshot.Node> getCategoryBySlug(@PathVariable String slug) {
+        String eTag = treeETag();
+        return ResponseEntity.ok().eTag(eTag).body(categoryTreeService.getNodeBySlug(slug));
+    }
+
+    @GetMapping("/{id}/children")
+    @Operation(summary = "Get child categories", description = "Get the direct children of a category")
+    public ResponseEntity<List<CategoryTreeSnapshot.Node>> getChildren(@PathVariable Long id) {
+        String eTag = treeETag();
+        return ResponseEntity.ok().eTag(eTag)
+                .body(categoryTreeService.getSnapshot().getChildren(categoryTreeService.getNode(id).id()));
+    }
+
+    @GetMapping("/{id}/breadcrumbs")
+    @Operation(summary = "Get breadcrumbs", description = "Get the path from the root to a category")
+    public ResponseEntity<List<CategoryTreeSnapshot.Node>> getBreadcrumbs(@PathVariable Long id) {
+        String eTag = treeETag();
+        return ResponseEntity.ok().eTag(eTag).body(categoryTreeService.getBreadcrumbs(id));
+    }
+
+    @GetMapping("/{id}/products")
+    @Operation(summary = "Get products in category", description = "Get active products in a category and all of its subcategories")
+    public ResponseEntity<Page<ProductSummaryDto>> getProducts(@PathVariable Long id, Pageable pageable) {
+        VersionFingerprint fingerprint = new VersionFingerprint().add(categoryTreeService.getSnapshot().getFingerprint());
+        Page<Product> products = categoryTreeService.getProductsInSubtree(id, pageable);
+        fingerprint.add(products.getTotalElements()).add(products.getNumber()).add(products.getSize());
+        for (Product product : products) {
+            // Stock and rating columns are bulk-updated without bumping @Version
+            fingerprint.add(product.getId()).add(product.getVersion())
+                    .add(product.getStockQuantity()).add(product.getRatingCount()).add(product.getRatingAverage());
+        }
+        return ResponseEntity.ok().eTag(fingerprint.toETag()).body(products.map(ProductSummaryDto::from));
+    }
+
+    // /api/categories/** is open for catalog reads, so writes check the role here. Each write
+    // rebuilds the snapshot after commit, so the returned node already reflects it.
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Create category", description = "Create a category, optionally below a parent")
+    public ResponseEntity<CategoryTreeSnapshot.Node> createCategory(@Valid @RequestBody CategoryRequestDto request) {
+        try {
+            Category category = categoryService.createCategory(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(categoryTreeService.getNode(category.getId()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Update category", description = "Change a category's name, slug, description, image, status or sort order")
+    public ResponseEntity<CategoryTreeSnapshot.Node> updateCategory(@PathVariable Long id,
+                                                                    @Valid @RequestBody CategoryRequestDto request) {
+        try {
+            categoryService.updateCategory(id, request);
+            return ResponseEntity.ok(categoryTreeService.getNode(id));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/{id}/parent")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Move category", description = "Move a category below another one, or to the top level without a parentId; 400 if that would create a cycle")
+    public ResponseEntity<CategoryTreeSnapshot.Node> moveCategory(@PathVariable Long id,
+                                                                  @RequestParam(required = false) Long parentId) {
+        try {
+            categoryService.moveCategory(id, parentId);
+            return ResponseEntity.ok(categoryTreeService.getNode(id));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Delete category", description = "Delete a category and its subcategories")
+    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
+        try {
+            categoryService.deleteCategory(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Taken before the body is read: a tree swapped in between leaves an older tag on newer
+    // content, which only costs a full response on the next revalidation, never a stale 304
+    private String treeETag() {
+        return new VersionFingerprint().add(categoryTreeService.getSnapshot().getFingerprint()).toETag();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.complexapp.controller;
+
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.dto.CheckoutRequestDto;
+import com.example.complexapp.dto.OrderSummaryDto;
+import com.example.complexapp.dto.OrderTransitionRequestDto;
+import com.example.complexapp.dto.OrderTransitionResultDto;
+import com.example.complexapp.dto.PaymentCallbackDto;
+import com.example.complexapp.exception.IdempotencyConflictException;
+import com.example.complexapp.exception.InsufficientStockException;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.security.UserPrincipal;
+import com.example.complexapp.service.CheckoutPipeline;
+import com.example.complexapp.service.IdempotencyService;
+import com.example.complexapp.service.OrderLifecycleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Orders", description = "Order management APIs")
+public class OrderController {
+
+    private final OrderLifecycleService orderLifecycleService;
+    private final CheckoutPipeline checkoutPipeline;
+    private final IdempotencyService idempotencyService;
+
+    @PostMapping
+    @Operation(summary = "Place order", description = "Place an order; stock is decremented atomically. " +
+            "Retries carrying the same Idempotency-Key replay the original response.")
+    public CompletableFuture<ResponseEntity<OrderSummaryDto>> placeOrder(@AuthenticationPrincipal UserPrincipal principal,
+                                                                         @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                                         @Valid @RequestBody CheckoutRequestDto request) {
+        request.setUserId(principal.getId());
+        CompletableFuture<ResponseEntity<OrderSummaryDto>> result = idempotencyKey == null
+                ? submitCheckout(request)
+                // Keys are chosen by clients, so scope them per user
+                : idempotencyService.executeAsync(IdempotencyService.ORDER_CREATION, principal.getId() + ":" + idempotencyKey,
+                        request, OrderSummaryDto.class, () -> submitCheckout(request));
+        return result.exceptionally(this::checkoutFailure);
+    }
+
+    @PostMapping("/payment-callbacks")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Payment callback", description = "Record a payment outcome; repeated deliveries of a transaction id are replayed")
+    public ResponseEntity<OrderTransitionResultDto> paymentCallback(@Valid @RequestBody PaymentCallbackDto callback) {
+        try {
+            return idempotencyService.execute(IdempotencyService.PAYMENT_CALLBACK, callback.getPaymentTransactionId(),
+                    callback, OrderTransitionResultDto.class,
+                    () -> toResponse(orderLifecycleService.recordPayment(callback)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/{orderId}/transitions/{transition}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Transition order", description = "Apply a lifecycle transition; 409 if the order is not in an allowed state")
+    public ResponseEntity<OrderTransitionResultDto> transition(@PathVariable Long orderId,
+                                                               @PathVariable OrderTransition transition,
+                                                               @Valid @RequestBody(required = false) OrderTransitionRequestDto request) {
+        return toResponse(orderLifecycleService.transition(orderId, transition,
+                request != null ? request : new OrderTransitionRequestDto()));
+    }
+
+    private CompletableFuture<ResponseEntity<OrderSummaryDto>> submitCheckout(CheckoutRequestDto request) {
+        return checkoutPipeline.submit(request)
+                .thenApply(order -> ResponseEntity.status(HttpStatus.CREATED).body(OrderSummaryDto.from(order)));
+    }
+
+    private ResponseEntity<OrderTransitionResultDto> toResponse(OrderTransitionResultDto result) {
+        return switch (result.getOutcome()) {
+            case APPLIED -> ResponseEntity.ok(result);
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+        };
+    }
+
+    private ResponseEntity<OrderSummaryDto> checkoutFailure(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof InsufficientStockException || cause instanceof IdempotencyConflictException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (cause instanceof ResourceNotFoundException) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        log.error("Checkout failed", cause);
+        return ResponseEntity.internalServerError().build();
+    }
+}
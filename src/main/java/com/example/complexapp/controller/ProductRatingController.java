@@ -0,0 +1,45 @@
+package com.example.complexapp.controller;
+
+import com.example.complexapp.dto.RatingDistributionDto;
+import com.example.complexapp.service.ProductRatingService;
+import com.example.complexapp.service.VersionFingerprint;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+@Tag(name = "Product Ratings", description = "Product rating distribution APIs")
+public class ProductRatingController {
+
+    private final ProductRatingService productRatingService;
+
+    @GetMapping("/{productId}/ratings")
+    @Operation(summary = "Rating distribution", description = "Get the star distribution and average rating of a product")
+    public ResponseEntity<RatingDistributionDto> getRatingDistribution(@PathVariable Long productId) {
+        RatingDistributionDto distribution = productRatingService.getDistribution(productId);
+        return ResponseEntity.ok().eTag(eTag(List.of(distribution))).body(distribution);
+    }
+
+    @GetMapping("/ratings")
+    @Operation(summary = "Rating distributions", description = "Get rating distributions for several products at once")
+    public ResponseEntity<List<RatingDistributionDto>> getRatingDistributions(@RequestParam List<Long> ids) {
+        List<RatingDistributionDto> distributions = productRatingService.getDistributions(ids);
+        return ResponseEntity.ok().eTag(eTag(distributions)).body(distributions);
+    }
+
+    private static String eTag(List<RatingDistributionDto> distributions) {
+        VersionFingerprint fingerprint = new VersionFingerprint();
+        distributions.forEach(distribution -> fingerprint.add(distribution.getProductId()).add(distribution.getVersion()));
+        return fingerprint.toETag();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.complexapp.controller;
+
+import com.example.complexapp.dto.ProductReviewDto;
+import com.example.complexapp.dto.ProductReviewRequestDto;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.security.UserPrincipal;
+import com.example.complexapp.service.ProductReviewService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+@Tag(name = "Product Reviews", description = "Product review APIs")
+public class ProductReviewController {
+
+    private final ProductReviewService productReviewService;
+
+    // /api/products/** is open for catalog reads, so writes check authentication here
+    @PostMapping("/{productId}/reviews")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Add review", description = "Review a product; the rating summary catches up within a flush interval")
+    public ResponseEntity<ProductReviewDto> addReview(@AuthenticationPrincipal UserPrincipal principal,
+                                                      @PathVariable Long productId,
+                                                      @Valid @RequestBody ProductReviewRequestDto request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ProductReviewDto.from(productReviewService.addReview(productId, principal.getId(), request)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/reviews/{reviewId}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Update review", description = "Change the rating or text of your own review")
+    public ResponseEntity<ProductReviewDto> updateReview(@AuthenticationPrincipal UserPrincipal principal,
+                                                         @PathVariable Long reviewId,
+                                                         @Valid @RequestBody ProductReviewRequestDto request) {
+        try {
+            return ResponseEntity.ok(ProductReviewDto.from(productReviewService.updateReview(reviewId, principal.getId(), request)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/reviews/{reviewId}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Delete review", description = "Delete your own review; moderators and admins may delete any review")
+    public ResponseEntity<Void> deleteReview(@AuthenticationPrincipal UserPrincipal principal,
+                                             @PathVariable Long reviewId) {
+        boolean moderator = principal.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN")
+                        || authority.getAuthority().equals("ROLE_MODERATOR"));
+        try {
+            productReviewService.deleteReview(reviewId, principal.getId(), moderator);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.complexapp.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock one application instance has taken out of {@code products.stock_quantity} and not
+ * yet sold, whether it is still unreserved in that instance's ledger or held by an open
+ * reservation. Owners renew {@code expires_at} while they run; rows of an owner that stopped
+ * renewing are returned to stock by whichever instance sweeps them first.
+ */
+@Entity
+@Table(name = "inventory_leases",
+    uniqueConstraints = @UniqueConstraint(name = "uk_inventory_lease_owner_sku", columnNames = {"owner_id", "sku"}),
+    indexes = @Index(name = "idx_inventory_lease_expires", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryLease {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false, length = 36)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private String sku;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -6,7 +6,9 @@ import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,6 +16,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
 @Table(name = "orders", indexes = {
@@ -28,8 +31,10 @@ import java.util.List;
 @AllArgsConstructor
 public class Order {
 
+    // Pooled sequence ids (unlike IDENTITY) let Hibernate batch order inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", unique = true, nullable = false)
@@ -38,6 +43,9 @@ public class Order {
     @NotNull(message = "User is required")
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    // Excluded so hashing an order (e.g. in Hibernate's dirty check) never walks into the user's lazy orders
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private User user;
 
     @Enumerated(EnumType.STRING)
@@ -110,9 +118,16 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>();
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // Read-only view; new entries go through OrderEventLogService so this list is never loaded to append
+    @OneToMany(mappedBy = "order", fetch = FetchType.LAZY)
+    @OrderBy("sequenceNumber ASC")
     private List<OrderHistory> orderHistory = new ArrayList<>();
 
+    // Only the UPDATEs that claim sequence numbers advance it; an entity save never writes back a stale copy
+    @Column(name = "history_sequence", nullable = false, updatable = false)
+    @Builder.Default
+    private Long historySequence = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -151,7 +166,7 @@ public class Order {
     }
 
     private String generateOrderNumber() {
-        return "ORD-" + System.currentTimeMillis() + "-" + (int)(Math.random() * 1000);
+        return "ORD-" + System.currentTimeMillis() + "-" + ThreadLocalRandom.current().nextInt(100000, 1000000);
     }
 
     public void calculateTotals() {
@@ -178,11 +193,14 @@ public class Order {
     }
 
     public boolean canBeCancelled() {
-        return status == OrderStatus.PENDING || status == OrderStatus.CONFIRMED;
+        return canApply(OrderTransition.CANCEL);
     }
 
     public boolean canBeRefunded() {
-        return paymentStatus == PaymentStatus.PAID && 
-               (status == OrderStatus.DELIVERED || status == OrderStatus.SHIPPED);
+        return canApply(OrderTransition.REFUND);
+    }
+
+    public boolean canApply(OrderTransition transition) {
+        return transition.isAllowedFrom(status, paymentStatus, shippingStatus);
     }
 }
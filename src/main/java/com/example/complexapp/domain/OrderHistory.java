@@ -4,26 +4,37 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "order_history")
+@Table(name = "order_history",
+    uniqueConstraints = @UniqueConstraint(name = "uk_order_history_sequence", columnNames = {"order_id", "sequence_number"}),
+    indexes = @Index(name = "idx_order_history_created", columnList = "created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class OrderHistory {
     
+    // Sequence ids (unlike IDENTITY) let Hibernate batch history inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_history_seq")
+    @SequenceGenerator(name = "order_history_seq", sequenceName = "order_history_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Order order;
     
+    @Column(name = "sequence_number")
+    private Long sequenceNumber;
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private OrderStatus status;
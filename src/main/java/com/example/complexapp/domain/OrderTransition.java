@@ -0,0 +1,102 @@
+package com.example.complexapp.domain;
+
+import com.example.complexapp.domain.Order.OrderStatus;
+import com.example.complexapp.domain.Order.PaymentStatus;
+import com.example.complexapp.domain.Order.ShippingStatus;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Transition table for the order lifecycle. Each entry lists the statuses it may start
+ * from and the statuses it sets; a null target leaves that column unchanged.
+ */
+public enum OrderTransition {
+
+    CONFIRM(EnumSet.of(OrderStatus.PENDING), anyPayment(), anyShipping(),
+            OrderStatus.CONFIRMED, null, null),
+    MARK_PAID(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING),
+            EnumSet.of(PaymentStatus.PENDING, PaymentStatus.FAILED), anyShipping(),
+            null, PaymentStatus.PAID, null),
+    PAYMENT_FAILED(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED),
+            EnumSet.of(PaymentStatus.PENDING), anyShipping(),
+            null, PaymentStatus.FAILED, null),
+    START_PROCESSING(EnumSet.of(OrderStatus.CONFIRMED), EnumSet.of(PaymentStatus.PAID),
+            EnumSet.of(ShippingStatus.PENDING),
+            OrderStatus.PROCESSING, null, ShippingStatus.PROCESSING),
+    SHIP(EnumSet.of(OrderStatus.PROCESSING), EnumSet.of(PaymentStatus.PAID),
+            EnumSet.of(ShippingStatus.PENDING, ShippingStatus.PROCESSING),
+            OrderStatus.SHIPPED, null, ShippingStatus.SHIPPED),
+    DELIVER(EnumSet.of(OrderStatus.SHIPPED), anyPayment(), EnumSet.of(ShippingStatus.SHIPPED),
+            OrderStatus.DELIVERED, null, ShippingStatus.DELIVERED),
+    MARK_LOST(EnumSet.of(OrderStatus.SHIPPED), anyPayment(), EnumSet.of(ShippingStatus.SHIPPED),
+            null, null, ShippingStatus.LOST),
+    RETURN(EnumSet.of(OrderStatus.DELIVERED), anyPayment(), EnumSet.of(ShippingStatus.DELIVERED),
+            null, null, ShippingStatus.RETURNED),
+    CANCEL(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED), anyPayment(), anyShipping(),
+            OrderStatus.CANCELLED, null, null),
+    REFUND(EnumSet.of(OrderStatus.SHIPPED, OrderStatus.DELIVERED), EnumSet.of(PaymentStatus.PAID), anyShipping(),
+            OrderStatus.REFUNDED, PaymentStatus.REFUNDED, null),
+    PARTIAL_REFUND(EnumSet.of(OrderStatus.SHIPPED, OrderStatus.DELIVERED),
+            EnumSet.of(PaymentStatus.PAID, PaymentStatus.PARTIALLY_REFUNDED), anyShipping(),
+            null, PaymentStatus.PARTIALLY_REFUNDED, null);
+
+    private final Set<OrderStatus> fromStatuses;
+    private final Set<PaymentStatus> fromPaymentStatuses;
+    private final Set<ShippingStatus> fromShippingStatuses;
+    private final OrderStatus targetStatus;
+    private final PaymentStatus targetPaymentStatus;
+    private final ShippingStatus targetShippingStatus;
+
+    OrderTransition(Set<OrderStatus> fromStatuses,
+                    Set<PaymentStatus> fromPaymentStatuses,
+                    Set<ShippingStatus> fromShippingStatuses,
+                    OrderStatus targetStatus,
+                    PaymentStatus targetPaymentStatus,
+                    ShippingStatus targetShippingStatus) {
+        this.fromStatuses = fromStatuses;
+        this.fromPaymentStatuses = fromPaymentStatuses;
+        this.fromShippingStatuses = fromShippingStatuses;
+        this.targetStatus = targetStatus;
+        this.targetPaymentStatus = targetPaymentStatus;
+        this.targetShippingStatus = targetShippingStatus;
+    }
+
+    public Set<OrderStatus> getFromStatuses() {
+        return fromStatuses;
+    }
+
+    public Set<PaymentStatus> getFromPaymentStatuses() {
+        return fromPaymentStatuses;
+    }
+
+    public Set<ShippingStatus> getFromShippingStatuses() {
+        return fromShippingStatuses;
+    }
+
+    public OrderStatus getTargetStatus() {
+        return targetStatus;
+    }
+
+    public PaymentStatus getTargetPaymentStatus() {
+        return targetPaymentStatus;
+    }
+
+    public ShippingStatus getTargetShippingStatus() {
+        return targetShippingStatus;
+    }
+
+    public boolean isAllowedFrom(OrderStatus status, PaymentStatus paymentStatus, ShippingStatus shippingStatus) {
+        return fromStatuses.contains(status)
+                && fromPaymentStatuses.contains(paymentStatus)
+                && fromShippingStatuses.contains(shippingStatus);
+    }
+
+    private static Set<PaymentStatus> anyPayment() {
+        return EnumSet.allOf(PaymentStatus.class);
+    }
+
+    private static Set<ShippingStatus> anyShipping() {
+        return EnumSet.allOf(ShippingStatus.class);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.complexapp.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain event waiting to be published. Rows are written in the same transaction as
+ * the change they describe and deleted by the relay once Kafka has acknowledged them.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_created", columnList = "created_at"),
+    @Index(name = "idx_outbox_aggregate", columnList = "topic, aggregate_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    // Sequence ids keep relay order stable and let Hibernate batch event inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+
+    // Used as the Kafka record key, so all events of one aggregate land on one partition in order
+    @Column(name = "aggregate_id", nullable = false, length = 100)
+    private String aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(nullable = false)
+    private String topic;
+
+    // Encoded with messaging.EventCodec; events are a few dozen bytes
+    @Column(nullable = false, length = 4096)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a relay is sending the event; a relay that dies mid-send leaves it to expire
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -190,12 +190,8 @@ public class Product {
     }
 
     public void updateRating(double newRating) {
-        if (ratingCount == 0) {
-            ratingAverage = newRating;
-        } else {
-            double totalRating = ratingAverage * ratingCount + newRating;
-            ratingCount++;
-            ratingAverage = totalRating / ratingCount;
-        }
+        double totalRating = ratingAverage * ratingCount + newRating;
+        ratingCount++;
+        ratingAverage = totalRating / ratingCount;
     }
 }
@@ -0,0 +1,65 @@
+package com.example.complexapp.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "product_rating_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRatingSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "star_1_count", nullable = false)
+    @Builder.Default
+    private long oneStarCount = 0;
+
+    @Column(name = "star_2_count", nullable = false)
+    @Builder.Default
+    private long twoStarCount = 0;
+
+    @Column(name = "star_3_count", nullable = false)
+    @Builder.Default
+    private long threeStarCount = 0;
+
+    @Column(name = "star_4_count", nullable = false)
+    @Builder.Default
+    private long fourStarCount = 0;
+
+    @Column(name = "star_5_count", nullable = false)
+    @Builder.Default
+    private long fiveStarCount = 0;
+
+    @Column(name = "rating_sum", nullable = false)
+    @Builder.Default
+    private long ratingSum = 0;
+
+    @Column(name = "rating_count", nullable = false)
+    @Builder.Default
+    private long ratingCount = 0;
+
+    @Column(name = "updated_at")
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @Version
+    private Long version;
+
+    public long[] getHistogram() {
+        return new long[] {oneStarCount, twoStarCount, threeStarCount, fourStarCount, fiveStarCount};
+    }
+
+    public double getAverage() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+    }
+}
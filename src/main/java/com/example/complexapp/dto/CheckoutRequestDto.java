@@ -0,0 +1,50 @@
+package com.example.complexapp.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequestDto {
+
+    // Set from the authenticated principal, never from the request body
+    private Long userId;
+
+    @NotEmpty(message = "At least one order line is required")
+    @Valid
+    private List<Line> lines;
+
+    @NotBlank(message = "Shipping address is required")
+    private String shippingAddress;
+
+    private String billingAddress;
+
+    private String paymentMethod;
+
+    private String notes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+
+        @NotBlank(message = "SKU is required")
+        private String sku;
+
+        @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be positive")
+        private Integer quantity;
+    }
+}
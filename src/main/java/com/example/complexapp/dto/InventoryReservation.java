@@ -0,0 +1,20 @@
+package com.example.complexapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.SortedMap;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservation {
+
+    private String reservationId;
+    private SortedMap<String, Integer> lines;
+    private Instant expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.example.complexapp.dto;
+
+import com.example.complexapp.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDto {
+
+    private Long orderId;
+    private OrderStatus status;
+    private String description;
+}
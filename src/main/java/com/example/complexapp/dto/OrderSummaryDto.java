@@ -0,0 +1,39 @@
+package com.example.complexapp.dto;
+
+import com.example.complexapp.domain.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDto {
+
+    private Long id;
+    private String orderNumber;
+    private Order.OrderStatus status;
+    private Order.PaymentStatus paymentStatus;
+    private BigDecimal totalAmount;
+    private String currency;
+    private int itemCount;
+    private LocalDateTime createdAt;
+
+    public static OrderSummaryDto from(Order order) {
+        return OrderSummaryDto.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .status(order.getStatus())
+                .paymentStatus(order.getPaymentStatus())
+                .totalAmount(order.getTotalAmount())
+                .currency(order.getCurrency())
+                .itemCount(order.getOrderItems().size())
+                .createdAt(order.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.complexapp.dto;
+
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTransitionRequestDto {
+
+    @Size(max = 255, message = "Description must not exceed 255 characters")
+    private String description;
+
+    private String shippingCarrier;
+
+    private String trackingNumber;
+
+    @Positive(message = "Refund amount must be positive")
+    private BigDecimal refundAmount;
+
+    @Size(max = 255, message = "Refund reason must not exceed 255 characters")
+    private String refundReason;
+
+    private String paymentTransactionId;
+}
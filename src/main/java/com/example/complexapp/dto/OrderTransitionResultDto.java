@@ -0,0 +1,31 @@
+package com.example.complexapp.dto;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderTransition;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTransitionResultDto {
+
+    private Long orderId;
+    private OrderTransition transition;
+    private Outcome outcome;
+    private Order.OrderStatus status;
+    private Order.PaymentStatus paymentStatus;
+    private Order.ShippingStatus shippingStatus;
+    private Long version;
+
+    public enum Outcome {
+        APPLIED, CONFLICT, NOT_FOUND
+    }
+
+    public boolean isApplied() {
+        return outcome == Outcome.APPLIED;
+    }
+}
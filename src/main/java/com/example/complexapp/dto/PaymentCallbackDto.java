@@ -0,0 +1,32 @@
+package com.example.complexapp.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCallbackDto {
+
+    @NotBlank(message = "Transaction id is required")
+    @Size(max = 255, message = "Transaction id must not exceed 255 characters")
+    private String paymentTransactionId;
+
+    @NotBlank(message = "Order number is required")
+    private String orderNumber;
+
+    @NotNull(message = "Outcome is required")
+    private Outcome outcome;
+
+    private String message;
+
+    public enum Outcome {
+        SUCCEEDED, FAILED
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.complexapp.dto;
+
+import com.example.complexapp.domain.ProductReview;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductReviewDto {
+
+    private Long id;
+    private Long productId;
+    private Long userId;
+    private Integer rating;
+    private String title;
+    private String comment;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static ProductReviewDto from(ProductReview review) {
+        return ProductReviewDto.builder()
+                .id(review.getId())
+                .productId(review.getProduct().getId())
+                .userId(review.getUser() != null ? review.getUser().getId() : null)
+                .rating(review.getRating())
+                .title(review.getTitle())
+                .comment(review.getComment())
+                .createdAt(review.getCreatedAt())
+                .updatedAt(review.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.complexapp.dto;
+
+import com.example.complexapp.domain.Product;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDto {
+
+    private Long id;
+    private String name;
+    private String sku;
+    private BigDecimal price;
+    private BigDecimal originalPrice;
+    private Integer stockQuantity;
+    private Double ratingAverage;
+    private Integer ratingCount;
+    private Long categoryId;
+
+    public static ProductSummaryDto from(Product product) {
+        return ProductSummaryDto.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .sku(product.getSku())
+                .price(product.getPrice())
+                .originalPrice(product.getOriginalPrice())
+                .stockQuantity(product.getStockQuantity())
+                .ratingAverage(product.getRatingAverage())
+                .ratingCount(product.getRatingCount())
+                .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
+                .build();
+    }
+}
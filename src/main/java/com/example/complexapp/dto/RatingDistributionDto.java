@@ -0,0 +1,25 @@
+package com.example.complexapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingDistributionDto {
+
+    private Long productId;
+    private double average;
+    private long count;
+    private Map<Integer, Long> distribution;
+
+    // Summary row version for the ETag; null when the product has no ratings yet
+    @JsonIgnore
+    private Long version;
+}
@@ -0,0 +1,12 @@
+package com.example.complexapp.event;
+
+/**
+ * Published, within the changing transaction, when data behind the public catalog routes
+ * changes, so cached catalog responses of that scope can be dropped once it commits.
+ */
+public record CatalogChangedEvent(Scope scope) {
+
+    public enum Scope {
+        CATEGORIES, PRODUCTS
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.complexapp.event;
+
+public record CategoryChangedEvent(Long categoryId, ChangeType changeType) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, MOVED, DELETED
+    }
+}
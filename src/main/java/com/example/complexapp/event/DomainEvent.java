@@ -0,0 +1,12 @@
+package com.example.complexapp.event;
+
+import java.time.Instant;
+
+/**
+ * Events published through the outbox. The set is closed so the binary codec in
+ * {@code messaging.EventCodec} can assign every type a stable wire id.
+ */
+public sealed interface DomainEvent permits OrderChangedEvent, UserChangedEvent, InventoryChangedEvent {
+
+    Instant occurredAt();
+}
@@ -0,0 +1,18 @@
+package com.example.complexapp.event;
+
+import java.time.Instant;
+
+public record InventoryChangedEvent(Long productId,
+                                    String sku,
+                                    ChangeType changeType,
+                                    Integer quantity,
+                                    Instant occurredAt) implements DomainEvent {
+
+    public enum ChangeType {
+        SOLD, RESTOCKED, ADJUSTED
+    }
+
+    public static InventoryChangedEvent sold(Long productId, String sku, int quantity) {
+        return new InventoryChangedEvent(productId, sku, ChangeType.SOLD, quantity, Instant.now());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.complexapp.event;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderTransition;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record OrderChangedEvent(Long orderId,
+                                String orderNumber,
+                                ChangeType changeType,
+                                OrderTransition transition,
+                                Order.OrderStatus status,
+                                Order.PaymentStatus paymentStatus,
+                                Order.ShippingStatus shippingStatus,
+                                BigDecimal totalAmount,
+                                Instant occurredAt) implements DomainEvent {
+
+    public enum ChangeType {
+        PLACED, TRANSITIONED
+    }
+
+    public static OrderChangedEvent placed(Order order) {
+        return new OrderChangedEvent(order.getId(), order.getOrderNumber(), ChangeType.PLACED, null,
+                order.getStatus(), order.getPaymentStatus(), order.getShippingStatus(), order.getTotalAmount(), Instant.now());
+    }
+}
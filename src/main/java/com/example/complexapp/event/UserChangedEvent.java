@@ -0,0 +1,23 @@
+package com.example.complexapp.event;
+
+import com.example.complexapp.domain.User;
+
+import java.time.Instant;
+
+public record UserChangedEvent(Long userId,
+                               ChangeType changeType,
+                               String username,
+                               String email,
+                               User.UserRole role,
+                               User.UserStatus status,
+                               Instant occurredAt) implements DomainEvent {
+
+    public enum ChangeType {
+        REGISTERED, UPDATED, ROLE_CHANGED, STATUS_CHANGED, DELETED
+    }
+
+    public static UserChangedEvent of(User user, ChangeType changeType) {
+        return new UserChangedEvent(user.getId(), changeType, user.getUsername(), user.getEmail(),
+                user.getRole(), user.getStatus(), Instant.now());
+    }
+}
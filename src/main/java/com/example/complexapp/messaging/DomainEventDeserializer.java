@@ -0,0 +1,12 @@
+package com.example.complexapp.messaging;
+
+import com.example.complexapp.event.DomainEvent;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class DomainEventDeserializer implements Deserializer<DomainEvent> {
+
+    @Override
+    public DomainEvent deserialize(String topic, byte[] payload) {
+        return payload != null ? EventCodec.decode(payload) : null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.complexapp.messaging;
+
+import com.example.complexapp.event.DomainEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class DomainEventSerializer implements Serializer<DomainEvent> {
+
+    @Override
+    public byte[] serialize(String topic, DomainEvent event) {
+        return event != null ? EventCodec.encode(event) : null;
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.complexapp.messaging;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.event.DomainEvent;
+import com.example.complexapp.event.InventoryChangedEvent;
+import com.example.complexapp.event.OrderChangedEvent;
+import com.example.complexapp.event.UserChangedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of {@link DomainEvent}s. A payload is
+ *
+ * <pre>
+ *   magic (1 byte) | type id (1 byte) | schema version (1 byte) | body length (varint) | body
+ * </pre>
+ *
+ * and a body is a presence bitmap (varint, bit n set when field n is not null) followed by
+ * the non-null fields in record component order. Integers are zig-zag varints, strings and
+ * big integers are length-prefixed, enums are written as their ordinal.
+ *
+ * <p>Schema evolution rules, which keep old and new readers and writers compatible:
+ * <ul>
+ *   <li>new fields are only ever appended; a reader leaves fields an older writer did not
+ *       know about as {@code null} and skips trailing fields a newer writer added;</li>
+ *   <li>fields are never removed or reordered, they are written as {@code null} instead;</li>
+ *   <li>enum constants are only ever appended, and consumers are deployed before producers
+ *       start emitting a new constant;</li>
+ *   <li>a change that breaks these rules needs a new type id.</li>
+ * </ul>
+ * {@link #SCHEMA_VERSION} is bumped with every appended field, so payloads can be told apart.
+ */
+public final class EventCodec {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    static final byte MAGIC = (byte) 0xCE;
+    static final int ORDER_CHANGED = 1;
+    static final int USER_CHANGED = 2;
+    static final int INVENTORY_CHANGED = 3;
+
+    private static final OrderChangedEvent.ChangeType[] ORDER_CHANGE_TYPES = OrderChangedEvent.ChangeType.values();
+    private static final OrderTransition[] TRANSITIONS = OrderTransition.values();
+    private static final Order.OrderStatus[] ORDER_STATUSES = Order.OrderStatus.values();
+    private static final Order.PaymentStatus[] PAYMENT_STATUSES = Order.PaymentStatus.values();
+    private static final Order.ShippingStatus[] SHIPPING_STATUSES = Order.ShippingStatus.values();
+    private static final UserChangedEvent.ChangeType[] USER_CHANGE_TYPES = UserChangedEvent.ChangeType.values();
+    private static final User.UserRole[] USER_ROLES = User.UserRole.values();
+    private static final User.UserStatus[] USER_STATUSES = User.UserStatus.values();
+    private static final InventoryChangedEvent.ChangeType[] INVENTORY_CHANGE_TYPES = InventoryChangedEvent.ChangeType.values();
+
+    private EventCodec() {
+    }
+
+    public static byte[] encode(DomainEvent event) {
+        Writer body = new Writer();
+        int type;
+        if (event instanceof OrderChangedEvent order) {
+            type = ORDER_CHANGED;
+            writeOrder(body, order);
+        } else if (event instanceof UserChangedEvent user) {
+            type = USER_CHANGED;
+            writeUser(body, user);
+        } else if (event instanceof InventoryChangedEvent inventory) {
+            type = INVENTORY_CHANGED;
+            writeInventory(body, inventory);
+        } else {
+            throw new SerializationException("No wire type for " + event.getClass().getName());
+        }
+        return body.withHeader(type);
+    }
+
+    public static DomainEvent decode(byte[] payload) {
+        if (payload.length < 4 || payload[0] != MAGIC) {
+            throw new SerializationException("Not an encoded domain event");
+        }
+        int type = payload[1] & 0xFF;
+        Reader header = new Reader(payload, 3, payload.length);
+        int bodyLength = (int) header.readUnsigned();
+        int bodyStart = header.position;
+        if (bodyLength < 0 || bodyStart + bodyLength > payload.length) {
+            throw new SerializationException("Truncated domain event payload");
+        }
+        // Reading is confined to the body, so trailing fields from a newer writer are skipped
+        Reader body = new Reader(payload, bodyStart, bodyStart + bodyLength);
+        return switch (type) {
+            case ORDER_CHANGED -> readOrder(body);
+            case USER_CHANGED -> readUser(body);
+            case INVENTORY_CHANGED -> readInventory(body);
+            default -> throw new SerializationException("Unknown domain event type " + type);
+        };
+    }
+
+    public static <T extends DomainEvent> T decode(byte[] payload, Class<T> type) {
+        DomainEvent event = decode(payload);
+        if (!type.isInstance(event)) {
+            throw new SerializationException("Expected " + type.getSimpleName() + " but got " + event.getClass().getSimpleName());
+        }
+        return type.cast(event);
+    }
+
+    private static void writeOrder(Writer w, OrderChangedEvent e) {
+        w.writeUnsigned(bit(0, e.orderId()) | bit(1, e.orderNumber()) | bit(2, e.changeType()) | bit(3, e.transition())
+                | bit(4, e.status()) | bit(5, e.paymentStatus()) | bit(6, e.shippingStatus()) | bit(7, e.totalAmount())
+                | bit(8, e.occurredAt()));
+        w.writeLong(e.orderId());
+        w.writeString(e.orderNumber());
+        w.writeEnum(e.changeType());
+        w.writeEnum(e.transition());
+        w.writeEnum(e.status());
+        w.writeEnum(e.paymentStatus());
+        w.writeEnum(e.shippingStatus());
+        w.writeDecimal(e.totalAmount());
+        w.writeInstant(e.occurredAt());
+    }
+
+    private static OrderChangedEvent readOrder(Reader r) {
+        long present = r.readUnsigned();
+        return new OrderChangedEvent(
+                has(present, 0) ? r.readLong() : null,
+                has(present, 1) ? r.readString() : null,
+                has(present, 2) ? r.readEnum(ORDER_CHANGE_TYPES) : null,
+                has(present, 3) ? r.readEnum(TRANSITIONS) : null,
+                has(present, 4) ? r.readEnum(ORDER_STATUSES) : null,
+                has(present, 5) ? r.readEnum(PAYMENT_STATUSES) : null,
+                has(present, 6) ? r.readEnum(SHIPPING_STATUSES) : null,
+                has(present, 7) ? r.readDecimal() : null,
+                has(present, 8) ? r.readInstant() : null);
+    }
+
+    private static void writeUser(Writer w, UserChangedEvent e) {
+        w.writeUnsigned(bit(0, e.userId()) | bit(1, e.changeType()) | bit(2, e.username()) | bit(3, e.email())
+                | bit(4, e.role()) | bit(5, e.status()) | bit(6, e.occurredAt()));
+        w.writeLong(e.userId());
+        w.writeEnum(e.changeType());
+        w.writeString(e.username());
+        w.writeString(e.email());
+        w.writeEnum(e.role());
+        w.writeEnum(e.status());
+        w.writeInstant(e.occurredAt());
+    }
+
+    private static UserChangedEvent readUser(Reader r) {
+        long present = r.readUnsigned();
+        return new UserChangedEvent(
+                has(present, 0) ? r.readLong() : null,
+                has(present, 1) ? r.readEnum(USER_CHANGE_TYPES) : null,
+                has(present, 2) ? r.readString() : null,
+                has(present, 3) ? r.readString() : null,
+                has(present, 4) ? r.readEnum(USER_ROLES) : null,
+                has(present, 5) ? r.readEnum(USER_STATUSES) : null,
+                has(present, 6) ? r.readInstant() : null);
+    }
+
+    private static void writeInventory(Writer w, InventoryChangedEvent e) {
+        w.writeUnsigned(bit(0, e.productId()) | bit(1, e.sku()) | bit(2, e.changeType()) | bit(3, e.quantity())
+                | bit(4, e.occurredAt()));
+        w.writeLong(e.productId());
+        w.writeString(e.sku());
+        w.writeEnum(e.changeType());
+        w.writeLong(e.quantity() != null ? e.quantity().longValue() : null);
+        w.writeInstant(e.occurredAt());
+    }
+
+    private static InventoryChangedEvent readInventory(Reader r) {
+        long present = r.readUnsigned();
+        return new InventoryChangedEvent(
+                has(present, 0) ? r.readLong() : null,
+                has(present, 1) ? r.readString() : null,
+                has(present, 2) ? r.readEnum(INVENTORY_CHANGE_TYPES) : null,
+                has(present, 3) ? Math.toIntExact(r.readLong()) : null,
+                has(present, 4) ? r.readInstant() : null);
+    }
+
+    private static long bit(int field, Object value) {
+        return value != null ? 1L << field : 0;
+    }
+
+    private static boolean has(long present, int field) {
+        return (present & (1L << field)) != 0;
+    }
+
+    /**
+     * Growable output buffer. Null values are skipped; the presence bitmap records them.
+     */
+    static final class Writer {
+
+        private static final int HEADER_MAX = 3 + 5;
+
+        // The header is written in front of the body once its length is known
+        private byte[] buffer = new byte[128];
+        private int position = HEADER_MAX;
+
+        void writeUnsigned(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(Long value) {
+            if (value != null) {
+                writeUnsigned((value << 1) ^ (value >> 63));
+            }
+        }
+
+        void writeString(String value) {
+            if (value != null) {
+                writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void writeEnum(Enum<?> value) {
+            if (value != null) {
+                writeUnsigned(value.ordinal());
+            }
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value != null) {
+                writeLong((long) value.scale());
+                writeBytes(value.unscaledValue().toByteArray());
+            }
+        }
+
+        void writeInstant(Instant value) {
+            if (value != null) {
+                writeLong(value.getEpochSecond());
+                writeUnsigned(value.getNano());
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeUnsigned(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        byte[] withHeader(int type) {
+            int bodyLength = position - HEADER_MAX;
+            int lengthBytes = 1;
+            for (int remaining = bodyLength >>> 7; remaining != 0; remaining >>>= 7) {
+                lengthBytes++;
+            }
+            int start = HEADER_MAX - 3 - lengthBytes;
+            int at = start;
+            buffer[at++] = MAGIC;
+            buffer[at++] = (byte) type;
+            buffer[at++] = (byte) SCHEMA_VERSION;
+            for (int value = bodyLength; ; value >>>= 7) {
+                if ((value & ~0x7F) == 0) {
+                    buffer[at] = (byte) value;
+                    break;
+                }
+                buffer[at++] = (byte) ((value & 0x7F) | 0x80);
+            }
+            return Arrays.copyOfRange(buffer, start, position);
+        }
+    }
+
+    static final class Reader {
+
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] data, int position, int limit) {
+            this.data = data;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        long readUnsigned() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in domain event payload");
+        }
+
+        long readLong() {
+            long raw = readUnsigned();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        <E extends Enum<E>> E readEnum(E[] constants) {
+            long ordinal = readUnsigned();
+            if (ordinal >= constants.length) {
+                throw new SerializationException("Unknown " + constants.getClass().getComponentType().getSimpleName()
+                        + " constant " + ordinal + "; consumers must be upgraded before producers");
+            }
+            return constants[(int) ordinal];
+        }
+
+        BigDecimal readDecimal() {
+            int scale = Math.toIntExact(readLong());
+            int length = readLength();
+            BigInteger unscaled = new BigInteger(data, position, length);
+            position += length;
+            return new BigDecimal(unscaled, scale);
+        }
+
+        Instant readInstant() {
+            long seconds = readLong();
+            return Instant.ofEpochSecond(seconds, readUnsigned());
+        }
+
+        private int readLength() {
+            long length = readUnsigned();
+            if (length > limit - position) {
+                throw new SerializationException("Truncated domain event payload");
+            }
+            return (int) length;
+        }
+
+        private byte next() {
+            if (position >= limit) {
+                throw new SerializationException("Truncated domain event payload");
+            }
+            return data[position++];
+        }
+    }
+}
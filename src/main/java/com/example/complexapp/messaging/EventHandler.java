@@ -0,0 +1,15 @@
+package com.example.complexapp.messaging;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Handles records of one topic for {@link KeyOrderedConsumer}. Records with the same key
+ * are handed over one at a time and in offset order; records with different keys may be
+ * handled concurrently, so implementations must be thread-safe.
+ */
+public interface EventHandler<V> {
+
+    String topic();
+
+    void handle(ConsumerRecord<String, V> record) throws Exception;
+}
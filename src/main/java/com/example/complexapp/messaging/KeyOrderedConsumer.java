@@ -0,0 +1,381 @@
+package com.example.complexapp.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Kafka consumer that orders work per record key instead of per partition. A single poll
+ * thread owns the {@link KafkaConsumer}; records are queued on a lane per key and lanes
+ * are drained on the handler executor, so one slow key only holds up itself. Offsets are
+ * committed per partition up to the longest completed prefix, never past unfinished work.
+ * When more than {@code maxInFlight} records are outstanding the partitions are paused
+ * (polling continues, so the group membership stays alive) until half of them finished.
+ * A lane the handler executor rejects is parked and the partitions stay paused until the
+ * executor takes it, so handlers never run on the poll thread.
+ *
+ * <p>Delivery is at-least-once: after a crash or rebalance, records past the committed
+ * offset are handled again.
+ */
+@Slf4j
+public class KeyOrderedConsumer<V> implements SmartLifecycle {
+
+    private final String name;
+    private final Map<String, Object> consumerProperties;
+    private final Deserializer<V> valueDeserializer;
+    private final Map<String, EventHandler<V>> handlers;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration revokeTimeout;
+
+    private final Map<String, ArrayDeque<ConsumerRecord<String, V>>> lanes = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, PartitionOffsetTracker> trackers = new ConcurrentHashMap<>();
+    // Lane drains the executor turned down; only touched by the poll thread
+    private final ArrayDeque<Runnable> parkedLanes = new ArrayDeque<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lag = new AtomicLong();
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Timer handlerTimer;
+
+    private volatile boolean running;
+    private KafkaConsumer<String, V> consumer;
+    private Thread pollThread;
+    private boolean paused;
+
+    public KeyOrderedConsumer(String name,
+                              Map<String, Object> consumerProperties,
+                              Deserializer<V> valueDeserializer,
+                              Collection<? extends EventHandler<V>> handlers,
+                              Executor executor,
+                              int maxInFlight,
+                              int maxAttempts,
+                              Duration retryBackoff,
+                              Duration revokeTimeout,
+                              MeterRegistry meterRegistry) {
+        this.name = name;
+        this.consumerProperties = new HashMap<>(consumerProperties);
+        this.consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // A poll never hands over more than the in-flight budget, which bounds the overshoot
+        this.consumerProperties.merge(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxInFlight,
+                (configured, budget) -> Math.min(Integer.parseInt(configured.toString()), (Integer) budget));
+        this.valueDeserializer = valueDeserializer;
+        this.handlers = new HashMap<>();
+        handlers.forEach(handler -> this.handlers.put(handler.topic(), handler));
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.revokeTimeout = revokeTimeout;
+
+        this.succeeded = meterRegistry.counter("events.consumer.records", "consumer", name, "outcome", "success");
+        this.failed = meterRegistry.counter("events.consumer.records", "consumer", name, "outcome", "failed");
+        this.handlerTimer = meterRegistry.timer("events.consumer.handler", "consumer", name);
+        Gauge.builder("events.consumer.in-flight", inFlight, AtomicInteger::get)
+                .tag("consumer", name)
+                .register(meterRegistry);
+        Gauge.builder("events.consumer.lag", lag, AtomicLong::get)
+                .tag("consumer", name)
+                .description("Records between the fetch position and the end of the assigned partitions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || handlers.isEmpty()) {
+            return;
+        }
+        consumer = new KafkaConsumer<>(consumerProperties, new StringDeserializer(), valueDeserializer);
+        running = true;
+        pollThread = new Thread(this::pollLoop, name + "-poller");
+        pollThread.start();
+        log.info("Started key-ordered consumer {} for topics {}", name, handlers.keySet());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        consumer.wakeup();
+        try {
+            pollThread.join(revokeTimeout.plusSeconds(5).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void pollLoop() {
+        try {
+            consumer.subscribe(handlers.keySet(), new RebalanceListener());
+            while (running) {
+                ConsumerRecords<String, V> records;
+                try {
+                    records = consumer.poll(Duration.ofMillis(100));
+                } catch (RecordDeserializationException e) {
+                    skipUndecodable(e);
+                    continue;
+                }
+                submitParkedLanes();
+                records.forEach(this::dispatch);
+                applyBackpressure();
+                commitCompleted(false);
+                updateLag();
+            }
+        } catch (WakeupException e) {
+            // stop() was called
+        } catch (Exception e) {
+            log.error("Consumer {} poll loop failed", name, e);
+        } finally {
+            try {
+                awaitOutstanding(trackers.keySet());
+                commitCompleted(true);
+            } catch (Exception e) {
+                log.warn("Consumer {} final commit failed: {}", name, e.getMessage());
+            }
+            consumer.close();
+            running = false;
+        }
+    }
+
+    /**
+     * A record that cannot be decoded would fail every poll; it is counted as failed and
+     * marked done so the committed offset moves past it.
+     */
+    private void skipUndecodable(RecordDeserializationException e) {
+        TopicPartition partition = e.topicPartition();
+        log.error("Consumer {} skipping undecodable record {}@{}", name, partition, e.offset(), e);
+        failed.increment();
+        PartitionOffsetTracker tracker = trackers.computeIfAbsent(partition, tp -> new PartitionOffsetTracker());
+        tracker.track(e.offset());
+        tracker.complete(e.offset());
+        consumer.seek(partition, e.offset() + 1);
+    }
+
+    private void dispatch(ConsumerRecord<String, V> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        trackers.computeIfAbsent(partition, tp -> new PartitionOffsetTracker()).track(record.offset());
+        inFlight.incrementAndGet();
+
+        // Records without a key keep plain partition order
+        String laneKey = record.topic() + "/" + (record.key() != null ? record.key() : "#" + record.partition());
+        AtomicBoolean idle = new AtomicBoolean();
+        lanes.compute(laneKey, (key, lane) -> {
+            if (lane == null) {
+                lane = new ArrayDeque<>();
+                idle.set(true);
+            }
+            lane.addLast(record);
+            return lane;
+        });
+        if (idle.get()) {
+            submit(() -> drainLane(laneKey, record));
+        }
+    }
+
+    private void submit(Runnable drain) {
+        if (parkedLanes.isEmpty()) {
+            try {
+                executor.execute(drain);
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("Consumer {} handler executor is full, parking lanes: {}", name, e.getMessage());
+            }
+        }
+        parkedLanes.addLast(drain);
+    }
+
+    private void submitParkedLanes() {
+        while (!parkedLanes.isEmpty()) {
+            try {
+                executor.execute(parkedLanes.peekFirst());
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+            parkedLanes.pollFirst();
+        }
+    }
+
+    /**
+     * Handles the lane head by head. The head stays queued while it runs; removing it and
+     * picking the next one (or dropping the empty lane) is one atomic step, so a key never
+     * has two lanes at once.
+     */
+    private void drainLane(String laneKey, ConsumerRecord<String, V> first) {
+        AtomicReference<ConsumerRecord<String, V>> next = new AtomicReference<>(first);
+        while (next.get() != null) {
+            handle(next.getAndSet(null));
+            lanes.computeIfPresent(laneKey, (key, lane) -> {
+                lane.pollFirst();
+                next.set(lane.peekFirst());
+                return lane.isEmpty() ? null : lane;
+            });
+        }
+    }
+
+    private void handle(ConsumerRecord<String, V> record) {
+        EventHandler<V> handler = handlers.get(record.topic());
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    handlerTimer.recordCallable(() -> {
+                        handler.handle(record);
+                        return null;
+                    });
+                    succeeded.increment();
+                    break;
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts) {
+                        failed.increment();
+                        log.error("Consumer {} gave up on {}-{}@{} (key {}) after {} attempts",
+                                name, record.topic(), record.partition(), record.offset(), record.key(), attempt, e);
+                        break;
+                    }
+                    log.warn("Consumer {} attempt {} failed for {}-{}@{}: {}",
+                            name, attempt, record.topic(), record.partition(), record.offset(), e.getMessage());
+                    Thread.sleep(retryBackoff.toMillis() * attempt);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            PartitionOffsetTracker tracker = trackers.get(new TopicPartition(record.topic(), record.partition()));
+            if (tracker != null) {
+                tracker.complete(record.offset());
+            }
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void applyBackpressure() {
+        int outstanding = inFlight.get();
+        if (!paused && (outstanding >= maxInFlight || !parkedLanes.isEmpty())) {
+            consumer.pause(consumer.assignment());
+            paused = true;
+            log.debug("Consumer {} paused with {} records in flight", name, outstanding);
+        } else if (paused && outstanding <= maxInFlight / 2 && parkedLanes.isEmpty()) {
+            consumer.resume(consumer.paused());
+            paused = false;
+        }
+    }
+
+    private void commitCompleted(boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        trackers.forEach((partition, tracker) -> {
+            OptionalLong next = tracker.advance();
+            if (next.isPresent()) {
+                offsets.put(partition, new OffsetAndMetadata(next.getAsLong()));
+            }
+        });
+        if (offsets.isEmpty()) {
+            return;
+        }
+        if (sync) {
+            consumer.commitSync(offsets);
+        } else {
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    // A later commit covers the same offsets, so a failed async commit is only logged
+                    log.warn("Consumer {} offset commit failed: {}", name, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void updateLag() {
+        long total = 0;
+        for (TopicPartition partition : consumer.assignment()) {
+            total += consumer.currentLag(partition).orElse(0);
+        }
+        lag.set(total);
+    }
+
+    private void awaitOutstanding(Collection<TopicPartition> partitions) {
+        long deadline = System.nanoTime() + revokeTimeout.toNanos();
+        for (TopicPartition partition : partitions) {
+            PartitionOffsetTracker tracker = trackers.get(partition);
+            while (tracker != null && tracker.unfinished() > 0 && System.nanoTime() < deadline) {
+                // Runs on the poll thread, so parked lanes would otherwise never get their turn
+                submitParkedLanes();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class RebalanceListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // Give in-flight work a bounded chance to finish so the new owner does not repeat it
+            awaitOutstanding(partitions);
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                PartitionOffsetTracker tracker = trackers.remove(partition);
+                OptionalLong next = tracker != null ? tracker.advance() : OptionalLong.empty();
+                if (next.isPresent()) {
+                    offsets.put(partition, new OffsetAndMetadata(next.getAsLong()));
+                }
+            }
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (paused) {
+                consumer.pause(partitions);
+            }
+        }
+    }
+}
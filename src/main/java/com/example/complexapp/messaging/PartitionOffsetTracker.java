@@ -0,0 +1,53 @@
+package com.example.complexapp.messaging;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+/**
+ * Tracks records of one partition that were dispatched but may finish out of order, and
+ * yields the offset that is safe to commit: one past the longest completed prefix.
+ */
+final class PartitionOffsetTracker {
+
+    private final TreeMap<Long, Boolean> outstanding = new TreeMap<>();
+    private long lastCommittable = -1;
+    private int unfinished;
+
+    synchronized void track(long offset) {
+        if (outstanding.put(offset, Boolean.FALSE) == null) {
+            unfinished++;
+        }
+    }
+
+    synchronized void complete(long offset) {
+        if (outstanding.replace(offset, Boolean.TRUE) == Boolean.FALSE) {
+            unfinished--;
+        }
+    }
+
+    /**
+     * Drops the completed prefix and returns the next offset to commit, if it moved since
+     * the last call.
+     */
+    synchronized OptionalLong advance() {
+        long next = lastCommittable;
+        while (!outstanding.isEmpty()) {
+            Map.Entry<Long, Boolean> first = outstanding.firstEntry();
+            if (!first.getValue()) {
+                break;
+            }
+            next = first.getKey() + 1;
+            outstanding.pollFirstEntry();
+        }
+        if (next == lastCommittable) {
+            return OptionalLong.empty();
+        }
+        lastCommittable = next;
+        return OptionalLong.of(next);
+    }
+
+    synchronized int unfinished() {
+        return unfinished;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.complexapp.messaging;
+
+import com.example.complexapp.event.DomainEvent;
+import com.example.complexapp.event.UserChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached users when they change. {@code UserService} only evicts the id-keyed
+ * entry of the user it updated; entries cached by username stayed stale until expiry.
+ */
+@Component
+@Slf4j
+public class UserCacheEvictionHandler implements EventHandler<DomainEvent> {
+
+    private final CacheManager cacheManager;
+    private final String topic;
+
+    public UserCacheEvictionHandler(CacheManager cacheManager,
+                                    @Value("${app.outbox.topics.user:user-events}") String topic) {
+        this.cacheManager = cacheManager;
+        this.topic = topic;
+    }
+
+    @Override
+    public String topic() {
+        return topic;
+    }
+
+    @Override
+    public void handle(ConsumerRecord<String, DomainEvent> record) {
+        if (!(record.value() instanceof UserChangedEvent event)) {
+            return;
+        }
+        Cache users = cacheManager.getCache("users");
+        if (users == null || event.changeType() == UserChangedEvent.ChangeType.REGISTERED) {
+            return;
+        }
+        users.evict(event.userId());
+        if (event.username() != null) {
+            users.evict(event.username());
+        }
+        log.debug("Evicted cached user {} after {}", event.userId(), event.changeType());
+    }
+}
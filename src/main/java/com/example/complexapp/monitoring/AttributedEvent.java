@@ -0,0 +1,30 @@
+package com.example.complexapp.monitoring;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the application's flight recorder events: each carries the endpoint and user
+ * of the request it happened in (see {@link RequestAttribution}), so a recording can be
+ * sliced by either in JDK Mission Control or in {@link FlightRecordingSummary}.
+ */
+public abstract class AttributedEvent extends Event {
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("User")
+    public String user;
+
+    /**
+     * Stamps the attribution and commits, if the event passed its threshold.
+     */
+    public void attributeAndCommit() {
+        end();
+        if (shouldCommit()) {
+            endpoint = RequestAttribution.endpoint();
+            user = RequestAttribution.user();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.complexapp.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(CacheOperationEvent.NAME)
+@Label("Cache Operation")
+@Description("A get, put or evict on a Spring cache")
+@Category({"Complex App", "Cache"})
+@StackTrace(false)
+public class CacheOperationEvent extends AttributedEvent {
+
+    public static final String NAME = "com.example.complexapp.CacheOperation";
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Hit")
+    public boolean hit;
+}
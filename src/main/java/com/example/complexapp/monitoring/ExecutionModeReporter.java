@@ -0,0 +1,36 @@
+package com.example.complexapp.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * States at startup which threads serve requests and background work, and warns when
+ * virtual threads were asked for on a runtime that cannot provide them; Spring Boot then
+ * silently keeps the platform thread pools.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionModeReporter {
+
+    private final Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        int javaVersion = Runtime.version().feature();
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Execution mode: virtual threads for requests, scheduling and event handlers (Java {})", javaVersion);
+        } else if (requested) {
+            log.warn("Virtual threads requested but Java {} does not support them; using platform thread pools",
+                    javaVersion);
+        } else {
+            log.info("Execution mode: platform thread pools (Java {})", javaVersion);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.complexapp.monitoring;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Starts JDK Flight Recorder sessions on demand and hands back what they found, so
+ * profiling production needs no agent or shell access. Sessions are bounded: one at a
+ * time, at most {@code app.jfr.max-duration-seconds} and {@code app.jfr.max-size-mb}, and
+ * only the last {@code app.jfr.retained} recordings are kept. Admin-only, like all of
+ * {@code /actuator/**}.
+ *
+ * <ul>
+ *   <li>{@code POST /actuator/flightrecorder} {@code {"durationSeconds":60,"settings":"profile"}}
+ *   starts one; settings are the JDK's {@code default} (low overhead) or {@code profile}.</li>
+ *   <li>{@code GET /actuator/flightrecorder} lists recordings.</li>
+ *   <li>{@code GET /actuator/flightrecorder/{id}} summarizes a finished one: top CPU and
+ *   allocation sites and our events per endpoint and user.</li>
+ *   <li>{@code GET /actuator/flightrecorder/{id}/jfr} downloads it for JDK Mission Control.</li>
+ *   <li>{@code DELETE /actuator/flightrecorder/{id}} stops it early, or discards a finished one.</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+@Slf4j
+public class FlightRecorderEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+    private static final List<Class<? extends Event>> APP_EVENTS =
+            List.of(JwtAuthenticationEvent.class, CacheOperationEvent.class, RepositoryCallEvent.class);
+
+    public record RecordingInfo(long id, String settings, String state, Instant startedAt, long durationSeconds,
+                                long sizeBytes) {
+    }
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final int retained;
+    private final int summaryTop;
+    private final Map<Long, Recording> recordings = new LinkedHashMap<>();
+    // Guards the recordings map only; reading a recording file happens outside it. A lock rather
+    // than synchronized, so a caller waiting here never pins a virtual carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private Path directory;
+
+    @Autowired
+    public FlightRecorderEndpoint(@Value("${app.jfr.default-duration-seconds:60}") long defaultDurationSeconds,
+                                  @Value("${app.jfr.max-duration-seconds:300}") long maxDurationSeconds,
+                                  @Value("${app.jfr.max-size-mb:100}") long maxSizeMegabytes,
+                                  @Value("${app.jfr.retained:3}") int retained,
+                                  @Value("${app.jfr.summary-top:15}") int summaryTop) {
+        this(Duration.ofSeconds(defaultDurationSeconds), Duration.ofSeconds(maxDurationSeconds),
+                maxSizeMegabytes * 1024 * 1024, retained, summaryTop);
+    }
+
+    FlightRecorderEndpoint(Duration defaultDuration, Duration maxDuration, long maxSizeBytes, int retained,
+                           int summaryTop) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSizeBytes;
+        this.retained = Math.max(1, retained);
+        this.summaryTop = summaryTop;
+    }
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        lock.lock();
+        try {
+            List<RecordingInfo> infos = new ArrayList<>();
+            recordings.values().forEach(recording -> infos.add(info(recording)));
+            return infos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(@Nullable Integer durationSeconds,
+                                             @Nullable String settings) throws IOException {
+        lock.lock();
+        try {
+            return doStart(durationSeconds, settings);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private WebEndpointResponse<Object> doStart(@Nullable Integer durationSeconds,
+                                                @Nullable String settings) throws IOException {
+        for (Recording recording : recordings.values()) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                return error(STATUS_CONFLICT, "Recording " + recording.getId() + " is still running");
+            }
+        }
+        String settingsName = settings != null ? settings : "profile";
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Unknown settings '" + settingsName
+                    + "', use default or profile");
+        }
+        Duration duration = durationSeconds != null ? Duration.ofSeconds(durationSeconds) : defaultDuration;
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST,
+                    "durationSeconds must be between 1 and " + maxDuration.toSeconds());
+        }
+
+        Recording recording = new Recording(configuration);
+        recording.setName(settingsName);
+        recording.setDuration(duration);
+        recording.setMaxSize(maxSizeBytes);
+        recording.setToDisk(true);
+        recording.setDestination(directory().resolve("recording-" + recording.getId() + ".jfr"));
+        APP_EVENTS.forEach(type -> recording.enable(type).withoutThreshold());
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        discardOldest();
+        log.info("Started {} flight recording {} for {}s", settingsName, recording.getId(), duration.toSeconds());
+        return new WebEndpointResponse<>(info(recording));
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Object> summary(@Selector long id) throws IOException {
+        Path file;
+        lock.lock();
+        try {
+            Recording recording = recordings.get(id);
+            if (recording == null) {
+                return error(WebEndpointResponse.STATUS_NOT_FOUND, "No recording " + id);
+            }
+            if (!isFinished(recording)) {
+                return error(STATUS_CONFLICT, "Recording " + id + " is still running");
+            }
+            file = recording.getDestination();
+        } finally {
+            lock.unlock();
+        }
+        // Parsing up to max-size-mb takes a while; the other operations don't wait for it
+        try {
+            return new WebEndpointResponse<>(FlightRecordingSummary.read(file, summaryTop));
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return error(WebEndpointResponse.STATUS_NOT_FOUND, "Recording " + id + " was discarded");
+        }
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id, @Selector String format) {
+        lock.lock();
+        try {
+            Recording recording = recordings.get(id);
+            if (!"jfr".equals(format) || recording == null) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+            if (!isFinished(recording)) {
+                return new WebEndpointResponse<>(STATUS_CONFLICT);
+            }
+            return new WebEndpointResponse<>(new FileSystemResource(recording.getDestination()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Object> stop(@Selector long id) throws IOException {
+        lock.lock();
+        try {
+            Recording recording = recordings.get(id);
+            if (recording == null) {
+                return error(WebEndpointResponse.STATUS_NOT_FOUND, "No recording " + id);
+            }
+            if (recording.getState() == RecordingState.RUNNING) {
+                // Stopping writes the destination file, so the recording can still be read
+                recording.stop();
+                return new WebEndpointResponse<>(info(recording));
+            }
+            discard(recordings.remove(id));
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            recordings.values().forEach(this::discard);
+            recordings.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discardOldest() {
+        Iterator<Recording> iterator = recordings.values().iterator();
+        while (recordings.size() > retained && iterator.hasNext()) {
+            Recording recording = iterator.next();
+            if (recording.getState() != RecordingState.RUNNING) {
+                iterator.remove();
+                discard(recording);
+            }
+        }
+    }
+
+    private void discard(Recording recording) {
+        Path destination = recording.getDestination();
+        recording.close();
+        try {
+            if (destination != null) {
+                Files.deleteIfExists(destination);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete flight recording {}", destination, e);
+        }
+    }
+
+    private Path directory() throws IOException {
+        if (directory == null) {
+            directory = Files.createTempDirectory("flight-recordings");
+        }
+        return directory;
+    }
+
+    private static boolean isFinished(Recording recording) {
+        RecordingState state = recording.getState();
+        return (state == RecordingState.STOPPED || state == RecordingState.CLOSED)
+                && recording.getDestination() != null && Files.exists(recording.getDestination());
+    }
+
+    private static RecordingInfo info(Recording recording) {
+        Duration duration = recording.getDuration();
+        long size = recording.getSize();
+        if (isFinished(recording)) {
+            // A recording closed at the end of its duration reports 0; the dump is what counts
+            size = recording.getDestination().toFile().length();
+        }
+        return new RecordingInfo(recording.getId(), recording.getName(), recording.getState().name().toLowerCase(),
+                recording.getStartTime(), duration != null ? duration.toSeconds() : 0, size);
+    }
+
+    private static WebEndpointResponse<Object> error(int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status);
+        body.put("message", message);
+        return new WebEndpointResponse<>(body, status);
+    }
+}
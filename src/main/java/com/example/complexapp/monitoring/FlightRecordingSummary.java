@@ -0,0 +1,127 @@
+package com.example.complexapp.monitoring;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a finished flight recording says at a glance: where CPU samples and sampled
+ * allocations land, and how much time our own events ({@link AttributedEvent}) took per
+ * endpoint and per user. Sites are the innermost frame in our code, or the innermost
+ * frame overall when the stack has none, so a {@code HashMap.resize} shows up under the
+ * service that caused it.
+ */
+public record FlightRecordingSummary(long cpuSamples, List<Site> cpu,
+                                     long allocatedBytes, List<Site> allocation,
+                                     List<Attribution> endpoints, List<Attribution> users) {
+
+    private static final String APP_PACKAGE = "com.example.complexapp.";
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final Set<String> APP_EVENTS =
+            Set.of(JwtAuthenticationEvent.NAME, CacheOperationEvent.NAME, RepositoryCallEvent.NAME);
+
+    /**
+     * A code site with its share of the samples or sampled bytes.
+     */
+    public record Site(String frame, long value, double percent) {
+    }
+
+    /**
+     * Time one kind of application event took for one endpoint or user.
+     */
+    public record Attribution(String name, String event, long count, double totalMillis, double maxMillis) {
+    }
+
+    public static FlightRecordingSummary read(Path file, int top) throws IOException {
+        Map<String, long[]> cpu = new HashMap<>();
+        Map<String, long[]> allocation = new HashMap<>();
+        Map<List<String>, long[]> endpoints = new HashMap<>();
+        Map<List<String>, long[]> users = new HashMap<>();
+        long cpuSamples = 0;
+        long allocatedBytes = 0;
+
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+                if (type.equals(EXECUTION_SAMPLE)) {
+                    cpuSamples++;
+                    add(cpu, site(event.getStackTrace()), 1);
+                } else if (type.equals(ALLOCATION_SAMPLE)) {
+                    long weight = event.getLong("weight");
+                    allocatedBytes += weight;
+                    add(allocation, site(event.getStackTrace()), weight);
+                } else if (APP_EVENTS.contains(type)) {
+                    String shortName = type.substring(type.lastIndexOf('.') + 1);
+                    long nanos = event.getDuration().toNanos();
+                    attribute(endpoints, event.getString("endpoint"), shortName, nanos);
+                    attribute(users, event.getString("user"), shortName, nanos);
+                }
+            }
+        }
+        return new FlightRecordingSummary(cpuSamples, sites(cpu, cpuSamples, top), allocatedBytes,
+                sites(allocation, allocatedBytes, top), attributions(endpoints, top), attributions(users, top));
+    }
+
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "(no stack)";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return describe(frame);
+            }
+        }
+        return describe(stackTrace.getFrames().get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type + "." + frame.getMethod().getName() + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+    }
+
+    private static void add(Map<String, long[]> totals, String key, long value) {
+        totals.computeIfAbsent(key, k -> new long[1])[0] += value;
+    }
+
+    private static void attribute(Map<List<String>, long[]> totals, String name, String event, long nanos) {
+        if (name == null) {
+            return;
+        }
+        // count, total, max
+        long[] stats = totals.computeIfAbsent(List.of(name, event), k -> new long[3]);
+        stats[0]++;
+        stats[1] += nanos;
+        stats[2] = Math.max(stats[2], nanos);
+    }
+
+    private static List<Site> sites(Map<String, long[]> totals, long sum, int top) {
+        List<Site> sites = new ArrayList<>();
+        totals.forEach((frame, value) -> sites.add(new Site(frame, value[0], round(100.0 * value[0] / sum))));
+        sites.sort(Comparator.comparingLong(Site::value).reversed());
+        return sites.subList(0, Math.min(top, sites.size()));
+    }
+
+    private static List<Attribution> attributions(Map<List<String>, long[]> totals, int top) {
+        List<Attribution> attributions = new ArrayList<>();
+        totals.forEach((key, stats) -> attributions.add(new Attribution(key.get(0), key.get(1), stats[0],
+                round(stats[1] / 1e6), round(stats[2] / 1e6))));
+        attributions.sort(Comparator.comparingDouble(Attribution::totalMillis).reversed());
+        return attributions.subList(0, Math.min(top, attributions.size()));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.complexapp.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(JwtAuthenticationEvent.NAME)
+@Label("JWT Authentication")
+@Description("Bearer token validation in JwtAuthenticationFilter")
+@Category({"Complex App", "Security"})
+@StackTrace(false)
+public class JwtAuthenticationEvent extends AttributedEvent {
+
+    public static final String NAME = "com.example.complexapp.JwtAuthentication";
+
+    @Label("Outcome")
+    public String outcome;
+}
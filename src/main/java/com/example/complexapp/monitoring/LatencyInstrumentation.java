@@ -0,0 +1,57 @@
+package com.example.complexapp.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the latency timers for our own code: each publishes a percentile histogram for
+ * {@code histogram_quantile} plus fixed SLO buckets, so "share of calls under 100 ms"
+ * needs no interpolation. The histogram range is clamped to what application code
+ * realistically takes to keep the bucket count per series down.
+ *
+ * <p>Absent when {@code app.instrumentation.enabled} is false; the aspect and the JWT
+ * filter then record nothing and add no advice.
+ */
+@Component
+@ConditionalOnProperty(name = "app.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyInstrumentation {
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+    private final Duration[] slos;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private record TimerKey(String name, Tags tags) {
+    }
+
+    public LatencyInstrumentation(MeterRegistry meterRegistry,
+                                  @Value("${app.instrumentation.slo:5ms,25ms,100ms,250ms,1s}") List<Duration> slos) {
+        this.meterRegistry = meterRegistry;
+        this.slos = slos.toArray(Duration[]::new);
+    }
+
+    /**
+     * The timer with this name and tags, created on first use. Tag values must come from
+     * a small fixed set (class and method names, outcomes), never from request data.
+     */
+    public Timer timer(String name, Tags tags) {
+        return timers.computeIfAbsent(new TimerKey(name, tags), key -> Timer.builder(key.name())
+                .tags(key.tags())
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(slos)
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry));
+    }
+}
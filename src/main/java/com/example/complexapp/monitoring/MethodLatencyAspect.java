@@ -0,0 +1,65 @@
+package com.example.complexapp.monitoring;
+
+import io.micrometer.core.instrument.Tags;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public {@code UserService} method, every {@code UserRepository} query
+ * (derived, {@code @Query} and inherited CRUD alike) and every {@code EmailService} send
+ * into {@code app.method}, tagged with class, method and the exception type or
+ * {@code none}. Overloads share a series; arguments never become tags.
+ *
+ * <p>{@code EmailService.sendCampaign} is {@code @Async}; this advice runs inside the
+ * async one, so it times the campaign on the email pool, not the hand-off.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class MethodLatencyAspect {
+
+    static final String TIMER = "app.method";
+
+    private final LatencyInstrumentation instrumentation;
+
+    public MethodLatencyAspect(LatencyInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @Around("execution(public * com.example.complexapp.service.UserService.*(..))")
+    public Object timeUserService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("UserService", joinPoint);
+    }
+
+    // target() rather than execution(): CRUD methods are declared on JpaRepository's supertypes
+    @Around("target(com.example.complexapp.repository.UserRepository) && execution(* *(..))"
+            + " && !execution(* java.lang.Object.*(..))")
+    public Object timeUserRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("UserRepository", joinPoint);
+    }
+
+    @Around("execution(public * com.example.complexapp.service.EmailService.send*(..))")
+    public Object timeEmailService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("EmailService", joinPoint);
+    }
+
+    private Object time(String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            instrumentation.timer(TIMER, Tags.of("class", type, "method", joinPoint.getSignature().getName(),
+                            "exception", exception))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
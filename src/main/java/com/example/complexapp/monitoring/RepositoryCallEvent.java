@@ -0,0 +1,21 @@
+package com.example.complexapp.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(RepositoryCallEvent.NAME)
+@Label("Repository Call")
+@Description("A call on a Spring Data repository, including the statements it ran")
+@Category({"Complex App", "Persistence"})
+public class RepositoryCallEvent extends AttributedEvent {
+
+    public static final String NAME = "com.example.complexapp.RepositoryCall";
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+}
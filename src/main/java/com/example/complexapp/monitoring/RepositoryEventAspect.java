@@ -0,0 +1,53 @@
+package com.example.complexapp.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every call on one of our Spring Data repositories as a
+ * {@link RepositoryCallEvent}. When no recording has the event enabled this is an
+ * enabled-check per call; the event object does not escape and is optimized away.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.jfr.events.enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryEventAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.example.complexapp.repository.";
+
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("target(org.springframework.data.repository.Repository) && execution(* *(..))"
+            + " && !execution(* java.lang.Object.*(..))")
+    public Object recordRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            event.repository = repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass(),
+                    RepositoryEventAspect::repositoryName);
+            event.method = joinPoint.getSignature().getName();
+            event.attributeAndCommit();
+        }
+    }
+
+    // The proxy implements our interface alongside Spring's; inherited CRUD methods report the latter
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> type : proxyClass.getInterfaces()) {
+            if (type.getName().startsWith(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.complexapp.monitoring;
+
+/**
+ * The endpoint and user of the request running on this thread, for stamping onto
+ * flight recorder events. Set by the JWT filter for the length of the request; empty
+ * on threads that do not serve requests.
+ */
+public final class RequestAttribution {
+
+    private static final ThreadLocal<String[]> CURRENT = new ThreadLocal<>();
+
+    private RequestAttribution() {
+    }
+
+    public static void enter(String endpoint, String user) {
+        CURRENT.set(new String[]{endpoint, user});
+    }
+
+    public static void exit() {
+        CURRENT.remove();
+    }
+
+    public static String endpoint() {
+        String[] current = CURRENT.get();
+        return current != null ? current[0] : null;
+    }
+
+    public static String user() {
+        String[] current = CURRENT.get();
+        return current != null ? current[1] : null;
+    }
+}
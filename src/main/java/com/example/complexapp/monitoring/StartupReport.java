@@ -0,0 +1,89 @@
+package com.example.complexapp.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Logs how long startup took against {@code app.startup.budget-ms}, warning when over,
+ * with the slowest bean instantiations recorded by the {@link BufferingApplicationStartup}
+ * that {@code main} installs (also served at {@code /actuator/startup}). A bean's time
+ * excludes the beans created for it, so a slow entity manager factory is not also
+ * charged to every repository that needed it.
+ */
+@Component
+@Slf4j
+public class StartupReport {
+
+    private static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+
+    private final Duration budget;
+    private final int slowestBeans;
+
+    public StartupReport(@Value("${app.startup.budget-ms:30000}") long budgetMillis,
+                         @Value("${app.startup.slowest-beans:10}") int slowestBeans) {
+        this.budget = Duration.ofMillis(budgetMillis);
+        this.slowestBeans = slowestBeans;
+    }
+
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        Duration timeTaken = event.getTimeTaken();
+        String slowest = slowest(event.getApplicationContext().getApplicationStartup());
+        if (timeTaken != null && timeTaken.compareTo(budget) > 0) {
+            log.warn("Startup took {} ms, over the {} ms budget; slowest beans: {}", timeTaken.toMillis(),
+                    budget.toMillis(), slowest);
+        } else {
+            log.info("Startup took {} ms (budget {} ms); slowest beans: {}",
+                    timeTaken != null ? timeTaken.toMillis() : "?", budget.toMillis(), slowest);
+        }
+    }
+
+    String slowest(ApplicationStartup startup) {
+        if (!(startup instanceof BufferingApplicationStartup buffering)) {
+            return "not recorded";
+        }
+        // Self time: a bean's instantiation minus that of the beans created for it
+        Map<Long, Long> selfNanos = new HashMap<>();
+        Map<Long, String> beanNames = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : buffering.getBufferedTimeline().getEvents()) {
+            StartupStep step = event.getStartupStep();
+            if (!BEAN_INSTANTIATION.equals(step.getName())) {
+                continue;
+            }
+            long nanos = event.getDuration().toNanos();
+            selfNanos.merge(step.getId(), nanos, Long::sum);
+            beanNames.put(step.getId(), beanName(step));
+            if (step.getParentId() != null) {
+                selfNanos.merge(step.getParentId(), -nanos, Long::sum);
+            }
+        }
+        return beanNames.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> selfNanos.get(id)).reversed())
+                .limit(slowestBeans)
+                .map(id -> beanNames.get(id) + "=" + TimeUnit.NANOSECONDS.toMillis(selfNanos.get(id)) + "ms")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.complexapp.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Feeds every statement Hibernate prepares into the thread's {@link StatementTally}.
+ * Registered through {@code hibernate.session_factory.statement_inspector}; leaves the
+ * SQL untouched and costs a thread-local lookup when no scope is active.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        StatementTally.record(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.complexapp.monitoring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statements Hibernate prepared on the current thread within a scope such as one
+ * request or one test, with SELECTs grouped by SQL text. Hibernate renders a query the
+ * same way every time, with {@code ?} for parameters, so the same SELECT showing up many
+ * times in one scope is the signature of an N+1 lazy load (one query for the parents,
+ * one more per parent for {@code orders}, {@code orderItems} or {@code tags}).
+ *
+ * <p>Filled by {@link StatementCountingInspector}; statements issued outside Hibernate,
+ * e.g. through {@code JdbcTemplate}, are not seen. One instance per thread is reused.
+ */
+public final class StatementTally {
+
+    // Bounds the memory of a scope that runs many distinct queries, e.g. a batch job
+    private static final int MAX_SHAPES = 256;
+    private static final ThreadLocal<StatementTally> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, int[]> selects = new HashMap<>();
+    private int statements;
+    private int selectCount;
+    private boolean active;
+
+    private StatementTally() {
+    }
+
+    /**
+     * Starts counting on this thread, from zero.
+     */
+    public static StatementTally start() {
+        StatementTally tally = current();
+        tally.reset();
+        tally.active = true;
+        return tally;
+    }
+
+    /**
+     * This thread's tally, counting or not.
+     */
+    public static StatementTally current() {
+        StatementTally tally = CURRENT.get();
+        if (tally == null) {
+            tally = new StatementTally();
+            CURRENT.set(tally);
+        }
+        return tally;
+    }
+
+    public static boolean isActive() {
+        StatementTally tally = CURRENT.get();
+        return tally != null && tally.active;
+    }
+
+    static void record(String sql) {
+        StatementTally tally = CURRENT.get();
+        if (tally == null || !tally.active) {
+            return;
+        }
+        tally.statements++;
+        if (!isSelect(sql)) {
+            return;
+        }
+        tally.selectCount++;
+        int[] count = tally.selects.get(sql);
+        if (count != null) {
+            count[0]++;
+        } else if (tally.selects.size() < MAX_SHAPES) {
+            tally.selects.put(sql, new int[]{1});
+        }
+    }
+
+    /**
+     * Stops counting; the counts stay readable until the next {@link #start()}.
+     */
+    public void stop() {
+        active = false;
+    }
+
+    public void reset() {
+        selects.clear();
+        statements = 0;
+        selectCount = 0;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public int selects() {
+        return selectCount;
+    }
+
+    /**
+     * The SELECTs that ran at least {@code threshold} times, most frequent first.
+     */
+    public Map<String, Integer> repeatedSelects(int threshold) {
+        List<Map.Entry<String, int[]>> repeated = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : selects.entrySet()) {
+            if (entry.getValue()[0] >= threshold) {
+                repeated.add(entry);
+            }
+        }
+        repeated.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        repeated.forEach(entry -> result.put(entry.getKey(), entry.getValue()[0]));
+        return result;
+    }
+
+    private static boolean isSelect(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return sql.regionMatches(true, i, "select", 0, 6) || sql.regionMatches(true, i, "with", 0, 4);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.complexapp.monitoring;
+
+import com.example.complexapp.web.RequestTiming;
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds each JDBC statement and batch execution to the request's {@code db}
+ * {@link RequestTiming} phase. Hibernate creates one per session from
+ * {@code hibernate.session.events.auto}; reading the result set after execution is not
+ * included.
+ */
+public class StatementTimingListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTiming.record(RequestTiming.Phase.DB, System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTiming.record(RequestTiming.Phase.DB, System.nanoTime() - batchStart);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.Category;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    Optional<Category> findBySlug(String slug);
+
+    boolean existsBySlug(String slug);
+
+    // Flat projection of the whole tree in one statement; avoids touching the lazy parent/children proxies
+    @Query("SELECT c.id, p.id, c.name, c.slug, c.active, c.sortOrder, c.version FROM Category c LEFT JOIN c.parent p")
+    List<Object[]> findTreeRows();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Category c WHERE c.id = :id")
+    Optional<Category> findByIdForUpdate(@Param("id") Long id);
+}
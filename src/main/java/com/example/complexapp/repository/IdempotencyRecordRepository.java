@@ -0,0 +1,54 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.complexapp.domain.IdempotencyRecord$Status.COMPLETED, " +
+           "r.responseStatus = :responseStatus, r.responseBody = :responseBody, " +
+           "r.completedAt = :now, r.expiresAt = :expiresAt " +
+           "WHERE r.scope = :scope AND r.idempotencyKey = :key " +
+           "AND r.status = com.example.complexapp.domain.IdempotencyRecord$Status.IN_PROGRESS")
+    int complete(@Param("scope") String scope,
+                 @Param("key") String key,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody,
+                 @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Only unfinished claims are ever removed, so a completed response can't be lost to a late failure
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scope = :scope AND r.idempotencyKey = :key " +
+           "AND r.status = com.example.complexapp.domain.IdempotencyRecord$Status.IN_PROGRESS " +
+           "AND r.createdAt < :claimedBefore")
+    int deleteClaim(@Param("scope") String scope,
+                    @Param("key") String key,
+                    @Param("claimedBefore") LocalDateTime claimedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scope = :scope AND r.idempotencyKey = :key AND r.expiresAt < :now")
+    int deleteExpired(@Param("scope") String scope,
+                      @Param("key") String key,
+                      @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,52 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.InventoryLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryLeaseRepository extends JpaRepository<InventoryLease, Long> {
+
+    List<InventoryLease> findByExpiresAtBefore(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE InventoryLease l SET l.quantity = l.quantity + :quantity, l.expiresAt = :expiresAt " +
+           "WHERE l.ownerId = :owner AND l.sku = :sku")
+    int addToLease(@Param("owner") String owner,
+                   @Param("sku") String sku,
+                   @Param("quantity") long quantity,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE InventoryLease l SET l.quantity = l.quantity - :quantity WHERE l.ownerId = :owner AND l.sku = :sku")
+    int subtractFromLease(@Param("owner") String owner,
+                          @Param("sku") String sku,
+                          @Param("quantity") long quantity);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE InventoryLease l SET l.expiresAt = :expiresAt WHERE l.ownerId = :owner")
+    int renewLeases(@Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Matching on quantity too means a lease its owner touched after we read it is left alone
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InventoryLease l WHERE l.id = :id AND l.quantity = :quantity AND l.expiresAt < :now")
+    int deleteExpiredLease(@Param("id") Long id,
+                           @Param("quantity") long quantity,
+                           @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InventoryLease l WHERE l.ownerId = :owner AND l.sku = :sku AND l.quantity = 0")
+    int deleteEmptyLease(@Param("owner") String owner, @Param("sku") String sku);
+}
@@ -0,0 +1,45 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.OrderHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderHistoryRepository extends JpaRepository<OrderHistory, Long> {
+
+    @Query("SELECT h FROM OrderHistory h WHERE h.order.id = :orderId ORDER BY h.sequenceNumber DESC")
+    List<OrderHistory> findLatestByOrderId(@Param("orderId") Long orderId, Pageable pageable);
+
+    // Top-N per order in one statement, served by the (order_id, sequence_number) unique index
+    @Query(value = "SELECT t.id, t.order_id, t.sequence_number, t.status, t.description, t.created_at, t.updated_at " +
+                   "FROM (SELECT h.*, ROW_NUMBER() OVER (PARTITION BY h.order_id ORDER BY h.sequence_number DESC) AS rn " +
+                   "      FROM order_history h WHERE h.order_id IN (:orderIds)) t " +
+                   "WHERE t.rn <= :limit ORDER BY t.order_id, t.sequence_number DESC",
+           nativeQuery = true)
+    List<OrderHistory> findLatestByOrderIds(@Param("orderIds") Collection<Long> orderIds, @Param("limit") int limit);
+
+    @Query("SELECT h.id FROM OrderHistory h WHERE h.createdAt < :cutoff " +
+           "AND h.sequenceNumber <= (SELECT o.historySequence FROM Order o WHERE o.id = h.order.id) - :keepLatest " +
+           "ORDER BY h.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("keepLatest") long keepLatest,
+                                 Pageable pageable);
+
+    @Modifying
+    @Query("INSERT INTO OrderHistoryArchive (orderId, sequenceNumber, status, description, createdAt) " +
+           "SELECT h.order.id, h.sequenceNumber, h.status, h.description, h.createdAt " +
+           "FROM OrderHistory h WHERE h.id IN :ids")
+    int copyToArchive(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM OrderHistory h WHERE h.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
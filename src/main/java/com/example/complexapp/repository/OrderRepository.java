@@ -0,0 +1,38 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+
+    Optional<Order> findByOrderNumber(String orderNumber);
+
+    Optional<OrderStateView> findStateById(Long id);
+
+    // Reserves a block of history sequence numbers; the row lock orders concurrent appends to one order
+    @Modifying
+    @Query("UPDATE Order o SET o.historySequence = o.historySequence + :count WHERE o.id = :orderId")
+    int allocateHistorySequence(@Param("orderId") Long orderId, @Param("count") long count);
+
+    @Query("SELECT o.historySequence FROM Order o WHERE o.id = :orderId")
+    Optional<Long> findHistorySequence(@Param("orderId") Long orderId);
+
+    interface OrderStateView {
+        Long getId();
+        String getOrderNumber();
+        Order.OrderStatus getStatus();
+        Order.PaymentStatus getPaymentStatus();
+        Order.ShippingStatus getShippingStatus();
+        Long getVersion();
+        Long getHistorySequence();
+        BigDecimal getTotalAmount();
+    }
+}
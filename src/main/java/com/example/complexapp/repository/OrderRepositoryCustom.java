@@ -0,0 +1,26 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.repository.OrderRepository.OrderStateView;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Applies the transition with one conditional UPDATE guarded by its allowed source
+     * statuses, also claiming the next history sequence number. Returns the number of
+     * rows changed: 0 means the order is missing or was not in an allowed state.
+     */
+    int applyTransition(Long orderId, OrderTransition transition, Map<String, Object> extraAssignments);
+
+    /**
+     * The same UPDATE, also returning the order's state as it left it: through
+     * {@code RETURNING} on PostgreSQL and {@code FINAL TABLE} on H2, so a transition costs
+     * one statement; other databases fall back to a SELECT after it. Empty when no row
+     * changed.
+     */
+    Optional<OrderStateView> applyTransitionReturningState(Long orderId, OrderTransition transition,
+                                                           Map<String, Object> extraAssignments);
+}
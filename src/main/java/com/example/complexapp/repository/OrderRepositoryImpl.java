@@ -0,0 +1,240 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.repository.OrderRepository.OrderStateView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    private static final String STATE_COLUMNS =
+            "id, order_number, status, payment_status, shipping_status, version, history_sequence, total_amount";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile ReturningSyntax returningSyntax;
+
+    private enum ReturningSyntax {
+        RETURNING, FINAL_TABLE, NONE
+    }
+
+    @Override
+    public int applyTransition(Long orderId, OrderTransition transition, Map<String, Object> extraAssignments) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Order> update = cb.createCriteriaUpdate(Order.class);
+        Root<Order> order = update.from(Order.class);
+
+        if (transition.getTargetStatus() != null) {
+            update.set(order.<Order.OrderStatus>get("status"), transition.getTargetStatus());
+        }
+        if (transition.getTargetPaymentStatus() != null) {
+            update.set(order.<Order.PaymentStatus>get("paymentStatus"), transition.getTargetPaymentStatus());
+        }
+        if (transition.getTargetShippingStatus() != null) {
+            update.set(order.<Order.ShippingStatus>get("shippingStatus"), transition.getTargetShippingStatus());
+        }
+        extraAssignments.forEach((attribute, value) -> update.set(order.get(attribute), value));
+        update.set(order.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        // Bump the version so any stale copy of the entity fails its next optimistic save
+        Path<Long> version = order.get("version");
+        update.set(version, cb.sum(version, 1L));
+        // Claims the next history sequence number in the same statement
+        Path<Long> historySequence = order.get("historySequence");
+        update.set(historySequence, cb.sum(historySequence, 1L));
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(order.get("id"), orderId));
+        addInPredicate(where, order.get("status"), transition.getFromStatuses(), Order.OrderStatus.values().length);
+        addInPredicate(where, order.get("paymentStatus"), transition.getFromPaymentStatuses(), Order.PaymentStatus.values().length);
+        addInPredicate(where, order.get("shippingStatus"), transition.getFromShippingStatuses(), Order.ShippingStatus.values().length);
+        update.where(where.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public Optional<OrderStateView> applyTransitionReturningState(Long orderId, OrderTransition transition,
+                                                                  Map<String, Object> extraAssignments) {
+        ReturningSyntax syntax = returningSyntax();
+        if (syntax == ReturningSyntax.NONE) {
+            return applyTransition(orderId, transition, extraAssignments) == 0
+                    ? Optional.empty()
+                    : findState(orderId);
+        }
+
+        AbstractEntityPersister persister = persister();
+        Map<String, Object> assignments = new LinkedHashMap<>();
+        if (transition.getTargetStatus() != null) {
+            assignments.put("status", transition.getTargetStatus().name());
+        }
+        if (transition.getTargetPaymentStatus() != null) {
+            assignments.put("payment_status", transition.getTargetPaymentStatus().name());
+        }
+        if (transition.getTargetShippingStatus() != null) {
+            assignments.put("shipping_status", transition.getTargetShippingStatus().name());
+        }
+        extraAssignments.forEach((attribute, value) -> assignments.put(persister.getPropertyColumnNames(attribute)[0], value));
+        assignments.put("updated_at", LocalDateTime.now());
+
+        StringBuilder update = new StringBuilder("UPDATE ").append(persister.getTableName()).append(" SET ");
+        int parameter = 0;
+        for (String column : assignments.keySet()) {
+            update.append(column).append(" = :p").append(parameter++).append(", ");
+        }
+        update.append("version = version + 1, history_sequence = history_sequence + 1 WHERE id = :id");
+        appendInPredicate(update, "status", "fromStatuses", transition.getFromStatuses(), Order.OrderStatus.values().length);
+        appendInPredicate(update, "payment_status", "fromPaymentStatuses", transition.getFromPaymentStatuses(),
+                Order.PaymentStatus.values().length);
+        appendInPredicate(update, "shipping_status", "fromShippingStatuses", transition.getFromShippingStatuses(),
+                Order.ShippingStatus.values().length);
+
+        // The same guarded UPDATE, handing back the row as it left it in the same round trip
+        String sql = syntax == ReturningSyntax.RETURNING
+                ? update + " RETURNING " + STATE_COLUMNS
+                : "SELECT " + STATE_COLUMNS + " FROM FINAL TABLE (" + update + ")";
+        Query query = entityManager.createNativeQuery(sql);
+        parameter = 0;
+        for (Object value : assignments.values()) {
+            query.setParameter("p" + parameter++, value);
+        }
+        query.setParameter("id", orderId);
+        bindInPredicate(query, "fromStatuses", transition.getFromStatuses(), Order.OrderStatus.values().length);
+        bindInPredicate(query, "fromPaymentStatuses", transition.getFromPaymentStatuses(), Order.PaymentStatus.values().length);
+        bindInPredicate(query, "fromShippingStatuses", transition.getFromShippingStatuses(), Order.ShippingStatus.values().length);
+
+        List<?> rows = query.getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(new ReturnedState((Object[]) rows.get(0)));
+    }
+
+    private Optional<OrderStateView> findState(Long orderId) {
+        List<Object[]> rows = entityManager.createQuery(
+                        "SELECT o.id, o.orderNumber, o.status, o.paymentStatus, o.shippingStatus, o.version, " +
+                        "o.historySequence, o.totalAmount FROM Order o WHERE o.id = :id", Object[].class)
+                .setParameter("id", orderId)
+                .getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(new ReturnedState(rows.get(0)));
+    }
+
+    private ReturningSyntax returningSyntax() {
+        ReturningSyntax syntax = returningSyntax;
+        if (syntax == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect();
+            syntax = dialect instanceof PostgreSQLDialect ? ReturningSyntax.RETURNING
+                    : dialect instanceof H2Dialect ? ReturningSyntax.FINAL_TABLE
+                    : ReturningSyntax.NONE;
+            returningSyntax = syntax;
+        }
+        return syntax;
+    }
+
+    private AbstractEntityPersister persister() {
+        return (AbstractEntityPersister) entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Order.class);
+    }
+
+    private static void addInPredicate(List<Predicate> where, Path<?> path, Set<?> allowed, int universe) {
+        // An "any" set needs no predicate
+        if (allowed.size() < universe) {
+            where.add(path.in(allowed));
+        }
+    }
+
+    private static void appendInPredicate(StringBuilder sql, String column, String parameter, Set<?> allowed, int universe) {
+        if (allowed.size() < universe) {
+            sql.append(" AND ").append(column).append(" IN (:").append(parameter).append(')');
+        }
+    }
+
+    private static void bindInPredicate(Query query, String parameter, Set<? extends Enum<?>> allowed, int universe) {
+        if (allowed.size() < universe) {
+            query.setParameter(parameter, allowed.stream().map(Enum::name).toList());
+        }
+    }
+
+    private static final class ReturnedState implements OrderStateView {
+
+        private final Long id;
+        private final String orderNumber;
+        private final Order.OrderStatus status;
+        private final Order.PaymentStatus paymentStatus;
+        private final Order.ShippingStatus shippingStatus;
+        private final Long version;
+        private final Long historySequence;
+        private final BigDecimal totalAmount;
+
+        // Native rows carry the enums as their names, JPQL rows as the enums
+        ReturnedState(Object[] row) {
+            this.id = ((Number) row[0]).longValue();
+            this.orderNumber = (String) row[1];
+            this.status = Order.OrderStatus.valueOf(row[2].toString());
+            this.paymentStatus = Order.PaymentStatus.valueOf(row[3].toString());
+            this.shippingStatus = Order.ShippingStatus.valueOf(row[4].toString());
+            this.version = ((Number) row[5]).longValue();
+            this.historySequence = ((Number) row[6]).longValue();
+            this.totalAmount = (BigDecimal) row[7];
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getOrderNumber() {
+            return orderNumber;
+        }
+
+        @Override
+        public Order.OrderStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public Order.PaymentStatus getPaymentStatus() {
+            return paymentStatus;
+        }
+
+        @Override
+        public Order.ShippingStatus getShippingStatus() {
+            return shippingStatus;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+
+        @Override
+        public Long getHistorySequence() {
+            return historySequence;
+        }
+
+        @Override
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Only the earliest event of an aggregate is a candidate, so a relay takes a whole aggregate
+    // by locking that head row: another relay skips the head while the claim is uncommitted and
+    // filters it out once it commits, and never reaches what follows. Native because Hibernate's
+    // H2 dialect drops SKIP LOCKED, which H2 and PostgreSQL both accept
+    @Query(value = "SELECT * FROM outbox_events e " +
+                   "WHERE (e.claimed_until IS NULL OR e.claimed_until < :now) " +
+                   "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.topic = e.topic " +
+                   "      AND p.aggregate_id = e.aggregate_id AND p.id < e.id) " +
+                   "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> findRelayHeads(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // The events of the aggregates whose heads the caller holds locked, heads included
+    @Query("SELECT e FROM OutboxEvent e WHERE EXISTS (SELECT h.id FROM OutboxEvent h WHERE h.id IN :headIds " +
+           "AND h.topic = e.topic AND h.aggregateId = e.aggregateId) " +
+           "ORDER BY e.id")
+    List<OutboxEvent> findAggregateEvents(@Param("headIds") Collection<Long> headIds, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :until WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = NULL WHERE e.id IN :ids")
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COUNT(e), MIN(e.createdAt) FROM OutboxEvent e")
+    List<Object[]> findBacklog();
+}
@@ -0,0 +1,40 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.ProductRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductRatingSummaryRepository extends JpaRepository<ProductRatingSummary, Long> {
+
+    // VERSIONED bumps @Version, which the rating routes' ETags are derived from
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED ProductRatingSummary s SET " +
+           "s.oneStarCount = s.oneStarCount + :d1, " +
+           "s.twoStarCount = s.twoStarCount + :d2, " +
+           "s.threeStarCount = s.threeStarCount + :d3, " +
+           "s.fourStarCount = s.fourStarCount + :d4, " +
+           "s.fiveStarCount = s.fiveStarCount + :d5, " +
+           "s.ratingSum = s.ratingSum + :sumDelta, " +
+           "s.ratingCount = s.ratingCount + :countDelta, " +
+           "s.updatedAt = :now " +
+           "WHERE s.productId = :productId")
+    int applyDelta(@Param("productId") Long productId,
+                   @Param("d1") long d1,
+                   @Param("d2") long d2,
+                   @Param("d3") long d3,
+                   @Param("d4") long d4,
+                   @Param("d5") long d5,
+                   @Param("sumDelta") long sumDelta,
+                   @Param("countDelta") long countDelta,
+                   @Param("now") LocalDateTime now);
+
+    List<ProductRatingSummary> findByProductIdIn(Collection<Long> productIds);
+}
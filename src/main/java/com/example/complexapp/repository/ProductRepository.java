@@ -0,0 +1,60 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    Optional<Product> findBySku(String sku);
+
+    // Read-only: checkout only prices and validates these, so flushes skip dirty-checking them
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    @Query("SELECT p FROM Product p WHERE p.category.id IN :categoryIds AND p.status = :status")
+    Page<Product> findByCategoryIdsAndStatus(@Param("categoryIds") Collection<Long> categoryIds,
+                                             @Param("status") Product.ProductStatus status,
+                                             Pageable pageable);
+
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.status = :status GROUP BY p.category.id")
+    List<Object[]> countByCategoryAndStatus(@Param("status") Product.ProductStatus status);
+
+    // Bulk update: bypasses @Version so derived rating columns never conflict with catalog edits
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingAverage = :average, p.ratingCount = :count WHERE p.id = :productId")
+    int updateRatingStats(@Param("productId") Long productId,
+                          @Param("average") double average,
+                          @Param("count") int count);
+
+    // Conditional decrement: succeeds only when enough stock is left, so stock can never go negative
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+           "WHERE p.sku = :sku AND p.stockQuantity >= :quantity")
+    int reserveStock(@Param("sku") String sku, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.sku = :sku")
+    int releaseStock(@Param("sku") String sku, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.soldCount = p.soldCount + :quantity WHERE p.sku = :sku")
+    int incrementSoldCount(@Param("sku") String sku, @Param("quantity") long quantity);
+}
@@ -0,0 +1,20 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.ProductReview;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductReviewRepository extends JpaRepository<ProductReview, Long> {
+
+    @Query("SELECT r.rating, COUNT(r) FROM ProductReview r WHERE r.product.id = :productId GROUP BY r.rating")
+    List<Object[]> countByRating(@Param("productId") Long productId);
+
+    // Per reviewed product: review count, rating sum and the latest review write
+    @Query("SELECT r.product.id, COUNT(r), SUM(r.rating), MAX(r.updatedAt) FROM ProductReview r GROUP BY r.product.id")
+    List<Object[]> summarizeByProduct();
+}
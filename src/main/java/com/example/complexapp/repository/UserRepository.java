@@ -4,6 +4,7 @@ import com.example.complexapp.domain.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -37,6 +38,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.failedLoginAttempts >= :maxAttempts")
     List<User> findUsersWithFailedLoginAttempts(@Param("maxAttempts") int maxAttempts);
     
+    // Bulk updates for the login bookkeeping: concurrent logins of the same user don't fail each other
+    // with optimistic lock conflicts and no increment is lost. VERSIONED still bumps @Version, so a
+    // profile or status save from an entity loaded before the login fails instead of undoing it
+    @Modifying
+    @Query("UPDATE VERSIONED User u SET u.lastLogin = :now, u.failedLoginAttempts = 0, u.accountNonLocked = true, " +
+           "u.lockTime = null, u.updatedAt = :now WHERE u.username = :username")
+    int recordSuccessfulLogin(@Param("username") String username, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE VERSIONED User u SET u.failedLoginAttempts = u.failedLoginAttempts + 1, u.updatedAt = :now " +
+           "WHERE u.username = :username")
+    int incrementFailedLoginAttempts(@Param("username") String username, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE VERSIONED User u SET u.accountNonLocked = false, u.lockTime = :now, u.status = :status, " +
+           "u.updatedAt = :now " +
+           "WHERE u.username = :username AND u.failedLoginAttempts >= :maxAttempts AND u.accountNonLocked = true")
+    int lockAfterFailedLogins(@Param("username") String username,
+                              @Param("maxAttempts") int maxAttempts,
+                              @Param("status") User.UserStatus status,
+                              @Param("now") LocalDateTime now);
+
     @Query("SELECT u FROM User u WHERE u.emailVerified = false")
     List<User> findUnverifiedUsers();
     
@@ -0,0 +1,38 @@
+package com.example.complexapp.scheduler;
+
+import com.example.complexapp.config.WorkloadExecutorConfig;
+import com.example.complexapp.service.OrderEventLogService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderHistoryArchiveScheduler {
+
+    private final OrderEventLogService orderEventLogService;
+
+    @Value("${app.order-history.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(cron = "${app.order-history.archive-cron:0 30 3 * * *}")
+    @Async(WorkloadExecutorConfig.MAINTENANCE)
+    public void archiveOldEvents() {
+        int total = 0;
+        // One short transaction per batch keeps row locks on order_history brief
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int moved = orderEventLogService.archiveBatch();
+            total += moved;
+            if (moved == 0) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Order history archive run moved {} events", total);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.complexapp.scheduler;
+
+import com.example.complexapp.service.OutboxRelay;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(name = {"app.outbox.relay.enabled", "app.feature.messaging.enabled"}, havingValue = "true",
+        matchIfMissing = true)
+public class OutboxRelayScheduler {
+
+    private final OutboxRelay outboxRelay;
+    private final int maxBatchesPerRun;
+
+    public OutboxRelayScheduler(OutboxRelay outboxRelay,
+                                @Value("${app.outbox.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.outboxRelay = outboxRelay;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            int batches = 0;
+            // Keep draining while batches come back full; a short batch means caught up (or a failed send)
+            while (batches++ < maxBatchesPerRun && outboxRelay.relayBatch() == outboxRelay.getBatchSize()) {
+                log.debug("Outbox batch {} published in full, continuing", batches);
+            }
+        } catch (Exception e) {
+            log.warn("Outbox relay run failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.metrics-interval-ms:5000}")
+    public void refreshBacklog() {
+        try {
+            outboxRelay.refreshBacklog();
+        } catch (Exception e) {
+            log.debug("Outbox backlog refresh failed: {}", e.getMessage());
+        }
+    }
+}
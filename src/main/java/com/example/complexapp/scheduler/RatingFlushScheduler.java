@@ -0,0 +1,61 @@
+package com.example.complexapp.scheduler;
+
+import com.example.complexapp.service.ProductRatingService;
+import com.example.complexapp.service.RatingAggregator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RatingFlushScheduler {
+
+    private final RatingAggregator ratingAggregator;
+    private final ProductRatingService productRatingService;
+
+    @Scheduled(fixedDelayString = "${app.rating.flush-interval-ms:500}")
+    public void flushPendingRatings() {
+        Map<Long, long[]> deltas = ratingAggregator.drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        int applied = 0;
+        for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+            try {
+                productRatingService.applyDelta(entry.getKey(), entry.getValue());
+                applied++;
+            } catch (Exception e) {
+                // Requeue so the delta is retried on the next flush instead of being lost
+                ratingAggregator.merge(entry.getKey(), entry.getValue());
+                log.warn("Failed to apply rating delta for product: {}", entry.getKey(), e);
+            }
+        }
+        log.debug("Flushed rating deltas for {} of {} products", applied, deltas.size());
+    }
+
+    /**
+     * Catches summaries that drifted from product_reviews, e.g. deltas lost with an
+     * instance that stopped before flushing. The first run comes shortly after startup.
+     */
+    @Scheduled(initialDelayString = "${app.rating.reconcile-initial-delay-ms:60000}",
+               fixedDelayString = "${app.rating.reconcile-interval-ms:3600000}")
+    public void reconcileSummaries() {
+        List<Long> drifted = productRatingService.findDriftedSummaries();
+        for (Long productId : drifted) {
+            try {
+                productRatingService.rebuildSummary(productId);
+            } catch (Exception e) {
+                log.warn("Failed to rebuild rating summary for product: {}", productId, e);
+            }
+        }
+        if (!drifted.isEmpty()) {
+            log.warn("Rebuilt {} drifted rating summaries", drifted.size());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.complexapp.security;
 
+import com.example.complexapp.monitoring.JwtAuthenticationEvent;
+import com.example.complexapp.monitoring.LatencyInstrumentation;
+import com.example.complexapp.monitoring.RequestAttribution;
+import com.example.complexapp.web.RequestTiming;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,31 +18,87 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Authenticates requests carrying a bearer token. With {@link LatencyInstrumentation}
+ * present, the filter's own work (not the rest of the chain) is timed into
+ * {@code security.jwt.filter}, tagged by outcome: authenticated, anonymous (no token),
+ * rejected (invalid token) or error. Token checks also count towards the request's
+ * {@code auth} {@link RequestTiming} phase and are recorded as a
+ * {@link JwtAuthenticationEvent}; the rest of the request runs with its endpoint and user
+ * in {@link RequestAttribution}.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String TIMER = "security.jwt.filter";
+
+    private enum Outcome {
+        AUTHENTICATED, ANONYMOUS, REJECTED, ERROR;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
     private final JwtTokenProvider tokenProvider;
+    private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, LatencyInstrumentation instrumentation) {
+        this.tokenProvider = tokenProvider;
+        if (instrumentation != null) {
+            for (Outcome outcome : Outcome.values()) {
+                timers.put(outcome, instrumentation.timer(TIMER, Tags.of("outcome", outcome.label)));
+            }
+        }
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        JwtAuthenticationEvent event = new JwtAuthenticationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.ANONYMOUS;
+        String user = null;
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Authentication authentication = tokenProvider.getAuthentication(jwt);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-                log.debug("Set authentication for user: {}", authentication.getName());
+            if (StringUtils.hasText(jwt)) {
+                outcome = Outcome.REJECTED;
+                if (tokenProvider.validateToken(jwt)) {
+                    Authentication authentication = tokenProvider.getAuthentication(jwt);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    outcome = Outcome.AUTHENTICATED;
+                    user = authentication.getName();
+
+                    log.debug("Set authentication for user: {}", user);
+                }
             }
         } catch (Exception ex) {
+            outcome = Outcome.ERROR;
             log.error("Could not set user authentication in security context", ex);
         }
+        long elapsed = System.nanoTime() - start;
+        if (outcome != Outcome.ANONYMOUS) {
+            RequestTiming.record(RequestTiming.Phase.AUTH, elapsed);
+        }
+        Timer timer = timers.get(outcome);
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
 
-        filterChain.doFilter(request, response);
+        RequestAttribution.enter(request.getMethod() + " " + request.getServletPath(), user);
+        try {
+            event.outcome = outcome.label;
+            event.attributeAndCommit();
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestAttribution.exit();
+        }
     }
 
     private String getJwtFromRequest(HttpServletRequest request) {
@@ -0,0 +1,118 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Category;
+import com.example.complexapp.dto.CategoryRequestDto;
+import com.example.complexapp.event.CategoryChangedEvent;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Category createCategory(CategoryRequestDto request) {
+        Category category = Category.builder()
+                .name(request.getName())
+                .description(request.getDescription())
+                .slug(request.getSlug() != null ? request.getSlug() : slugify(request.getName()))
+                .imageUrl(request.getImageUrl())
+                .active(request.getActive() == null || request.getActive())
+                .sortOrder(request.getSortOrder() != null ? request.getSortOrder() : 0)
+                .parent(request.getParentId() != null ? getCategory(request.getParentId()) : null)
+                .build();
+
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), CategoryChangedEvent.ChangeType.CREATED));
+        log.info("Created category: {}", saved.getSlug());
+        return saved;
+    }
+
+    public Category updateCategory(Long id, CategoryRequestDto request) {
+        Category category = getCategory(id);
+
+        if (request.getName() != null) {
+            category.setName(request.getName());
+        }
+        if (request.getDescription() != null) {
+            category.setDescription(request.getDescription());
+        }
+        if (request.getSlug() != null) {
+            category.setSlug(request.getSlug());
+        }
+        if (request.getImageUrl() != null) {
+            category.setImageUrl(request.getImageUrl());
+        }
+        if (request.getActive() != null) {
+            category.setActive(request.getActive());
+        }
+        if (request.getSortOrder() != null) {
+            category.setSortOrder(request.getSortOrder());
+        }
+
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, CategoryChangedEvent.ChangeType.UPDATED));
+        log.info("Updated category: {}", saved.getSlug());
+        return saved;
+    }
+
+    /**
+     * Moves a category below another one, or to the top level when {@code newParentId} is null.
+     * The new parent's ancestry is read from the database with every row on the way locked, so
+     * two concurrent moves cannot each pass the check against the other's old parent and close
+     * a cycle between them: the second one waits and then sees the first one's parent.
+     */
+    public Category moveCategory(Long id, Long newParentId) {
+        Category category = lockCategory(id);
+
+        if (newParentId != null) {
+            Category newParent = lockCategory(newParentId);
+            for (Category ancestor = newParent; ancestor != null;
+                 ancestor = ancestor.getParent() != null ? lockCategory(ancestor.getParent().getId()) : null) {
+                if (ancestor.getId().equals(id)) {
+                    throw new IllegalArgumentException("Category cannot be moved below itself: " + id);
+                }
+            }
+            category.setParent(newParent);
+        } else {
+            category.setParent(null);
+        }
+
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, CategoryChangedEvent.ChangeType.MOVED));
+        log.info("Moved category {} under {}", id, newParentId);
+        return saved;
+    }
+
+    public void deleteCategory(Long id) {
+        Category category = getCategory(id);
+        categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, CategoryChangedEvent.ChangeType.DELETED));
+        log.info("Deleted category: {}", category.getSlug());
+    }
+
+    private Category getCategory(Long id) {
+        return categoryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+    }
+
+    private Category lockCategory(Long id) {
+        return categoryRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+    }
+
+    private String slugify(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Product;
+import com.example.complexapp.event.CatalogChangedEvent;
+import com.example.complexapp.event.CategoryChangedEvent;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.CategoryRepository;
+import com.example.complexapp.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<CategoryTreeSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public CategoryTreeSnapshot getSnapshot() {
+        CategoryTreeSnapshot current = snapshot.get();
+        return current != null ? current : rebuild();
+    }
+
+    /**
+     * Loads the tree and the per-category active product counts with two flat queries and
+     * swaps the snapshot in one step; readers always see either the old or the new tree.
+     * A tree whose content changed is announced as a {@link CatalogChangedEvent}, which
+     * also covers edits made on other instances once the periodic refresh sees them.
+     */
+    public CategoryTreeSnapshot rebuild() {
+        // A lock rather than synchronized: the queries below would pin a virtual carrier thread
+        rebuildLock.lock();
+        try {
+            return doRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private CategoryTreeSnapshot doRebuild() {
+        long startedAt = System.nanoTime();
+
+        List<CategoryTreeSnapshot.Row> rows = new ArrayList<>();
+        for (Object[] row : categoryRepository.findTreeRows()) {
+            rows.add(new CategoryTreeSnapshot.Row((Long) row[0], (Long) row[1], (String) row[2],
+                    (String) row[3], Boolean.TRUE.equals(row[4]), (Integer) row[5], (Long) row[6]));
+        }
+
+        Map<Long, Long> productCounts = new HashMap<>();
+        for (Object[] row : productRepository.countByCategoryAndStatus(Product.ProductStatus.ACTIVE)) {
+            if (row[0] != null) {
+                productCounts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+
+        CategoryTreeSnapshot rebuilt = CategoryTreeSnapshot.build(versions.incrementAndGet(), rows, productCounts);
+        CategoryTreeSnapshot previous = snapshot.getAndSet(rebuilt);
+        if (previous == null || previous.getFingerprint() != rebuilt.getFingerprint()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Scope.CATEGORIES));
+        }
+        log.debug("Rebuilt category tree snapshot v{} with {} categories in {} ms",
+                rebuilt.getVersion(), rebuilt.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        return rebuilt;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        log.debug("Category {} {}, rebuilding tree snapshot", event.categoryId(), event.changeType());
+        rebuild();
+    }
+
+    // Picks up product counts and changes made by other instances
+    @Scheduled(fixedDelayString = "${app.category-tree.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (snapshot.get() != null) {
+            rebuild();
+        }
+    }
+
+    public CategoryTreeSnapshot.Node getNode(Long categoryId) {
+        return getSnapshot().getNode(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
+    }
+
+    public CategoryTreeSnapshot.Node getNodeBySlug(String slug) {
+        return getSnapshot().findBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with slug: " + slug));
+    }
+
+    public List<CategoryTreeSnapshot.Node> getBreadcrumbs(Long categoryId) {
+        return getSnapshot().getBreadcrumbs(getNode(categoryId).id());
+    }
+
+    public Page<Product> getProductsInSubtree(Long categoryId, Pageable pageable) {
+        List<Long> categoryIds = getSnapshot().getSubtreeIds(getNode(categoryId).id());
+        return productRepository.findByCategoryIdsAndStatus(categoryIds, Product.ProductStatus.ACTIVE, pageable);
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.complexapp.service;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, versioned view of the whole category tree laid out in pre-order.
+ * <p>
+ * Every subtree occupies the contiguous slice {@code [index, subtreeEnd[index])} of the
+ * pre-order arrays, so descendant sets are array views and ancestor checks are two
+ * integer comparisons. Nothing here touches the lazy {@code Category} associations.
+ * <p>
+ * {@link #getFingerprint()} hashes every category's id and {@code @Version} with its
+ * product count in pre-order; unlike {@link #getVersion()}, which counts rebuilds, it only
+ * changes when the tree's content does and is the same on every instance.
+ */
+public final class CategoryTreeSnapshot {
+
+    public static final CategoryTreeSnapshot EMPTY = build(0L, List.of(), Map.of());
+
+    private final long version;
+    private final Instant builtAt;
+    private final long[] ids;
+    private final long[] entityVersions;
+    private final int[] parentIndex;
+    private final int[] depth;
+    private final int[] subtreeEnd;
+    private final String[] names;
+    private final String[] slugs;
+    private final boolean[] active;
+    private final long[] productCounts;
+    private final long[] subtreeProductCounts;
+    private final Map<Long, Integer> indexById;
+    private final Map<String, Integer> indexBySlug;
+    private final List<Long> rootIds;
+    private long fingerprint;
+
+    private CategoryTreeSnapshot(long version, int size) {
+        this.version = version;
+        this.builtAt = Instant.now();
+        this.ids = new long[size];
+        this.entityVersions = new long[size];
+        this.parentIndex = new int[size];
+        this.depth = new int[size];
+        this.subtreeEnd = new int[size];
+        this.names = new String[size];
+        this.slugs = new String[size];
+        this.active = new boolean[size];
+        this.productCounts = new long[size];
+        this.subtreeProductCounts = new long[size];
+        this.indexById = new HashMap<>(size * 2);
+        this.indexBySlug = new HashMap<>(size * 2);
+        this.rootIds = new ArrayList<>();
+    }
+
+    public record Row(Long id, Long parentId, String name, String slug, boolean active, Integer sortOrder,
+                      Long version) {
+    }
+
+    public record Node(Long id, Long parentId, String name, String slug, boolean active, int depth,
+                       long productCount, long subtreeProductCount, int descendantCount) {
+    }
+
+    public static CategoryTreeSnapshot build(long version, List<Row> rows, Map<Long, Long> activeProductCounts) {
+        Map<Long, Row> rowsById = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> rowsById.put(row.id(), row));
+
+        Map<Long, List<Row>> childrenByParent = new HashMap<>();
+        List<Row> roots = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.parentId() == null || !rowsById.containsKey(row.parentId())) {
+                roots.add(row);
+            } else {
+                childrenByParent.computeIfAbsent(row.parentId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        Comparator<Row> order = Comparator
+                .comparing((Row row) -> row.sortOrder() != null ? row.sortOrder() : 0)
+                .thenComparing(Row::name, Comparator.nullsLast(Comparator.naturalOrder()));
+        roots.sort(order);
+        childrenByParent.values().forEach(children -> children.sort(order));
+
+        CategoryTreeSnapshot snapshot = new CategoryTreeSnapshot(version, rows.size());
+        int next = 0;
+        Deque<Integer> open = new ArrayDeque<>();
+        Deque<Row> pending = new ArrayDeque<>();
+        Deque<Integer> pendingParent = new ArrayDeque<>();
+        for (int i = roots.size() - 1; i >= 0; i--) {
+            pending.push(roots.get(i));
+            pendingParent.push(-1);
+        }
+
+        // Iterative pre-order walk; open holds the nodes whose subtree is still being filled
+        while (!pending.isEmpty()) {
+            Row row = pending.pop();
+            int parent = pendingParent.pop();
+            while (!open.isEmpty() && open.peek() != parent) {
+                snapshot.subtreeEnd[open.pop()] = next;
+            }
+
+            int index = next++;
+            snapshot.ids[index] = row.id();
+            snapshot.entityVersions[index] = row.version() != null ? row.version() : -1L;
+            snapshot.parentIndex[index] = parent;
+            snapshot.depth[index] = parent < 0 ? 0 : snapshot.depth[parent] + 1;
+            snapshot.names[index] = row.name();
+            snapshot.slugs[index] = row.slug();
+            snapshot.active[index] = row.active();
+            snapshot.productCounts[index] = activeProductCounts.getOrDefault(row.id(), 0L);
+            snapshot.indexById.put(row.id(), index);
+            if (row.slug() != null) {
+                snapshot.indexBySlug.put(row.slug(), index);
+            }
+            if (parent < 0) {
+                snapshot.rootIds.add(row.id());
+            }
+            open.push(index);
+
+            List<Row> children = childrenByParent.getOrDefault(row.id(), List.of());
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+                pendingParent.push(index);
+            }
+        }
+        while (!open.isEmpty()) {
+            snapshot.subtreeEnd[open.pop()] = next;
+        }
+
+        // Rows caught in a parent cycle are never reached from a root and are left out
+        if (next != rows.size()) {
+            return snapshot.truncate(next);
+        }
+
+        for (int i = next - 1; i >= 0; i--) {
+            snapshot.subtreeProductCounts[i] += snapshot.productCounts[i];
+            if (snapshot.parentIndex[i] >= 0) {
+                snapshot.subtreeProductCounts[snapshot.parentIndex[i]] += snapshot.subtreeProductCounts[i];
+            }
+        }
+        VersionFingerprint fingerprint = new VersionFingerprint();
+        for (int i = 0; i < next; i++) {
+            fingerprint.add(snapshot.ids[i]).add(snapshot.entityVersions[i]).add(snapshot.productCounts[i]);
+        }
+        snapshot.fingerprint = fingerprint.value();
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public List<Long> getRootIds() {
+        return Collections.unmodifiableList(rootIds);
+    }
+
+    public boolean contains(Long categoryId) {
+        return indexById.containsKey(categoryId);
+    }
+
+    public Optional<Node> getNode(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        return index != null ? Optional.of(node(index)) : Optional.empty();
+    }
+
+    public Optional<Node> findBySlug(String slug) {
+        Integer index = indexBySlug.get(slug);
+        return index != null ? Optional.of(node(index)) : Optional.empty();
+    }
+
+    public boolean isAncestorOrSelf(Long ancestorId, Long categoryId) {
+        Integer ancestor = indexById.get(ancestorId);
+        Integer index = indexById.get(categoryId);
+        return ancestor != null && index != null && ancestor <= index && index < subtreeEnd[ancestor];
+    }
+
+    /**
+     * The category and all of its descendants, as a view over the pre-order id array.
+     */
+    public List<Long> getSubtreeIds(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        return index != null ? new IdSlice(ids, index, subtreeEnd[index]) : List.of();
+    }
+
+    public List<Node> getChildren(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        if (index == null) {
+            return List.of();
+        }
+        List<Node> children = new ArrayList<>();
+        for (int child = index + 1; child < subtreeEnd[index]; child = subtreeEnd[child]) {
+            children.add(node(child));
+        }
+        return children;
+    }
+
+    /**
+     * Root-first path to the category, suitable for breadcrumbs.
+     */
+    public List<Node> getBreadcrumbs(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        if (index == null) {
+            return List.of();
+        }
+        Node[] path = new Node[depth[index] + 1];
+        for (int current = index; current >= 0; current = parentIndex[current]) {
+            path[depth[current]] = node(current);
+        }
+        return List.of(path);
+    }
+
+    public long getSubtreeProductCount(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        return index != null ? subtreeProductCounts[index] : 0;
+    }
+
+    private Node node(int index) {
+        return new Node(ids[index], parentIndex[index] >= 0 ? ids[parentIndex[index]] : null,
+                names[index], slugs[index], active[index], depth[index],
+                productCounts[index], subtreeProductCounts[index], subtreeEnd[index] - index - 1);
+    }
+
+    private CategoryTreeSnapshot truncate(int size) {
+        List<Row> reachable = new ArrayList<>(size);
+        Map<Long, Long> counts = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            reachable.add(new Row(ids[i], parentIndex[i] >= 0 ? ids[parentIndex[i]] : null,
+                    names[i], slugs[i], active[i], i, entityVersions[i]));
+            counts.put(ids[i], productCounts[i]);
+        }
+        return build(version, reachable, counts);
+    }
+
+    private static final class IdSlice extends AbstractList<Long> {
+
+        private final long[] ids;
+        private final int from;
+        private final int to;
+
+        private IdSlice(long[] ids, int from, int to) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Long get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return ids[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.dto.CheckoutRequestDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit front end for {@link CheckoutService}. Requests are queued and a small
+ * number of workers place them in batches of up to {@code maxBatchSize}, waiting at most
+ * {@code maxWait} for a batch to fill, so a burst of checkouts shares commits and
+ * connections. Each caller still gets its own future and its own outcome.
+ */
+@Component
+@Slf4j
+public class CheckoutPipeline {
+
+    private final CheckoutService checkoutService;
+    private final EmailService emailService;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int workerCount;
+    private final BlockingQueue<PendingCheckout> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private record PendingCheckout(CheckoutRequestDto request, CompletableFuture<Order> future) {
+    }
+
+    @Autowired
+    public CheckoutPipeline(CheckoutService checkoutService,
+                            EmailService emailService,
+                            @Value("${app.checkout.max-batch-size:32}") int maxBatchSize,
+                            @Value("${app.checkout.max-wait-ms:5}") long maxWaitMillis,
+                            @Value("${app.checkout.queue-capacity:2000}") int queueCapacity,
+                            @Value("${app.checkout.workers:2}") int workerCount) {
+        this(checkoutService, emailService, maxBatchSize, Duration.ofMillis(maxWaitMillis), queueCapacity, workerCount);
+    }
+
+    CheckoutPipeline(CheckoutService checkoutService, EmailService emailService, int maxBatchSize,
+                     Duration maxWait, int queueCapacity, int workerCount) {
+        this.checkoutService = checkoutService;
+        this.emailService = emailService;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.workerCount = Math.max(1, workerCount);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "checkout-batch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        PendingCheckout pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future().completeExceptionally(new RejectedExecutionException("Checkout pipeline is shutting down"));
+        }
+    }
+
+    public CompletableFuture<Order> submit(CheckoutRequestDto request) {
+        CompletableFuture<Order> future = new CompletableFuture<>();
+        if (!running || !queue.offer(new PendingCheckout(request, future))) {
+            // Full queue is the backpressure signal; callers should answer 503 rather than wait
+            future.completeExceptionally(new RejectedExecutionException("Checkout queue is full"));
+        }
+        return future;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runWorker() {
+        List<PendingCheckout> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingCheckout first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCheckout next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException | Error e) {
+                // Never let a worker die with callers still waiting on its batch
+                log.error("Unexpected checkout pipeline failure", e);
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<PendingCheckout> batch) {
+        List<CheckoutRequestDto> requests = batch.stream().map(PendingCheckout::request).toList();
+        try {
+            complete(batch, checkoutService.placeBatch(requests));
+        } catch (RuntimeException batchFailure) {
+            if (batch.size() == 1) {
+                batch.get(0).future().completeExceptionally(batchFailure);
+                return;
+            }
+            // The batch transaction rolled back as a whole; place the requests one by one so a single bad one only fails itself
+            log.warn("Checkout batch of {} failed, retrying individually: {}", batch.size(), batchFailure.getMessage());
+            for (PendingCheckout pending : batch) {
+                try {
+                    complete(List.of(pending), checkoutService.placeBatch(List.of(pending.request())));
+                } catch (RuntimeException e) {
+                    pending.future().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void complete(List<PendingCheckout> batch, List<CheckoutService.CheckoutOutcome> outcomes) {
+        for (int i = 0; i < batch.size(); i++) {
+            CheckoutService.CheckoutOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                batch.get(i).future().complete(outcome.order());
+                emailService.sendOrderConfirmation(outcome.user(), outcome.order().getOrderNumber());
+            } else {
+                batch.get(i).future().completeExceptionally(outcome.error());
+            }
+        }
+    }
+}
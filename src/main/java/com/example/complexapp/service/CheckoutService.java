@@ -0,0 +1,196 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderHistory;
+import com.example.complexapp.domain.OrderItem;
+import com.example.complexapp.domain.OrderStatus;
+import com.example.complexapp.domain.Product;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.dto.CheckoutRequestDto;
+import com.example.complexapp.dto.InventoryReservation;
+import com.example.complexapp.event.CatalogChangedEvent;
+import com.example.complexapp.event.InventoryChangedEvent;
+import com.example.complexapp.event.OrderChangedEvent;
+import com.example.complexapp.exception.InsufficientStockException;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.OrderHistoryRepository;
+import com.example.complexapp.repository.OrderRepository;
+import com.example.complexapp.repository.ProductRepository;
+import com.example.complexapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class CheckoutService {
+
+    private final OrderRepository orderRepository;
+    private final OrderHistoryRepository orderHistoryRepository;
+    private final ProductRepository productRepository;
+    private final InventoryReservationService inventoryReservationService;
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public record CheckoutOutcome(Order order, User user, RuntimeException error) {
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Places every request in one transaction. A request that cannot be placed (unknown
+     * user or product, not enough stock) gets an error outcome without affecting the
+     * rest of the batch; only a failure of the batch itself throws.
+     */
+    public List<CheckoutOutcome> placeBatch(List<CheckoutRequestDto> requests) {
+        int size = requests.size();
+        RuntimeException[] errors = new RuntimeException[size];
+
+        Set<String> skus = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (CheckoutRequestDto request : requests) {
+            request.getLines().forEach(line -> skus.add(line.getSku()));
+            userIds.add(request.getUserId());
+        }
+        Map<String, Product> products = productRepository.findBySkuIn(skus).stream()
+                .collect(Collectors.toMap(Product::getSku, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        for (int i = 0; i < size; i++) {
+            CheckoutRequestDto request = requests.get(i);
+            if (!users.containsKey(request.getUserId())) {
+                errors[i] = new ResourceNotFoundException("User not found with id: " + request.getUserId());
+                continue;
+            }
+            for (CheckoutRequestDto.Line line : request.getLines()) {
+                Product product = products.get(line.getSku());
+                if (product == null || product.getStatus() != Product.ProductStatus.ACTIVE) {
+                    errors[i] = new ResourceNotFoundException("Product not available: " + line.getSku());
+                    break;
+                }
+            }
+        }
+
+        // Stock comes out of the reservation ledgers, which only go to the database to lease another chunk
+        Map<Integer, InventoryReservation> reserved = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            Map<String, Integer> lines = new HashMap<>();
+            requests.get(i).getLines().forEach(line -> lines.merge(line.getSku(), line.getQuantity(), Integer::sum));
+            try {
+                reserved.put(i, inventoryReservationService.reserveAll(lines));
+            } catch (InsufficientStockException e) {
+                errors[i] = e;
+            }
+        }
+        List<String> reservationIds = reserved.values().stream().map(InventoryReservation::getReservationId).toList();
+        try {
+            // Sold counts change in SKU order for the whole batch; a rollback hands the stock back to the ledgers
+            inventoryReservationService.confirmAll(reservationIds);
+        } catch (RuntimeException e) {
+            reservationIds.forEach(inventoryReservationService::release);
+            throw e;
+        }
+        Map<String, Long> sold = new TreeMap<>();
+        reserved.values().forEach(reservation -> reservation.getLines()
+                .forEach((sku, quantity) -> sold.merge(sku, (long) quantity, Long::sum)));
+        if (!sold.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Scope.PRODUCTS));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>();
+        List<OrderHistory> history = new ArrayList<>();
+        List<CheckoutOutcome> outcomes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CheckoutRequestDto request = requests.get(i);
+            if (errors[i] != null) {
+                outcomes.add(new CheckoutOutcome(null, null, errors[i]));
+                continue;
+            }
+            Order order = buildOrder(request, users.get(request.getUserId()), products);
+            orders.add(order);
+            history.add(OrderHistory.builder()
+                    .order(order)
+                    .sequenceNumber(1L)
+                    .status(OrderStatus.PENDING)
+                    .description("Order placed")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+            outcomes.add(new CheckoutOutcome(order, users.get(request.getUserId()), null));
+        }
+
+        orderRepository.saveAll(orders);
+        orderHistoryRepository.saveAll(history);
+        outboxService.recordOrderEvents(orders.stream().map(OrderChangedEvent::placed).toList());
+        outboxService.recordInventoryEvents(sold.entrySet().stream()
+                .map(entry -> InventoryChangedEvent.sold(products.get(entry.getKey()).getId(), entry.getKey(),
+                        entry.getValue().intValue()))
+                .toList());
+        // Flush here so constraint failures surface from this call rather than at commit
+        orderRepository.flush();
+
+        log.debug("Placed {} of {} orders in one transaction", orders.size(), size);
+        return outcomes;
+    }
+
+    private Order buildOrder(CheckoutRequestDto request, User user, Map<String, Product> products) {
+        Order order = Order.builder()
+                .user(user)
+                .status(Order.OrderStatus.PENDING)
+                .paymentStatus(Order.PaymentStatus.PENDING)
+                .shippingStatus(Order.ShippingStatus.PENDING)
+                .taxAmount(BigDecimal.ZERO)
+                .shippingAmount(BigDecimal.ZERO)
+                .discountAmount(BigDecimal.ZERO)
+                .refundAmount(BigDecimal.ZERO)
+                .currency("USD")
+                .shippingAddress(request.getShippingAddress())
+                .billingAddress(request.getBillingAddress() != null ? request.getBillingAddress() : request.getShippingAddress())
+                .paymentMethod(request.getPaymentMethod())
+                .notes(request.getNotes())
+                .orderItems(new ArrayList<>())
+                .orderHistory(new ArrayList<>())
+                .historySequence(1L)
+                .build();
+
+        for (CheckoutRequestDto.Line line : request.getLines()) {
+            Product product = products.get(line.getSku());
+            order.getOrderItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(line.getQuantity())
+                    .price(product.getPrice())
+                    .originalPrice(product.getOriginalPrice())
+                    .discountAmount(BigDecimal.ZERO)
+                    .productName(product.getName())
+                    .productSku(product.getSku())
+                    .build());
+        }
+        order.calculateTotals();
+        return order;
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.complexapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends mail from a bounded queue. Each worker owns one SMTP transport and keeps it open
+ * between batches, so a burst of messages shares a handful of connections instead of
+ * opening a session per message; a transport idle for longer than {@code idleTimeout} is
+ * closed. Failed messages are retried with exponential backoff, except when the server
+ * rejected their recipients, which no retry will fix. A message waiting out its backoff
+ * sits in a delay queue that the workers take from once it is due, so no worker is held
+ * up while new mail keeps arriving.
+ *
+ * <p>{@link #dispatch} never blocks for long: when the queue stays full the message is
+ * rejected and counted, and {@link #isSaturated()} tells bulk senders to slow down.
+ */
+@Component
+@Slf4j
+public class EmailDispatcher {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int workerCount;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration enqueueTimeout;
+    private final Duration idleTimeout;
+    private final Duration shutdownTimeout;
+    private final BlockingQueue<OutgoingEmail> queue;
+    private final DelayQueue<PendingRetry> retries = new DelayQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Counter rejectedCounter;
+    private final Counter connectionsCounter;
+    private final DistributionSummary batchSizes;
+    private final Timer batchTimer;
+
+    public record OutgoingEmail(String type, SimpleMailMessage message, int attempt) {
+
+        OutgoingEmail retry() {
+            return new OutgoingEmail(type, message, attempt + 1);
+        }
+    }
+
+    private record PendingRetry(OutgoingEmail email, long dueAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((PendingRetry) other).dueAt);
+        }
+    }
+
+    @Autowired
+    public EmailDispatcher(JavaMailSenderImpl mailSender,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.mail.dispatcher.workers:4}") int workerCount,
+                           @Value("${app.mail.dispatcher.queue-capacity:5000}") int queueCapacity,
+                           @Value("${app.mail.dispatcher.max-batch-size:50}") int maxBatchSize,
+                           @Value("${app.mail.dispatcher.max-attempts:4}") int maxAttempts,
+                           @Value("${app.mail.dispatcher.retry-backoff-ms:500}") long retryBackoffMillis,
+                           @Value("${app.mail.dispatcher.enqueue-timeout-ms:50}") long enqueueTimeoutMillis,
+                           @Value("${app.mail.dispatcher.idle-timeout-ms:30000}") long idleTimeoutMillis,
+                           @Value("${app.mail.dispatcher.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this(mailSender, meterRegistry, workerCount, queueCapacity, maxBatchSize, maxAttempts,
+                Duration.ofMillis(retryBackoffMillis), Duration.ofMillis(enqueueTimeoutMillis),
+                Duration.ofMillis(idleTimeoutMillis), Duration.ofMillis(shutdownTimeoutMillis));
+    }
+
+    EmailDispatcher(JavaMailSenderImpl mailSender, MeterRegistry meterRegistry, int workerCount, int queueCapacity,
+                    int maxBatchSize, int maxAttempts, Duration retryBackoff, Duration enqueueTimeout,
+                    Duration idleTimeout, Duration shutdownTimeout) {
+        this.mailSender = mailSender;
+        this.workerCount = Math.max(1, workerCount);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.enqueueTimeout = enqueueTimeout;
+        this.idleTimeout = idleTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.sentCounter = meterRegistry.counter("email.messages", "outcome", "sent");
+        this.failedCounter = meterRegistry.counter("email.messages", "outcome", "failed");
+        this.rejectedCounter = meterRegistry.counter("email.messages", "outcome", "rejected");
+        this.retriedCounter = meterRegistry.counter("email.retries");
+        this.connectionsCounter = meterRegistry.counter("email.connections.opened");
+        this.batchSizes = DistributionSummary.builder("email.batch.size").register(meterRegistry);
+        this.batchTimer = meterRegistry.timer("email.batch");
+        Gauge.builder("email.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("email.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Messages that can still be queued before new ones are rejected")
+                .register(meterRegistry);
+        Gauge.builder("email.retry.pending", retries, DelayQueue::size)
+                .description("Failed messages waiting out their backoff")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "email-dispatch-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Stops accepting messages and gives the workers {@code shutdownTimeout} to drain the
+     * queue and the pending retries; whatever is left after that is dropped and logged.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.forEach(Thread::interrupt);
+        int dropped = queue.size() + retries.size();
+        queue.clear();
+        retries.clear();
+        if (dropped > 0) {
+            log.warn("Email dispatcher stopped with {} unsent messages", dropped);
+        }
+    }
+
+    /**
+     * Queues a message, waiting at most {@code enqueueTimeout} for room. Returns false when
+     * the message was rejected because the queue is full or the dispatcher is stopping.
+     */
+    public boolean dispatch(String type, SimpleMailMessage message) {
+        boolean queued = false;
+        if (running) {
+            try {
+                queued = queue.offer(new OutgoingEmail(type, message, 1), enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            rejectedCounter.increment();
+            log.warn("Rejected {} email to {}: dispatch queue is full", type, String.join(",", message.getTo()));
+        }
+        return queued;
+    }
+
+    /**
+     * True when less than a tenth of the queue is free; bulk senders should pause.
+     */
+    public boolean isSaturated() {
+        int remaining = queue.remainingCapacity();
+        return remaining * 10 < remaining + queue.size();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runWorker() {
+        Transport transport = null;
+        long lastUsed = System.nanoTime();
+        long pollMillis = Math.min(1000, Math.max(1, idleTimeout.toMillis()));
+        List<OutgoingEmail> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty() || !retries.isEmpty()) {
+                takeDueRetries(batch);
+                if (batch.isEmpty()) {
+                    // Wake up in time for the next retry that falls due
+                    PendingRetry next = retries.peek();
+                    long wait = next != null
+                            ? Math.max(1, Math.min(pollMillis, next.getDelay(TimeUnit.MILLISECONDS)))
+                            : pollMillis;
+                    OutgoingEmail first = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (transport != null && System.nanoTime() - lastUsed > idleTimeout.toNanos()) {
+                            transport = close(transport);
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                transport = sendBatch(transport, batch);
+                lastUsed = System.nanoTime();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            log.error("Email dispatch worker failed", e);
+        } finally {
+            close(transport);
+        }
+    }
+
+    private void takeDueRetries(List<OutgoingEmail> batch) {
+        PendingRetry due;
+        while (batch.size() < maxBatchSize && (due = retries.poll()) != null) {
+            batch.add(due.email());
+        }
+    }
+
+    private Transport sendBatch(Transport transport, List<OutgoingEmail> batch) {
+        batchSizes.record(batch.size());
+        long start = System.nanoTime();
+        // isConnected() costs a NOOP round trip, so the kept-open transport is checked once per batch
+        if (transport != null && !transport.isConnected()) {
+            transport = close(transport);
+        }
+        for (OutgoingEmail email : batch) {
+            try {
+                if (transport == null) {
+                    transport = connect();
+                }
+                MimeMessage mime = toMime(email.message());
+                transport.sendMessage(mime, mime.getAllRecipients());
+                sentCounter.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug("Sent {} email to {}", email.type(), String.join(",", email.message().getTo()));
+                }
+            } catch (SendFailedException e) {
+                if (e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0) {
+                    failedCounter.increment();
+                    log.error("Failed to send {} email: recipient rejected", email.type(), e);
+                } else {
+                    scheduleRetry(email);
+                }
+            } catch (MessagingException | MailException e) {
+                // The connection is suspect after any other failure; the next message reconnects
+                transport = close(transport);
+                scheduleRetry(email);
+                log.warn("Failed to send {} email (attempt {}): {}", email.type(), email.attempt(), e.getMessage());
+            }
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return transport;
+    }
+
+    private void scheduleRetry(OutgoingEmail email) {
+        if (email.attempt() >= maxAttempts) {
+            failedCounter.increment();
+            log.error("Giving up on {} email to {} after {} attempts",
+                    email.type(), String.join(",", email.message().getTo()), email.attempt());
+            return;
+        }
+        retriedCounter.increment();
+        long backoff = retryBackoff.toNanos() << Math.min(email.attempt() - 1, 10);
+        retries.put(new PendingRetry(email.retry(), System.nanoTime() + backoff));
+    }
+
+    private Transport connect() throws MessagingException {
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol()
+                : mailSender.getSession().getProperty("mail.transport.protocol");
+        Transport transport = mailSender.getSession().getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        connectionsCounter.increment();
+        return transport;
+    }
+
+    private MimeMessage toMime(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mime = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(mime));
+        mime.saveChanges();
+        return mime;
+    }
+
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP transport: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+}
@@ -1,127 +1,138 @@
 package com.example.complexapp.service;
 
+import com.example.complexapp.config.WorkloadExecutorConfig;
 import com.example.complexapp.domain.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Renders notification mails with {@link EmailTemplateRenderer} and hands them to
+ * {@link EmailDispatcher}, which sends them in the background; these methods only queue
+ * and never wait on SMTP. Mails use the locale of the current request, if any.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    public static final String WELCOME = "welcome";
+    public static final String PASSWORD_RESET = "password-reset";
+    public static final String EMAIL_VERIFICATION = "email-verification";
+    public static final String ACCOUNT_LOCKED = "account-locked";
+    public static final String ORDER_CONFIRMATION = "order-confirmation";
+
+    private static final int CAMPAIGN_CHUNK = 500;
+    private static final long SATURATION_PAUSE_MS = 50;
+
+    private final EmailDispatcher emailDispatcher;
+    private final EmailTemplateRenderer templateRenderer;
+
+    @Value("${app.mail.base-url:http://localhost:8080}")
+    private String baseUrl;
 
-    @Async
     public void sendWelcomeEmail(User user) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setSubject("Welcome to Complex Spring Boot App!");
-            message.setText(String.format(
-                "Hello %s,\n\nWelcome to our application! Your account has been created successfully.\n\n" +
-                "Username: %s\nEmail: %s\n\n" +
-                "Please verify your email address to activate your account.\n\n" +
-                "Best regards,\nThe Team",
-                user.getFirstName(),
-                user.getUsername(),
-                user.getEmail()
-            ));
-            
-            mailSender.send(message);
-            log.info("Welcome email sent to: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send welcome email to: {}", user.getEmail(), e);
-        }
+        send(WELCOME, user, model(user));
     }
 
-    @Async
     public void sendPasswordResetEmail(User user, String tempPassword) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setSubject("Password Reset Request");
-            message.setText(String.format(
-                "Hello %s,\n\nYou have requested a password reset for your account.\n\n" +
-                "Your temporary password is: %s\n\n" +
-                "Please change your password after logging in.\n\n" +
-                "If you did not request this reset, please ignore this email.\n\n" +
-                "Best regards,\nThe Team",
-                user.getFirstName(),
-                tempPassword
-            ));
-            
-            mailSender.send(message);
-            log.info("Password reset email sent to: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send password reset email to: {}", user.getEmail(), e);
-        }
+        Map<String, Object> model = model(user);
+        model.put("tempPassword", tempPassword);
+        send(PASSWORD_RESET, user, model);
     }
 
-    @Async
     public void sendEmailVerification(User user, String verificationToken) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setSubject("Email Verification");
-            message.setText(String.format(
-                "Hello %s,\n\nPlease verify your email address by clicking the link below:\n\n" +
-                "http://localhost:8080/api/auth/verify-email?token=%s\n\n" +
-                "If you did not create an account, please ignore this email.\n\n" +
-                "Best regards,\nThe Team",
-                user.getFirstName(),
-                verificationToken
-            ));
-            
-            mailSender.send(message);
-            log.info("Email verification sent to: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send email verification to: {}", user.getEmail(), e);
-        }
+        Map<String, Object> model = model(user);
+        model.put("token", verificationToken);
+        send(EMAIL_VERIFICATION, user, model);
     }
 
-    @Async
     public void sendAccountLockedNotification(User user) {
+        send(ACCOUNT_LOCKED, user, model(user));
+    }
+
+    public void sendOrderConfirmation(User user, String orderNumber) {
+        Map<String, Object> model = model(user);
+        model.put("orderNumber", orderNumber);
+        send(ORDER_CONFIRMATION, user, model);
+    }
+
+    /**
+     * Sends one template to many users on the email executor. Rendering happens in chunks,
+     * pausing while the dispatcher is saturated instead of having mails rejected. Completes
+     * with how many mails were queued.
+     */
+    @Async(WorkloadExecutorConfig.EMAIL)
+    public CompletableFuture<Integer> sendCampaign(String template, Locale locale, Collection<User> recipients,
+                                                   Map<String, ?> shared) {
+        List<User> users = new ArrayList<>(recipients);
+        int queued = 0;
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setSubject("Account Locked");
-            message.setText(String.format(
-                "Hello %s,\n\nYour account has been locked due to multiple failed login attempts.\n\n" +
-                "Please contact support to unlock your account.\n\n" +
-                "Best regards,\nThe Team",
-                user.getFirstName()
-            ));
-            
-            mailSender.send(message);
-            log.info("Account locked notification sent to: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send account locked notification to: {}", user.getEmail(), e);
+            for (int from = 0; from < users.size(); from += CAMPAIGN_CHUNK) {
+                List<User> chunk = users.subList(from, Math.min(users.size(), from + CAMPAIGN_CHUNK));
+                List<Map<String, Object>> models = new ArrayList<>(chunk.size());
+                for (User user : chunk) {
+                    Map<String, Object> model = model(user);
+                    model.putAll(shared);
+                    models.add(model);
+                }
+                List<EmailTemplateRenderer.RenderedEmail> rendered = templateRenderer.renderAll(template, locale, models);
+                for (int i = 0; i < chunk.size(); i++) {
+                    while (emailDispatcher.isSaturated()) {
+                        Thread.sleep(SATURATION_PAUSE_MS);
+                    }
+                    if (emailDispatcher.dispatch(template, message(chunk.get(i), rendered.get(i)))) {
+                        queued++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Campaign {} interrupted after queueing {} of {} mails", template, queued, users.size());
         }
+        log.info("Campaign {} queued {} of {} mails", template, queued, users.size());
+        return CompletableFuture.completedFuture(queued);
     }
 
-    @Async
-    public void sendOrderConfirmation(User user, String orderNumber) {
+    private void send(String template, User user, Map<String, Object> model) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(user.getEmail());
-            message.setSubject("Order Confirmation - " + orderNumber);
-            message.setText(String.format(
-                "Hello %s,\n\nThank you for your order! Your order has been confirmed.\n\n" +
-                "Order Number: %s\n\n" +
-                "We will send you updates on your order status.\n\n" +
-                "Best regards,\nThe Team",
-                user.getFirstName(),
-                orderNumber
-            ));
-            
-            mailSender.send(message);
-            log.info("Order confirmation sent to: {}", user.getEmail());
+            EmailTemplateRenderer.RenderedEmail email =
+                    templateRenderer.render(template, LocaleContextHolder.getLocale(), model);
+            if (emailDispatcher.dispatch(template, message(user, email))) {
+                log.debug("Queued {} email for: {}", template, user.getEmail());
+            }
         } catch (Exception e) {
-            log.error("Failed to send order confirmation to: {}", user.getEmail(), e);
+            log.error("Failed to send {} email to: {}", template, user.getEmail(), e);
         }
     }
+
+    private Map<String, Object> model(User user) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("firstName", user.getFirstName());
+        model.put("lastName", user.getLastName());
+        model.put("username", user.getUsername());
+        model.put("email", user.getEmail());
+        model.put("baseUrl", baseUrl);
+        return model;
+    }
+
+    private SimpleMailMessage message(User user, EmailTemplateRenderer.RenderedEmail email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(user.getEmail());
+        message.setSubject(email.subject());
+        message.setText(email.body());
+        return message;
+    }
 }
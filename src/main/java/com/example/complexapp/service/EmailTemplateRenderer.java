@@ -0,0 +1,170 @@
+package com.example.complexapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the notification mails from {@code templates/email/<name>[_<locale>].txt}. A
+ * template starts with a {@code Subject:} line, then a blank line and the body; both may
+ * use {@code ${variable}} placeholders. All templates are read and compiled into literal
+ * and variable segments once at startup, so rendering is a walk over the segments into a
+ * per-thread buffer and never touches the classpath or re-parses text.
+ *
+ * <p>Locale variants fall back from {@code name_de_AT} to {@code name_de} to {@code name};
+ * the outcome is cached per locale.
+ */
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    private static final String SUBJECT_PREFIX = "Subject:";
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    // Locales come from Accept-Language, so the resolution cache is capped
+    private static final int MAX_RESOLVED = 256;
+
+    private final Map<String, CompiledTemplate> templates = new HashMap<>();
+    private final Map<String, CompiledTemplate> resolved = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    public record RenderedEmail(String subject, String body) {
+    }
+
+    public EmailTemplateRenderer(@Value("${app.mail.templates.location:classpath*:templates/email/}") String location) {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location + "*.txt")) {
+                String filename = resource.getFilename();
+                String key = filename.substring(0, filename.length() - ".txt".length());
+                templates.put(key, compile(key, resource.getContentAsString(StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load email templates from " + location, e);
+        }
+        log.info("Compiled {} email templates", templates.size());
+    }
+
+    public boolean hasTemplate(String name) {
+        return templates.containsKey(name);
+    }
+
+    public RenderedEmail render(String name, Locale locale, Map<String, ?> model) {
+        CompiledTemplate template = resolve(name, locale);
+        StringBuilder buffer = buffer();
+        String subject = template.subject().render(model, buffer);
+        return new RenderedEmail(subject, template.body().render(model, buffer));
+    }
+
+    /**
+     * Renders one mail per model, resolving the template once; meant for campaigns that
+     * send the same template to many recipients.
+     */
+    public List<RenderedEmail> renderAll(String name, Locale locale, Collection<? extends Map<String, ?>> models) {
+        CompiledTemplate template = resolve(name, locale);
+        StringBuilder buffer = buffer();
+        List<RenderedEmail> rendered = new ArrayList<>(models.size());
+        for (Map<String, ?> model : models) {
+            rendered.add(new RenderedEmail(template.subject().render(model, buffer), template.body().render(model, buffer)));
+        }
+        return rendered;
+    }
+
+    private CompiledTemplate resolve(String name, Locale locale) {
+        Locale effective = locale != null ? locale : Locale.ROOT;
+        String key = name + "_" + effective;
+        CompiledTemplate cached = resolved.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        for (String candidate : List.of(name + "_" + effective.getLanguage() + "_" + effective.getCountry(),
+                name + "_" + effective.getLanguage(), name)) {
+            CompiledTemplate template = templates.get(candidate);
+            if (template != null) {
+                if (resolved.size() < MAX_RESOLVED) {
+                    resolved.put(key, template);
+                }
+                return template;
+            }
+        }
+        throw new IllegalArgumentException("No email template named " + name);
+    }
+
+    private StringBuilder buffer() {
+        StringBuilder buffer = buffers.get();
+        // Don't let one huge campaign mail pin a large buffer to the thread forever
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            buffer = new StringBuilder(1024);
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    static CompiledTemplate compile(String name, String source) {
+        String text = source.replace("\r\n", "\n");
+        int headerEnd = text.indexOf("\n\n");
+        if (!text.startsWith(SUBJECT_PREFIX) || headerEnd < 0) {
+            throw new IllegalStateException("Email template " + name + " must start with a Subject: line and a blank line");
+        }
+        String subject = text.substring(SUBJECT_PREFIX.length(), headerEnd).trim();
+        String body = text.substring(headerEnd + 2).stripTrailing();
+        return new CompiledTemplate(Segments.parse(name, subject), Segments.parse(name, body));
+    }
+
+    record CompiledTemplate(Segments subject, Segments body) {
+    }
+
+    /**
+     * {@code literals[0] var[0] literals[1] var[1] ... literals[n]}.
+     */
+    record Segments(String template, String[] literals, String[] variables) {
+
+        static Segments parse(String template, String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int position = 0;
+            int start;
+            while ((start = text.indexOf("${", position)) >= 0) {
+                int end = text.indexOf('}', start + 2);
+                if (end < 0) {
+                    throw new IllegalStateException("Unclosed placeholder in email template " + template);
+                }
+                literals.add(text.substring(position, start));
+                variables.add(text.substring(start + 2, end).trim());
+                position = end + 1;
+            }
+            literals.add(text.substring(position));
+            return new Segments(template, literals.toArray(String[]::new), variables.toArray(String[]::new));
+        }
+
+        String render(Map<String, ?> model, StringBuilder buffer) {
+            if (variables.length == 0) {
+                return literals[0];
+            }
+            buffer.setLength(0);
+            buffer.append(literals[0]);
+            for (int i = 0; i < variables.length; i++) {
+                if (!model.containsKey(variables[i])) {
+                    throw new IllegalArgumentException("Email template " + template + " needs variable " + variables[i]);
+                }
+                Object value = model.get(variables[i]);
+                if (value != null) {
+                    buffer.append(value);
+                }
+                buffer.append(literals[i + 1]);
+            }
+            return buffer.toString();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.config.WorkloadExecutorConfig;
+import com.example.complexapp.domain.IdempotencyRecord;
+import com.example.complexapp.exception.IdempotencyConflictException;
+import com.example.complexapp.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried requests cheap and safe. Completed responses are looked up in a bounded
+ * local cache, then (optionally) Redis, then the {@code idempotency_records} table, which
+ * is the only tier that decides who gets to run a request. A replay returns the stored
+ * status and body without touching the order pipeline.
+ *
+ * <p>Deliberately not {@code @Transactional}: claims and completions must commit on their
+ * own, independently of whatever transaction the guarded action opens.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String ORDER_CREATION = "order-creation";
+    public static final String PAYMENT_CALLBACK = "payment-callback";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String REDIS_PREFIX = "idempotency:";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration claimTimeout;
+    private final Map<String, StoredResponse> localCache;
+    // A lock rather than synchronized, so request threads never pin a virtual carrier on the cache
+    private final ReentrantLock localCacheLock = new ReentrantLock();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public record StoredResponse(String requestHash, int status, String body, long expiresAtMillis) {
+    }
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectProvider<StringRedisTemplate> redisTemplate,
+                              @Value("${app.idempotency.redis-enabled:false}") boolean redisEnabled,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.claim-timeout-seconds:60}") long claimTimeoutSeconds,
+                              @Value("${app.idempotency.local-cache-size:10000}") int localCacheSize) {
+        this(recordRepository, redisEnabled ? redisTemplate.getIfAvailable() : null, Clock.systemDefaultZone(),
+                Duration.ofHours(ttlHours), Duration.ofSeconds(claimTimeoutSeconds), localCacheSize);
+    }
+
+    IdempotencyService(IdempotencyRecordRepository recordRepository, StringRedisTemplate redisTemplate, Clock clock,
+                       Duration ttl, Duration claimTimeout, int localCacheSize) {
+        this.recordRepository = recordRepository;
+        this.redisTemplate = redisTemplate;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.claimTimeout = claimTimeout;
+        this.localCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > localCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code action} at most once per (scope, key). Responses below 500 are stored and
+     * replayed; server errors release the claim so the client may retry.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        Optional<StoredResponse> replay = begin(scope, key, request);
+        if (replay.isPresent()) {
+            return toResponse(replay.get(), bodyType);
+        }
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            abandon(scope, key);
+            throw e;
+        }
+        finish(scope, key, request, response);
+        return response;
+    }
+
+    /**
+     * Asynchronous variant of {@link #execute}; the returned future completes only after the
+     * response has been stored, so a retry that follows it is always a replay. A failed
+     * action releases the claim and the failure is passed on for the caller to map.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> executeAsync(String scope, String key, Object request, Class<T> bodyType,
+                                                                 Supplier<CompletableFuture<ResponseEntity<T>>> action) {
+        Optional<StoredResponse> replay;
+        try {
+            replay = begin(scope, key, request);
+        } catch (IdempotencyConflictException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (replay.isPresent()) {
+            return CompletableFuture.completedFuture(toResponse(replay.get(), bodyType));
+        }
+        CompletableFuture<ResponseEntity<T>> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            abandon(scope, key);
+            return CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((response, failure) -> {
+            if (failure != null) {
+                abandon(scope, key);
+            } else {
+                finish(scope, key, request, response);
+            }
+        });
+    }
+
+    /**
+     * Returns the stored response for a completed request, or claims the key and returns
+     * empty. Throws when the key is claimed by a request still running, or was used for a
+     * different payload.
+     */
+    public Optional<StoredResponse> begin(String scope, String key, Object request) {
+        String cacheKey = scope + ":" + key;
+        String requestHash = hash(request);
+
+        StoredResponse cached = lookupCached(cacheKey);
+        if (cached != null) {
+            return Optional.of(verified(cached, requestHash, key));
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .scope(scope)
+                        .idempotencyKey(key)
+                        .requestHash(requestHash)
+                        .status(IdempotencyRecord.Status.IN_PROGRESS)
+                        .createdAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+                return Optional.empty();
+            } catch (DataIntegrityViolationException duplicate) {
+                IdempotencyRecord existing = recordRepository.findByScopeAndIdempotencyKey(scope, key).orElse(null);
+                if (existing == null) {
+                    continue;
+                }
+                // An expired record no longer guards its key, even before the purge gets to it
+                if (attempt == 0 && existing.getExpiresAt().isBefore(now)
+                        && recordRepository.deleteExpired(scope, key, now) > 0) {
+                    continue;
+                }
+                if (existing.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                    StoredResponse stored = toStored(existing);
+                    remember(cacheKey, stored);
+                    return Optional.of(verified(stored, requestHash, key));
+                }
+                // A claim older than the timeout belongs to a request that died mid-flight; take it over once
+                if (attempt == 0 && recordRepository.deleteClaim(scope, key, now.minus(claimTimeout)) > 0) {
+                    log.warn("Taking over stale idempotency claim {}", cacheKey);
+                    continue;
+                }
+                throw new IdempotencyConflictException("Request with idempotency key " + key + " is still in progress");
+            }
+        }
+        throw new IdempotencyConflictException("Request with idempotency key " + key + " is still in progress");
+    }
+
+    public void complete(String scope, String key, Object request, int status, Object body) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime expiresAt = now.plus(ttl);
+        String json = body != null ? toJson(body) : null;
+        if (recordRepository.complete(scope, key, status, json, now, expiresAt) == 0) {
+            log.warn("Idempotency claim {}:{} was gone when completing; response not stored", scope, key);
+            return;
+        }
+        remember(scope + ":" + key, new StoredResponse(hash(request), status, json,
+                expiresAt.atZone(clock.getZone()).toInstant().toEpochMilli()));
+    }
+
+    public void abandon(String scope, String key) {
+        try {
+            recordRepository.deleteClaim(scope, key, LocalDateTime.now(clock).plusSeconds(1));
+        } catch (RuntimeException e) {
+            // The claim then simply ages out after the claim timeout
+            log.warn("Failed to release idempotency claim {}:{}: {}", scope, key, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    @Async(WorkloadExecutorConfig.MAINTENANCE)
+    public void purgeExpired() {
+        int purged = recordRepository.deleteExpired(LocalDateTime.now(clock));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    private <T> void finish(String scope, String key, Object request, ResponseEntity<T> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            abandon(scope, key);
+            return;
+        }
+        try {
+            complete(scope, key, request, response.getStatusCode().value(), response.getBody());
+        } catch (RuntimeException e) {
+            // The action already happened; don't turn its response into an error, the claim ages out instead
+            log.error("Failed to store idempotent response {}:{}", scope, key, e);
+        }
+    }
+
+    private StoredResponse verified(StoredResponse stored, String requestHash, String key) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency key " + key + " was already used for a different request");
+        }
+        return stored;
+    }
+
+    private StoredResponse lookupCached(String cacheKey) {
+        long now = clock.millis();
+        StoredResponse local;
+        localCacheLock.lock();
+        try {
+            local = localCache.get(cacheKey);
+            if (local != null && local.expiresAtMillis() <= now) {
+                localCache.remove(cacheKey);
+                local = null;
+            }
+        } finally {
+            localCacheLock.unlock();
+        }
+        if (local != null || redisTemplate == null) {
+            return local;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_PREFIX + cacheKey);
+            if (json == null) {
+                return null;
+            }
+            StoredResponse stored = objectMapper.readValue(json, StoredResponse.class);
+            cacheLocally(cacheKey, stored);
+            return stored;
+        } catch (RuntimeException | JsonProcessingException e) {
+            // Redis is an optimisation only; fall through to the database
+            log.debug("Idempotency Redis lookup failed for {}: {}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void remember(String cacheKey, StoredResponse stored) {
+        cacheLocally(cacheKey, stored);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            long remainingMillis = stored.expiresAtMillis() - clock.millis();
+            if (remainingMillis > 0) {
+                redisTemplate.opsForValue().set(REDIS_PREFIX + cacheKey, toJson(stored), Duration.ofMillis(remainingMillis));
+            }
+        } catch (RuntimeException e) {
+            log.debug("Idempotency Redis write failed for {}: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    private void cacheLocally(String cacheKey, StoredResponse stored) {
+        localCacheLock.lock();
+        try {
+            localCache.put(cacheKey, stored);
+        } finally {
+            localCacheLock.unlock();
+        }
+    }
+
+    private StoredResponse toStored(IdempotencyRecord record) {
+        return new StoredResponse(record.getRequestHash(), record.getResponseStatus(), record.getResponseBody(),
+                record.getExpiresAt().atZone(clock.getZone()).toInstant().toEpochMilli());
+    }
+
+    private <T> ResponseEntity<T> toResponse(StoredResponse stored, Class<T> bodyType) {
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), bodyType) : null;
+            return ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is not a " + bodyType.getSimpleName(), e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.InventoryLease;
+import com.example.complexapp.dto.InventoryReservation;
+import com.example.complexapp.exception.InsufficientStockException;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.InventoryLeaseRepository;
+import com.example.complexapp.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserves product stock for checkouts without locking the versioned Product row.
+ * <p>
+ * Each SKU has an in-memory ledger that leases stock from the database in chunks via a
+ * conditional {@code UPDATE ... WHERE stock_quantity >= ?}; reservations are then served
+ * from the ledger with a CAS, so a burst on a hot SKU costs one round trip per chunk.
+ * Unreserved leased stock is handed back to the database once a ledger goes idle, and the
+ * ledger itself is dropped.
+ * <p>
+ * Every unit taken from the database is also recorded against this instance in
+ * {@code inventory_leases}, in the same transaction as the stock decrement. The sweep renews
+ * those rows; if an instance dies, its rows expire and another instance's sweep puts the
+ * stock back.
+ */
+@Service
+@Slf4j
+public class InventoryReservationService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final long SOLD_OUT_BACKOFF_MILLIS = 250;
+
+    private final ProductRepository productRepository;
+    private final InventoryLeaseRepository leaseRepository;
+    private final TransactionOperations newTransaction;
+    private final Clock clock;
+    private final Duration reservationTtl;
+    private final int leaseChunkSize;
+    private final Duration idleLeaseTimeout;
+    private final Duration leaseExpiry;
+    private final String ownerId = UUID.randomUUID().toString();
+
+    private final ConcurrentHashMap<String, SkuLedger> ledgers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, InventoryReservation> reservations = new ConcurrentHashMap<>();
+    private final ReentrantLock[] refillLocks = new ReentrantLock[LOCK_STRIPES];
+    private volatile long nextLeaseRenewal;
+
+    @Autowired
+    public InventoryReservationService(ProductRepository productRepository,
+                                       InventoryLeaseRepository leaseRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.inventory.reservation-ttl-seconds:900}") long reservationTtlSeconds,
+                                       @Value("${app.inventory.lease-chunk-size:50}") int leaseChunkSize,
+                                       @Value("${app.inventory.idle-lease-timeout-seconds:30}") long idleLeaseTimeoutSeconds,
+                                       @Value("${app.inventory.lease-expiry-seconds:60}") long leaseExpirySeconds) {
+        this(productRepository, leaseRepository, requiresNew(transactionManager), Clock.systemUTC(),
+                Duration.ofSeconds(reservationTtlSeconds), leaseChunkSize,
+                Duration.ofSeconds(idleLeaseTimeoutSeconds), Duration.ofSeconds(leaseExpirySeconds));
+    }
+
+    InventoryReservationService(ProductRepository productRepository, InventoryLeaseRepository leaseRepository,
+                                TransactionOperations newTransaction, Clock clock, Duration reservationTtl,
+                                int leaseChunkSize, Duration idleLeaseTimeout, Duration leaseExpiry) {
+        this.productRepository = productRepository;
+        this.leaseRepository = leaseRepository;
+        this.newTransaction = newTransaction;
+        this.clock = clock;
+        this.reservationTtl = reservationTtl;
+        this.leaseChunkSize = Math.max(1, leaseChunkSize);
+        this.idleLeaseTimeout = idleLeaseTimeout;
+        this.leaseExpiry = leaseExpiry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            refillLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public InventoryReservation reserve(String sku, int quantity) {
+        return reserveAll(Map.of(sku, quantity));
+    }
+
+    /**
+     * Reserves every line of an order or nothing. Lines are taken in SKU order so two
+     * overlapping orders always lease from the database in the same sequence.
+     */
+    public InventoryReservation reserveAll(Map<String, Integer> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one line is required");
+        }
+
+        SortedMap<String, Integer> sorted = new TreeMap<>();
+        lines.forEach((sku, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for SKU: " + sku);
+            }
+            sorted.merge(sku, quantity, Integer::sum);
+        });
+
+        SortedMap<String, Integer> taken = new TreeMap<>();
+        try {
+            for (Map.Entry<String, Integer> line : sorted.entrySet()) {
+                take(line.getKey(), line.getValue());
+                taken.put(line.getKey(), line.getValue());
+            }
+        } catch (RuntimeException e) {
+            taken.forEach(this::giveBack);
+            throw e;
+        }
+
+        InventoryReservation reservation = InventoryReservation.builder()
+                .reservationId(UUID.randomUUID().toString())
+                .lines(Collections.unmodifiableSortedMap(sorted))
+                .expiresAt(clock.instant().plus(reservationTtl))
+                .build();
+        reservations.put(reservation.getReservationId(), reservation);
+        return reservation;
+    }
+
+    public void confirm(String reservationId) {
+        confirmAll(List.of(reservationId));
+    }
+
+    /**
+     * Turns reservations into sales. Stock was already decremented when it was leased, so
+     * this only moves the units from this instance's lease to the products' sold counts, in
+     * SKU order. It joins the caller's transaction; if that rolls back, the units go back to
+     * the ledger.
+     */
+    @Transactional
+    public void confirmAll(Collection<String> reservationIds) {
+        List<InventoryReservation> confirmed = new ArrayList<>(reservationIds.size());
+        SortedMap<String, Long> sold = new TreeMap<>();
+        for (String reservationId : reservationIds) {
+            InventoryReservation reservation = reservations.remove(reservationId);
+            if (reservation == null) {
+                confirmed.forEach(this::restore);
+                throw new ResourceNotFoundException("Reservation not found or expired: " + reservationId);
+            }
+            confirmed.add(reservation);
+            reservation.getLines().forEach((sku, quantity) -> sold.merge(sku, (long) quantity, Long::sum));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        confirmed.forEach(reservation -> reservation.getLines().forEach(InventoryReservationService.this::giveBack));
+                    }
+                }
+            });
+        }
+        sold.forEach((sku, quantity) -> {
+            productRepository.incrementSoldCount(sku, quantity);
+            leaseRepository.subtractFromLease(ownerId, sku, quantity);
+        });
+        log.debug("Confirmed reservations: {}", reservationIds);
+    }
+
+    public boolean release(String reservationId) {
+        InventoryReservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.getLines().forEach(this::giveBack);
+        log.debug("Released reservation: {}", reservationId);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.sweep-interval-ms:1000}")
+    public int releaseExpired() {
+        Instant now = clock.instant();
+        int released = 0;
+        for (InventoryReservation reservation : reservations.values()) {
+            if (!reservation.getExpiresAt().isAfter(now) && release(reservation.getReservationId())) {
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} expired inventory reservations", released);
+        }
+        returnIdleLeases(now);
+        // Lease rows only need touching a few times per expiry period, not every sweep
+        if (now.toEpochMilli() >= nextLeaseRenewal) {
+            nextLeaseRenewal = now.plus(leaseExpiry.dividedBy(3)).toEpochMilli();
+            renewLeases(now);
+            reclaimExpiredLeases(now);
+        }
+        return released;
+    }
+
+    public long getLeasedAvailable(String sku) {
+        SkuLedger ledger = ledgers.get(sku);
+        return ledger != null ? ledger.available.get() : 0;
+    }
+
+    public int getActiveReservationCount() {
+        return reservations.size();
+    }
+
+    int getLedgerCount() {
+        return ledgers.size();
+    }
+
+    @PreDestroy
+    public void returnAllLeases() {
+        ledgers.values().forEach(this::returnLease);
+    }
+
+    private void take(String sku, int quantity) {
+        SkuLedger ledger = ledgers.computeIfAbsent(sku, SkuLedger::new);
+        ledger.touch(clock.millis());
+
+        while (true) {
+            if (ledger.tryTake(quantity)) {
+                return;
+            }
+            // A sold-out SKU fails fast instead of sending every rejected attempt to the database
+            if (ledger.soldOutUntil > clock.millis()) {
+                throw new InsufficientStockException("Insufficient stock for SKU: " + sku);
+            }
+
+            ReentrantLock lock = lockFor(sku);
+            lock.lock();
+            try {
+                // Another thread may have refilled while we waited for the stripe
+                if (ledger.tryTake(quantity)) {
+                    return;
+                }
+                // or the sweep dropped this ledger; stock is only ever added to the mapped one
+                if (ledgers.get(sku) != ledger) {
+                    ledger = ledgers.computeIfAbsent(sku, SkuLedger::new);
+                    ledger.touch(clock.millis());
+                    continue;
+                }
+                long shortfall = quantity - ledger.available.get();
+                int lease = (int) Math.max(shortfall, leaseChunkSize);
+                long leased = lease(sku, lease, shortfall);
+                if (leased == 0) {
+                    ledger.soldOutUntil = clock.millis() + SOLD_OUT_BACKOFF_MILLIS;
+                    throw new InsufficientStockException("Insufficient stock for SKU: " + sku);
+                }
+                ledger.available.addAndGet(leased);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes a chunk, or failing that just the shortfall, out of the database and records it
+     * against this instance. Runs in its own transaction so the stock is not tied to, or
+     * locked for, the caller's.
+     */
+    private long lease(String sku, int chunk, long shortfall) {
+        Long leased = newTransaction.execute(status -> {
+            long quantity;
+            if (productRepository.reserveStock(sku, chunk) > 0) {
+                quantity = chunk;
+            } else if (chunk > shortfall && productRepository.reserveStock(sku, (int) shortfall) > 0) {
+                quantity = shortfall;
+            } else {
+                return 0L;
+            }
+            LocalDateTime expiresAt = toDateTime(clock.instant().plus(leaseExpiry));
+            if (leaseRepository.addToLease(ownerId, sku, quantity, expiresAt) == 0) {
+                leaseRepository.save(InventoryLease.builder()
+                        .ownerId(ownerId)
+                        .sku(sku)
+                        .quantity(quantity)
+                        .expiresAt(expiresAt)
+                        .build());
+            }
+            return quantity;
+        });
+        return leased != null ? leased : 0;
+    }
+
+    private void giveBack(String sku, int quantity) {
+        ReentrantLock lock = lockFor(sku);
+        lock.lock();
+        try {
+            SkuLedger ledger = ledgers.computeIfAbsent(sku, SkuLedger::new);
+            ledger.available.addAndGet(quantity);
+            ledger.soldOutUntil = 0;
+            ledger.touch(clock.millis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void restore(InventoryReservation reservation) {
+        reservations.put(reservation.getReservationId(), reservation);
+    }
+
+    private void returnIdleLeases(Instant now) {
+        long cutoff = now.minus(idleLeaseTimeout).toEpochMilli();
+        for (SkuLedger ledger : ledgers.values()) {
+            if (ledger.lastActivity < cutoff) {
+                evict(ledger, cutoff);
+            }
+        }
+    }
+
+    private void evict(SkuLedger ledger, long cutoff) {
+        ReentrantLock lock = lockFor(ledger.sku);
+        lock.lock();
+        try {
+            if (ledger.lastActivity >= cutoff) {
+                return;
+            }
+            returnLease(ledger);
+            if (ledger.available.get() == 0 && ledgers.remove(ledger.sku, ledger)) {
+                // Units still held by open reservations keep the row until they are sold or released
+                leaseRepository.deleteEmptyLease(ownerId, ledger.sku);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to evict ledger for SKU: {}", ledger.sku, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void returnLease(SkuLedger ledger) {
+        ReentrantLock lock = lockFor(ledger.sku);
+        lock.lock();
+        try {
+            long surplus = ledger.available.getAndSet(0);
+            if (surplus > 0) {
+                try {
+                    newTransaction.executeWithoutResult(status -> {
+                        productRepository.releaseStock(ledger.sku, (int) surplus);
+                        leaseRepository.subtractFromLease(ownerId, ledger.sku, surplus);
+                    });
+                    log.debug("Returned {} leased units of SKU {} to stock", surplus, ledger.sku);
+                } catch (RuntimeException e) {
+                    ledger.available.addAndGet(surplus);
+                    log.error("Failed to return leased stock for SKU: {}", ledger.sku, e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void renewLeases(Instant now) {
+        try {
+            leaseRepository.renewLeases(ownerId, toDateTime(now.plus(leaseExpiry)));
+        } catch (RuntimeException e) {
+            log.error("Failed to renew inventory leases", e);
+        }
+    }
+
+    /**
+     * Puts back the stock of instances that stopped renewing their leases, usually because
+     * they crashed. The conditional delete decides which instance gets to release each row.
+     */
+    private void reclaimExpiredLeases(Instant now) {
+        LocalDateTime cutoff = toDateTime(now);
+        try {
+            for (InventoryLease lease : leaseRepository.findByExpiresAtBefore(cutoff)) {
+                Boolean reclaimed = newTransaction.execute(status -> {
+                    if (leaseRepository.deleteExpiredLease(lease.getId(), lease.getQuantity(), cutoff) == 0) {
+                        return false;
+                    }
+                    if (lease.getQuantity() > 0) {
+                        productRepository.releaseStock(lease.getSku(), lease.getQuantity().intValue());
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(reclaimed)) {
+                    log.warn("Reclaimed {} units of SKU {} from expired lease of instance {}",
+                            lease.getQuantity(), lease.getSku(), lease.getOwnerId());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to reclaim expired inventory leases", e);
+        }
+    }
+
+    private static LocalDateTime toDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static TransactionOperations requiresNew(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private ReentrantLock lockFor(String sku) {
+        return refillLocks[(sku.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private static final class SkuLedger {
+
+        private final String sku;
+        private final AtomicLong available = new AtomicLong();
+        private volatile long lastActivity;
+        private volatile long soldOutUntil;
+
+        private SkuLedger(String sku) {
+            this.sku = sku;
+        }
+
+        private boolean tryTake(int quantity) {
+            long current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+
+        private void touch(long now) {
+            lastActivity = now;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderHistory;
+import com.example.complexapp.domain.OrderStatus;
+import com.example.complexapp.dto.OrderEventDto;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.OrderHistoryRepository;
+import com.example.complexapp.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of order status events. Entries are written against an order
+ * reference, so the parent's history collection is never initialised, and each
+ * append costs the same regardless of how many events the order already has.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderEventLogService {
+
+    private final OrderHistoryRepository orderHistoryRepository;
+    private final OrderRepository orderRepository;
+
+    @Value("${app.order-history.archive-after-days:90}")
+    private long archiveAfterDays;
+
+    @Value("${app.order-history.keep-latest:20}")
+    private long keepLatest;
+
+    @Value("${app.order-history.archive-batch-size:1000}")
+    private int archiveBatchSize;
+
+    public OrderHistory append(Long orderId, OrderStatus status, String description) {
+        return appendAll(List.of(new OrderEventDto(orderId, status, description))).get(0);
+    }
+
+    /**
+     * Appends events for any number of orders. Sequence blocks are allocated per order
+     * in ascending id order, so concurrent batches lock order rows in the same sequence,
+     * and the rows themselves go out as JDBC batches.
+     */
+    public List<OrderHistory> appendAll(List<OrderEventDto> events) {
+        Map<Long, List<OrderEventDto>> byOrder = new TreeMap<>();
+        for (OrderEventDto event : events) {
+            byOrder.computeIfAbsent(event.getOrderId(), id -> new ArrayList<>()).add(event);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderHistory> entries = new ArrayList<>(events.size());
+        for (Map.Entry<Long, List<OrderEventDto>> orderEvents : byOrder.entrySet()) {
+            Long orderId = orderEvents.getKey();
+            int count = orderEvents.getValue().size();
+            if (orderRepository.allocateHistorySequence(orderId, count) == 0) {
+                throw new ResourceNotFoundException("Order not found with id: " + orderId);
+            }
+            long last = orderRepository.findHistorySequence(orderId).orElseThrow();
+            long next = last - count + 1;
+
+            Order order = orderRepository.getReferenceById(orderId);
+            for (OrderEventDto event : orderEvents.getValue()) {
+                entries.add(OrderHistory.builder()
+                        .order(order)
+                        .sequenceNumber(next++)
+                        .status(event.getStatus())
+                        .description(event.getDescription())
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build());
+            }
+        }
+
+        return orderHistoryRepository.saveAll(entries);
+    }
+
+    /**
+     * Appends an event whose sequence number the caller already claimed, e.g. in the
+     * same UPDATE that changed the order status.
+     */
+    public OrderHistory appendClaimed(Long orderId, long sequenceNumber, OrderStatus status, String description) {
+        LocalDateTime now = LocalDateTime.now();
+        return orderHistoryRepository.save(OrderHistory.builder()
+                .order(orderRepository.getReferenceById(orderId))
+                .sequenceNumber(sequenceNumber)
+                .status(status)
+                .description(description)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderHistory> getLatestEvents(Long orderId, int limit) {
+        return orderHistoryRepository.findLatestByOrderId(orderId, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, List<OrderHistory>> getLatestEvents(Collection<Long> orderIds, int limit) {
+        Map<Long, List<OrderHistory>> latest = new LinkedHashMap<>();
+        if (orderIds.isEmpty()) {
+            return latest;
+        }
+        orderIds.forEach(id -> latest.put(id, new ArrayList<>()));
+        for (OrderHistory entry : orderHistoryRepository.findLatestByOrderIds(orderIds, limit)) {
+            latest.get(entry.getOrder().getId()).add(entry);
+        }
+        return latest;
+    }
+
+    /**
+     * Moves one batch of old events into order_history_archive, always leaving the
+     * latest entries of every order in the hot table. Returns the number moved.
+     */
+    public int archiveBatch() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(archiveAfterDays);
+        List<Long> ids = orderHistoryRepository.findArchivableIds(cutoff, keepLatest, PageRequest.of(0, archiveBatchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        orderHistoryRepository.copyToArchive(ids);
+        int moved = orderHistoryRepository.deleteByIdIn(ids);
+        log.info("Archived {} order history events older than {}", moved, cutoff);
+        return moved;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.OrderStatus;
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.dto.PaymentCallbackDto;
+import com.example.complexapp.event.OrderChangedEvent;
+import com.example.complexapp.dto.OrderTransitionRequestDto;
+import com.example.complexapp.dto.OrderTransitionResultDto;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.OrderRepository;
+import com.example.complexapp.repository.OrderRepository.OrderStateView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves orders through the {@link OrderTransition} table. A transition is a single
+ * conditional UPDATE that also returns the new state, plus the history INSERT; losing a
+ * race shows up as a CONFLICT result rather than an optimistic-lock exception and retry.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderLifecycleService {
+
+    private final OrderRepository orderRepository;
+    private final OrderEventLogService orderEventLogService;
+    private final OutboxService outboxService;
+
+    public OrderTransitionResultDto transition(Long orderId, OrderTransition transition) {
+        return transition(orderId, transition, new OrderTransitionRequestDto());
+    }
+
+    public OrderTransitionResultDto transition(Long orderId, OrderTransition transition, OrderTransitionRequestDto request) {
+        Map<String, Object> assignments = extraAssignments(transition, request);
+
+        Optional<OrderStateView> applied = orderRepository.applyTransitionReturningState(orderId, transition, assignments);
+        if (applied.isEmpty()) {
+            // Only a rejected transition pays for a second read, to tell a conflict from a missing order
+            Optional<OrderStateView> state = orderRepository.findStateById(orderId);
+            if (state.isEmpty()) {
+                return OrderTransitionResultDto.builder()
+                        .orderId(orderId)
+                        .transition(transition)
+                        .outcome(OrderTransitionResultDto.Outcome.NOT_FOUND)
+                        .build();
+            }
+            OrderStateView current = state.get();
+            log.info("Order {} transition {} rejected in state {}/{}/{}", orderId, transition,
+                    current.getStatus(), current.getPaymentStatus(), current.getShippingStatus());
+            return toResult(current, transition, OrderTransitionResultDto.Outcome.CONFLICT);
+        }
+
+        OrderStateView current = applied.get();
+        orderEventLogService.appendClaimed(orderId, current.getHistorySequence(),
+                OrderStatus.valueOf(current.getStatus().name()),
+                request.getDescription() != null ? request.getDescription() : describe(transition, current));
+        outboxService.recordOrderEvent(new OrderChangedEvent(orderId, current.getOrderNumber(),
+                OrderChangedEvent.ChangeType.TRANSITIONED, transition, current.getStatus(), current.getPaymentStatus(),
+                current.getShippingStatus(), current.getTotalAmount(), Instant.now()));
+        log.info("Order {} transition {} applied", orderId, transition);
+        return toResult(current, transition, OrderTransitionResultDto.Outcome.APPLIED);
+    }
+
+    public OrderTransitionResultDto cancel(Long orderId, String reason) {
+        return transition(orderId, OrderTransition.CANCEL,
+                OrderTransitionRequestDto.builder().description(reason).build());
+    }
+
+    public OrderTransitionResultDto ship(Long orderId, String carrier, String trackingNumber) {
+        return transition(orderId, OrderTransition.SHIP, OrderTransitionRequestDto.builder()
+                .shippingCarrier(carrier)
+                .trackingNumber(trackingNumber)
+                .build());
+    }
+
+    public OrderTransitionResultDto recordPayment(PaymentCallbackDto callback) {
+        Long orderId = orderRepository.findByOrderNumber(callback.getOrderNumber())
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with number: " + callback.getOrderNumber()))
+                .getId();
+        OrderTransition transition = callback.getOutcome() == PaymentCallbackDto.Outcome.SUCCEEDED
+                ? OrderTransition.MARK_PAID
+                : OrderTransition.PAYMENT_FAILED;
+        return transition(orderId, transition, OrderTransitionRequestDto.builder()
+                .paymentTransactionId(callback.getPaymentTransactionId())
+                .description(callback.getMessage())
+                .build());
+    }
+
+    private Map<String, Object> extraAssignments(OrderTransition transition, OrderTransitionRequestDto request) {
+        Map<String, Object> assignments = new HashMap<>();
+        switch (transition) {
+            case SHIP -> {
+                if (request.getShippingCarrier() != null) {
+                    assignments.put("shippingCarrier", request.getShippingCarrier());
+                }
+                if (request.getTrackingNumber() != null) {
+                    assignments.put("trackingNumber", request.getTrackingNumber());
+                }
+            }
+            case MARK_PAID, PAYMENT_FAILED -> {
+                if (request.getPaymentTransactionId() != null) {
+                    assignments.put("paymentTransactionId", request.getPaymentTransactionId());
+                }
+            }
+            case DELIVER -> assignments.put("actualDelivery", LocalDateTime.now());
+            case REFUND, PARTIAL_REFUND -> {
+                if (request.getRefundAmount() == null) {
+                    throw new IllegalArgumentException("Refund amount is required for " + transition);
+                }
+                assignments.put("refundAmount", request.getRefundAmount());
+                if (request.getRefundReason() != null) {
+                    assignments.put("refundReason", request.getRefundReason());
+                }
+            }
+            default -> {
+            }
+        }
+        return assignments;
+    }
+
+    private String describe(OrderTransition transition, OrderStateView state) {
+        return String.format("%s: status %s, payment %s, shipping %s",
+                transition, state.getStatus(), state.getPaymentStatus(), state.getShippingStatus());
+    }
+
+    private OrderTransitionResultDto toResult(OrderStateView state, OrderTransition transition,
+                                              OrderTransitionResultDto.Outcome outcome) {
+        return OrderTransitionResultDto.builder()
+                .orderId(state.getId())
+                .transition(transition)
+                .outcome(outcome)
+                .status(state.getStatus())
+                .paymentStatus(state.getPaymentStatus())
+                .shippingStatus(state.getShippingStatus())
+                .version(state.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.OutboxEvent;
+import com.example.complexapp.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox. A batch of whole aggregates is claimed in id order in a short
+ * transaction and then sent outside it, so no row lock is held while waiting on Kafka.
+ * Every event of the batch is sent without waiting in between: records of one aggregate
+ * share a key and partition, and the idempotent producer keeps them in send order. An
+ * aggregate is published up to its first failed send; that event and everything after it
+ * are unclaimed and retried in order on the next run, so events that did reach the broker
+ * behind a failure are delivered again.
+ */
+@Service
+@ConditionalOnProperty(name = "app.feature.messaging.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    public static final String EVENT_ID_HEADER = "event-id";
+    public static final String EVENT_TYPE_HEADER = "event-type";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionOperations transactions;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestEventAgeMillis = new AtomicLong();
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, byte[]> kafkaTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.send-timeout-ms:30000}") long sendTimeoutMillis) {
+        this(outboxEventRepository, kafkaTemplate, new TransactionTemplate(transactionManager), meterRegistry,
+                batchSize, Duration.ofMillis(sendTimeoutMillis));
+    }
+
+    OutboxRelay(OutboxEventRepository outboxEventRepository, KafkaTemplate<String, byte[]> kafkaTemplate,
+                TransactionOperations transactions, MeterRegistry meterRegistry, int batchSize, Duration sendTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactions = transactions;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.publishedCounter = meterRegistry.counter("outbox.events.published");
+        this.failedCounter = meterRegistry.counter("outbox.events.failed");
+        this.batchTimer = meterRegistry.timer("outbox.relay.batch");
+        Gauge.builder("outbox.events.pending", pendingEvents, AtomicLong::get)
+                .description("Events waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", oldestEventAgeMillis, age -> age.get() / 1000.0)
+                .description("Age of the oldest unpublished event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Publishes one batch and returns how many events it removed from the outbox; fewer
+     * than {@link #getBatchSize()} means the outbox is drained or a send failed.
+     */
+    public int relayBatch() {
+        return batchTimer.record(() -> {
+            List<OutboxEvent> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+            for (OutboxEvent event : batch) {
+                byAggregate.computeIfAbsent(aggregateKey(event), key -> new ArrayList<>()).add(event);
+            }
+
+            Map<Long, CompletableFuture<SendResult<String, byte[]>>> sends = new HashMap<>();
+            byAggregate.values().forEach(events -> events.forEach(event ->
+                    sends.put(event.getId(), kafkaTemplate.send(toRecord(event)))));
+            kafkaTemplate.flush();
+
+            List<Long> acknowledged = new ArrayList<>(batch.size());
+            List<Long> unsent = new ArrayList<>();
+            long deadline = System.nanoTime() + sendTimeout.toNanos();
+            for (List<OutboxEvent> events : byAggregate.values()) {
+                boolean failed = false;
+                for (OutboxEvent event : events) {
+                    if (!failed && acknowledged(event, sends.get(event.getId()), deadline)) {
+                        acknowledged.add(event.getId());
+                    } else {
+                        failed = true;
+                        unsent.add(event.getId());
+                    }
+                }
+            }
+
+            transactions.executeWithoutResult(status -> {
+                if (!acknowledged.isEmpty()) {
+                    outboxEventRepository.deleteByIdIn(acknowledged);
+                }
+                if (!unsent.isEmpty()) {
+                    outboxEventRepository.releaseClaims(unsent);
+                }
+            });
+            int published = acknowledged.size();
+            publishedCounter.increment(published);
+            failedCounter.increment(unsent.size());
+            return published;
+        });
+    }
+
+    /**
+     * Claims the next batch: the pending events of as many aggregates as fit, each from its
+     * earliest event on. The claim outlives the send timeout, so a relay that stops mid-batch
+     * only delays its events rather than losing them.
+     */
+    private List<OutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = transactions.execute(status -> {
+            List<OutboxEvent> heads = outboxEventRepository.findRelayHeads(now, batchSize);
+            if (heads.isEmpty()) {
+                return List.of();
+            }
+            List<OutboxEvent> claimed = outboxEventRepository.findAggregateEvents(
+                    heads.stream().map(OutboxEvent::getId).toList(), PageRequest.of(0, batchSize));
+            outboxEventRepository.claim(claimed.stream().map(OutboxEvent::getId).toList(),
+                    now.plus(sendTimeout.multipliedBy(2)));
+            return claimed;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    private boolean acknowledged(OutboxEvent event, CompletableFuture<SendResult<String, byte[]>> send,
+                                 long deadline) {
+        try {
+            send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Failed to publish outbox event {} ({} {}), will retry: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static ProducerRecord<String, byte[]> toRecord(OutboxEvent event) {
+        ProducerRecord<String, byte[]> record =
+                new ProducerRecord<>(event.getTopic(), event.getAggregateId(), event.getPayload());
+        record.headers().add(EVENT_ID_HEADER, String.valueOf(event.getId()).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static String aggregateKey(OutboxEvent event) {
+        return event.getTopic() + "/" + event.getAggregateId();
+    }
+
+    @Transactional(readOnly = true)
+    public void refreshBacklog() {
+        List<Object[]> rows = outboxEventRepository.findBacklog();
+        Object[] backlog = rows.isEmpty() ? new Object[]{0L, null} : rows.get(0);
+        pendingEvents.set(((Number) backlog[0]).longValue());
+        LocalDateTime oldest = (LocalDateTime) backlog[1];
+        oldestEventAgeMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.OutboxEvent;
+import com.example.complexapp.event.DomainEvent;
+import com.example.complexapp.event.InventoryChangedEvent;
+import com.example.complexapp.event.OrderChangedEvent;
+import com.example.complexapp.event.UserChangedEvent;
+import com.example.complexapp.messaging.EventCodec;
+import com.example.complexapp.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Write side of the transactional outbox. Events are only ever recorded inside the
+ * caller's transaction, so they commit or roll back with the change they describe and
+ * request latency never waits on a broker ack; {@link OutboxRelay} publishes them.
+ */
+@Service
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    public static final String ORDER_AGGREGATE = "order";
+    public static final String USER_AGGREGATE = "user";
+    public static final String INVENTORY_AGGREGATE = "inventory";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final String orderTopic;
+    private final String userTopic;
+    private final String inventoryTopic;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         @Value("${app.outbox.topics.order:order-events}") String orderTopic,
+                         @Value("${app.outbox.topics.user:user-events}") String userTopic,
+                         @Value("${app.outbox.topics.inventory:inventory-events}") String inventoryTopic) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.orderTopic = orderTopic;
+        this.userTopic = userTopic;
+        this.inventoryTopic = inventoryTopic;
+    }
+
+    public void recordOrderEvent(OrderChangedEvent event) {
+        recordOrderEvents(List.of(event));
+    }
+
+    public void recordOrderEvents(Collection<OrderChangedEvent> events) {
+        List<OutboxEvent> rows = new ArrayList<>(events.size());
+        for (OrderChangedEvent event : events) {
+            rows.add(toRow(ORDER_AGGREGATE, event.orderId(), ORDER_AGGREGATE + "." + event.changeType().name().toLowerCase(), orderTopic, event));
+        }
+        outboxEventRepository.saveAll(rows);
+    }
+
+    public void recordUserEvent(UserChangedEvent event) {
+        outboxEventRepository.save(toRow(USER_AGGREGATE, event.userId(), USER_AGGREGATE + "." + event.changeType().name().toLowerCase(), userTopic, event));
+    }
+
+    public void recordInventoryEvents(Collection<InventoryChangedEvent> events) {
+        List<OutboxEvent> rows = new ArrayList<>(events.size());
+        for (InventoryChangedEvent event : events) {
+            rows.add(toRow(INVENTORY_AGGREGATE, event.productId(), INVENTORY_AGGREGATE + "." + event.changeType().name().toLowerCase(), inventoryTopic, event));
+        }
+        outboxEventRepository.saveAll(rows);
+    }
+
+    private OutboxEvent toRow(String aggregateType, Long aggregateId, String eventType, String topic, DomainEvent payload) {
+        return OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(String.valueOf(aggregateId))
+                .eventType(eventType)
+                .topic(topic)
+                .payload(EventCodec.encode(payload))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
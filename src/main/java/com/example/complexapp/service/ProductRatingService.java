@@ -0,0 +1,222 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.ProductRatingSummary;
+import com.example.complexapp.domain.ProductReview;
+import com.example.complexapp.dto.RatingDistributionDto;
+import com.example.complexapp.event.CatalogChangedEvent;
+import com.example.complexapp.repository.ProductRatingSummaryRepository;
+import com.example.complexapp.repository.ProductRepository;
+import com.example.complexapp.repository.ProductReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductRatingService {
+
+    public static final int MIN_STARS = 1;
+    public static final int MAX_STARS = 5;
+
+    private final ProductRatingSummaryRepository summaryRepository;
+    private final ProductRepository productRepository;
+    private final ProductReviewRepository reviewRepository;
+    private final RatingAggregator ratingAggregator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Reviews written this recently may still have deltas waiting in some instance's aggregator
+    private static final Duration RECONCILE_SETTLE_TIME = Duration.ofMinutes(1);
+
+    public void recordReview(ProductReview review) {
+        Long productId = review.getProduct().getId();
+        int stars = review.getRating();
+        afterCommit(() -> ratingAggregator.add(productId, stars, 1));
+    }
+
+    public void recordReviewRemoved(ProductReview review) {
+        Long productId = review.getProduct().getId();
+        int stars = review.getRating();
+        afterCommit(() -> ratingAggregator.add(productId, stars, -1));
+    }
+
+    public void recordRatingChanged(Long productId, int oldStars, int newStars) {
+        if (oldStars == newStars) {
+            return;
+        }
+        afterCommit(() -> {
+            ratingAggregator.add(productId, oldStars, -1);
+            ratingAggregator.add(productId, newStars, 1);
+        });
+    }
+
+    /**
+     * Applies a histogram delta (index 0 = one star) with a single atomic UPDATE,
+     * then refreshes the derived rating columns on the product.
+     */
+    public void applyDelta(Long productId, long[] starDeltas) {
+        long sumDelta = 0;
+        long countDelta = 0;
+        for (int i = 0; i < MAX_STARS; i++) {
+            sumDelta += starDeltas[i] * (i + 1);
+            countDelta += starDeltas[i];
+        }
+
+        int updated = summaryRepository.applyDelta(productId,
+                starDeltas[0], starDeltas[1], starDeltas[2], starDeltas[3], starDeltas[4],
+                sumDelta, countDelta, LocalDateTime.now());
+
+        ProductRatingSummary summary;
+        if (updated == 0) {
+            summary = ProductRatingSummary.builder()
+                    .productId(productId)
+                    .oneStarCount(starDeltas[0])
+                    .twoStarCount(starDeltas[1])
+                    .threeStarCount(starDeltas[2])
+                    .fourStarCount(starDeltas[3])
+                    .fiveStarCount(starDeltas[4])
+                    .ratingSum(sumDelta)
+                    .ratingCount(countDelta)
+                    .build();
+        } else {
+            summary = summaryRepository.findById(productId).orElseThrow();
+        }
+        // A bucket below zero means the summary missed reviews; recount rather than store or clamp it
+        if (hasNegative(summary.getHistogram())) {
+            log.warn("Rating summary for product {} went negative, rebuilding it from reviews", productId);
+            rebuildSummary(productId);
+            return;
+        }
+        if (updated == 0) {
+            summary = summaryRepository.saveAndFlush(summary);
+        }
+
+        productRepository.updateRatingStats(productId, summary.getAverage(), (int) summary.getRatingCount());
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Scope.PRODUCTS));
+    }
+
+    /**
+     * Recomputes the summary from product_reviews, for backfills and for summaries that
+     * drifted. This instance's pending deltas for the product are dropped first: they
+     * belong to reviews that have already committed, so the recount includes them.
+     */
+    public ProductRatingSummary rebuildSummary(Long productId) {
+        ratingAggregator.discard(productId);
+        long[] histogram = new long[MAX_STARS];
+        for (Object[] row : reviewRepository.countByRating(productId)) {
+            int stars = ((Number) row[0]).intValue();
+            if (stars >= MIN_STARS && stars <= MAX_STARS) {
+                histogram[stars - 1] = ((Number) row[1]).longValue();
+            }
+        }
+
+        summaryRepository.deleteById(productId);
+        summaryRepository.flush();
+        applyDelta(productId, histogram);
+        log.info("Rebuilt rating summary for product: {}", productId);
+        return summaryRepository.findById(productId).orElseThrow();
+    }
+
+    /**
+     * Products whose summary count or rating sum no longer matches product_reviews.
+     * Products with a recent review or summary write are left for a later run.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findDriftedSummaries() {
+        LocalDateTime settled = LocalDateTime.now().minus(RECONCILE_SETTLE_TIME);
+        Map<Long, Object[]> reviewTotals = new HashMap<>();
+        for (Object[] row : reviewRepository.summarizeByProduct()) {
+            reviewTotals.put((Long) row[0], row);
+        }
+
+        List<Long> drifted = new ArrayList<>();
+        for (ProductRatingSummary summary : summaryRepository.findAll()) {
+            Object[] totals = reviewTotals.remove(summary.getProductId());
+            long count = totals != null ? ((Number) totals[1]).longValue() : 0;
+            long sum = totals != null ? ((Number) totals[2]).longValue() : 0;
+            boolean settledSummary = summary.getUpdatedAt() == null || summary.getUpdatedAt().isBefore(settled);
+            if ((count != summary.getRatingCount() || sum != summary.getRatingSum())
+                    && settledSummary && isSettled(totals, settled)) {
+                drifted.add(summary.getProductId());
+            }
+        }
+        // Reviewed products that have no summary at all
+        reviewTotals.forEach((productId, totals) -> {
+            if (isSettled(totals, settled)) {
+                drifted.add(productId);
+            }
+        });
+        return drifted;
+    }
+
+    @Transactional(readOnly = true)
+    public RatingDistributionDto getDistribution(Long productId) {
+        return summaryRepository.findById(productId)
+                .map(this::toDto)
+                .orElseGet(() -> toDto(ProductRatingSummary.builder().productId(productId).build()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<RatingDistributionDto> getDistributions(List<Long> productIds) {
+        return summaryRepository.findByProductIdIn(productIds).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    private static boolean isSettled(Object[] reviewTotals, LocalDateTime settled) {
+        LocalDateTime lastWrite = reviewTotals != null ? (LocalDateTime) reviewTotals[3] : null;
+        return lastWrite == null || lastWrite.isBefore(settled);
+    }
+
+    private static boolean hasNegative(long[] histogram) {
+        for (long count : histogram) {
+            if (count < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Deltas of a rolled-back review write must never reach the summary
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private RatingDistributionDto toDto(ProductRatingSummary summary) {
+        long[] histogram = summary.getHistogram();
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        for (int stars = MAX_STARS; stars >= MIN_STARS; stars--) {
+            distribution.put(stars, histogram[stars - 1]);
+        }
+
+        return RatingDistributionDto.builder()
+                .productId(summary.getProductId())
+                .average(summary.getAverage())
+                .count(summary.getRatingCount())
+                .distribution(distribution)
+                .version(summary.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Product;
+import com.example.complexapp.domain.ProductReview;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.dto.ProductReviewRequestDto;
+import com.example.complexapp.exception.ResourceNotFoundException;
+import com.example.complexapp.repository.ProductRepository;
+import com.example.complexapp.repository.ProductReviewRepository;
+import com.example.complexapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Review writes. Each one hands its star change to {@link ProductRatingService}, which folds
+ * it into the rating summary once this transaction has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductReviewService {
+
+    private final ProductReviewRepository reviewRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ProductRatingService productRatingService;
+
+    public ProductReview addReview(Long productId, Long userId, ProductReviewRequestDto request) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+
+        ProductReview review = reviewRepository.save(ProductReview.builder()
+                .product(product)
+                .user(user)
+                .rating(request.getRating())
+                .title(request.getTitle())
+                .comment(request.getComment())
+                .build());
+        productRatingService.recordReview(review);
+        log.debug("Added review {} for product {}", review.getId(), productId);
+        return review;
+    }
+
+    public ProductReview updateReview(Long reviewId, Long userId, ProductReviewRequestDto request) {
+        ProductReview review = findOwnReview(reviewId, userId, false);
+        int oldStars = review.getRating();
+        review.setRating(request.getRating());
+        review.setTitle(request.getTitle());
+        review.setComment(request.getComment());
+        review = reviewRepository.save(review);
+        productRatingService.recordRatingChanged(review.getProduct().getId(), oldStars, review.getRating());
+        return review;
+    }
+
+    public void deleteReview(Long reviewId, Long userId, boolean moderator) {
+        ProductReview review = findOwnReview(reviewId, userId, moderator);
+        reviewRepository.delete(review);
+        productRatingService.recordReviewRemoved(review);
+        log.debug("Deleted review {} of product {}", reviewId, review.getProduct().getId());
+    }
+
+    private ProductReview findOwnReview(Long reviewId, Long userId, boolean moderator) {
+        ProductReview review = reviewRepository.findById(reviewId)
+                .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + reviewId));
+        if (!moderator && (review.getUser() == null || !review.getUser().getId().equals(userId))) {
+            throw new AccessDeniedException("Review " + reviewId + " belongs to another user");
+        }
+        return review;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.complexapp.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory buffer of pending star-histogram deltas per product. Reviews for a hot
+ * product fold into one array here and reach the database as one UPDATE per flush.
+ */
+@Component
+public class RatingAggregator {
+
+    private final ConcurrentHashMap<Long, long[]> pending = new ConcurrentHashMap<>();
+
+    public void add(Long productId, int stars, long delta) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product id is required");
+        }
+        if (stars < ProductRatingService.MIN_STARS || stars > ProductRatingService.MAX_STARS) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5: " + stars);
+        }
+        // compute() holds the bin lock, so mutation and drain() never interleave
+        pending.compute(productId, (id, deltas) -> {
+            long[] target = deltas != null ? deltas : new long[ProductRatingService.MAX_STARS];
+            target[stars - 1] += delta;
+            return target;
+        });
+    }
+
+    public void merge(Long productId, long[] deltas) {
+        pending.merge(productId, deltas.clone(), (current, extra) -> {
+            for (int i = 0; i < current.length; i++) {
+                current[i] += extra[i];
+            }
+            return current;
+        });
+    }
+
+    public void discard(Long productId) {
+        pending.remove(productId);
+    }
+
+    public Map<Long, long[]> drain() {
+        Map<Long, long[]> drained = new LinkedHashMap<>();
+        List<Long> productIds = new ArrayList<>(pending.keySet());
+        for (Long productId : productIds) {
+            long[] deltas = pending.remove(productId);
+            if (deltas != null && !isZero(deltas)) {
+                drained.put(productId, deltas);
+            }
+        }
+        return drained;
+    }
+
+    public int pendingProducts() {
+        return pending.size();
+    }
+
+    private static boolean isZero(long[] deltas) {
+        for (long delta : deltas) {
+            if (delta != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
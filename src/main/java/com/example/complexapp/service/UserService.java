@@ -3,6 +3,7 @@ package com.example.complexapp.service;
 import com.example.complexapp.domain.User;
 import com.example.complexapp.dto.UserRegistrationDto;
 import com.example.complexapp.dto.UserUpdateDto;
+import com.example.complexapp.event.UserChangedEvent;
 import com.example.complexapp.exception.ResourceNotFoundException;
 import com.example.complexapp.exception.UserAlreadyExistsException;
 import com.example.complexapp.repository.UserRepository;
@@ -30,9 +31,12 @@ import java.util.Optional;
 @Transactional
 public class UserService implements UserDetailsService {
 
+    private static final int MAX_FAILED_LOGIN_ATTEMPTS = 5;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final OutboxService outboxService;
 
     @Override
     @Transactional(readOnly = true)
@@ -99,6 +103,7 @@ public class UserService implements UserDetailsService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        outboxService.recordUserEvent(UserChangedEvent.of(savedUser, UserChangedEvent.ChangeType.REGISTERED));
         
         // Send welcome email
         emailService.sendWelcomeEmail(savedUser);
@@ -129,6 +134,7 @@ public class UserService implements UserDetailsService {
         }
 
         User updatedUser = userRepository.save(user);
+        outboxService.recordUserEvent(UserChangedEvent.of(updatedUser, UserChangedEvent.ChangeType.UPDATED));
         log.info("Updated user: {}", updatedUser.getUsername());
         return updatedUser;
     }
@@ -138,6 +144,7 @@ public class UserService implements UserDetailsService {
         User user = getUserById(id);
         user.setRole(role);
         User updatedUser = userRepository.save(user);
+        outboxService.recordUserEvent(UserChangedEvent.of(updatedUser, UserChangedEvent.ChangeType.ROLE_CHANGED));
         log.info("Updated user role: {} -> {}", user.getUsername(), role);
         return updatedUser;
     }
@@ -157,6 +164,7 @@ public class UserService implements UserDetailsService {
         }
         
         User updatedUser = userRepository.save(user);
+        outboxService.recordUserEvent(UserChangedEvent.of(updatedUser, UserChangedEvent.ChangeType.STATUS_CHANGED));
         log.info("Updated user status: {} -> {}", user.getUsername(), status);
         return updatedUser;
     }
@@ -167,33 +175,27 @@ public class UserService implements UserDetailsService {
         user.setStatus(User.UserStatus.DELETED);
         user.setEnabled(false);
         userRepository.save(user);
+        outboxService.recordUserEvent(UserChangedEvent.of(user, UserChangedEvent.ChangeType.DELETED));
         log.info("Deleted user: {}", user.getUsername());
     }
 
     public void recordFailedLoginAttempt(String username) {
-        userRepository.findByUsername(username).ifPresent(user -> {
-            user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-            
-            if (user.getFailedLoginAttempts() >= 5) {
-                user.setAccountNonLocked(false);
-                user.setLockTime(LocalDateTime.now());
-                user.setStatus(User.UserStatus.SUSPENDED);
-            }
-            
-            userRepository.save(user);
-            log.warn("Failed login attempt for user: {} (attempts: {})", username, user.getFailedLoginAttempts());
-        });
+        LocalDateTime now = LocalDateTime.now();
+        if (userRepository.incrementFailedLoginAttempts(username, now) == 0) {
+            return;
+        }
+        if (userRepository.lockAfterFailedLogins(username, MAX_FAILED_LOGIN_ATTEMPTS,
+                User.UserStatus.SUSPENDED, now) > 0) {
+            log.warn("Locked user {} after {} failed login attempts", username, MAX_FAILED_LOGIN_ATTEMPTS);
+        } else {
+            log.warn("Failed login attempt for user: {}", username);
+        }
     }
 
     public void recordSuccessfulLogin(String username) {
-        userRepository.findByUsername(username).ifPresent(user -> {
-            user.setLastLogin(LocalDateTime.now());
-            user.setFailedLoginAttempts(0);
-            user.setAccountNonLocked(true);
-            user.setLockTime(null);
-            userRepository.save(user);
-            log.info("Successful login for user: {}", username);
-        });
+        if (userRepository.recordSuccessfulLogin(username, LocalDateTime.now()) > 0) {
+            log.debug("Successful login for user: {}", username);
+        }
     }
 
     public boolean isUserLocked(String username) {
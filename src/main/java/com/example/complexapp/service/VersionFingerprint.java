@@ -0,0 +1,49 @@
+package com.example.complexapp.service;
+
+/**
+ * Order-sensitive 64-bit hash over entity ids and {@code @Version} values (plus whatever
+ * else a response shows that the version does not cover), used as a strong ETag. Two
+ * instances reading the same rows produce the same value, so validators survive a
+ * request landing on another node.
+ */
+public final class VersionFingerprint {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long ABSENT = -1L;
+
+    private long hash = 0x6A09E667F3BCC909L;
+
+    public VersionFingerprint add(long value) {
+        hash = Long.rotateLeft(hash ^ mix(value), 29) * MULTIPLIER;
+        return this;
+    }
+
+    // Entities not yet persisted, rows that do not exist and unset columns count as -1
+    public VersionFingerprint add(Number value) {
+        if (value == null) {
+            return add(ABSENT);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return add(Double.doubleToLongBits(value.doubleValue()));
+        }
+        return add(value.longValue());
+    }
+
+    public long value() {
+        return mix(hash);
+    }
+
+    /**
+     * The value as an unquoted entity tag, e.g. for {@code ResponseEntity.eTag}.
+     */
+    public String toETag() {
+        return Long.toHexString(value());
+    }
+
+    // Stafford variant 13 of the SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.complexapp.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that follows latency, in the style of the gradient limiters from
+ * Netflix's concurrency-limits. Round-trip times are averaged over short windows and
+ * compared to a slow moving average: while the two match the limit creeps up, and once
+ * recent requests take longer than usual it shrinks in proportion, so queueing moves out
+ * of Tomcat and the database pool and into fast rejections.
+ *
+ * <p>Callers share the limit by priority: each priority may only fill its share of it, so
+ * when the limit is reached lower priorities are turned away first.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+    private static final int LONG_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int windowMinSamples;
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile double limit;
+
+    // Current window, folded into the estimate by whichever caller closes it
+    private final AtomicLong windowStart;
+    private final AtomicLong windowRttSum = new AtomicLong();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    private final AtomicInteger windowDrops = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowMillis, int windowMinSamples) {
+        this(initialLimit, minLimit, maxLimit, windowMillis, windowMinSamples, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowMillis, int windowMinSamples,
+                             LongSupplier nanoTime) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Need 1 <= min limit <= max limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowNanos = windowMillis * 1_000_000;
+        this.windowMinSamples = windowMinSamples;
+        this.nanoTime = nanoTime;
+        this.windowStart = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Takes a slot if the caller's share of the limit has room. {@code share} is the
+     * fraction of the limit the caller's priority may fill, between 0 and 1.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot and records how long it was held. Dropped requests (server errors,
+     * timeouts) are not latency samples; any drop in a window backs the limit off.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        if (dropped) {
+            windowDrops.incrementAndGet();
+        } else {
+            windowRttSum.addAndGet(rttNanos);
+            windowSamples.incrementAndGet();
+        }
+        long now = nanoTime.getAsLong();
+        if (now - windowStart.get() >= windowNanos
+                && windowSamples.get() + windowDrops.get() >= windowMinSamples
+                && updateLock.tryLock()) {
+            try {
+                closeWindow(now);
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    private void closeWindow(long now) {
+        int samples = windowSamples.getAndSet(0);
+        long rttSum = windowRttSum.getAndSet(0);
+        int drops = windowDrops.getAndSet(0);
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        windowStart.set(now);
+
+        double estimate = limit;
+        if (drops > 0) {
+            limit = clamp(estimate * DROP_BACKOFF);
+            return;
+        }
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = (double) rttSum / samples;
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOWS + 1);
+        }
+        // After an overload the long average lags behind the recovered latency; let it catch up
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // Too little traffic to tell whether more concurrency would help
+        if (maxInFlight < estimate / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double queueAllowance = Math.sqrt(estimate);
+        double target = estimate * gradient + queueAllowance;
+        limit = clamp(estimate * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.complexapp.web;
+
+import com.example.complexapp.event.CatalogChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized and gzipped bodies of the public catalog routes with their ETags, served by
+ * {@link CatalogResponseCacheFilter}.
+ *
+ * <p>Entries are invalidated by scope rather than one by one: every
+ * {@link CatalogChangedEvent} bumps its scope's generation once the change commits, and an
+ * entry is only served while the generations it was read under are still current. The
+ * generations are taken before the request runs, so a change committing mid-request leaves
+ * an entry that is never served. Changes on other instances reach this one through the
+ * category tree refresh, or not at all for products, which is what {@code ttl-seconds} bounds.
+ * Size is capped by the bytes held; when full, stale entries are swept and, if that is
+ * not enough, new responses are simply not cached.
+ */
+@Component
+@ConditionalOnProperty(name = "app.catalog-cache.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CatalogResponseCache {
+
+    private static final CatalogChangedEvent.Scope[] SCOPES = CatalogChangedEvent.Scope.values();
+
+    record Entry(String eTag, String contentType, byte[] body, byte[] gzipped,
+                 Set<CatalogChangedEvent.Scope> scopes, long[] generations, long storedAt) {
+
+        // Per RFC 9110 a content coding is a different representation and needs its own strong tag
+        String gzippedETag() {
+            return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+        }
+
+        long size() {
+            return body.length + (gzipped != null ? gzipped.length : 0);
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(SCOPES.length);
+    private final AtomicLong bytes = new AtomicLong();
+    private final Clock clock;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final boolean gzip;
+    private final long gzipMinSize;
+
+    @Autowired
+    public CatalogResponseCache(@Value("${app.catalog-cache.max-size-mb:64}") long maxSizeMb,
+                                @Value("${app.catalog-cache.ttl-seconds:60}") long ttlSeconds,
+                                @Value("${server.compression.enabled:false}") boolean gzip,
+                                @Value("${server.compression.min-response-size:2KB}") DataSize gzipMinSize) {
+        this(Clock.systemUTC(), DataSize.ofMegabytes(maxSizeMb).toBytes(), Duration.ofSeconds(ttlSeconds),
+                gzip, gzipMinSize.toBytes());
+    }
+
+    CatalogResponseCache(Clock clock, long maxBytes, Duration ttl, boolean gzip, long gzipMinSize) {
+        this.clock = clock;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+        this.gzip = gzip;
+        this.gzipMinSize = gzipMinSize;
+    }
+
+    /**
+     * The current generation of every scope, to be handed to {@link #put} for a response
+     * that was produced after this call.
+     */
+    long[] generations() {
+        long[] current = new long[SCOPES.length];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = generations.get(i);
+        }
+        return current;
+    }
+
+    Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!isCurrent(entry, clock.millis())) {
+            remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a response read under {@code readUnder} and returns it, gzipped when large
+     * enough; the entry is returned even when it is stale or the cache is full, so the
+     * caller can always serve it.
+     */
+    Entry put(String key, long[] readUnder, Set<CatalogChangedEvent.Scope> scopes,
+              String contentType, String eTag, byte[] body) {
+        byte[] gzipped = gzip && body.length >= gzipMinSize ? gzip(body) : null;
+        Entry entry = new Entry(eTag, contentType, body, gzipped, EnumSet.copyOf(scopes), readUnder, clock.millis());
+        if (!isCurrent(entry, entry.storedAt())) {
+            return entry;
+        }
+        if (bytes.get() + entry.size() > maxBytes) {
+            sweep();
+            if (bytes.get() + entry.size() > maxBytes) {
+                log.debug("Catalog response cache is full, not caching {}", key);
+                return entry;
+            }
+        }
+        bytes.addAndGet(entry.size());
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null) {
+            bytes.addAndGet(-replaced.size());
+        }
+        return entry;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        generations.incrementAndGet(event.scope().ordinal());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean isCurrent(Entry entry, long now) {
+        if (now - entry.storedAt() >= ttlMillis) {
+            return false;
+        }
+        for (CatalogChangedEvent.Scope scope : entry.scopes()) {
+            if (entry.generations()[scope.ordinal()] != generations.get(scope.ordinal())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void sweep() {
+        long now = clock.millis();
+        entries.forEach((key, entry) -> {
+            if (!isCurrent(entry, now)) {
+                remove(key, entry);
+            }
+        });
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            bytes.addAndGet(-entry.size());
+        }
+    }
+
+    // Compressed once per entry, so it can afford the best ratio rather than the container's default
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
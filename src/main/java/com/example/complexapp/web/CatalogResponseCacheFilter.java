@@ -0,0 +1,173 @@
+package com.example.complexapp.web;
+
+import com.example.complexapp.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serves GETs on the public catalog routes from {@link CatalogResponseCache}: a repeated
+ * request gets the stored bytes, gzipped ahead of time when the client accepts it, and an
+ * {@code If-None-Match} naming the current ETag gets a 304, neither touching a controller
+ * or the database. Only 200 JSON responses carrying a strong ETag are stored; the
+ * controllers derive those from the entities' {@code @Version} values.
+ *
+ * <p>Tomcat does not compress responses with a strong ETag, so the gzipped variant is
+ * what keeps these routes compressed; it is tagged {@code "<etag>-gzip"} and either tag
+ * revalidates. Runs just after Spring Security so cached responses still get its headers.
+ *
+ * <p>Metrics: {@code catalog.cache.requests} tagged {@code result} (hit, not_modified,
+ * miss, uncacheable) and {@code catalog.cache.entries}.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@ConditionalOnProperty(name = "app.catalog-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+
+    enum Result {
+        HIT, NOT_MODIFIED, MISS, UNCACHEABLE
+    }
+
+    private static final String PRODUCTS = "/api/products/";
+    private static final String CATEGORIES = "/api/categories/";
+    private static final String GZIP = "gzip";
+
+    private final CatalogResponseCache cache;
+    private final Map<Result, Counter> requests = new EnumMap<>(Result.class);
+
+    public CatalogResponseCacheFilter(CatalogResponseCache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        for (Result result : Result.values()) {
+            requests.put(result, Counter.builder("catalog.cache.requests")
+                    .tag("result", result.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("catalog.cache.entries", cache, CatalogResponseCache::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !HttpMethod.GET.matches(request.getMethod()) || !(path.startsWith(PRODUCTS) || path.startsWith(CATEGORIES));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getQueryString() != null
+                ? request.getServletPath() + "?" + request.getQueryString()
+                : request.getServletPath();
+        CatalogResponseCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            write(request, response, entry, Result.HIT);
+            return;
+        }
+
+        long[] readUnder = cache.generations();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        String eTag = wrapper.getHeader(HttpHeaders.ETAG);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || eTag == null || eTag.startsWith("W/")
+                || !isJson(wrapper.getContentType()) || response.isCommitted()) {
+            requests.get(Result.UNCACHEABLE).increment();
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        entry = cache.put(key, readUnder, scopes(request.getServletPath()), wrapper.getContentType(), eTag,
+                wrapper.getContentAsByteArray());
+        write(request, response, entry, Result.MISS);
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CatalogResponseCache.Entry entry,
+                       Result result) throws IOException {
+        boolean gzipped = entry.gzipped() != null && acceptsGzip(request);
+        response.setHeader(HttpHeaders.ETAG, gzipped ? entry.gzippedETag() : entry.eTag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), entry)) {
+            requests.get(result == Result.HIT ? Result.NOT_MODIFIED : result).increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        requests.get(result).increment();
+        byte[] body = gzipped ? entry.gzipped() : entry.body();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.contentType());
+        if (gzipped) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    static Set<CatalogChangedEvent.Scope> scopes(String path) {
+        if (path.startsWith(CATEGORIES)) {
+            // Product listings by category depend on the tree for the subtree and on the products
+            return path.endsWith("/products")
+                    ? EnumSet.allOf(CatalogChangedEvent.Scope.class)
+                    : EnumSet.of(CatalogChangedEvent.Scope.CATEGORIES);
+        }
+        return EnumSet.of(CatalogChangedEvent.Scope.PRODUCTS);
+    }
+
+    // If-None-Match uses the weak comparison, so W/ prefixes are ignored
+    static boolean matches(Enumeration<String> ifNoneMatch, CatalogResponseCache.Entry entry) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String tag : ifNoneMatch.nextElement().split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(entry.eTag()) || tag.equals(entry.gzippedETag())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                    return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJson(String contentType) {
+        try {
+            return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
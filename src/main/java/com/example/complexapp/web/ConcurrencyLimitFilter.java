@@ -0,0 +1,194 @@
+package com.example.complexapp.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits requests against an {@link AdaptiveConcurrencyLimit} before security or any
+ * controller runs, and answers the rest with 503 and {@code Retry-After} straight away
+ * instead of letting them queue for a thread. Critical routes (checkout, orders, login)
+ * may use the whole limit; browse routes only part of it, so they are shed first.
+ * Actuator endpoints are never limited so health checks keep answering under load.
+ *
+ * <p>Metrics: {@code http.concurrency.limit}, {@code http.concurrency.in.flight} and
+ * {@code http.concurrency.shed} tagged by priority.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public enum Priority {
+        CRITICAL, DEFAULT, BROWSE
+    }
+
+    private static final String EXEMPT_PATH = "/actuator/**";
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final ObjectMapper objectMapper;
+    private final List<String> criticalPaths;
+    private final List<String> browsePaths;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  @Value("${app.concurrency-limit.initial:100}") int initialLimit,
+                                  @Value("${app.concurrency-limit.min:10}") int minLimit,
+                                  @Value("${app.concurrency-limit.max:200}") int maxLimit,
+                                  @Value("${app.concurrency-limit.window-ms:100}") long windowMillis,
+                                  @Value("${app.concurrency-limit.window-min-samples:10}") int windowMinSamples,
+                                  @Value("${app.concurrency-limit.critical-paths:/api/orders/**,/api/auth/**}") List<String> criticalPaths,
+                                  @Value("${app.concurrency-limit.browse-paths:/api/products/**,/api/categories/**}") List<String> browsePaths,
+                                  @Value("${app.concurrency-limit.default-share:0.9}") double defaultShare,
+                                  @Value("${app.concurrency-limit.browse-share:0.7}") double browseShare) {
+        this(new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, windowMillis, windowMinSamples),
+                objectMapper, meterRegistry, criticalPaths, browsePaths, defaultShare, browseShare);
+    }
+
+    ConcurrencyLimitFilter(AdaptiveConcurrencyLimit limit, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           List<String> criticalPaths, List<String> browsePaths,
+                           double defaultShare, double browseShare) {
+        this.limit = limit;
+        this.objectMapper = objectMapper;
+        this.criticalPaths = criticalPaths;
+        this.browsePaths = browsePaths;
+        shares.put(Priority.CRITICAL, 1.0);
+        shares.put(Priority.DEFAULT, defaultShare);
+        shares.put(Priority.BROWSE, browseShare);
+
+        Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("http.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            shed.put(priority, Counter.builder("http.concurrency.shed")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return pathMatcher.match(EXEMPT_PATH, request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request.getServletPath());
+        if (!limit.tryAcquire(shares.get(priority))) {
+            shed.get(priority).increment();
+            reject(request, response);
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(startedAt, released));
+            } else {
+                release(startedAt, failed || response.getStatus() >= 500, released);
+            }
+        }
+    }
+
+    Priority priorityOf(String path) {
+        for (String pattern : criticalPaths) {
+            if (pathMatcher.match(pattern, path)) {
+                return Priority.CRITICAL;
+            }
+        }
+        for (String pattern : browsePaths) {
+            if (pathMatcher.match(pattern, path)) {
+                return Priority.BROWSE;
+            }
+        }
+        return Priority.DEFAULT;
+    }
+
+    private void release(long startedAt, boolean dropped, AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            limit.release(System.nanoTime() - startedAt, dropped);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Shedding {} {}, {} requests in flight", request.getMethod(), request.getServletPath(),
+                limit.getInFlight());
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        body.put("error", "Service Unavailable");
+        body.put("message", "Server is at capacity, retry shortly");
+        body.put("path", request.getServletPath());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private class ReleasingListener implements AsyncListener {
+
+        private final long startedAt;
+        private final AtomicBoolean released;
+
+        ReleasingListener(long startedAt, AtomicBoolean released) {
+            this.startedAt = startedAt;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            release(startedAt, response.getStatus() >= 500, released);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(startedAt, true, released);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(startedAt, true, released);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // The async context was recycled; keep listening for the final outcome
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.complexapp.web;
+
+import ch.qos.logback.classic.LoggerContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns on DEBUG logging for single requests instead of raising global levels: a request
+ * carrying the {@code header} (e.g. {@code X-Debug-Log: true}) or picked at {@code rate}
+ * logs at DEBUG for the configured loggers while it runs on its request thread (see
+ * {@link SampledDebugTurboFilter}); work it hands to other threads is not covered.
+ * Because the header is client-controlled, at most {@code max-per-minute} requests are
+ * sampled per minute either way. A sampled request gets the header back with
+ * {@code sampled}, so the caller knows to look for its lines.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(name = "app.debug-sampling.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class DebugSamplingFilter extends OncePerRequestFilter {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    private final String header;
+    private final double rate;
+    private final int maxPerMinute;
+    private final SampledDebugTurboFilter turboFilter;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger sampledInWindow = new AtomicInteger();
+
+    public DebugSamplingFilter(@Value("${app.debug-sampling.header:X-Debug-Log}") String header,
+                               @Value("${app.debug-sampling.rate:0}") double rate,
+                               @Value("${app.debug-sampling.max-per-minute:60}") int maxPerMinute,
+                               @Value("${app.debug-sampling.loggers:com.example.complexapp}") List<String> loggers) {
+        this.header = header;
+        this.rate = rate;
+        this.maxPerMinute = maxPerMinute;
+        this.turboFilter = new SampledDebugTurboFilter(loggers);
+    }
+
+    @PostConstruct
+    void register() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            context.addTurboFilter(turboFilter);
+            turboFilter.start();
+        } else {
+            log.warn("Debug sampling needs Logback, requests will not be sampled");
+        }
+    }
+
+    @PreDestroy
+    void unregister() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            context.getTurboFilterList().remove(turboFilter);
+        }
+        turboFilter.stop();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!shouldSample(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(header, "sampled");
+        SampledDebugTurboFilter.sample(true);
+        try {
+            log.debug("Debug sampling {} {}", request.getMethod(), request.getRequestURI());
+            filterChain.doFilter(request, response);
+        } finally {
+            SampledDebugTurboFilter.sample(false);
+        }
+    }
+
+    boolean shouldSample(HttpServletRequest request) {
+        boolean requested = StringUtils.hasText(header) && StringUtils.hasText(request.getHeader(header));
+        if (!requested && (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return false;
+        }
+        return acquire(System.currentTimeMillis());
+    }
+
+    // Fixed one-minute windows; a race at the boundary lets a couple of extra requests through
+    boolean acquire(long now) {
+        long current = now / WINDOW_MILLIS;
+        long previous = window.get();
+        if (current != previous && window.compareAndSet(previous, current)) {
+            sampledInWindow.set(0);
+        }
+        return sampledInWindow.incrementAndGet() <= maxPerMinute;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.complexapp.web;
+
+import java.util.Arrays;
+
+/**
+ * Where the current request's time went: the layers that know (JWT verification, the
+ * cache, JDBC execution, JSON writing) add their durations here and
+ * {@link ServerTimingFilter} reports them. Phases can nest, e.g. a lazy load during
+ * serialization counts as both {@code db} and {@code json}.
+ *
+ * <p>Each thread keeps one instance and reuses it for every request it serves, so
+ * recording allocates nothing. Outside a request (schedulers, consumers) or when the
+ * filter is disabled, {@link #record} does nothing.
+ */
+public final class RequestTiming {
+
+    public enum Phase {
+        AUTH("auth", null),
+        CACHE("cache", "ops"),
+        DB("db", "statements"),
+        JSON("json", null);
+
+        private final String label;
+        private final String countLabel;
+
+        Phase(String label, String countLabel) {
+            this.label = label;
+            this.countLabel = countLabel;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private final StringBuilder text = new StringBuilder(160);
+    private long startedAt;
+    private boolean active;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Adds one operation of the given phase to the request running on this thread.
+     */
+    public static void record(Phase phase, long durationNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null && timing.active) {
+            timing.nanos[phase.ordinal()] += durationNanos;
+            timing.counts[phase.ordinal()]++;
+        }
+    }
+
+    static RequestTiming start() {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            timing = new RequestTiming();
+            CURRENT.set(timing);
+        }
+        Arrays.fill(timing.nanos, 0);
+        Arrays.fill(timing.counts, 0);
+        timing.startedAt = System.nanoTime();
+        timing.active = true;
+        return timing;
+    }
+
+    static boolean isActive() {
+        RequestTiming timing = CURRENT.get();
+        return timing != null && timing.active;
+    }
+
+    void stop() {
+        active = false;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    int count(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * The {@code Server-Timing} header value, e.g.
+     * {@code auth;dur=0.142, db;dur=3.870;desc="2 statements", total;dur=9.311}, with
+     * {@code total} as of now. Phases that did not occur are left out.
+     */
+    String headerValue() {
+        text.setLength(0);
+        for (Phase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            text.append(phase.label).append(";dur=");
+            appendMillis(nanos[phase.ordinal()]);
+            if (phase.countLabel != null) {
+                text.append(";desc=\"").append(count).append(' ').append(phase.countLabel).append('"');
+            }
+            text.append(", ");
+        }
+        text.append("total;dur=");
+        appendMillis(elapsedNanos());
+        return text.toString();
+    }
+
+    /**
+     * The phases as {@code key=value} pairs for a log line, e.g.
+     * {@code total_ms=9.311 auth_ms=0.142 db_ms=3.870 db_statements=2}.
+     */
+    String logFields() {
+        text.setLength(0);
+        text.append("total_ms=");
+        appendMillis(elapsedNanos());
+        for (Phase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            text.append(' ').append(phase.label).append("_ms=");
+            appendMillis(nanos[phase.ordinal()]);
+            if (phase.countLabel != null) {
+                text.append(' ').append(phase.label).append('_').append(phase.countLabel).append('=').append(count);
+            }
+        }
+        return text.toString();
+    }
+
+    // Milliseconds with microsecond precision, without going through String.format
+    private void appendMillis(long durationNanos) {
+        long micros = Math.max(0, durationNanos) / 1000;
+        long fraction = micros % 1000;
+        text.append(micros / 1000).append('.');
+        if (fraction < 100) {
+            text.append('0');
+        }
+        if (fraction < 10) {
+            text.append('0');
+        }
+        text.append(fraction);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.complexapp.web;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.List;
+
+/**
+ * Lets DEBUG through for the configured logger prefixes while the current thread serves
+ * a request picked by {@link DebugSamplingFilter}, whatever the configured levels say.
+ * Logback asks turbo filters before the level check, {@code isDebugEnabled()} included,
+ * so guarded statements see the sampled level too. Every other call pays one
+ * thread-local read.
+ */
+final class SampledDebugTurboFilter extends TurboFilter {
+
+    private static final ThreadLocal<Boolean> SAMPLED = new ThreadLocal<>();
+
+    private final String[] prefixes;
+
+    SampledDebugTurboFilter(List<String> prefixes) {
+        this.prefixes = prefixes.toArray(String[]::new);
+        setName("sampled-debug");
+    }
+
+    static void sample(boolean sampled) {
+        if (sampled) {
+            SAMPLED.set(Boolean.TRUE);
+        } else {
+            SAMPLED.remove();
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (SAMPLED.get() == null || level != Level.DEBUG) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return FilterReply.ACCEPT;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
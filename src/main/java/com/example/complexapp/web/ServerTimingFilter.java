@@ -0,0 +1,132 @@
+package com.example.complexapp.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects a {@link RequestTiming} for every request and reports the breakdown as a
+ * {@code key=value} log line for a sample of requests plus every slow one, and, with
+ * {@code app.server-timing.expose-header=true}, as a {@code Server-Timing} response header
+ * (visible in the browser's network panel). The header tells any client how long the
+ * database and the cache took, so it is off by default and meant for test environments.
+ *
+ * <p>The header has to go out before the body, so it is added when the body is first
+ * opened; JSON bodies are serialized into a bounded buffer first (see
+ * {@link TimedJackson2HttpMessageConverter}) so that their writing time still makes it in.
+ * Compression happens in the container after this filter and is not covered.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnProperty(name = "app.server-timing.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+
+    private final boolean exposeHeader;
+    private final double logSampleRate;
+    private final long slowNanos;
+
+    public ServerTimingFilter(@Value("${app.server-timing.expose-header:false}") boolean exposeHeader,
+                              @Value("${app.server-timing.log-sample-rate:0.01}") double logSampleRate,
+                              @Value("${app.server-timing.slow-threshold-ms:1000}") long slowThresholdMillis) {
+        this.exposeHeader = exposeHeader;
+        this.logSampleRate = logSampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        TimingHeaderResponse timed = exposeHeader ? new TimingHeaderResponse(response, timing) : null;
+        try {
+            filterChain.doFilter(request, timed != null ? timed : response);
+        } finally {
+            if (timed != null) {
+                timed.addTimingHeader();
+            }
+            long elapsed = timing.elapsedNanos();
+            if (elapsed >= slowNanos || ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                log.info("server-timing method={} path={} status={} {}", request.getMethod(),
+                        request.getServletPath(), response.getStatus(), timing.logFields());
+            }
+            timing.stop();
+        }
+    }
+
+    /**
+     * Adds the header at the last moment it can still be sent: when the body is opened,
+     * the buffer flushed or an error or redirect sent, or at the end of the request for
+     * responses without a body.
+     */
+    private static final class TimingHeaderResponse extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean added;
+
+        TimingHeaderResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void addTimingHeader() {
+            if (!added && !isCommitted()) {
+                added = true;
+                setHeader(HEADER, timing.headerValue());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addTimingHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addTimingHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addTimingHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addTimingHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addTimingHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addTimingHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
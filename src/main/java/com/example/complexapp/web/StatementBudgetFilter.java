@@ -0,0 +1,145 @@
+package com.example.complexapp.web;
+
+import com.example.complexapp.exception.StatementBudgetExceededException;
+import com.example.complexapp.monitoring.StatementTally;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the Hibernate statements each request runs (see {@link StatementTally}) and
+ * flags requests that go over their endpoint's budget or repeat the same SELECT
+ * {@code repeat-threshold} times or more, the usual N+1 pattern. Budgets are
+ * {@code pattern=count} entries matched against the servlet path; unmatched routes get
+ * {@code default-budget}.
+ *
+ * <p>In {@code warn} mode offenders are logged with the repeated SQL and counted in
+ * {@code hibernate.statements.budget.exceeded} and {@code hibernate.statements.repeated};
+ * in {@code fail} mode the request also ends in a {@link StatementBudgetExceededException},
+ * meant for development and CI, where the response has usually been written already.
+ * {@code hibernate.statements.per.request} records the count per endpoint either way.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "app.statement-budget.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    public enum Mode {
+        WARN, FAIL
+    }
+
+    private static final int MAX_LOGGED_SQL = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultBudget;
+    private final Map<String, Integer> budgets = new LinkedHashMap<>();
+    private final int repeatThreshold;
+    private final Mode mode;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public StatementBudgetFilter(MeterRegistry meterRegistry,
+                                 @Value("${app.statement-budget.default-budget:25}") int defaultBudget,
+                                 @Value("${app.statement-budget.budgets:}") List<String> budgets,
+                                 @Value("${app.statement-budget.repeat-threshold:5}") int repeatThreshold,
+                                 @Value("${app.statement-budget.mode:warn}") String mode) {
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+        this.repeatThreshold = repeatThreshold;
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        for (String entry : budgets) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Statement budget '" + entry + "' is not pattern=count");
+            }
+            this.budgets.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (StatementTally.isActive()) {
+            // An enclosing scope, e.g. a test asserting its own budget, is already counting
+            filterChain.doFilter(request, response);
+            return;
+        }
+        StatementTally tally = StatementTally.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tally.stop();
+        }
+        check(request, tally);
+    }
+
+    private void check(HttpServletRequest request, StatementTally tally) {
+        if (tally.statements() == 0) {
+            return;
+        }
+        String endpoint = endpoint(request);
+        DistributionSummary.builder("hibernate.statements.per.request")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(tally.statements());
+
+        StringBuilder problems = new StringBuilder();
+        int budget = budgetFor(request.getServletPath());
+        if (tally.statements() > budget) {
+            meterRegistry.counter("hibernate.statements.budget.exceeded", "endpoint", endpoint).increment();
+            problems.append(tally.statements()).append(" statements, budget ").append(budget);
+        }
+        Map<String, Integer> repeated = tally.repeatedSelects(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter("hibernate.statements.repeated", "endpoint", endpoint).increment();
+            repeated.forEach((sql, count) -> problems.append(problems.isEmpty() ? "" : "; ")
+                    .append("possible N+1, ").append(count).append("x ").append(abbreviate(sql)));
+        }
+        if (problems.isEmpty()) {
+            return;
+        }
+        String message = endpoint + ": " + problems;
+        if (mode == Mode.FAIL) {
+            throw new StatementBudgetExceededException(message);
+        }
+        log.warn("Statement budget: {}", message);
+    }
+
+    int budgetFor(String path) {
+        for (Map.Entry<String, Integer> entry : budgets.entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return defaultBudget;
+    }
+
+    // The matched route, not the raw path, so ids do not end up in tags
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() <= MAX_LOGGED_SQL ? flat : flat.substring(0, MAX_LOGGED_SQL) + "...";
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.complexapp.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Spring Boot's JSON converter (this bean replaces it), except that during a timed
+ * request the serialization time is recorded. When the {@code Server-Timing} header is
+ * exposed, bodies up to {@value #MAX_BUFFERED_BODY} bytes are serialized into a buffer
+ * first, so that time is known before the header must be sent and is not mixed up with
+ * time spent waiting on a slow client. Larger bodies start streaming once they outgrow
+ * the buffer; their JSON time then only reaches the log line.
+ */
+@Component
+@ConditionalOnProperty(name = "app.server-timing.enabled", havingValue = "true", matchIfMissing = true)
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    static final int MAX_BUFFERED_BODY = 64 * 1024;
+
+    private final boolean bufferForHeader;
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                             @Value("${app.server-timing.expose-header:false}") boolean exposeHeader) {
+        super(objectMapper);
+        this.bufferForHeader = exposeHeader;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (!RequestTiming.isActive()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        if (!bufferForHeader) {
+            super.writeInternal(object, type, outputMessage);
+            RequestTiming.record(RequestTiming.Phase.JSON, System.nanoTime() - start);
+            return;
+        }
+        BoundedBody body = new BoundedBody(outputMessage);
+        super.writeInternal(object, type, new BufferedOutputMessage(body, outputMessage.getHeaders()));
+        RequestTiming.record(RequestTiming.Phase.JSON, System.nanoTime() - start);
+        body.finish();
+    }
+
+    /**
+     * Holds the body back, in a buffer owned by this write only, until it is complete or
+     * outgrows {@link #MAX_BUFFERED_BODY}; from then on it goes straight to the response.
+     */
+    private static final class BoundedBody extends OutputStream {
+
+        private final HttpOutputMessage target;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        private OutputStream out;
+
+        BoundedBody(HttpOutputMessage target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out == null && buffer.size() + 1 > MAX_BUFFERED_BODY) {
+                spill();
+            }
+            if (out != null) {
+                out.write(b);
+            } else {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (out == null && buffer.size() + length > MAX_BUFFERED_BODY) {
+                spill();
+            }
+            if (out != null) {
+                out.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        // Jackson flushes when it is done; only a body that is already streaming passes it on
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (out == null) {
+                spill();
+            }
+        }
+
+        private void spill() throws IOException {
+            out = target.getBody();
+            buffer.writeTo(out);
+            buffer = null;
+        }
+    }
+
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+
+        private final OutputStream body;
+        private final HttpHeaders headers;
+
+        BufferedOutputMessage(OutputStream body, HttpHeaders headers) {
+            this.body = body;
+            this.headers = headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
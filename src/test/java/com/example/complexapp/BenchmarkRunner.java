@@ -0,0 +1,33 @@
+package com.example.complexapp;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the JMH benchmarks of one class from its JUnit entry point. With
+ * {@code -Djmh.result.dir=...} (set by the {@code benchmarks} Maven profile) the results
+ * are also written there as {@code <ClassName>.json} in JMH's JSON format, one file per
+ * class, for comparing runs across releases.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void run(Class<?> benchmark) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder().include(benchmark.getName());
+        String resultDir = System.getProperty("jmh.result.dir");
+        if (resultDir != null && !resultDir.isBlank()) {
+            File dir = new File(resultDir);
+            dir.mkdirs();
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(dir, benchmark.getSimpleName() + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -1,15 +1,29 @@
 package com.example.complexapp;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class ComplexSpringBootApplicationTests {
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void contextLoads() {
         // This test will pass if the Spring context loads successfully
     }
+
+    @Test
+    void httpJsonCarriesNoTypeInformation() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Map.of("status", 503))).isEqualTo("{\"status\":503}");
+    }
 }
@@ -0,0 +1,123 @@
+package com.example.complexapp;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput and latency of an I/O-bound endpoint with the app on platform thread pools
+ * and on virtual threads, at far more concurrent requests than Tomcat has threads.
+ * The platform run can't beat Tomcat's thread count divided by the blocking time; the
+ * virtual run has to. Virtual threads need Java 21, so that test is skipped on older runtimes.
+ * Opt-in: run with {@code mvn test -Dexcluded.test.groups= -Dtest=ExecutionModeLoadTest}.
+ */
+@Tag("benchmark")
+class ExecutionModeLoadTest {
+
+    private static final int CONCURRENCY = 800;
+    private static final int REQUESTS = 8000;
+    private static final long BLOCKING_MILLIS = 50;
+
+    @Test
+    void platformThreadsAreCappedByTheTomcatPool() throws Exception {
+        Result platform = run(false);
+
+        assertThat(platform.errors()).isZero();
+        // Every request holds a Tomcat thread for the whole blocking call
+        assertThat(platform.throughput()).isLessThanOrEqualTo(platform.maxThreads() * 1000.0 / BLOCKING_MILLIS * 1.05);
+    }
+
+    @Test
+    void virtualThreadsGoPastThePlatformCeiling() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        assertThat(virtual.errors()).isZero();
+        assertThat(virtual.throughput()).isGreaterThan(platform.maxThreads() * 1000.0 / BLOCKING_MILLIS);
+        assertThat(virtual.p99Millis()).isLessThan(platform.p99Millis());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                ComplexSpringBootApplication.class, BlockingController.class)
+                .profiles("test")
+                // Measures the threading model alone, so nothing is shed
+                .run("--server.port=0", "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--app.concurrency-limit.enabled=false")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/api/public/load-test/blocking");
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+            drive(client, uri, CONCURRENCY, null);
+            long[] latencies = new long[REQUESTS];
+            long started = System.nanoTime();
+            int errors = drive(client, uri, REQUESTS, latencies);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            Arrays.sort(latencies);
+            Result result = new Result(REQUESTS / seconds, TimeUnit.NANOSECONDS.toMillis(latencies[REQUESTS * 99 / 100]),
+                    errors, context.getEnvironment().getProperty("server.tomcat.threads.max", Integer.class, 200));
+            System.out.printf("%s threads: %.0f req/s, p50 %d ms, p99 %d ms, errors %d%n",
+                    virtualThreads ? "virtual" : "platform", result.throughput(),
+                    TimeUnit.NANOSECONDS.toMillis(latencies[REQUESTS / 2]), result.p99Millis(), errors);
+            return result;
+        }
+    }
+
+    private int drive(HttpClient client, URI uri, int requests, long[] latencies) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger errors = new AtomicInteger();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                if (latencies != null) {
+                    latencies[index] = System.nanoTime() - sent;
+                }
+                if (failure != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        return errors.get();
+    }
+
+    private record Result(double throughput, long p99Millis, int errors, int maxThreads) {
+    }
+
+    @RestController
+    static class BlockingController {
+
+        // Stands in for a slow downstream call or query
+        @GetMapping("/api/public/load-test/blocking")
+        String blocking() throws InterruptedException {
+            Thread.sleep(BLOCKING_MILLIS);
+            return "ok";
+        }
+    }
+}
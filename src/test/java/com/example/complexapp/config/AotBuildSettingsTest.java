@@ -0,0 +1,59 @@
+package com.example.complexapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AotBuildSettingsTest {
+
+    @Test
+    void captureKeepsOnlySettingsAotFreezes() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.feature.search.enabled", "false")
+                .withProperty("app.rating.enabled", "true")
+                .withProperty("app.rating.flush-interval-ms", "1000")
+                .withProperty("server.port", "8080");
+        environment.setActiveProfiles("prod");
+
+        assertThat(AotBuildSettings.capture(environment)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "app.feature.search.enabled", "false",
+                "app.rating.enabled", "true",
+                "spring.profiles.active", "prod",
+                "spring.threads.virtual.enabled", "false"));
+    }
+
+    @Test
+    void matchingRuntimeSettingsHaveNoDifferences() {
+        MockEnvironment environment = new MockEnvironment().withProperty("app.feature.search.enabled", "true");
+        environment.setActiveProfiles("dev");
+
+        assertThat(AotBuildSettings.differences(AotBuildSettings.capture(environment), environment)).isEmpty();
+    }
+
+    @Test
+    void changedFlagProfileAndVirtualThreadsAreReported() {
+        MockEnvironment build = new MockEnvironment().withProperty("app.feature.search.enabled", "true");
+        build.setActiveProfiles("dev");
+        MockEnvironment runtime = new MockEnvironment()
+                .withProperty("app.feature.search.enabled", "false")
+                .withProperty("spring.threads.virtual.enabled", "true");
+        runtime.setActiveProfiles("prod");
+
+        assertThat(AotBuildSettings.differences(AotBuildSettings.capture(build), runtime)).containsExactly(
+                "app.feature.search.enabled was 'true' at build time but is 'false'",
+                "spring.profiles.active was 'dev' at build time but is 'prod'",
+                "spring.threads.virtual.enabled was 'false' at build time but is 'true'");
+    }
+
+    @Test
+    void flagSetOnlyAtRuntimeIsReported() {
+        MockEnvironment build = new MockEnvironment();
+        MockEnvironment runtime = new MockEnvironment().withProperty("app.feature.batch.enabled", "false");
+
+        assertThat(AotBuildSettings.differences(AotBuildSettings.capture(build), runtime))
+                .containsExactly("app.feature.batch.enabled was '' at build time but is 'false'");
+    }
+}
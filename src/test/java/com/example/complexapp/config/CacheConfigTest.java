@@ -0,0 +1,45 @@
+package com.example.complexapp.config;
+
+import com.example.complexapp.domain.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigTest {
+
+    private final GenericJackson2JsonRedisSerializer serializer =
+            new GenericJackson2JsonRedisSerializer(CacheConfig.redisObjectMapper());
+
+    @Test
+    void readsCachedUsersBackWithTheirDates() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("jane");
+        user.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30));
+        user.setLastLogin(LocalDateTime.of(2024, 3, 2, 8, 15, 30));
+
+        byte[] bytes = serializer.serialize(user);
+        Object read = serializer.deserialize(bytes);
+
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).contains("\"createdAt\":\"2024-03-01T12:30:00\"");
+        assertThat(read).isInstanceOfSatisfying(User.class, cached -> {
+            assertThat(cached.getUsername()).isEqualTo("jane");
+            assertThat(cached.getCreatedAt()).isEqualTo(user.getCreatedAt());
+            assertThat(cached.getLastLogin()).isEqualTo(user.getLastLogin());
+        });
+    }
+
+    @Test
+    void skipsDerivedAndRemovedPropertiesOnRead() {
+        String json = "{\"@class\":\"com.example.complexapp.domain.User\",\"id\":7,\"username\":\"joe\","
+                + "\"accountLocked\":false,\"droppedInAnOlderRelease\":1}";
+
+        Object read = serializer.deserialize(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(read).isInstanceOfSatisfying(User.class, cached -> assertThat(cached.getUsername()).isEqualTo("joe"));
+    }
+}
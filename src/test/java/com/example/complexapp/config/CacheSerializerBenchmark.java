@@ -0,0 +1,79 @@
+package com.example.complexapp.config;
+
+import com.example.complexapp.BenchmarkRunner;
+import com.example.complexapp.domain.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Redis serializers {@link CacheConfig} installs, on the {@code users} cache entries
+ * that {@code UserService} reads on every authenticated lookup: key encoding and the
+ * default-typed JSON value in both directions.
+ * Opt-in: run with {@code mvn test -Pbenchmarks -Dtest=CacheSerializerBenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    private StringRedisSerializer keySerializer;
+    private GenericJackson2JsonRedisSerializer valueSerializer;
+    private User user;
+    private byte[] userBytes;
+
+    @Setup
+    public void setUp() {
+        keySerializer = new StringRedisSerializer();
+        valueSerializer = new GenericJackson2JsonRedisSerializer(CacheConfig.redisObjectMapper());
+        user = new User();
+        user.setId(42L);
+        user.setUsername("jane");
+        user.setEmail("jane@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2rWS0TULgBaIhY1s4Vs6xHq");
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setPhoneNumber("+49 30 1234567");
+        user.setVersion(3L);
+        user.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30));
+        userBytes = valueSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public byte[] serializeKey() {
+        return keySerializer.serialize("users::42");
+    }
+
+    @Benchmark
+    public byte[] serializeUser() {
+        return valueSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object deserializeUser() {
+        return valueSerializer.deserialize(userBytes);
+    }
+
+    @Test
+    void cacheSerializers() throws Exception {
+        BenchmarkRunner.run(getClass());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.complexapp.config;
+
+import com.example.complexapp.service.OutboxRelay;
+import org.junit.jupiter.api.Test;
+import org.quartz.Scheduler;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.feature.search.enabled=false",
+        "app.feature.messaging.enabled=false",
+        "app.feature.redis.enabled=false",
+        "app.feature.batch.enabled=false",
+        "app.feature.quartz.enabled=false",
+        "app.feature.websocket.enabled=false",
+        "app.feature.clients.enabled=false"
+})
+@ActiveProfiles("test")
+class FeatureToggleTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void disabledSubsystemsAreNeitherAutoConfiguredNorWired() {
+        assertThat(context.getBeanNamesForType(ElasticsearchOperations.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(KafkaTemplate.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(OutboxRelay.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(RedisConnectionFactory.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(JobLauncher.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(Scheduler.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(SimpMessagingTemplate.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(WebSocketConfig.class)).isEmpty();
+    }
+
+    @Test
+    void cachingFallsBackToMemoryWithoutRedis() {
+        assertThat(context.getBean(CacheManager.class)).isInstanceOf(CaffeineCacheManager.class);
+    }
+
+    @Test
+    void applicationBeansAreCreatedAtBoot() {
+        var beanFactory = ((ConfigurableApplicationContext) context).getBeanFactory();
+
+        assertThat(beanFactory.containsSingleton("emailDispatcher")).isTrue();
+        assertThat(beanFactory.containsSingleton("checkoutPipeline")).isTrue();
+        assertThat(beanFactory.containsSingleton("flightRecorderEndpoint")).isTrue();
+    }
+}
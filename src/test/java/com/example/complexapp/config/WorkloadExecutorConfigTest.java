@@ -0,0 +1,152 @@
+package com.example.complexapp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkloadExecutorConfigTest {
+
+    private final WorkloadExecutorConfig config = new WorkloadExecutorConfig(null);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void abortsOnceThreadsAndQueueAreFull() {
+        executor = initialized(config.emailExecutor(new MockEnvironment()
+                .withProperty("app.executors.email.core-size", "1")
+                .withProperty("app.executors.email.max-size", "1")
+                .withProperty("app.executors.email.queue-capacity", "2"), meterRegistry));
+
+        for (int i = 0; i < 3; i++) {
+            executor.execute(this::block);
+        }
+
+        assertThatThrownBy(() -> executor.execute(this::block)).isInstanceOf(TaskRejectedException.class);
+        assertThat(executor.getQueueSize()).isEqualTo(2);
+        assertThat(meterRegistry.get("executor.rejected").tag("name", "email").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void discardsWhenConfiguredTo() {
+        executor = initialized(config.maintenanceExecutor(new MockEnvironment()
+                .withProperty("app.executors.maintenance.max-size", "1")
+                .withProperty("app.executors.maintenance.queue-capacity", "1"), meterRegistry));
+
+        executor.execute(this::block);
+        executor.execute(this::block);
+        executor.execute(this::block);
+
+        assertThat(meterRegistry.get("executor.rejected").tag("name", "maintenance").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void waitsForRoomBeforeRejecting() throws Exception {
+        executor = initialized(config.eventsExecutor(new MockEnvironment()
+                .withProperty("app.executors.events.core-size", "1")
+                .withProperty("app.executors.events.max-size", "1")
+                .withProperty("app.executors.events.queue-capacity", "1")
+                .withProperty("app.executors.events.rejection-wait-ms", "100"), meterRegistry));
+        executor.execute(this::block);
+        executor.execute(this::block);
+
+        // Nothing frees up within the wait
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> executor.execute(this::block)).isInstanceOf(TaskRejectedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(100);
+
+        // The queue drains during the wait, so the task is taken and runs on the pool, not the submitter
+        CountDownLatch ran = new CountDownLatch(1);
+        String[] ranOn = new String[1];
+        new Thread(() -> {
+            sleep(20);
+            release.countDown();
+        }).start();
+        executor.execute(() -> {
+            ranOn[0] = Thread.currentThread().getName();
+            ran.countDown();
+        });
+
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ranOn[0]).startsWith("events-");
+        assertThat(meterRegistry.get("executor.rejected").tag("name", "events").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void leavesUnqualifiedAsyncOnTheApplicationTaskExecutor() {
+        Executor applicationTaskExecutor = Runnable::run;
+
+        assertThat(new WorkloadExecutorConfig(applicationTaskExecutor).getAsyncExecutor()).isSameAs(applicationTaskExecutor);
+    }
+
+    @Test
+    void recordsQueueWaitAndRunTime() throws Exception {
+        executor = initialized(config.indexingExecutor(new MockEnvironment()
+                .withProperty("app.executors.indexing.rejection", "caller-runs"), meterRegistry));
+        CountDownLatch done = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                sleep(20);
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getThreadNamePrefix()).isEqualTo("indexing-");
+        await(() -> meterRegistry.get("executor").tag("name", "indexing").timer().count() == 5);
+        assertThat(meterRegistry.get("executor").tag("name", "indexing").timer().max(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(20);
+        // Two threads for five tasks, so later tasks waited in the queue
+        assertThat(meterRegistry.get("executor.idle").tag("name", "indexing").timer().max(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(20);
+    }
+
+    private ThreadPoolTaskExecutor initialized(ThreadPoolTaskExecutor executor) {
+        executor.initialize();
+        return executor;
+    }
+
+    private void block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
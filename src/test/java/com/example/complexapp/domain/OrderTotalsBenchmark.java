@@ -0,0 +1,64 @@
+package com.example.complexapp.domain;
+
+import com.example.complexapp.BenchmarkRunner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Order#calculateTotals()} by basket size. It runs on every item added or removed,
+ * so building a basket item by item costs the square of its size.
+ * Opt-in: run with {@code mvn test -Pbenchmarks -Dtest=OrderTotalsBenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalsBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = new Order();
+        order.setTaxAmount(new BigDecimal("4.75"));
+        order.setShippingAmount(new BigDecimal("5.00"));
+        order.setDiscountAmount(new BigDecimal("2.50"));
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem();
+            item.setQuantity(1 + i % 3);
+            item.setPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(i)));
+            order.getOrderItems().add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotals() {
+        order.calculateTotals();
+        return order.getTotalAmount();
+    }
+
+    @Test
+    void orderTotals() throws Exception {
+        BenchmarkRunner.run(getClass());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.complexapp.dto;
+
+import com.example.complexapp.BenchmarkRunner;
+import com.example.complexapp.domain.Order;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the API's response and request bodies, with a mapper built the way
+ * Spring Boot builds one: an order summary, a 20-product catalog page both ways, the
+ * login response and an incoming registration.
+ * Opt-in: run with {@code mvn test -Pbenchmarks -Dtest=DtoJsonBenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoJsonBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private ObjectWriter writer;
+    private ObjectReader productPageReader;
+    private ObjectReader registrationReader;
+    private OrderSummaryDto orderSummary;
+    private List<ProductSummaryDto> productPage;
+    private byte[] productPageJson;
+    private LoginResponseDto loginResponse;
+    private byte[] registrationJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        productPageReader = objectMapper.readerFor(new TypeReference<List<ProductSummaryDto>>() {
+        });
+        registrationReader = objectMapper.readerFor(UserRegistrationDto.class);
+
+        orderSummary = OrderSummaryDto.builder()
+                .id(1001L)
+                .orderNumber("ORD-20240301-ABCDEF")
+                .status(Order.OrderStatus.CONFIRMED)
+                .paymentStatus(Order.PaymentStatus.PAID)
+                .totalAmount(new BigDecimal("129.97"))
+                .currency("EUR")
+                .itemCount(3)
+                .createdAt(LocalDateTime.of(2024, 3, 1, 12, 30))
+                .build();
+        productPage = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            productPage.add(ProductSummaryDto.builder()
+                    .id((long) i)
+                    .name("Product " + i)
+                    .sku("SKU-" + i)
+                    .price(new BigDecimal("19.99"))
+                    .originalPrice(new BigDecimal("24.99"))
+                    .stockQuantity(100 + i)
+                    .ratingAverage(4.2)
+                    .ratingCount(17 * i)
+                    .categoryId(7L)
+                    .build());
+        }
+        productPageJson = writer.writeValueAsBytes(productPage);
+        loginResponse = LoginResponseDto.builder().token("eyJhbGciOiJIUzUxMiJ9.e30.c2lnbmF0dXJl")
+                .tokenType("Bearer").expiresIn(86_400_000L).build();
+        registrationJson = ("{\"username\":\"jane\",\"email\":\"jane@example.com\",\"password\":\"Secr3t!pass\","
+                + "\"firstName\":\"Jane\",\"lastName\":\"Doe\"}").getBytes();
+    }
+
+    @Benchmark
+    public byte[] writeOrderSummary() throws Exception {
+        return writer.writeValueAsBytes(orderSummary);
+    }
+
+    @Benchmark
+    public byte[] writeProductPage() throws Exception {
+        return writer.writeValueAsBytes(productPage);
+    }
+
+    @Benchmark
+    public List<ProductSummaryDto> readProductPage() throws Exception {
+        return productPageReader.readValue(productPageJson);
+    }
+
+    @Benchmark
+    public byte[] writeLoginResponse() throws Exception {
+        return writer.writeValueAsBytes(loginResponse);
+    }
+
+    @Benchmark
+    public UserRegistrationDto readRegistration() throws Exception {
+        return registrationReader.readValue(registrationJson);
+    }
+
+    @Test
+    void dtoJson() throws Exception {
+        BenchmarkRunner.run(getClass());
+    }
+}
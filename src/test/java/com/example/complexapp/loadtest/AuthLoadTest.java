@@ -0,0 +1,224 @@
+package com.example.complexapp.loadtest;
+
+import com.example.complexapp.ComplexSpringBootApplication;
+import com.example.complexapp.domain.Category;
+import com.example.complexapp.repository.CategoryRepository;
+import com.example.complexapp.service.SmtpStandIn;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the authentication endpoints and authenticated reads at a fixed arrival rate
+ * against the whole application on H2, with in-process stand-ins for Redis and SMTP, and
+ * reports latency percentiles per endpoint. Results go to {@code target/loadtest/} as
+ * JSON plus a full HdrHistogram log, and are compared with the baseline in
+ * {@code src/test/resources/loadtest/}; the test fails on a regression.
+ *
+ * <p>Opt-in: {@code mvn test -Pbenchmarks -Dtest=AuthLoadTest}. Tune with
+ * {@code -Dloadtest.rate=} (requests/s), {@code -Dloadtest.duration-seconds=},
+ * {@code -Dloadtest.warmup-seconds=} and {@code -Dloadtest.tolerance=} (0.25 = 25% slower
+ * is still fine); {@code -Dloadtest.update-baseline=true} stores the run as the new
+ * baseline. Generator and server share one JVM, so compare runs from the same machine.
+ */
+@Tag("benchmark")
+class AuthLoadTest {
+
+    private static final String BASELINE = "src/test/resources/loadtest/auth-baseline.json";
+    private static final String PASSWORD = "load-test-password";
+    private static final int SEEDED_USERS = 50;
+    private static final int CATEGORIES = 20;
+
+    private final double rate = Double.parseDouble(System.getProperty("loadtest.rate", "40"));
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private final double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.25"));
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final String run = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong registrations = new AtomicLong();
+    private final List<String> usernames = new ArrayList<>();
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    private final List<Long> categoryIds = new ArrayList<>();
+    private URI base;
+
+    @Test
+    void authenticationMix() throws Exception {
+        try (RedisStandIn redis = new RedisStandIn();
+             SmtpStandIn smtp = new SmtpStandIn();
+             ConfigurableApplicationContext context = start(redis, smtp)) {
+            base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                    + "/api/api/");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            seed(context, client);
+
+            OpenLoopDriver driver = new OpenLoopDriver(client, rate);
+            driver.run(Duration.ofSeconds(warmupSeconds), this::nextCall);
+            driver.reset();
+            long sent = driver.run(Duration.ofSeconds(durationSeconds), this::nextCall);
+
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("ratePerSecond", rate);
+            settings.put("durationSeconds", durationSeconds);
+            settings.put("requests", sent);
+            settings.put("cpus", Runtime.getRuntime().availableProcessors());
+            settings.put("java", Runtime.version().toString());
+            LatencyReport report = LatencyReport.of(settings, driver.histograms(), driver.errors());
+            report.print(System.out);
+            report.write(new File("target/loadtest/auth.json"));
+            LatencyReport.writeHistogramLog(new File("target/loadtest/auth.hlog"), driver.histograms());
+
+            compareWithBaseline(report);
+        }
+    }
+
+    private ConfigurableApplicationContext start(RedisStandIn redis, SmtpStandIn smtp) {
+        return new SpringApplicationBuilder(ComplexSpringBootApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.data.redis.host=127.0.0.1",
+                        "--spring.data.redis.port=" + redis.port(),
+                        "--spring.mail.host=127.0.0.1",
+                        "--spring.mail.port=" + smtp.port(),
+                        // HS512 needs a 64-byte key; the shipped default is shorter
+                        "--jwt.secret=load-test-secret-load-test-secret-load-test-secret-load-test-secret");
+    }
+
+    private void seed(ConfigurableApplicationContext context, HttpClient client) throws Exception {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        for (int i = 0; i < CATEGORIES; i++) {
+            Category category = new Category();
+            category.setName("Load test " + run + " " + i);
+            category.setSlug("load-test-" + run + "-" + i);
+            categoryIds.add(categoryRepository.save(category).getId());
+        }
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            String username = "lt-" + run + "-seed-" + i;
+            assertThat(client.send(register(username).request(), HttpResponse.BodyHandlers.ofString())
+                    .statusCode()).isEqualTo(201);
+            usernames.add(username);
+        }
+        for (String username : usernames) {
+            OpenLoopDriver.Call login = login(username);
+            HttpResponse<String> response = client.send(login.request(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).as("login " + username).isEqualTo(200);
+            login.onSuccess().accept(response.body());
+        }
+    }
+
+    /**
+     * The traffic mix, by share of requests: reads with a token 40%, username checks 30%,
+     * token refreshes 15%, logins 10% and sign-ups 5%.
+     */
+    private OpenLoopDriver.Call nextCall() {
+        int roll = random.nextInt(100);
+        if (roll < 40) {
+            return authenticatedRead();
+        }
+        if (roll < 70) {
+            // Mostly names that are taken, as when a sign-up form checks while typing
+            String username = random.nextInt(4) == 0 ? "lt-" + run + "-free-" + random.nextInt(1_000_000) : pick(usernames);
+            return new OpenLoopDriver.Call("check-username",
+                    get("auth/check-username?username=" + username).build(), 200);
+        }
+        if (roll < 85) {
+            return new OpenLoopDriver.Call("refresh", post("auth/refresh", "")
+                    .header("Authorization", "Bearer " + pick(tokens)).build(), 200);
+        }
+        if (roll < 95) {
+            return login(pick(usernames));
+        }
+        return register("lt-" + run + "-new-" + registrations.incrementAndGet());
+    }
+
+    private OpenLoopDriver.Call authenticatedRead() {
+        String token = "Bearer " + pick(tokens);
+        if (random.nextBoolean()) {
+            return new OpenLoopDriver.Call("read-category",
+                    get("categories/" + pick(categoryIds)).header("Authorization", token).build(), 200);
+        }
+        return new OpenLoopDriver.Call("read-ratings",
+                get("products/ratings?ids=1,2,3,4,5").header("Authorization", token).build(), 200);
+    }
+
+    private OpenLoopDriver.Call login(String username) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+        return new OpenLoopDriver.Call("login", post("auth/login", body).build(), 200, response -> {
+            try {
+                JsonNode token = json.readTree(response).get("token");
+                if (token != null && tokens.size() < 1000) {
+                    tokens.add(token.asText());
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private OpenLoopDriver.Call register(String username) {
+        String body = "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\""
+                + PASSWORD + "\",\"firstName\":\"Load\",\"lastName\":\"Test\"}";
+        return new OpenLoopDriver.Call("register", post("auth/register", body).build(), 201);
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofMinutes(1)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private void compareWithBaseline(LatencyReport report) throws Exception {
+        File baseline = new File(BASELINE);
+        if (Boolean.getBoolean("loadtest.update-baseline")) {
+            report.write(baseline);
+            System.out.println("Stored as new baseline: " + baseline);
+            return;
+        }
+        if (!baseline.exists()) {
+            System.out.println("No baseline at " + baseline + "; store one with -Dloadtest.update-baseline=true");
+            return;
+        }
+        LatencyReport previous = LatencyReport.read(baseline);
+        if (!previous.settings().get("ratePerSecond").equals(rate)) {
+            System.out.println("Baseline was recorded at " + previous.settings().get("ratePerSecond")
+                    + " requests/s; not comparing");
+            return;
+        }
+        List<String> regressions = report.regressionsAgainst(previous, tolerance);
+        regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+        assertThat(regressions).as("latency regressions against " + baseline).isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.complexapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-endpoint latency percentiles of one load-test run, in milliseconds, with the
+ * settings they were recorded under. Written as JSON so a run can be kept as the
+ * baseline for later ones, and compared to such a baseline.
+ */
+record LatencyReport(Map<String, Object> settings, Map<String, EndpointStats> endpoints) {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    record EndpointStats(long count, long errors, double p50, double p90, double p99, double p999, double max) {
+
+        static EndpointStats of(Histogram histogram, long errors) {
+            double[] values = new double[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                values[i] = millis(histogram.getValueAtPercentile(PERCENTILES[i]));
+            }
+            return new EndpointStats(histogram.getTotalCount(), errors, values[0], values[1], values[2], values[3],
+                    millis(histogram.getMaxValue()));
+        }
+
+        double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+
+    static LatencyReport of(Map<String, Object> settings, Map<String, Histogram> histograms, Map<String, Long> errors) {
+        Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        histograms.forEach((endpoint, histogram) ->
+                endpoints.put(endpoint, EndpointStats.of(histogram, errors.getOrDefault(endpoint, 0L))));
+        return new LatencyReport(settings, endpoints);
+    }
+
+    static LatencyReport read(File file) throws IOException {
+        return JSON.readValue(file, LatencyReport.class);
+    }
+
+    void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        JSON.writeValue(file, this);
+    }
+
+    /**
+     * Writes the full histograms in HdrHistogram's log format, one tagged entry per
+     * endpoint, for plotting complete latency distributions.
+     */
+    static void writeHistogramLog(File file, Map<String, Histogram> histograms) throws IOException {
+        file.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(file)) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            histograms.forEach((endpoint, histogram) -> {
+                Histogram tagged = histogram.copy();
+                tagged.setTag(endpoint);
+                writer.outputIntervalHistogram(tagged);
+            });
+        }
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-16s %8s %7s %9s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "p50 ms", "p90 ms",
+                "p99 ms", "p99.9 ms", "max ms");
+        endpoints.forEach((endpoint, stats) -> out.printf("%-16s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, stats.count(), stats.errors(), stats.p50(), stats.p90(), stats.p99(), stats.p999(),
+                stats.max()));
+    }
+
+    /**
+     * Endpoints whose median or p99 grew beyond the tolerance (plus one millisecond of
+     * slack for sub-millisecond endpoints), or whose error rate rose by more than one
+     * percentage point, relative to the baseline.
+     */
+    List<String> regressionsAgainst(LatencyReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        baseline.endpoints().forEach((endpoint, before) -> {
+            EndpointStats now = endpoints.get(endpoint);
+            if (now == null) {
+                regressions.add(endpoint + ": not exercised in this run");
+                return;
+            }
+            compare(regressions, endpoint, "p50", before.p50(), now.p50(), tolerance);
+            compare(regressions, endpoint, "p99", before.p99(), now.p99(), tolerance);
+            if (now.errorRate() > before.errorRate() + 0.01) {
+                regressions.add(String.format("%s: error rate %.1f%% -> %.1f%%", endpoint,
+                        before.errorRate() * 100, now.errorRate() * 100));
+            }
+        });
+        return regressions;
+    }
+
+    private static void compare(List<String> regressions, String endpoint, String percentile,
+                                double before, double now, double tolerance) {
+        if (now > before * (1 + tolerance) + 1.0) {
+            regressions.add(String.format("%s: %s %.2f ms -> %.2f ms", endpoint, percentile, before, now));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.complexapp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests at a fixed arrival rate regardless of how fast they are answered (an
+ * open workload, as real users produce), so a slow server faces a growing backlog rather
+ * than a politely waiting client. Latency is measured from when each request was
+ * scheduled to go out, not from when it actually did, so stalls in the sender or the
+ * connection pool count against the server too instead of silently thinning the sample
+ * (coordinated omission).
+ */
+final class OpenLoopDriver {
+
+    /**
+     * One request of the mix. {@code onSuccess} sees the response body, e.g. to collect
+     * tokens for later calls.
+     */
+    record Call(String endpoint, HttpRequest request, int expectedStatus, Consumer<String> onSuccess) {
+
+        Call(String endpoint, HttpRequest request, int expectedStatus) {
+            this(endpoint, request, expectedStatus, body -> {
+            });
+        }
+    }
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+    private final double ratePerSecond;
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    OpenLoopDriver(HttpClient client, double ratePerSecond) {
+        this.client = client;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Runs the mix for the given time and waits for the stragglers. Returns the number of
+     * requests sent.
+     */
+    long run(Duration duration, Supplier<Call> mix) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicLong outstanding = new AtomicLong();
+        long sent = 0;
+        for (long intended = start; intended < end; intended = start + ++sent * interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Call call = mix.get();
+            long scheduledAt = intended;
+            outstanding.incrementAndGet();
+            client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        record(call, scheduledAt, response, failure);
+                        outstanding.decrementAndGet();
+                    });
+        }
+        // Responses time out after a minute at the latest
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return sent;
+    }
+
+    private void record(Call call, long scheduledAt, HttpResponse<String> response, Throwable failure) {
+        long latency = Math.min(System.nanoTime() - scheduledAt, HIGHEST_TRACKABLE_NANOS);
+        histograms.computeIfAbsent(call.endpoint(), endpoint -> new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3))
+                .recordValue(latency);
+        if (failure == null && response.statusCode() == call.expectedStatus()) {
+            call.onSuccess().accept(response.body());
+        } else {
+            errors.computeIfAbsent(call.endpoint(), endpoint -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    void reset() {
+        histograms.clear();
+        errors.clear();
+    }
+
+    Map<String, Histogram> histograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    Map<String, Long> errors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((endpoint, count) -> counts.put(endpoint, count.get()));
+        return counts;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.complexapp.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough of a Redis server (RESP2, string keys only) for the cache and the
+ * idempotency store: GET, SET with EX/PX/NX/XX, DEL, EXISTS, expiry, KEYS and SCAN, plus
+ * the connection handshake. HELLO is refused so clients fall back to RESP2.
+ */
+class RedisStandIn implements AutoCloseable {
+
+    private record Entry(byte[] value, long expiresAt) {
+
+        boolean expired(long now) {
+            return expiresAt > 0 && now >= expiresAt;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newCachedThreadPool();
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+
+    RedisStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        sessions.execute(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sessions.execute(() -> session(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                execute(command, out);
+                // Pipelined commands are answered together
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // client went away
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void execute(List<byte[]> command, OutputStream out) throws IOException {
+        String name = string(command.get(0)).toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "PING" -> simple(out, "PONG");
+            case "SELECT", "AUTH", "CLIENT", "FLUSHDB", "FLUSHALL" -> {
+                if (name.startsWith("FLUSH")) {
+                    data.clear();
+                }
+                simple(out, "OK");
+            }
+            case "GET" -> {
+                Entry entry = live(string(command.get(1)), now);
+                bulk(out, entry != null ? entry.value() : null);
+            }
+            case "SET" -> set(command, now, out);
+            case "DEL", "UNLINK" -> {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (data.remove(string(command.get(i))) != null) {
+                        removed++;
+                    }
+                }
+                integer(out, removed);
+            }
+            case "EXISTS" -> {
+                long found = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (live(string(command.get(i)), now) != null) {
+                        found++;
+                    }
+                }
+                integer(out, found);
+            }
+            case "EXPIRE", "PEXPIRE" -> {
+                long amount = Long.parseLong(string(command.get(2)));
+                long ttl = name.equals("EXPIRE") ? amount * 1000 : amount;
+                Entry entry = data.computeIfPresent(string(command.get(1)),
+                        (key, current) -> current.expired(now) ? null : new Entry(current.value(), now + ttl));
+                integer(out, entry != null ? 1 : 0);
+            }
+            case "TTL", "PTTL" -> {
+                Entry entry = live(string(command.get(1)), now);
+                long remaining = entry == null ? -2 : entry.expiresAt() == 0 ? -1 : entry.expiresAt() - now;
+                integer(out, remaining > 0 && name.equals("TTL") ? remaining / 1000 : remaining);
+            }
+            case "KEYS" -> array(out, matching(string(command.get(1)), now));
+            case "SCAN" -> {
+                String pattern = "*";
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    if (string(command.get(i)).equalsIgnoreCase("MATCH")) {
+                        pattern = string(command.get(i + 1));
+                    }
+                }
+                // Everything in one page, cursor back at 0
+                out.write("*2\r\n".getBytes(StandardCharsets.US_ASCII));
+                bulk(out, "0".getBytes(StandardCharsets.US_ASCII));
+                array(out, matching(pattern, now));
+            }
+            case "DBSIZE" -> integer(out, data.size());
+            case "INFO" -> bulk(out, "# Server\r\nredis_version:7.2.0\r\n".getBytes(StandardCharsets.US_ASCII));
+            default -> error(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    private void set(List<byte[]> command, long now, OutputStream out) throws IOException {
+        String key = string(command.get(1));
+        byte[] value = command.get(2);
+        long expiresAt = 0;
+        boolean onlyIfAbsent = false;
+        boolean onlyIfPresent = false;
+        for (int i = 3; i < command.size(); i++) {
+            switch (string(command.get(i)).toUpperCase(Locale.ROOT)) {
+                case "EX" -> expiresAt = now + Long.parseLong(string(command.get(++i))) * 1000;
+                case "PX" -> expiresAt = now + Long.parseLong(string(command.get(++i)));
+                case "NX" -> onlyIfAbsent = true;
+                case "XX" -> onlyIfPresent = true;
+                default -> {
+                    error(out, "ERR syntax error");
+                    return;
+                }
+            }
+        }
+        Entry entry = new Entry(value, expiresAt);
+        boolean written;
+        if (onlyIfAbsent) {
+            boolean[] stored = new boolean[1];
+            data.compute(key, (k, current) -> {
+                if (current == null || current.expired(now)) {
+                    stored[0] = true;
+                    return entry;
+                }
+                return current;
+            });
+            written = stored[0];
+        } else if (onlyIfPresent) {
+            written = data.computeIfPresent(key, (k, current) -> current.expired(now) ? null : entry) != null;
+        } else {
+            data.put(key, entry);
+            written = true;
+        }
+        if (written) {
+            simple(out, "OK");
+        } else {
+            bulk(out, null);
+        }
+    }
+
+    private Entry live(String key, long now) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expired(now)) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private List<byte[]> matching(String glob, long now) {
+        Pattern pattern = Pattern.compile(glob.replace("\\", "\\\\").replace(".", "\\.")
+                .replace("*", ".*").replace("?", "."));
+        List<byte[]> keys = new ArrayList<>();
+        for (String key : data.keySet()) {
+            if (pattern.matcher(key).matches() && live(key, now) != null) {
+                keys.add(key.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return keys;
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header.isEmpty() || header.charAt(0) != '*') {
+            // Inline command, as typed into a telnet session
+            List<byte[]> parts = new ArrayList<>();
+            for (String part : header.trim().split("\\s+")) {
+                parts.add(part.getBytes(StandardCharsets.UTF_8));
+            }
+            return parts;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] part = in.readNBytes(length);
+            if (part.length < length) {
+                throw new EOFException();
+            }
+            readLine(in);
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void array(OutputStream out, List<byte[]> values) throws IOException {
+        out.write(("*" + values.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (byte[] value : values) {
+            bulk(out, value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.complexapp.messaging;
+
+import com.example.complexapp.BenchmarkRunner;
+import com.example.complexapp.event.DomainEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of {@link EventCodec} against the Jackson JSON the outbox used
+ * before, per event type. Opt-in: run with
+ * {@code mvn test -Dexcluded.test.groups= -Dtest=EventCodecBenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Param({"order", "user", "inventory"})
+    public String type;
+
+    private DomainEvent event;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        event = event(type);
+        binary = EventCodec.encode(event);
+        json = objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return EventCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws Exception {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public DomainEvent decodeBinary() {
+        return EventCodec.decode(binary);
+    }
+
+    @Benchmark
+    public DomainEvent decodeJson() throws Exception {
+        return objectMapper.readValue(json, event.getClass());
+    }
+
+    @Test
+    void binaryVersusJson() throws Exception {
+        for (String name : List.of("order", "user", "inventory")) {
+            DomainEvent sample = event(name);
+            System.out.printf("%-10s binary %4d bytes  json %4d bytes%n", name,
+                    EventCodec.encode(sample).length, objectMapper.writeValueAsBytes(sample).length);
+        }
+        BenchmarkRunner.run(getClass());
+    }
+
+    private static DomainEvent event(String type) {
+        return switch (type) {
+            case "order" -> EventCodecTest.order();
+            case "user" -> EventCodecTest.user();
+            default -> EventCodecTest.inventory();
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.complexapp.messaging;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.event.DomainEvent;
+import com.example.complexapp.event.InventoryChangedEvent;
+import com.example.complexapp.event.OrderChangedEvent;
+import com.example.complexapp.event.UserChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventCodecTest {
+
+    private static final Instant OCCURRED_AT = Instant.parse("2024-03-01T12:30:45.123456789Z");
+
+    // Version 1 encoding of order(); if this changes, payloads already in Kafka can no longer be read
+    private static final String ORDER_V1 = "ce01012cff03aab4de75134f52442d3230323430333031" +
+            "2d414243444546010001010004021b57eaa98ede0c959aef3a";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void roundTripsEveryEventType() {
+        for (DomainEvent event : List.of(order(), user(), inventory())) {
+            assertThat(EventCodec.decode(EventCodec.encode(event))).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void roundTripsNullFieldsAndEdgeValues() {
+        OrderChangedEvent sparse = new OrderChangedEvent(null, null, OrderChangedEvent.ChangeType.PLACED,
+                null, null, null, null, null, null);
+        OrderChangedEvent extremes = new OrderChangedEvent(Long.MIN_VALUE, "Bestellung-ü€📦",
+                OrderChangedEvent.ChangeType.TRANSITIONED, OrderTransition.REFUND, Order.OrderStatus.REFUNDED,
+                Order.PaymentStatus.REFUNDED, Order.ShippingStatus.RETURNED,
+                new BigDecimal("-123456789012345678901234567890.000001"), Instant.ofEpochSecond(-1, 999_999_999));
+        InventoryChangedEvent negative = new InventoryChangedEvent(Long.MAX_VALUE, "", InventoryChangedEvent.ChangeType.ADJUSTED,
+                Integer.MIN_VALUE, Instant.EPOCH);
+
+        for (DomainEvent event : List.of(sparse, extremes, negative)) {
+            assertThat(EventCodec.decode(EventCodec.encode(event))).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void encodesFarSmallerThanJson() throws Exception {
+        for (DomainEvent event : List.of(order(), user(), inventory())) {
+            int binary = EventCodec.encode(event).length;
+            int json = objectMapper.writeValueAsBytes(event).length;
+            assertThat(binary).as(event.getClass().getSimpleName()).isLessThan(json / 3);
+        }
+    }
+
+    @Test
+    void wireFormatOfVersionOneIsStable() {
+        assertThat(HexFormat.of().formatHex(EventCodec.encode(order()))).isEqualTo(ORDER_V1);
+        assertThat(EventCodec.decode(HexFormat.of().parseHex(ORDER_V1))).isEqualTo(order());
+    }
+
+    @Test
+    void readsPayloadsWithFieldsAppendedByNewerWriters() {
+        UserChangedEvent event = user();
+        EventCodec.Writer writer = new EventCodec.Writer();
+        // Field 7 is unknown to this reader
+        writer.writeUnsigned(0b1111_1111);
+        writer.writeLong(event.userId());
+        writer.writeEnum(event.changeType());
+        writer.writeString(event.username());
+        writer.writeString(event.email());
+        writer.writeEnum(event.role());
+        writer.writeEnum(event.status());
+        writer.writeInstant(event.occurredAt());
+        writer.writeString("a field from schema version 2");
+        byte[] payload = writer.withHeader(EventCodec.USER_CHANGED);
+        payload[2] = 2;
+
+        assertThat(EventCodec.decode(payload)).isEqualTo(event);
+    }
+
+    @Test
+    void leavesFieldsUnknownToOlderWritersNull() {
+        EventCodec.Writer writer = new EventCodec.Writer();
+        // An older writer that did not have the quantity and occurredAt fields yet
+        writer.writeUnsigned(0b111);
+        writer.writeLong(42L);
+        writer.writeString("SKU-42");
+        writer.writeEnum(InventoryChangedEvent.ChangeType.RESTOCKED);
+
+        assertThat(EventCodec.decode(writer.withHeader(EventCodec.INVENTORY_CHANGED), InventoryChangedEvent.class))
+                .isEqualTo(new InventoryChangedEvent(42L, "SKU-42", InventoryChangedEvent.ChangeType.RESTOCKED, null, null));
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        byte[] valid = EventCodec.encode(user());
+        byte[] unknownType = valid.clone();
+        unknownType[1] = 99;
+        byte[] badMagic = valid.clone();
+        badMagic[0] = '{';
+
+        assertThatThrownBy(() -> EventCodec.decode(Arrays.copyOf(valid, valid.length - 3)))
+                .isInstanceOf(SerializationException.class).hasMessageContaining("Truncated");
+        assertThatThrownBy(() -> EventCodec.decode(unknownType))
+                .isInstanceOf(SerializationException.class).hasMessageContaining("Unknown domain event type");
+        assertThatThrownBy(() -> EventCodec.decode(badMagic))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> EventCodec.decode(valid, OrderChangedEvent.class))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsEnumConstantsFromNewerWriters() {
+        EventCodec.Writer writer = new EventCodec.Writer();
+        writer.writeUnsigned(0b10);
+        writer.writeUnsigned(UserChangedEvent.ChangeType.values().length);
+
+        assertThatThrownBy(() -> EventCodec.decode(writer.withHeader(EventCodec.USER_CHANGED)))
+                .isInstanceOf(SerializationException.class).hasMessageContaining("Unknown ChangeType constant");
+    }
+
+    @Test
+    void kafkaSerdeDelegatesToCodec() {
+        try (DomainEventSerializer serializer = new DomainEventSerializer();
+             DomainEventDeserializer deserializer = new DomainEventDeserializer()) {
+            assertThat(deserializer.deserialize("order-events", serializer.serialize("order-events", order())))
+                    .isEqualTo(order());
+            assertThat(serializer.serialize("order-events", null)).isNull();
+            assertThat(deserializer.deserialize("order-events", null)).isNull();
+        }
+    }
+
+    static OrderChangedEvent order() {
+        return new OrderChangedEvent(123_456_789L, "ORD-20240301-ABCDEF", OrderChangedEvent.ChangeType.TRANSITIONED,
+                OrderTransition.CONFIRM, Order.OrderStatus.CONFIRMED, Order.PaymentStatus.PAID,
+                Order.ShippingStatus.PENDING, new BigDecimal("69.99"), OCCURRED_AT);
+    }
+
+    static UserChangedEvent user() {
+        return new UserChangedEvent(987_654L, UserChangedEvent.ChangeType.ROLE_CHANGED, "jane.doe",
+                "jane.doe@example.com", User.UserRole.ADMIN, User.UserStatus.ACTIVE, OCCURRED_AT);
+    }
+
+    static InventoryChangedEvent inventory() {
+        return new InventoryChangedEvent(4_321L, "SKU-RED-SHOE-42", InventoryChangedEvent.ChangeType.SOLD, 3, OCCURRED_AT);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.complexapp.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EmbeddedKafka(partitions = 3, topics = {"ordered-events", "slow-events", "poisoned-events", "saturated-events"})
+class KeyOrderedConsumerIntegrationTest {
+
+    private static final int KEYS = 20;
+    private static final int PER_KEY = 50;
+
+    @Test
+    void keepsPerKeyOrderWhileProcessingBeyondPartitionCount(EmbeddedKafkaBroker broker) throws Exception {
+        produce(broker, "ordered-events");
+
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(KEYS * PER_KEY);
+        EventHandler<String> handler = handler("ordered-events", record -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+                seen.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(Integer.parseInt(record.value()));
+            } finally {
+                running.decrementAndGet();
+                done.countDown();
+            }
+        });
+
+        KeyOrderedConsumer<String> consumer = consumer(broker, "ordered-group", handler, 16, 1000);
+        consumer.start();
+        try {
+            assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            consumer.stop();
+        }
+
+        assertThat(seen).hasSize(KEYS);
+        seen.values().forEach(values -> assertThat(values).hasSize(PER_KEY).isSorted());
+        // Three partitions, yet more than three records were handled at the same time
+        assertThat(maxRunning.get()).isGreaterThan(3);
+        assertThat(committedOffsets(broker, "ordered-group", "ordered-events")).isEqualTo(KEYS * PER_KEY);
+    }
+
+    @Test
+    void boundsInFlightRecordsAndCommitsOnlyCompletedWork(EmbeddedKafkaBroker broker) throws Exception {
+        produce(broker, "slow-events");
+
+        AtomicInteger handled = new AtomicInteger();
+        int maxInFlight = 20;
+        EventHandler<String> handler = handler("slow-events", record -> {
+            Thread.sleep(5);
+            handled.incrementAndGet();
+        });
+
+        KeyOrderedConsumer<String> consumer = consumer(broker, "slow-group", handler, 8, maxInFlight);
+        int maxObserved = 0;
+        consumer.start();
+        try {
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (handled.get() < KEYS * PER_KEY && System.currentTimeMillis() < deadline) {
+                maxObserved = Math.max(maxObserved, consumer.getInFlight());
+                Thread.sleep(2);
+            }
+        } finally {
+            consumer.stop();
+        }
+
+        assertThat(handled.get()).isEqualTo(KEYS * PER_KEY);
+        // One poll may overshoot the budget by at most a poll's worth, which is capped at the budget
+        assertThat(maxObserved).isLessThanOrEqualTo(2 * maxInFlight);
+        assertThat(committedOffsets(broker, "slow-group", "slow-events")).isEqualTo(KEYS * PER_KEY);
+    }
+
+    @Test
+    void parksLanesARejectingExecutorTurnsDown(EmbeddedKafkaBroker broker) throws Exception {
+        produce(broker, "saturated-events");
+
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(KEYS * PER_KEY);
+        EventHandler<String> handler = handler("saturated-events", record -> {
+            threads.add(Thread.currentThread().getName());
+            Thread.sleep(1);
+            seen.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(Integer.parseInt(record.value()));
+            done.countDown();
+        });
+        // Room for three lanes out of twenty; everything else is rejected
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps("saturated-group", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        KeyOrderedConsumer<String> consumer = new KeyOrderedConsumer<>("saturated-group", props,
+                new StringDeserializer(), List.of(handler), executor, 1000, 3, Duration.ofMillis(10),
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        consumer.start();
+        try {
+            assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            consumer.stop();
+        }
+
+        assertThat(seen).hasSize(KEYS);
+        seen.values().forEach(values -> assertThat(values).hasSize(PER_KEY).isSorted());
+        assertThat(threads).noneMatch(thread -> thread.endsWith("-poller"));
+        assertThat(committedOffsets(broker, "saturated-group", "saturated-events")).isEqualTo(KEYS * PER_KEY);
+    }
+
+    @Test
+    void skipsUndecodableRecordsAndKeepsConsuming(EmbeddedKafkaBroker broker) throws Exception {
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(producerProps, new StringSerializer(), new StringSerializer())) {
+            for (String value : List.of("first", "poison", "second")) {
+                producer.send(new ProducerRecord<>("poisoned-events", 0, "key", value));
+            }
+            producer.flush();
+        }
+
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        Deserializer<String> deserializer = (topic, data) -> {
+            String value = new String(data, StandardCharsets.UTF_8);
+            if (value.equals("poison")) {
+                throw new SerializationException("cannot decode");
+            }
+            return value;
+        };
+        Map<String, Object> props = KafkaTestUtils.consumerProps("poisoned-group", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        KeyOrderedConsumer<String> consumer = new KeyOrderedConsumer<>("poisoned-group", props, deserializer,
+                List.of(handler("poisoned-events", record -> handled.add(record.value()))), Executors.newFixedThreadPool(2),
+                10, 1, Duration.ofMillis(10), Duration.ofSeconds(5), new SimpleMeterRegistry());
+        consumer.start();
+        try {
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (handled.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            consumer.stop();
+        }
+
+        assertThat(handled).containsExactly("first", "second");
+        assertThat(committedOffsets(broker, "poisoned-group", "poisoned-events")).isEqualTo(3);
+    }
+
+    private interface RecordCallback {
+        void accept(ConsumerRecord<String, String> record) throws Exception;
+    }
+
+    private EventHandler<String> handler(String topic, RecordCallback callback) {
+        return new EventHandler<>() {
+            @Override
+            public String topic() {
+                return topic;
+            }
+
+            @Override
+            public void handle(ConsumerRecord<String, String> record) throws Exception {
+                callback.accept(record);
+            }
+        };
+    }
+
+    private KeyOrderedConsumer<String> consumer(EmbeddedKafkaBroker broker, String group, EventHandler<String> handler,
+                                                int threads, int maxInFlight) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(group, "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return new KeyOrderedConsumer<>(group, props, new StringDeserializer(), List.of(handler),
+                Executors.newFixedThreadPool(threads), maxInFlight, 3, Duration.ofMillis(10), Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+    }
+
+    private void produce(EmbeddedKafkaBroker broker, String topic) {
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(props, new StringSerializer(), new StringSerializer())) {
+            for (int seq = 0; seq < PER_KEY; seq++) {
+                for (int key = 0; key < KEYS; key++) {
+                    producer.send(new ProducerRecord<>(topic, "key-" + key, String.valueOf(seq)));
+                }
+            }
+            producer.flush();
+        }
+    }
+
+    private long committedOffsets(EmbeddedKafkaBroker broker, String group, String topic) throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of("bootstrap.servers", broker.getBrokersAsString()))) {
+            Map<TopicPartition, OffsetAndMetadata> committed =
+                    admin.listConsumerGroupOffsets(group).partitionsToOffsetAndMetadata().get(10, TimeUnit.SECONDS);
+            Map<TopicPartition, OffsetSpec> latest = committed.keySet().stream()
+                    .filter(partition -> partition.topic().equals(topic))
+                    .collect(Collectors.toMap(partition -> partition, partition -> OffsetSpec.latest()));
+            long end = admin.listOffsets(latest).all().get(10, TimeUnit.SECONDS).values().stream()
+                    .mapToLong(info -> info.offset()).sum();
+            long committedTotal = committed.entrySet().stream()
+                    .filter(entry -> entry.getKey().topic().equals(topic))
+                    .mapToLong(entry -> entry.getValue().offset()).sum();
+            assertThat(committedTotal).isEqualTo(end);
+            return committedTotal;
+        }
+    }
+}
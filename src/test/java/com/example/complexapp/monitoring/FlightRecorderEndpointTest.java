@@ -0,0 +1,78 @@
+package com.example.complexapp.monitoring;
+
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint =
+            new FlightRecorderEndpoint(Duration.ofSeconds(30), Duration.ofSeconds(60), 10 * 1024 * 1024, 2, 10);
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    void summarizesAttributedEventsOnceStopped() throws Exception {
+        WebEndpointResponse<Object> started = endpoint.start(null, "default");
+        assertThat(started.getStatus()).isEqualTo(200);
+        long id = ((FlightRecorderEndpoint.RecordingInfo) started.getBody()).id();
+
+        RequestAttribution.enter("GET /api/categories", "alice");
+        try {
+            for (int i = 0; i < 3; i++) {
+                CacheOperationEvent event = new CacheOperationEvent();
+                event.begin();
+                event.cache = "categories";
+                event.operation = "get";
+                event.hit = true;
+                event.attributeAndCommit();
+            }
+        } finally {
+            RequestAttribution.exit();
+        }
+
+        assertThat(endpoint.summary(id).getStatus()).isEqualTo(409);
+        assertThat(endpoint.stop(id).getStatus()).isEqualTo(200);
+
+        FlightRecordingSummary summary = (FlightRecordingSummary) endpoint.summary(id).getBody();
+        assertThat(summary.endpoints())
+                .extracting(FlightRecordingSummary.Attribution::name, FlightRecordingSummary.Attribution::event,
+                        FlightRecordingSummary.Attribution::count)
+                .containsExactly(Tuple.tuple("GET /api/categories", "CacheOperation", 3L));
+        assertThat(summary.users()).extracting(FlightRecordingSummary.Attribution::name).containsExactly("alice");
+
+        WebEndpointResponse<Resource> download = endpoint.download(id, "jfr");
+        assertThat(download.getStatus()).isEqualTo(200);
+        assertThat(download.getBody().contentLength()).isPositive();
+    }
+
+    @Test
+    void runsOneBoundedRecordingAtATime() throws Exception {
+        assertThat(endpoint.start(61, null).getStatus()).isEqualTo(400);
+        assertThat(endpoint.start(null, "no-such-settings").getStatus()).isEqualTo(400);
+
+        long first = ((FlightRecorderEndpoint.RecordingInfo) endpoint.start(5, "default").getBody()).id();
+        assertThat(endpoint.start(5, "default").getStatus()).isEqualTo(409);
+        endpoint.stop(first);
+
+        long second = ((FlightRecorderEndpoint.RecordingInfo) endpoint.start(5, "default").getBody()).id();
+        endpoint.stop(second);
+        long third = ((FlightRecorderEndpoint.RecordingInfo) endpoint.start(5, "default").getBody()).id();
+        endpoint.stop(third);
+
+        List<FlightRecorderEndpoint.RecordingInfo> recordings = endpoint.recordings();
+        assertThat(recordings).extracting(FlightRecorderEndpoint.RecordingInfo::id).containsExactly(second, third);
+        assertThat(endpoint.stop(third).getStatus()).isEqualTo(204);
+        assertThat(endpoint.summary(third).getStatus()).isEqualTo(404);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.complexapp.monitoring;
+
+import com.example.complexapp.domain.User;
+import com.example.complexapp.repository.UserRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class MethodLatencyAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserRepository target = Mockito.mock(UserRepository.class);
+    private final UserRepository repository = advised(target);
+
+    @Test
+    void timesDerivedAndInheritedQueriesWithSloBuckets() {
+        when(target.findByUsername("alice")).thenReturn(Optional.of(new User()));
+
+        repository.findByUsername("alice");
+        repository.findByUsername("bob");
+        repository.findById(1L);
+
+        Timer byUsername = timer("findByUsername", "none");
+        assertThat(byUsername.count()).isEqualTo(2);
+        assertThat(timer("findById", "none").count()).isEqualTo(1);
+        assertThat(Arrays.stream(byUsername.takeSnapshot().histogramCounts()).map(CountAtBucket::bucket))
+                .contains((double) Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void tagsFailuresWithTheExceptionType() {
+        when(target.existsByUsername("alice")).thenThrow(new QueryTimeoutException("slow"));
+
+        assertThatThrownBy(() -> repository.existsByUsername("alice")).isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(timer("existsByUsername", "QueryTimeoutException").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(MethodLatencyAspect.TIMER).tag("exception", "none").timer()).isNull();
+    }
+
+    @Test
+    void leavesObjectMethodsAlone() {
+        repository.hashCode();
+        repository.toString();
+
+        assertThat(meterRegistry.find(MethodLatencyAspect.TIMER).timers()).isEmpty();
+    }
+
+    private Timer timer(String method, String exception) {
+        return meterRegistry.get(MethodLatencyAspect.TIMER)
+                .tags("class", "UserRepository", "method", method, "exception", exception)
+                .timer();
+    }
+
+    private UserRepository advised(UserRepository repository) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(repository);
+        factory.addAspect(new MethodLatencyAspect(new LatencyInstrumentation(meterRegistry,
+                List.of(Duration.ofMillis(25), Duration.ofMillis(100)))));
+        return factory.getProxy();
+    }
+}
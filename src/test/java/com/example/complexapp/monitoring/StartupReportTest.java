@@ -0,0 +1,34 @@
+package com.example.complexapp.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupReportTest {
+
+    @Test
+    void ranksBeansBySelfTime() throws InterruptedException {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        StartupStep service = startup.start("spring.beans.instantiate").tag("beanName", "orderService");
+        StartupStep factory = startup.start("spring.beans.instantiate").tag("beanName", "entityManagerFactory");
+        Thread.sleep(200);
+        factory.end();
+        StartupStep repository = startup.start("spring.beans.instantiate").tag("beanName", "orderRepository");
+        Thread.sleep(50);
+        repository.end();
+        service.end();
+        startup.start("spring.context.refresh").end();
+
+        String slowest = new StartupReport(1000, 2).slowest(startup);
+
+        assertThat(slowest).startsWith("entityManagerFactory=").contains(", orderRepository=")
+                .doesNotContain("orderService");
+    }
+
+    @Test
+    void saysSoWhenStartupWasNotRecorded() {
+        assertThat(new StartupReport(1000, 2).slowest(null)).isEqualTo("not recorded");
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.complexapp.monitoring;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when its body runs more Hibernate statements than {@code maxStatements}
+ * or the same SELECT more than {@code maxSameSelect} times. On a class it applies to every
+ * test method without its own. Only statements on the test's thread count, so it suits
+ * repository and service tests and MockMvc, not requests against a running server.
+ * {@code @BeforeEach} set-up is not counted.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+
+    int maxStatements() default Integer.MAX_VALUE;
+
+    int maxSameSelect() default 2;
+}
@@ -0,0 +1,68 @@
+package com.example.complexapp.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Counts the statements of each test body in a {@link StatementTally} and enforces
+ * {@link StatementBudget}. Tests that want to assert on the counts themselves take a
+ * {@code StatementTally} parameter; its {@code reset()} starts over mid-test.
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback,
+        ParameterResolver {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        StatementTally.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementTally tally = StatementTally.current();
+        tally.stop();
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        budget(context).ifPresent(budget -> {
+            if (tally.statements() > budget.maxStatements()) {
+                throw new AssertionError("Expected at most " + budget.maxStatements() + " statements but "
+                        + tally.statements() + " ran");
+            }
+            Map<String, Integer> repeated = budget.maxSameSelect() == Integer.MAX_VALUE
+                    ? Map.of() : tally.repeatedSelects(budget.maxSameSelect() + 1);
+            if (!repeated.isEmpty()) {
+                StringBuilder message = new StringBuilder("Expected no SELECT to run more than ")
+                        .append(budget.maxSameSelect()).append(" times (N+1?) but:");
+                repeated.forEach((sql, count) -> message.append("\n  ").append(count).append("x ").append(sql));
+                throw new AssertionError(message.toString());
+            }
+        });
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == StatementTally.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return StatementTally.current();
+    }
+
+    private static Optional<StatementBudget> budget(ExtensionContext context) {
+        StatementBudget onMethod = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(),
+                StatementBudget.class);
+        if (onMethod != null) {
+            return Optional.of(onMethod);
+        }
+        return Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestClass(),
+                StatementBudget.class));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.Category;
+import com.example.complexapp.monitoring.StatementBudget;
+import com.example.complexapp.monitoring.StatementTally;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@StatementBudget
+class CategoryRepositoryStatementTest {
+
+    private static final int ROOTS = 3;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ROOTS; i++) {
+            Category root = entityManager.persist(category("root-" + i, null));
+            entityManager.persist(category("child-" + i, root));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @StatementBudget(maxStatements = 1)
+    void readsTheWholeTreeInOneStatement() {
+        assertThat(categoryRepository.findTreeRows()).hasSize(ROOTS * 2);
+    }
+
+    @Test
+    @StatementBudget(maxSameSelect = Integer.MAX_VALUE)
+    void spotsChildrenLoadedOneParentAtATime(StatementTally tally) {
+        List<Category> categories = categoryRepository.findAll();
+        categories.forEach(category -> category.getChildren().size());
+
+        assertThat(tally.statements()).isEqualTo(1 + categories.size());
+        assertThat(tally.repeatedSelects(3).values()).containsExactly(categories.size());
+    }
+
+    private static Category category(String slug, Category parent) {
+        Category category = new Category();
+        category.setName("Category " + slug);
+        category.setSlug(slug);
+        category.setParent(parent);
+        return category;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.complexapp.repository;
+
+import com.example.complexapp.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserRepositoryLoginTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long userId;
+    private Long version;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("login-user");
+        user.setEmail("login-user@example.com");
+        user.setPassword("secret-password");
+        user.setFirstName("Login");
+        user.setLastName("User");
+        user.setFailedLoginAttempts(3);
+        User saved = entityManager.persistAndFlush(user);
+        userId = saved.getId();
+        version = saved.getVersion();
+        entityManager.clear();
+    }
+
+    @Test
+    void successfulLoginBumpsTheVersionAndTimestamp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        assertThat(userRepository.recordSuccessfulLogin("login-user", now)).isEqualTo(1);
+        assertThat(userRepository.recordSuccessfulLogin("login-user", now.plusSeconds(1))).isEqualTo(1);
+        entityManager.clear();
+
+        User user = userRepository.findById(userId).orElseThrow();
+        assertThat(user.getLastLogin()).isEqualTo(now.plusSeconds(1));
+        assertThat(user.getFailedLoginAttempts()).isZero();
+        assertThat(user.getUpdatedAt()).isEqualTo(now.plusSeconds(1));
+        // Two logins never conflict with each other, but each one moves the version on
+        assertThat(user.getVersion()).isEqualTo(version + 2);
+    }
+
+    @Test
+    void locksOnlyOnceTheLimitIsReached() {
+        userRepository.incrementFailedLoginAttempts("login-user", LocalDateTime.now());
+        assertThat(userRepository.lockAfterFailedLogins("login-user", 5, User.UserStatus.SUSPENDED, LocalDateTime.now()))
+                .isZero();
+
+        userRepository.incrementFailedLoginAttempts("login-user", LocalDateTime.now());
+        assertThat(userRepository.lockAfterFailedLogins("login-user", 5, User.UserStatus.SUSPENDED, LocalDateTime.now()))
+                .isEqualTo(1);
+        entityManager.clear();
+
+        User user = userRepository.findById(userId).orElseThrow();
+        assertThat(user.getFailedLoginAttempts()).isEqualTo(5);
+        assertThat(user.isAccountNonLocked()).isFalse();
+        assertThat(user.getStatus()).isEqualTo(User.UserStatus.SUSPENDED);
+    }
+
+    @Test
+    void staleSaveCannotUndoALockout() {
+        // Loaded for a profile edit before the failed logins come in
+        User stale = userRepository.findById(userId).orElseThrow();
+        entityManager.clear();
+
+        userRepository.incrementFailedLoginAttempts("login-user", LocalDateTime.now());
+        userRepository.incrementFailedLoginAttempts("login-user", LocalDateTime.now());
+        assertThat(userRepository.lockAfterFailedLogins("login-user", 5, User.UserStatus.SUSPENDED, LocalDateTime.now()))
+                .isEqualTo(1);
+        entityManager.clear();
+
+        stale.setFirstName("Renamed");
+        assertThatThrownBy(() -> userRepository.saveAndFlush(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        entityManager.clear();
+
+        User user = userRepository.findById(userId).orElseThrow();
+        assertThat(user.isAccountNonLocked()).isFalse();
+        assertThat(user.getFailedLoginAttempts()).isEqualTo(5);
+        assertThat(user.getFirstName()).isEqualTo("Login");
+    }
+
+    @Test
+    void unknownUsersAreIgnored() {
+        assertThat(userRepository.incrementFailedLoginAttempts("nobody", LocalDateTime.now())).isZero();
+        assertThat(userRepository.recordSuccessfulLogin("nobody", LocalDateTime.now())).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.complexapp.scheduler;
+
+import com.example.complexapp.service.ProductRatingService;
+import com.example.complexapp.service.RatingAggregator;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RatingFlushSchedulerTest {
+
+    private final RatingAggregator aggregator = new RatingAggregator();
+    private final ProductRatingService ratingService = mock(ProductRatingService.class);
+    private final RatingFlushScheduler scheduler = new RatingFlushScheduler(aggregator, ratingService);
+
+    @Test
+    void flushAppliesOneFoldedDeltaPerProduct() {
+        aggregator.add(1L, 5, 1);
+        aggregator.add(1L, 5, 1);
+        aggregator.add(1L, 3, -1);
+
+        scheduler.flushPendingRatings();
+
+        ArgumentCaptor<long[]> delta = ArgumentCaptor.forClass(long[].class);
+        verify(ratingService).applyDelta(eq(1L), delta.capture());
+        assertThat(delta.getValue()).containsExactly(0, 0, -1, 0, 2);
+        assertThat(aggregator.pendingProducts()).isZero();
+    }
+
+    @Test
+    void failedFlushKeepsTheDeltaForTheNextRun() {
+        aggregator.add(1L, 4, 1);
+        doThrow(new IllegalStateException("database down")).when(ratingService).applyDelta(eq(1L), any());
+
+        scheduler.flushPendingRatings();
+        aggregator.add(1L, 4, 1);
+
+        assertThat(aggregator.drain().get(1L)).containsExactly(0, 0, 0, 2, 0);
+    }
+
+    @Test
+    void reconcileRebuildsOnlyDriftedSummaries() {
+        when(ratingService.findDriftedSummaries()).thenReturn(List.of(2L, 7L));
+        doThrow(new IllegalStateException("locked")).when(ratingService).rebuildSummary(2L);
+
+        scheduler.reconcileSummaries();
+
+        verify(ratingService).rebuildSummary(2L);
+        verify(ratingService).rebuildSummary(7L);
+        verify(ratingService, never()).rebuildSummary(1L);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Category;
+import com.example.complexapp.event.CategoryChangedEvent;
+import com.example.complexapp.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryServiceTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Object> events = new ArrayList<>();
+    private TransactionTemplate transactions;
+    private CategoryService categoryService;
+    private Long root;
+    private Long child;
+    private Long grandchild;
+
+    @BeforeEach
+    void setUp() {
+        transactions = new TransactionTemplate(transactionManager);
+        categoryService = new CategoryService(categoryRepository, events::add);
+        root = categoryRepository.save(category("root", null)).getId();
+        child = categoryRepository.save(category("child", categoryRepository.getReferenceById(root))).getId();
+        grandchild = categoryRepository.save(category("grandchild", categoryRepository.getReferenceById(child))).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactions.executeWithoutResult(status -> {
+            categoryRepository.findAll().forEach(category -> category.setParent(null));
+            categoryRepository.flush();
+            categoryRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void refusesToMoveACategoryBelowItsOwnDescendant() {
+        assertThatThrownBy(() -> transactions.executeWithoutResult(status -> categoryService.moveCategory(root, grandchild)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transactions.executeWithoutResult(status -> categoryService.moveCategory(child, child)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(parentOf(root)).isNull();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void movesWithinTheTreeAndToTheTopLevel() {
+        transactions.executeWithoutResult(status -> categoryService.moveCategory(grandchild, root));
+        assertThat(parentOf(grandchild)).isEqualTo(root);
+
+        transactions.executeWithoutResult(status -> categoryService.moveCategory(child, null));
+        assertThat(parentOf(child)).isNull();
+
+        // child is no longer above root, so root may now go below it
+        transactions.executeWithoutResult(status -> categoryService.moveCategory(root, child));
+        assertThat(parentOf(root)).isEqualTo(child);
+
+        assertThat(events).hasSize(3).allSatisfy(event -> assertThat(event)
+                .isInstanceOfSatisfying(CategoryChangedEvent.class,
+                        changed -> assertThat(changed.changeType()).isEqualTo(CategoryChangedEvent.ChangeType.MOVED)));
+    }
+
+    @Test
+    void concurrentCrossMovesCannotCloseACycle() throws Exception {
+        Long other = categoryRepository.save(category("other", null)).getId();
+        CountDownLatch moved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // Holds its row locks on other and its ancestry until released
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactions.executeWithoutResult(status -> {
+            categoryService.moveCategory(other, grandchild);
+            moved.countDown();
+            await(commit);
+        }));
+        assertThat(moved.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Checked against the snapshot or unlocked rows, this would still see grandchild's
+        // ancestry without other in it and pass
+        CompletableFuture<Void> second = CompletableFuture.runAsync(
+                () -> transactions.executeWithoutResult(status -> categoryService.moveCategory(root, other)));
+        Thread.sleep(200);
+        commit.countDown();
+
+        first.get(10, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(parentOf(other)).isEqualTo(grandchild);
+        assertThat(parentOf(root)).isNull();
+    }
+
+    private Long parentOf(Long id) {
+        return transactions.execute(status -> {
+            Category parent = categoryRepository.findById(id).orElseThrow().getParent();
+            return parent != null ? parent.getId() : null;
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Category category(String slug, Category parent) {
+        Category category = new Category();
+        category.setName("Category " + slug);
+        category.setSlug(slug);
+        category.setParent(parent);
+        return category;
+    }
+}
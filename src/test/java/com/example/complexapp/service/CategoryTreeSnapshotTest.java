@@ -0,0 +1,130 @@
+package com.example.complexapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryTreeSnapshotTest {
+
+    //  1 electronics (sort 0)        4 books (sort 1)
+    //  ├── 3 phones (sort 0)
+    //  │   └── 5 android
+    //  └── 2 laptops (sort 1)
+    private static final List<CategoryTreeSnapshot.Row> ROWS = List.of(
+            row(2L, 1L, "Laptops", 1),
+            row(4L, null, "Books", 1),
+            row(5L, 3L, "Android", 0),
+            row(1L, null, "Electronics", 0),
+            row(3L, 1L, "Phones", 0));
+
+    private static final Map<Long, Long> PRODUCT_COUNTS = Map.of(1L, 1L, 2L, 4L, 3L, 2L, 5L, 3L, 4L, 7L);
+
+    @Test
+    void laysTheTreeOutInSortedPreOrder() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, ROWS, PRODUCT_COUNTS);
+
+        assertThat(snapshot.size()).isEqualTo(5);
+        assertThat(snapshot.getRootIds()).containsExactly(1L, 4L);
+        assertThat(snapshot.getSubtreeIds(1L)).containsExactly(1L, 3L, 5L, 2L);
+        assertThat(snapshot.getSubtreeIds(3L)).containsExactly(3L, 5L);
+        assertThat(snapshot.getSubtreeIds(4L)).containsExactly(4L);
+        assertThat(snapshot.getSubtreeIds(99L)).isEmpty();
+    }
+
+    @Test
+    void answersAncestorChecksFromSubtreeSlices() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, ROWS, PRODUCT_COUNTS);
+
+        assertThat(snapshot.isAncestorOrSelf(1L, 5L)).isTrue();
+        assertThat(snapshot.isAncestorOrSelf(3L, 3L)).isTrue();
+        assertThat(snapshot.isAncestorOrSelf(5L, 1L)).isFalse();
+        assertThat(snapshot.isAncestorOrSelf(3L, 2L)).isFalse();
+        assertThat(snapshot.isAncestorOrSelf(1L, 4L)).isFalse();
+        assertThat(snapshot.isAncestorOrSelf(1L, 99L)).isFalse();
+    }
+
+    @Test
+    void listsChildrenAndBreadcrumbs() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, ROWS, PRODUCT_COUNTS);
+
+        assertThat(snapshot.getChildren(1L)).extracting(CategoryTreeSnapshot.Node::id).containsExactly(3L, 2L);
+        assertThat(snapshot.getChildren(5L)).isEmpty();
+        assertThat(snapshot.getBreadcrumbs(5L)).extracting(CategoryTreeSnapshot.Node::id).containsExactly(1L, 3L, 5L);
+        assertThat(snapshot.getBreadcrumbs(99L)).isEmpty();
+    }
+
+    @Test
+    void rollsProductCountsUpToEveryAncestor() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, ROWS, PRODUCT_COUNTS);
+
+        CategoryTreeSnapshot.Node electronics = snapshot.getNode(1L).orElseThrow();
+        assertThat(electronics.productCount()).isEqualTo(1);
+        assertThat(electronics.subtreeProductCount()).isEqualTo(10);
+        assertThat(electronics.descendantCount()).isEqualTo(3);
+        assertThat(electronics.depth()).isZero();
+        assertThat(snapshot.getSubtreeProductCount(3L)).isEqualTo(5);
+        assertThat(snapshot.getNode(5L).orElseThrow().depth()).isEqualTo(2);
+        assertThat(snapshot.getNode(5L).orElseThrow().parentId()).isEqualTo(3L);
+    }
+
+    @Test
+    void resolvesSlugs() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, ROWS, PRODUCT_COUNTS);
+
+        assertThat(snapshot.findBySlug("phones")).map(CategoryTreeSnapshot.Node::id).contains(3L);
+        assertThat(snapshot.findBySlug("missing")).isEmpty();
+    }
+
+    @Test
+    void treatsRowsWithAMissingParentAsRoots() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, List.of(row(7L, 42L, "Orphan", 0)), Map.of());
+
+        assertThat(snapshot.getRootIds()).containsExactly(7L);
+        assertThat(snapshot.getNode(7L).orElseThrow().parentId()).isNull();
+    }
+
+    @Test
+    void leavesOutRowsCaughtInAParentCycle() {
+        List<CategoryTreeSnapshot.Row> rows = List.of(
+                row(1L, null, "Root", 0),
+                row(2L, 1L, "Child", 0),
+                row(8L, 9L, "Loop A", 0),
+                row(9L, 8L, "Loop B", 0));
+
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1, rows, Map.of(2L, 3L));
+
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.contains(8L)).isFalse();
+        assertThat(snapshot.contains(9L)).isFalse();
+        assertThat(snapshot.getSubtreeIds(1L)).containsExactly(1L, 2L);
+        assertThat(snapshot.getSubtreeProductCount(1L)).isEqualTo(3);
+    }
+
+    @Test
+    void fingerprintFollowsContentNotRebuilds() {
+        CategoryTreeSnapshot first = CategoryTreeSnapshot.build(1, ROWS, PRODUCT_COUNTS);
+        CategoryTreeSnapshot rebuilt = CategoryTreeSnapshot.build(2, ROWS, PRODUCT_COUNTS);
+        CategoryTreeSnapshot recounted = CategoryTreeSnapshot.build(3, ROWS, Map.of(1L, 2L));
+
+        assertThat(rebuilt.getFingerprint()).isEqualTo(first.getFingerprint());
+        assertThat(rebuilt.getVersion()).isNotEqualTo(first.getVersion());
+        assertThat(recounted.getFingerprint()).isNotEqualTo(first.getFingerprint());
+    }
+
+    @Test
+    void emptySnapshotAnswersEveryQuery() {
+        CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.EMPTY;
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.getRootIds()).isEmpty();
+        assertThat(snapshot.getNode(1L)).isEmpty();
+        assertThat(snapshot.getChildren(1L)).isEmpty();
+    }
+
+    private static CategoryTreeSnapshot.Row row(Long id, Long parentId, String name, int sortOrder) {
+        return new CategoryTreeSnapshot.Row(id, parentId, name, name.toLowerCase(), true, sortOrder, 0L);
+    }
+}
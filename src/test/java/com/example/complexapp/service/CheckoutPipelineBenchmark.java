@@ -0,0 +1,175 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.Product;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.dto.CheckoutRequestDto;
+import com.example.complexapp.repository.ProductRepository;
+import com.example.complexapp.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares one transaction per order ({@code maxBatchSize = 1}) with group commit.
+ * Opt-in: run with {@code mvn test -Pbenchmarks -Dtest=CheckoutPipelineBenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class CheckoutPipelineBenchmark {
+
+    private static final int CLIENTS = 32;
+    private static final int ORDERS_PER_CLIENT = 100;
+    private static final int SKUS = 50;
+    private static final int WORKERS = 4;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private EmailService emailService;
+
+    private List<Long> userIds;
+    private List<String> skus;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        userIds = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            User user = new User();
+            user.setUsername("bench-" + run + "-" + i);
+            user.setEmail("bench-" + run + "-" + i + "@example.com");
+            user.setPassword("benchmark");
+            user.setFirstName("Bench");
+            user.setLastName("User");
+            userIds.add(userRepository.save(user).getId());
+        }
+        skus = new ArrayList<>();
+        for (int i = 0; i < SKUS; i++) {
+            Product product = new Product();
+            product.setName("Bench product " + i);
+            product.setSku("BENCH-" + run + "-" + i);
+            product.setPrice(new BigDecimal("9.99"));
+            product.setStockQuantity(CLIENTS * ORDERS_PER_CLIENT * 10);
+            skus.add(productRepository.save(product).getSku());
+        }
+    }
+
+    @Test
+    void groupCommitVersusTransactionPerOrder() throws Exception {
+        run("warm-up", 8);
+        // Same worker count for both, so batching is the only difference
+        Result single = run("transaction-per-order", 1);
+        Result batched = run("group-commit", 32);
+
+        writeReport(List.of(single, batched));
+        assertThat(single.failures()).as(single.toString()).isZero();
+        assertThat(batched.failures()).as(batched.toString()).isZero();
+    }
+
+    private Result run(String name, int maxBatchSize) throws Exception {
+        CheckoutPipeline pipeline = new CheckoutPipeline(checkoutService, emailService, maxBatchSize,
+                Duration.ofMillis(2), CLIENTS * ORDERS_PER_CLIENT, WORKERS);
+        pipeline.start();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long[] latencies = new long[CLIENTS * ORDERS_PER_CLIENT];
+        List<CompletableFuture<Integer>> done = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                done.add(CompletableFuture.supplyAsync(() -> {
+                    int failures = 0;
+                    for (int i = 0; i < ORDERS_PER_CLIENT; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            Order order = pipeline.submit(request(client, i)).get(30, TimeUnit.SECONDS);
+                            assertThat(order.getId()).isNotNull();
+                        } catch (Exception e) {
+                            failures++;
+                        }
+                        latencies[client * ORDERS_PER_CLIENT + i] = System.nanoTime() - begin;
+                    }
+                    return failures;
+                }, clients));
+            }
+            int failures = 0;
+            for (CompletableFuture<Integer> future : done) {
+                failures += future.get(5, TimeUnit.MINUTES);
+            }
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result(name, latencies.length * 1_000_000_000.0 / elapsed,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), failures);
+        } finally {
+            clients.shutdownNow();
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * Writes {@code CheckoutPipelineBenchmark.json} next to the JMH results when the
+     * {@code benchmarks} profile sets {@code jmh.result.dir}.
+     */
+    private static void writeReport(List<Result> results) throws IOException {
+        String resultDir = System.getProperty("jmh.result.dir");
+        if (resultDir == null || resultDir.isBlank()) {
+            return;
+        }
+        File dir = new File(resultDir);
+        dir.mkdirs();
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(new File(dir, CheckoutPipelineBenchmark.class.getSimpleName() + ".json"), results);
+    }
+
+    private CheckoutRequestDto request(int client, int i) {
+        return CheckoutRequestDto.builder()
+                .userId(userIds.get(client))
+                .lines(List.of(
+                        new CheckoutRequestDto.Line(skus.get((client + i) % SKUS), 1),
+                        new CheckoutRequestDto.Line(skus.get((client * 7 + i) % SKUS), 2)))
+                .shippingAddress("1 Bench Street")
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    private record Result(String name, double ordersPerSecond, double p50Millis, double p99Millis, int failures) {
+
+        @Override
+        public String toString() {
+            return String.format("%-22s %8.0f orders/s  p50 %6.2f ms  p99 %7.2f ms  failures %d",
+                    name, ordersPerSecond, p50Millis, p99Millis, failures);
+        }
+    }
+}
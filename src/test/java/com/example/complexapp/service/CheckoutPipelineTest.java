@@ -0,0 +1,174 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.dto.CheckoutRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class CheckoutPipelineTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    private final StubCheckoutService checkoutService = new StubCheckoutService();
+    private final EmailService emailService = mock(EmailService.class);
+    private CheckoutPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        checkoutService.release.countDown();
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void eachCallerGetsItsOwnOutcomeFromASharedBatch() {
+        pipeline = pipeline(8, Duration.ofMillis(200), 100);
+
+        CompletableFuture<Order> first = pipeline.submit(request("first"));
+        CompletableFuture<Order> rejected = pipeline.submit(request("out-of-stock"));
+        CompletableFuture<Order> third = pipeline.submit(request("third"));
+
+        assertThat(first).succeedsWithin(WAIT).extracting(Order::getOrderNumber).isEqualTo("first");
+        assertThat(third).succeedsWithin(WAIT).extracting(Order::getOrderNumber).isEqualTo("third");
+        assertThat(rejected).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(checkoutService.batches()).containsExactly(List.of("first", "out-of-stock", "third"));
+        verify(emailService, timeout(5000)).sendOrderConfirmation(any(), eq("first"));
+        verify(emailService, timeout(5000)).sendOrderConfirmation(any(), eq("third"));
+        verify(emailService, never()).sendOrderConfirmation(any(), eq("out-of-stock"));
+    }
+
+    @Test
+    void aFailedBatchIsRetriedOneRequestAtATime() {
+        pipeline = pipeline(8, Duration.ofMillis(200), 100);
+
+        CompletableFuture<Order> first = pipeline.submit(request("first"));
+        CompletableFuture<Order> poison = pipeline.submit(request("poison"));
+        CompletableFuture<Order> third = pipeline.submit(request("third"));
+
+        // Only the request that breaks the transaction fails; its batch mates are placed on their own
+        assertThat(first).succeedsWithin(WAIT);
+        assertThat(third).succeedsWithin(WAIT);
+        assertThat(poison).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(checkoutService.batches()).containsExactly(
+                List.of("first", "poison", "third"), List.of("first"), List.of("poison"), List.of("third"));
+    }
+
+    @Test
+    void aFullQueueRejectsInsteadOfWaiting() throws Exception {
+        pipeline = pipeline(1, Duration.ZERO, 1);
+        CompletableFuture<Order> placing = pipeline.submit(request("placing"));
+        assertThat(checkoutService.entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Order> queued = pipeline.submit(request("queued"));
+        CompletableFuture<Order> overflow = pipeline.submit(request("overflow"));
+
+        assertThat(overflow).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(pipeline.getQueueDepth()).isEqualTo(1);
+
+        checkoutService.release.countDown();
+        assertThat(placing).succeedsWithin(WAIT);
+        assertThat(queued).succeedsWithin(WAIT);
+    }
+
+    @Test
+    void stopFailsTheCheckoutsStillQueued() throws Exception {
+        pipeline = pipeline(1, Duration.ZERO, 10);
+        pipeline.submit(request("placing"));
+        assertThat(checkoutService.entered.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Order> queued = pipeline.submit(request("queued"));
+
+        pipeline.stop();
+
+        assertThat(queued).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(pipeline.submit(request("late"))).isCompletedExceptionally();
+        assertThat(pipeline.getQueueDepth()).isZero();
+    }
+
+    private CheckoutPipeline pipeline(int maxBatchSize, Duration maxWait, int queueCapacity) {
+        CheckoutPipeline pipeline = new CheckoutPipeline(checkoutService, emailService, maxBatchSize, maxWait,
+                queueCapacity, 1);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private static CheckoutRequestDto request(String shippingAddress) {
+        return CheckoutRequestDto.builder()
+                .userId(1L)
+                .shippingAddress(shippingAddress)
+                .build();
+    }
+
+    /**
+     * Places each request as an order numbered after its shipping address. "out-of-stock"
+     * gets an error outcome, "poison" fails the whole batch, and "placing" holds its
+     * batch until {@link #release} opens.
+     */
+    private static final class StubCheckoutService extends CheckoutService {
+
+        private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private StubCheckoutService() {
+            super(null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public List<CheckoutOutcome> placeBatch(List<CheckoutRequestDto> requests) {
+            List<String> addresses = requests.stream().map(CheckoutRequestDto::getShippingAddress).toList();
+            batches.add(addresses);
+            if (addresses.contains("poison")) {
+                throw new IllegalArgumentException("poison request rolled back the batch");
+            }
+            if (addresses.contains("placing")) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<CheckoutOutcome> outcomes = new ArrayList<>();
+            for (String address : addresses) {
+                outcomes.add(address.equals("out-of-stock")
+                        ? new CheckoutOutcome(null, null, new IllegalStateException("Not enough stock"))
+                        : new CheckoutOutcome(Order.builder().orderNumber(address).build(), new User(), null));
+            }
+            return outcomes;
+        }
+
+        private List<List<String>> batches() {
+            synchronized (batches) {
+                return List.copyOf(batches);
+            }
+        }
+    }
+}
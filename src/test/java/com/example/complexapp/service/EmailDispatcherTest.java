@@ -0,0 +1,154 @@
+package com.example.complexapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailDispatcherTest {
+
+    private SmtpStandIn smtp;
+    private SimpleMeterRegistry meterRegistry;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new SmtpStandIn();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        smtp.close();
+    }
+
+    @Test
+    void sendsBurstOverOneConnectionPerWorker() throws Exception {
+        dispatcher = dispatcher(2, 1000);
+
+        for (int i = 0; i < 300; i++) {
+            assertThat(dispatcher.dispatch("welcome", message("user" + i + "@example.com"))).isTrue();
+        }
+
+        // The server sees a message before the worker counts it
+        await(() -> smtp.messages().size() == 300 && counter("sent") == 300);
+        assertThat(smtp.connections()).isLessThanOrEqualTo(2);
+        assertThat(meterRegistry.get("email.batch.size").summary().max()).isGreaterThan(1);
+    }
+
+    @Test
+    void retriesOverNewConnectionWhenServerDropsIt() throws Exception {
+        smtp.dropConnections(2, 3);
+        dispatcher = dispatcher(1, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            dispatcher.dispatch("password-reset", message("user" + i + "@example.com"));
+        }
+
+        await(() -> smtp.messages().size() == 20);
+        assertThat(smtp.connections()).isEqualTo(3);
+        assertThat(meterRegistry.get("email.retries").counter().count()).isGreaterThan(0);
+        assertThat(counter("failed")).isZero();
+    }
+
+    @Test
+    void keepsSendingNewMailWhileAFailedMessageBacksOff() throws Exception {
+        // The first session delivers two messages and drops; the slow server lets the next two queue up as one batch
+        smtp.dropConnections(1, 2);
+        smtp.delayEachMessage(200);
+        dispatcher = dispatcher(1, 1000, Duration.ofSeconds(3));
+
+        dispatcher.dispatch("welcome", message("user0@example.com"));
+        Thread.sleep(50);
+        dispatcher.dispatch("welcome", message("user1@example.com"));
+        dispatcher.dispatch("welcome", message("user2@example.com"));
+        await(() -> meterRegistry.get("email.retries").counter().count() == 1);
+        smtp.delayEachMessage(0);
+
+        long start = System.nanoTime();
+        dispatcher.dispatch("welcome", message("user3@example.com"));
+        await(() -> delivered("user3@example.com"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(delivered("user2@example.com")).isFalse();
+        await(() -> delivered("user2@example.com") && counter("sent") == 4);
+    }
+
+    @Test
+    void doesNotRetryRejectedRecipients() throws Exception {
+        dispatcher = dispatcher(1, 1000);
+
+        dispatcher.dispatch("welcome", message("bounce@example.com"));
+        dispatcher.dispatch("welcome", message("ok@example.com"));
+
+        await(() -> counter("failed") == 1 && counter("sent") == 1);
+        assertThat(smtp.messages()).hasSize(1);
+        assertThat(meterRegistry.get("email.retries").counter().count()).isZero();
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullInsteadOfGrowing() throws Exception {
+        smtp.delayEachMessage(200);
+        dispatcher = dispatcher(1, 5);
+
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (dispatcher.dispatch("order-confirmation", message("user" + i + "@example.com"))) {
+                accepted++;
+            }
+        }
+
+        assertThat(accepted).isLessThan(20);
+        assertThat(counter("rejected")).isEqualTo(20 - accepted);
+        assertThat(dispatcher.isSaturated()).isTrue();
+    }
+
+    private EmailDispatcher dispatcher(int workers, int queueCapacity) {
+        return dispatcher(workers, queueCapacity, Duration.ofMillis(10));
+    }
+
+    private EmailDispatcher dispatcher(int workers, int queueCapacity, Duration retryBackoff) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        EmailDispatcher dispatcher = new EmailDispatcher(mailSender, meterRegistry, workers, queueCapacity, 50, 4,
+                retryBackoff, Duration.ofMillis(1), Duration.ofSeconds(30), Duration.ofSeconds(5));
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@example.com");
+        message.setTo(to);
+        message.setSubject("Hello");
+        message.setText("Hello " + to);
+        return message;
+    }
+
+    private boolean delivered(String to) {
+        return smtp.messages().stream().anyMatch(message -> message.contains(to));
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("email.messages").tag("outcome", outcome).counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).as("condition within 20s").isTrue();
+    }
+}
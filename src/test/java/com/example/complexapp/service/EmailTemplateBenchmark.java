@@ -0,0 +1,84 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.BenchmarkRunner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order confirmation mails rendered per second: the {@code String.format} bodies
+ * {@link EmailService} used to build, against the precompiled templates, one by one and
+ * in campaign-sized bulk. Opt-in: run with
+ * {@code mvn test -Dexcluded.test.groups= -Dtest=EmailTemplateBenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private static final int CAMPAIGN_SIZE = 1000;
+
+    private EmailTemplateRenderer renderer;
+    private Map<String, Object> model;
+    private List<Map<String, Object>> campaign;
+
+    @Setup
+    public void setUp() {
+        renderer = new EmailTemplateRenderer("classpath*:templates/email/");
+        model = Map.of("firstName", "Jane", "orderNumber", "ORD-20240301-ABCDEF");
+        campaign = new ArrayList<>(CAMPAIGN_SIZE);
+        for (int i = 0; i < CAMPAIGN_SIZE; i++) {
+            campaign.add(Map.of("firstName", "User " + i, "orderNumber", "ORD-" + i));
+        }
+    }
+
+    @Benchmark
+    public String[] stringFormat() {
+        return new String[]{
+                "Order Confirmation - " + model.get("orderNumber"),
+                String.format(
+                        "Hello %s,\n\nThank you for your order! Your order has been confirmed.\n\n" +
+                        "Order Number: %s\n\n" +
+                        "We will send you updates on your order status.\n\n" +
+                        "Best regards,\nThe Team",
+                        model.get("firstName"),
+                        model.get("orderNumber"))
+        };
+    }
+
+    @Benchmark
+    public EmailTemplateRenderer.RenderedEmail precompiled() {
+        return renderer.render(EmailService.ORDER_CONFIRMATION, Locale.ENGLISH, model);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAMPAIGN_SIZE)
+    public List<EmailTemplateRenderer.RenderedEmail> precompiledBulk() {
+        return renderer.renderAll(EmailService.ORDER_CONFIRMATION, Locale.ENGLISH, campaign);
+    }
+
+    @Test
+    void messagesRenderedPerSecond() throws Exception {
+        BenchmarkRunner.run(getClass());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.complexapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateRendererTest {
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer("classpath*:templates/email/");
+
+    @Test
+    void everyNotificationTypeHasATemplate() {
+        for (String name : List.of(EmailService.WELCOME, EmailService.PASSWORD_RESET, EmailService.EMAIL_VERIFICATION,
+                EmailService.ACCOUNT_LOCKED, EmailService.ORDER_CONFIRMATION)) {
+            assertThat(renderer.hasTemplate(name)).as(name).isTrue();
+            assertThat(renderer.hasTemplate(name + "_de")).as(name + "_de").isTrue();
+        }
+    }
+
+    @Test
+    void rendersSubjectAndBody() {
+        EmailTemplateRenderer.RenderedEmail email = renderer.render(EmailService.ORDER_CONFIRMATION, Locale.ENGLISH,
+                Map.of("firstName", "Jane", "orderNumber", "ORD-42"));
+
+        assertThat(email.subject()).isEqualTo("Order Confirmation - ORD-42");
+        assertThat(email.body())
+                .startsWith("Hello Jane,\n\nThank you for your order!")
+                .contains("Order Number: ORD-42")
+                .endsWith("The Team");
+    }
+
+    @Test
+    void fallsBackFromCountryToLanguageToDefault() {
+        Map<String, String> model = Map.of("firstName", "Jane");
+
+        assertThat(renderer.render(EmailService.ACCOUNT_LOCKED, Locale.GERMANY, model).subject()).isEqualTo("Konto gesperrt");
+        assertThat(renderer.render(EmailService.ACCOUNT_LOCKED, new Locale("de", "AT"), model).subject()).isEqualTo("Konto gesperrt");
+        assertThat(renderer.render(EmailService.ACCOUNT_LOCKED, Locale.FRENCH, model).subject()).isEqualTo("Account Locked");
+        assertThat(renderer.render(EmailService.ACCOUNT_LOCKED, null, model).subject()).isEqualTo("Account Locked");
+    }
+
+    @Test
+    void rendersNullValuesAsEmptyButRejectsMissingOnes() {
+        Map<String, Object> model = new HashMap<>();
+        model.put("firstName", null);
+
+        assertThat(renderer.render(EmailService.ACCOUNT_LOCKED, Locale.ENGLISH, model).body()).startsWith("Hello ,");
+        assertThatThrownBy(() -> renderer.render(EmailService.ORDER_CONFIRMATION, Locale.ENGLISH, model))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("orderNumber");
+        assertThatThrownBy(() -> renderer.render("no-such-template", Locale.ENGLISH, model))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void bulkRenderingProducesOneMailPerModel() {
+        List<EmailTemplateRenderer.RenderedEmail> emails = renderer.renderAll(EmailService.WELCOME, Locale.ENGLISH,
+                List.of(Map.of("firstName", "Ann", "username", "ann", "email", "ann@example.com"),
+                        Map.of("firstName", "Bob", "username", "bob", "email", "bob@example.com")));
+
+        assertThat(emails).hasSize(2);
+        assertThat(emails.get(0).body()).contains("Hello Ann,").contains("Username: ann");
+        assertThat(emails.get(1).body()).contains("Hello Bob,").contains("Email: bob@example.com");
+    }
+
+    @Test
+    void rejectsMalformedTemplates() {
+        assertThatThrownBy(() -> EmailTemplateRenderer.compile("broken", "Hello ${name"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> EmailTemplateRenderer.compile("broken", "Subject: ${open\n\nbody"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
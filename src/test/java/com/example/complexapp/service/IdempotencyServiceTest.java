@@ -0,0 +1,189 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.exception.IdempotencyConflictException;
+import com.example.complexapp.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Claims commit on their own, so the test can't wrap them in one transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    private static final Duration TTL = Duration.ofHours(24);
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        recordRepository.deleteAll();
+    }
+
+    @Test
+    void replaysTheStoredResponseWithoutRunningTheActionAgain() {
+        IdempotencyService service = newService();
+        ResponseEntity<Receipt> first = service.execute("test", "key", new Cart("SKU-1", 2), Receipt.class, this::created);
+        ResponseEntity<Receipt> replay = service.execute("test", "key", new Cart("SKU-1", 2), Receipt.class, this::created);
+        // A fresh instance has nothing cached and has to find the response in the table
+        ResponseEntity<Receipt> stored = newService().execute("test", "key", new Cart("SKU-1", 2), Receipt.class,
+                this::created);
+
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        for (ResponseEntity<Receipt> response : List.of(replay, stored)) {
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(response.getBody()).isEqualTo(first.getBody());
+            assertThat(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        }
+    }
+
+    @Test
+    void rejectsADuplicateWhileTheFirstRequestIsStillRunning() throws Exception {
+        IdempotencyService service = newService();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<Receipt>> first = CompletableFuture.supplyAsync(() ->
+                service.execute("test", "key", new Cart("SKU-1", 2), Receipt.class, () -> {
+                    running.countDown();
+                    await(release);
+                    return created();
+                }));
+        assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> service.execute("test", "key", new Cart("SKU-1", 2), Receipt.class, this::created))
+                    .isInstanceOf(IdempotencyConflictException.class);
+            assertThat(service.executeAsync("test", "key", new Cart("SKU-1", 2), Receipt.class,
+                    () -> CompletableFuture.completedFuture(created())))
+                    .failsWithin(Duration.ofSeconds(1))
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(IdempotencyConflictException.class);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(first.get(10, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentRequest() {
+        newService().execute("test", "key", new Cart("SKU-1", 2), Receipt.class, this::created);
+
+        assertThatThrownBy(() -> newService().execute("test", "key", new Cart("SKU-1", 3), Receipt.class, this::created))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining("different request");
+        // The same key in another scope is a different request altogether
+        newService().execute("other", "key", new Cart("SKU-1", 3), Receipt.class, this::created);
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredResponsesNoLongerGuardTheirKey() {
+        IdempotencyService service = newService();
+        service.execute("test", "key", new Cart("SKU-1", 2), Receipt.class, this::created);
+
+        clock.advance(TTL.plusMinutes(1));
+        // Not purged yet, but past its TTL, so the key is free even for a different payload
+        ResponseEntity<Receipt> response = service.execute("test", "key", new Cart("SKU-1", 3), Receipt.class,
+                this::created);
+
+        assertThat(runs.get()).isEqualTo(2);
+        assertThat(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(recordRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void aFailedAsyncActionReleasesTheClaim() {
+        IdempotencyService service = newService();
+
+        assertThat(service.executeAsync("test", "key", new Cart("SKU-1", 2), Receipt.class,
+                () -> CompletableFuture.<ResponseEntity<Receipt>>failedFuture(new IllegalStateException("down"))))
+                .failsWithin(Duration.ofSeconds(1))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(service.executeAsync("test", "key", new Cart("SKU-1", 2), Receipt.class,
+                () -> CompletableFuture.completedFuture(created())))
+                .succeedsWithin(Duration.ofSeconds(1))
+                .satisfies(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED));
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(recordRepository, null, clock, TTL, Duration.ofSeconds(60), 100);
+    }
+
+    private ResponseEntity<Receipt> created() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(new Receipt(runs.incrementAndGet()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record Cart(String sku, int quantity) {
+    }
+
+    record Receipt(long orderId) {
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.InventoryLease;
+import com.example.complexapp.dto.InventoryReservation;
+import com.example.complexapp.exception.InsufficientStockException;
+import com.example.complexapp.repository.InventoryLeaseRepository;
+import com.example.complexapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryReservationServiceStressTest {
+
+    private static final String HOT_SKU = "SKU-HOT";
+
+    private final Map<String, AtomicInteger> stock = new ConcurrentHashMap<>();
+    private final AtomicInteger databaseRoundTrips = new AtomicInteger();
+    private ProductRepository productRepository;
+    private InventoryLeaseRepository leaseRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        leaseRepository = mock(InventoryLeaseRepository.class);
+        when(productRepository.reserveStock(anyString(), anyInt())).thenAnswer(invocation -> {
+            databaseRoundTrips.incrementAndGet();
+            AtomicInteger available = stock.get(invocation.<String>getArgument(0));
+            int quantity = invocation.getArgument(1);
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return 0;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return 1;
+                }
+            }
+        });
+        when(productRepository.releaseStock(anyString(), anyInt())).thenAnswer(invocation -> {
+            stock.get(invocation.<String>getArgument(0)).addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+        when(productRepository.incrementSoldCount(anyString(), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    void hotSkuNeverOversellsUnderContention() throws Exception {
+        int initialStock = 50_000;
+        int threads = 16;
+        int attemptsPerThread = 5_000;
+        stock.put(HOT_SKU, new AtomicInteger(initialStock));
+        InventoryReservationService service = newService(Clock.systemUTC(), Duration.ofMinutes(15));
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        InventoryReservation reservation = service.reserve(HOT_SKU, 1);
+                        succeeded.incrementAndGet();
+                        if (i % 10 == 0) {
+                            service.release(reservation.getReservationId());
+                            succeeded.decrementAndGet();
+                        }
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int attempts = threads * attemptsPerThread;
+        service.returnAllLeases();
+        assertThat(succeeded.get()).isEqualTo(service.getActiveReservationCount());
+        assertThat(stock.get(HOT_SKU).get() + succeeded.get()).isEqualTo(initialStock);
+        assertThat(databaseRoundTrips.get()).isLessThan(attempts / 10);
+    }
+
+    @Test
+    void orderReservationIsAllOrNothing() {
+        stock.put("SKU-A", new AtomicInteger(10));
+        stock.put("SKU-B", new AtomicInteger(1));
+        InventoryReservationService service = newService(Clock.systemUTC(), Duration.ofMinutes(15));
+
+        assertThatThrownBy(() -> service.reserveAll(Map.of("SKU-B", 2, "SKU-A", 3)))
+                .isInstanceOf(InsufficientStockException.class);
+
+        service.returnAllLeases();
+        assertThat(stock.get("SKU-A").get()).isEqualTo(10);
+        assertThat(stock.get("SKU-B").get()).isEqualTo(1);
+        assertThat(service.getActiveReservationCount()).isZero();
+    }
+
+    @Test
+    void expiredReservationsAreReleased() {
+        stock.put(HOT_SKU, new AtomicInteger(5));
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        InventoryReservationService service = newService(clock, Duration.ofMinutes(15));
+
+        service.reserve(HOT_SKU, 5);
+        assertThatThrownBy(() -> service.reserve(HOT_SKU, 1)).isInstanceOf(InsufficientStockException.class);
+
+        clock.advance(Duration.ofMinutes(16));
+        assertThat(service.releaseExpired()).isEqualTo(1);
+        assertThat(service.reserve(HOT_SKU, 5)).isNotNull();
+    }
+
+    @Test
+    void idleLedgersReturnTheirStockAndAreDropped() {
+        stock.put(HOT_SKU, new AtomicInteger(500));
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        InventoryReservationService service = newService(clock, Duration.ofMinutes(15));
+
+        InventoryReservation reservation = service.reserve(HOT_SKU, 5);
+        service.confirm(reservation.getReservationId());
+        assertThat(service.getLedgerCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(31));
+        service.releaseExpired();
+
+        assertThat(service.getLedgerCount()).isZero();
+        assertThat(stock.get(HOT_SKU).get()).isEqualTo(495);
+        verify(leaseRepository).subtractFromLease(anyString(), eq(HOT_SKU), eq(5L));
+        verify(leaseRepository).subtractFromLease(anyString(), eq(HOT_SKU), eq(95L));
+        verify(leaseRepository).deleteEmptyLease(anyString(), eq(HOT_SKU));
+    }
+
+    @Test
+    void expiredLeasesOfOtherInstancesAreReturnedToStock() {
+        stock.put(HOT_SKU, new AtomicInteger(400));
+        InventoryLease orphaned = InventoryLease.builder()
+                .id(7L).ownerId("crashed-instance").sku(HOT_SKU).quantity(100L)
+                .expiresAt(LocalDateTime.of(2023, 12, 31, 23, 59))
+                .build();
+        when(leaseRepository.findByExpiresAtBefore(any())).thenReturn(List.of(orphaned));
+        when(leaseRepository.deleteExpiredLease(eq(7L), eq(100L), any())).thenReturn(1).thenReturn(0);
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        InventoryReservationService service = newService(clock, Duration.ofMinutes(15));
+
+        service.releaseExpired();
+        clock.advance(Duration.ofMinutes(1));
+        service.releaseExpired();
+
+        // Only the sweep that won the conditional delete puts the stock back
+        assertThat(stock.get(HOT_SKU).get()).isEqualTo(500);
+        verify(leaseRepository, times(2)).renewLeases(anyString(), any());
+    }
+
+    private InventoryReservationService newService(Clock clock, Duration ttl) {
+        return new InventoryReservationService(productRepository, leaseRepository,
+                TransactionOperations.withoutTransaction(), clock, ttl, 100,
+                Duration.ofSeconds(30), Duration.ofMinutes(1));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
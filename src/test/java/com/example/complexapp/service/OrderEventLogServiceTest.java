@@ -0,0 +1,155 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderHistory;
+import com.example.complexapp.domain.OrderHistoryArchive;
+import com.example.complexapp.domain.OrderStatus;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.dto.OrderEventDto;
+import com.example.complexapp.repository.OrderHistoryRepository;
+import com.example.complexapp.repository.OrderRepository;
+import com.example.complexapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderEventLogService.class)
+@TestPropertySource(properties = {
+        "app.order-history.archive-after-days=90",
+        "app.order-history.keep-latest=2",
+        "app.order-history.archive-batch-size=3"
+})
+class OrderEventLogServiceTest {
+
+    private static final List<OrderStatus> STEPS = List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED,
+            OrderStatus.PROCESSING, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    @Autowired
+    private OrderEventLogService orderEventLogService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderHistoryRepository orderHistoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void archivesOnlyOldEventsBehindTheLatestOfEachOrder() {
+        Long busy = createOrderWithEvents(5);
+        Long quiet = createOrderWithEvents(3);
+        Long recent = createOrderWithEvents(4);
+        ageEvents(busy, 4);
+        ageEvents(quiet, 3);
+
+        // Batches of three, in id order: busy's first three, then quiet's first
+        assertThat(orderEventLogService.archiveBatch()).isEqualTo(3);
+        assertThat(orderEventLogService.archiveBatch()).isEqualTo(1);
+        assertThat(orderEventLogService.archiveBatch()).isZero();
+        entityManager.clear();
+
+        // busy's fourth event is old but one of its latest two; recent's events are all too young
+        assertThat(sequenceNumbers(busy)).containsExactly(4L, 5L);
+        assertThat(sequenceNumbers(quiet)).containsExactly(2L, 3L);
+        assertThat(sequenceNumbers(recent)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(entityManager.createQuery("SELECT a FROM OrderHistoryArchive a " +
+                        "ORDER BY a.orderId, a.sequenceNumber", OrderHistoryArchive.class).getResultList())
+                .extracting(OrderHistoryArchive::getOrderId, OrderHistoryArchive::getSequenceNumber,
+                        OrderHistoryArchive::getStatus, OrderHistoryArchive::getDescription)
+                .containsExactly(
+                        tuple(busy, 1L, OrderStatus.PENDING, "step 1"),
+                        tuple(busy, 2L, OrderStatus.CONFIRMED, "step 2"),
+                        tuple(busy, 3L, OrderStatus.PROCESSING, "step 3"),
+                        tuple(quiet, 1L, OrderStatus.PENDING, "step 1"));
+    }
+
+    @Test
+    void latestEventsOfSeveralOrdersMapBackToTheirOrders() {
+        Long busy = createOrderWithEvents(5);
+        Long single = createOrderWithEvents(1);
+        Long empty = createOrderWithEvents(0);
+        entityManager.clear();
+
+        Map<Long, List<OrderHistory>> latest = orderEventLogService.getLatestEvents(List.of(empty, busy, single), 3);
+
+        assertThat(latest.keySet()).containsExactly(empty, busy, single);
+        assertThat(latest.get(empty)).isEmpty();
+        assertThat(latest.get(busy))
+                .extracting(entry -> entry.getOrder().getId(), OrderHistory::getSequenceNumber,
+                        OrderHistory::getStatus, OrderHistory::getDescription)
+                .containsExactly(
+                        tuple(busy, 5L, OrderStatus.DELIVERED, "step 5"),
+                        tuple(busy, 4L, OrderStatus.SHIPPED, "step 4"),
+                        tuple(busy, 3L, OrderStatus.PROCESSING, "step 3"));
+        assertThat(latest.get(single))
+                .extracting(entry -> entry.getOrder().getId(), OrderHistory::getSequenceNumber, OrderHistory::getStatus)
+                .containsExactly(tuple(single, 1L, OrderStatus.PENDING));
+        assertThat(latest.values().stream().flatMap(List::stream))
+                .allSatisfy(entry -> {
+                    assertThat(entry.getId()).isNotNull();
+                    assertThat(entry.getCreatedAt()).isNotNull();
+                    assertThat(entry.getUpdatedAt()).isNotNull();
+                });
+    }
+
+    private Long createOrderWithEvents(int count) {
+        User buyer = new User();
+        buyer.setUsername("buyer-" + System.nanoTime());
+        buyer.setEmail(buyer.getUsername() + "@example.com");
+        buyer.setPassword("secret-password");
+        buyer.setFirstName("Order");
+        buyer.setLastName("Buyer");
+        Order order = new Order();
+        order.setUser(userRepository.save(buyer));
+        order.setSubtotal(BigDecimal.TEN);
+        order.setTotalAmount(BigDecimal.TEN);
+        Long orderId = orderRepository.saveAndFlush(order).getId();
+
+        List<OrderEventDto> events = new ArrayList<>();
+        for (int step = 0; step < count; step++) {
+            events.add(new OrderEventDto(orderId, STEPS.get(step), "step " + (step + 1)));
+        }
+        if (!events.isEmpty()) {
+            orderEventLogService.appendAll(events);
+        }
+        entityManager.flush();
+        return orderId;
+    }
+
+    private void ageEvents(Long orderId, long throughSequence) {
+        entityManager.createQuery("UPDATE OrderHistory h SET h.createdAt = :createdAt " +
+                        "WHERE h.order.id = :orderId AND h.sequenceNumber <= :sequence")
+                .setParameter("createdAt", LocalDateTime.now().minusDays(100))
+                .setParameter("orderId", orderId)
+                .setParameter("sequence", throughSequence)
+                .executeUpdate();
+    }
+
+    private List<Long> sequenceNumbers(Long orderId) {
+        return orderHistoryRepository.findAll().stream()
+                .filter(entry -> entry.getOrder().getId().equals(orderId))
+                .map(OrderHistory::getSequenceNumber)
+                .sorted()
+                .toList();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderHistory;
+import com.example.complexapp.domain.OrderStatus;
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.domain.User;
+import com.example.complexapp.dto.OrderTransitionRequestDto;
+import com.example.complexapp.dto.OrderTransitionResultDto;
+import com.example.complexapp.dto.OrderTransitionResultDto.Outcome;
+import com.example.complexapp.monitoring.StatementBudget;
+import com.example.complexapp.monitoring.StatementTally;
+import com.example.complexapp.repository.OrderHistoryRepository;
+import com.example.complexapp.repository.OrderRepository;
+import com.example.complexapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderLifecycleService.class, OrderEventLogService.class})
+class OrderLifecycleServiceTest {
+
+    private static final OrderTransitionRequestDto REQUEST = OrderTransitionRequestDto.builder()
+            .refundAmount(BigDecimal.ONE)
+            .build();
+
+    @Autowired
+    private OrderLifecycleService orderLifecycleService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderHistoryRepository orderHistoryRepository;
+
+    @Autowired
+    private OrderEventLogService orderEventLogService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private OutboxService outboxService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        User buyer = new User();
+        buyer.setUsername("buyer-" + System.nanoTime());
+        buyer.setEmail(buyer.getUsername() + "@example.com");
+        buyer.setPassword("secret-password");
+        buyer.setFirstName("Order");
+        buyer.setLastName("Buyer");
+        user = buyer;
+    }
+
+    @Test
+    void appliesExactlyTheTransitionsTheTableAllows() {
+        Long orderId = createOrder();
+
+        for (OrderTransition transition : OrderTransition.values()) {
+            for (Order.OrderStatus status : Order.OrderStatus.values()) {
+                for (Order.PaymentStatus payment : Order.PaymentStatus.values()) {
+                    for (Order.ShippingStatus shipping : Order.ShippingStatus.values()) {
+                        setState(orderId, status, payment, shipping);
+                        long version = orderRepository.findStateById(orderId).orElseThrow().getVersion();
+
+                        OrderTransitionResultDto result = orderLifecycleService.transition(orderId, transition, REQUEST);
+
+                        String state = transition + " from " + status + "/" + payment + "/" + shipping;
+                        if (transition.isAllowedFrom(status, payment, shipping)) {
+                            assertThat(result.getOutcome()).as(state).isEqualTo(Outcome.APPLIED);
+                            assertThat(result.getStatus()).as(state)
+                                    .isEqualTo(transition.getTargetStatus() != null ? transition.getTargetStatus() : status);
+                            assertThat(result.getPaymentStatus()).as(state).isEqualTo(
+                                    transition.getTargetPaymentStatus() != null ? transition.getTargetPaymentStatus() : payment);
+                            assertThat(result.getShippingStatus()).as(state).isEqualTo(
+                                    transition.getTargetShippingStatus() != null ? transition.getTargetShippingStatus() : shipping);
+                            assertThat(result.getVersion()).as(state).isEqualTo(version + 1);
+                        } else {
+                            assertThat(result.getOutcome()).as(state).isEqualTo(Outcome.CONFLICT);
+                            assertThat(result.getStatus()).as(state).isEqualTo(status);
+                            assertThat(result.getVersion()).as(state).isEqualTo(version);
+                        }
+                    }
+                    // Keeps the appended history entries from piling up in the persistence context
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Test
+    void reportsMissingOrders() {
+        assertThat(orderLifecycleService.transition(-1L, OrderTransition.CONFIRM).getOutcome()).isEqualTo(Outcome.NOT_FOUND);
+    }
+
+    @Test
+    void logsEachAppliedTransitionUnderTheSequenceItClaimed() {
+        Long orderId = createOrder();
+
+        orderLifecycleService.transition(orderId, OrderTransition.CONFIRM);
+        orderLifecycleService.transition(orderId, OrderTransition.CANCEL);
+        orderLifecycleService.transition(orderId, OrderTransition.CONFIRM);
+        entityManager.flush();
+
+        assertThat(orderHistoryRepository.findLatestByOrderId(orderId, PageRequest.of(0, 10)))
+                .extracting(OrderHistory::getSequenceNumber)
+                .containsExactly(2L, 1L);
+        assertThat(orderRepository.findStateById(orderId).orElseThrow().getHistorySequence()).isEqualTo(2L);
+    }
+
+    @Test
+    void entitySavesNeverRewindTheHistorySequence() {
+        Long orderId = createOrder();
+        entityManager.clear();
+        Order order = orderRepository.findById(orderId).orElseThrow();
+
+        // Claims a sequence number behind the loaded entity's back, without touching its version
+        orderEventLogService.append(orderId, OrderStatus.PENDING, "Customer note added");
+        order.setNotes("Leave at the door");
+        entityManager.flush();
+        orderLifecycleService.transition(orderId, OrderTransition.CONFIRM);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(orderHistoryRepository.findLatestByOrderId(orderId, PageRequest.of(0, 10)))
+                .extracting(OrderHistory::getSequenceNumber)
+                .containsExactly(2L, 1L);
+        assertThat(orderRepository.findById(orderId).orElseThrow().getNotes()).isEqualTo("Leave at the door");
+    }
+
+    @Test
+    @StatementBudget
+    void appliedTransitionIsOneUpdateAndOneInsert(StatementTally tally) {
+        Long orderId = createOrder();
+        // Takes the history id block from the sequence
+        orderLifecycleService.transition(orderId, OrderTransition.CONFIRM);
+        entityManager.flush();
+        tally.reset();
+
+        OrderTransitionResultDto result = orderLifecycleService.transition(orderId, OrderTransition.MARK_PAID);
+        entityManager.flush();
+
+        assertThat(result.getOutcome()).isEqualTo(Outcome.APPLIED);
+        assertThat(result.getPaymentStatus()).isEqualTo(Order.PaymentStatus.PAID);
+        assertThat(tally.statements()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentTransitionsApplyOnce() throws Exception {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        Long orderId = transactions.execute(status -> createOrder());
+        int contenders = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(contenders);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<OrderTransitionResultDto>> results = new ArrayList<>();
+            for (int i = 0; i < contenders; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return orderLifecycleService.transition(orderId, OrderTransition.CONFIRM);
+                }));
+            }
+            start.countDown();
+
+            List<Outcome> outcomes = new ArrayList<>();
+            for (Future<OrderTransitionResultDto> result : results) {
+                outcomes.add(result.get(30, TimeUnit.SECONDS).getOutcome());
+            }
+
+            assertThat(outcomes).containsOnlyOnce(Outcome.APPLIED)
+                    .filteredOn(outcome -> outcome != Outcome.APPLIED).containsOnly(Outcome.CONFLICT);
+            assertThat(orderRepository.findStateById(orderId).orElseThrow().getHistorySequence()).isEqualTo(1L);
+            List<OrderHistory> history = transactions.execute(
+                    status -> orderHistoryRepository.findLatestByOrderId(orderId, PageRequest.of(0, 10)));
+            assertThat(history).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+            transactions.executeWithoutResult(status -> {
+                orderHistoryRepository.deleteAll();
+                orderRepository.deleteAll();
+                userRepository.deleteAll();
+            });
+        }
+    }
+
+    private Long createOrder() {
+        User buyer = userRepository.save(user);
+        Order order = new Order();
+        order.setUser(buyer);
+        order.setSubtotal(BigDecimal.TEN);
+        order.setTotalAmount(BigDecimal.TEN);
+        return orderRepository.saveAndFlush(order).getId();
+    }
+
+    private void setState(Long orderId, Order.OrderStatus status, Order.PaymentStatus payment, Order.ShippingStatus shipping) {
+        entityManager.createQuery("UPDATE Order o SET o.status = :status, o.paymentStatus = :payment, " +
+                        "o.shippingStatus = :shipping WHERE o.id = :id")
+                .setParameter("status", status)
+                .setParameter("payment", payment)
+                .setParameter("shipping", shipping)
+                .setParameter("id", orderId)
+                .executeUpdate();
+    }
+}
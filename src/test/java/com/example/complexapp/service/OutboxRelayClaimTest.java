@@ -0,0 +1,168 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.OutboxEvent;
+import com.example.complexapp.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+// Each relay claims in its own transaction, so the test can't wrap them in one
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayClaimTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+    private final Map<String, List<Long>> sentByKey = new LinkedHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void aSecondRelayNeverClaimsBehindAnAggregateBeingClaimed() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (String aggregateId : List.of("A", "A", "A", "B", "B", "C")) {
+            ids.add(outboxEventRepository.save(event(aggregateId)).getId());
+        }
+        recordSends();
+
+        // The first relay stops after its claim statements, before they commit
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        OutboxRelay first = relay(pausingFirstTransaction(claimed, commit), 2);
+        OutboxRelay second = relay(new TransactionTemplate(transactionManager), 10);
+        CompletableFuture<Integer> firstBatch = CompletableFuture.supplyAsync(first::relayBatch);
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // A's head is locked and B's head too, even though only A's first two events fit the batch
+            assertThat(second.relayBatch()).isEqualTo(1);
+            assertThat(sentKeys()).containsOnlyKeys("C");
+        } finally {
+            commit.countDown();
+        }
+        assertThat(firstBatch.get(10, TimeUnit.SECONDS)).isEqualTo(2);
+
+        // A's third event waited for the first relay to finish, then goes out with all of B
+        assertThat(second.relayBatch()).isEqualTo(3);
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(sentKeys())
+                .containsEntry("A", ids.subList(0, 3))
+                .containsEntry("B", ids.subList(3, 5))
+                .containsEntry("C", ids.subList(5, 6));
+    }
+
+    @Test
+    void aClaimedAggregateIsSkippedUntilItsClaimIsReleased() {
+        outboxEventRepository.save(event("A"));
+        outboxEventRepository.save(event("A"));
+        OutboxEvent other = outboxEventRepository.save(event("B"));
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+
+        // A's head is claimed and committed by a relay that is still sending
+        transactions.executeWithoutResult(status -> {
+            OutboxEvent head = outboxEventRepository.findRelayHeads(now, 1).get(0);
+            outboxEventRepository.claim(List.of(head.getId()), now.plusMinutes(1));
+        });
+
+        List<OutboxEvent> heads = transactions.execute(status ->
+                outboxEventRepository.findRelayHeads(now, 10));
+        assertThat(heads).extracting(OutboxEvent::getId).containsExactly(other.getId());
+    }
+
+    private OutboxRelay relay(TransactionOperations transactions, int batchSize) {
+        return new OutboxRelay(outboxEventRepository, kafkaTemplate, transactions, new SimpleMeterRegistry(),
+                batchSize, Duration.ofSeconds(5));
+    }
+
+    private TransactionOperations pausingFirstTransaction(CountDownLatch claimed, CountDownLatch commit) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        return new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return template.execute(status -> {
+                    T result = action.doInTransaction(status);
+                    if (claimed.getCount() > 0) {
+                        claimed.countDown();
+                        await(commit);
+                    }
+                    return result;
+                });
+            }
+        };
+    }
+
+    private void recordSends() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, byte[]> record = invocation.getArgument(0);
+            long id = Long.parseLong(new String(
+                    record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8));
+            synchronized (sentByKey) {
+                sentByKey.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(id);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private Map<String, List<Long>> sentKeys() {
+        synchronized (sentByKey) {
+            return new LinkedHashMap<>(sentByKey);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OutboxEvent event(String aggregateId) {
+        return OutboxEvent.builder()
+                .aggregateType("Order")
+                .aggregateId(aggregateId)
+                .eventType("ORDER_TRANSITIONED")
+                .topic("order-events")
+                .payload(new byte[] {1})
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Order;
+import com.example.complexapp.domain.OrderTransition;
+import com.example.complexapp.event.OrderChangedEvent;
+import com.example.complexapp.messaging.EventCodec;
+import com.example.complexapp.repository.OutboxEventRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@EmbeddedKafka(partitions = 3, topics = {"order-events", "user-events"})
+@ActiveProfiles("test")
+class OutboxRelayIntegrationTest {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void publishesCommittedEventsInOrderPerAggregateAndDeletesThem() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int step = 0; step < 5; step++) {
+                for (long orderId = 1; orderId <= 4; orderId++) {
+                    outboxService.recordOrderEvent(event(orderId, step));
+                }
+            }
+        });
+        assertThat(outboxEventRepository.count()).isEqualTo(20);
+
+        assertThat(outboxRelay.relayBatch()).isEqualTo(20);
+        assertThat(outboxEventRepository.count()).isZero();
+
+        Map<String, List<Long>> eventIdsByKey = new HashMap<>();
+        try (Consumer<String, byte[]> consumer = consumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "order-events");
+            List<ConsumerRecord<String, byte[]>> received = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received.size() < 20 && System.currentTimeMillis() < deadline) {
+                KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1)).forEach(received::add);
+            }
+            assertThat(received).hasSize(20);
+            for (ConsumerRecord<String, byte[]> record : received) {
+                OrderChangedEvent event = EventCodec.decode(record.value(), OrderChangedEvent.class);
+                assertThat(String.valueOf(event.orderId())).isEqualTo(record.key());
+                long eventId = Long.parseLong(new String(
+                        record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8));
+                eventIdsByKey.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(eventId);
+            }
+        }
+        assertThat(eventIdsByKey).hasSize(4);
+        eventIdsByKey.values().forEach(ids -> assertThat(ids).hasSize(5).isSorted());
+    }
+
+    @Test
+    void eventsRollBackWithTheirTransaction() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            outboxService.recordOrderEvent(event(99L, 0));
+            throw new IllegalStateException("entity change failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(outboxRelay.relayBatch()).isZero();
+    }
+
+    private OrderChangedEvent event(long orderId, int step) {
+        return new OrderChangedEvent(orderId, "ORD-" + orderId, OrderChangedEvent.ChangeType.TRANSITIONED,
+                OrderTransition.CONFIRM, Order.OrderStatus.CONFIRMED, Order.PaymentStatus.PENDING,
+                Order.ShippingStatus.PENDING, BigDecimal.valueOf(step), Instant.now());
+    }
+
+    private Consumer<String, byte[]> consumer() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-test", "false", broker);
+        props.put("auto.offset.reset", "earliest");
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer())
+                .createConsumer();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.OutboxEvent;
+import com.example.complexapp.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+    private final OutboxRelay relay = new OutboxRelay(repository, kafkaTemplate, TransactionOperations.withoutTransaction(),
+            new SimpleMeterRegistry(), 100, Duration.ofSeconds(5));
+
+    private final Map<String, List<Long>> sentByKey = new LinkedHashMap<>();
+
+    @Test
+    void failedSendStopsItsAggregateAndKeepsTheRestOfTheBatch() {
+        batch(event(1, "A"), event(2, "B"), event(3, "A"), event(4, "B"), event(5, "A"), event(6, "C"));
+        failSendOf(3L);
+
+        assertThat(relay.relayBatch()).isEqualTo(4);
+
+        // Each aggregate's run goes out in order in one pass; A is published only up to its failed event
+        assertThat(sentByKey).containsEntry("A", List.of(1L, 3L, 5L))
+                .containsEntry("B", List.of(2L, 4L))
+                .containsEntry("C", List.of(6L));
+        var order = inOrder(repository, kafkaTemplate);
+        order.verify(repository).claim(eq(List.of(1L, 2L, 3L, 4L, 5L, 6L)), any(LocalDateTime.class));
+        order.verify(kafkaTemplate).flush();
+        order.verify(repository).deleteByIdIn(List.of(1L, 2L, 4L, 6L));
+        order.verify(repository).releaseClaims(List.of(3L, 5L));
+        verify(kafkaTemplate, times(1)).flush();
+        verify(repository, times(1)).deleteByIdIn(any());
+    }
+
+    @Test
+    void failureOnTheFirstEventDeletesNothingOfThatAggregate() {
+        batch(event(1, "A"), event(2, "A"));
+        failSendOf(1L);
+
+        assertThat(relay.relayBatch()).isZero();
+
+        assertThat(sentByKey).containsOnlyKeys("A").containsEntry("A", List.of(1L, 2L));
+        verify(repository, never()).deleteByIdIn(any());
+        verify(repository).releaseClaims(List.of(1L, 2L));
+    }
+
+    private void batch(OutboxEvent... events) {
+        when(repository.findRelayHeads(any(), anyInt())).thenReturn(List.of(events[0]));
+        when(repository.findAggregateEvents(any(), any())).thenReturn(List.of(events));
+    }
+
+    private void failSendOf(long failingId) {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, byte[]> record = invocation.getArgument(0);
+            long id = Long.parseLong(new String(
+                    record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8));
+            sentByKey.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(id);
+            return id == failingId
+                    ? CompletableFuture.failedFuture(new KafkaException("broker unavailable"))
+                    : CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private static OutboxEvent event(long id, String aggregateId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateType("Order")
+                .aggregateId(aggregateId)
+                .eventType("ORDER_TRANSITIONED")
+                .topic("order-events")
+                .payload(new byte[] {1})
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
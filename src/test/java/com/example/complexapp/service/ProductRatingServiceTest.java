@@ -0,0 +1,111 @@
+package com.example.complexapp.service;
+
+import com.example.complexapp.domain.Product;
+import com.example.complexapp.domain.ProductRatingSummary;
+import com.example.complexapp.domain.ProductReview;
+import com.example.complexapp.repository.ProductRatingSummaryRepository;
+import com.example.complexapp.repository.ProductRepository;
+import com.example.complexapp.repository.ProductReviewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductRatingServiceTest {
+
+    private final ProductRatingSummaryRepository summaryRepository = mock(ProductRatingSummaryRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductReviewRepository reviewRepository = mock(ProductReviewRepository.class);
+    private final RatingAggregator aggregator = new RatingAggregator();
+    private final ProductRatingService service = new ProductRatingService(summaryRepository, productRepository,
+            reviewRepository, aggregator, mock(ApplicationEventPublisher.class));
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reviewDeltasWaitForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.recordReview(review(1L, 4));
+        service.recordRatingChanged(1L, 4, 2);
+
+        assertThat(aggregator.pendingProducts()).isZero();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(aggregator.drain().get(1L)).containsExactly(0, 1, 0, 0, 0);
+    }
+
+    @Test
+    void rolledBackReviewWritesNeverReachTheAggregator() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.recordReviewRemoved(review(1L, 5));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(aggregator.drain()).isEmpty();
+    }
+
+    @Test
+    void removalFromAMissingSummaryRebuildsItInsteadOfClamping() {
+        when(summaryRepository.applyDelta(eq(1L), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), any())).thenReturn(0);
+        when(reviewRepository.countByRating(1L)).thenReturn(List.<Object[]>of(new Object[] {4, 2L}));
+        when(summaryRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(summaryRepository.findById(1L)).thenReturn(Optional.of(ProductRatingSummary.builder()
+                .productId(1L).fourStarCount(2).ratingCount(2).ratingSum(8).build()));
+
+        service.applyDelta(1L, new long[] {0, 0, 0, 0, -1});
+
+        verify(reviewRepository).countByRating(1L);
+        verify(summaryRepository).saveAndFlush(argThat(summary ->
+                summary.getFourStarCount() == 2 && summary.getFiveStarCount() == 0 && summary.getRatingSum() == 8));
+        verify(productRepository).updateRatingStats(1L, 4.0, 2);
+    }
+
+    @Test
+    void findsSummariesThatDisagreeWithReviews() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        when(reviewRepository.summarizeByProduct()).thenReturn(List.of(
+                new Object[] {1L, 3L, 12L, longAgo},
+                new Object[] {2L, 1L, 5L, longAgo},
+                new Object[] {3L, 1L, 5L, LocalDateTime.now()},
+                new Object[] {4L, 2L, 6L, longAgo}));
+        when(summaryRepository.findAll()).thenReturn(List.of(
+                summary(1L, 3, 12, longAgo),
+                summary(2L, 2, 9, longAgo),
+                summary(3L, 0, 0, longAgo),
+                summary(5L, 1, 3, longAgo)));
+
+        // 1 matches, 3 has a review too recent to judge, 4 has no summary, 5 has no reviews left
+        assertThat(service.findDriftedSummaries()).containsExactlyInAnyOrder(2L, 4L, 5L);
+    }
+
+    private static ProductReview review(Long productId, int stars) {
+        Product product = new Product();
+        product.setId(productId);
+        return ProductReview.builder().product(product).rating(stars).build();
+    }
+
+    private static ProductRatingSummary summary(Long productId, long count, long sum, LocalDateTime updatedAt) {
+        return ProductRatingSummary.builder()
+                .productId(productId).ratingCount(count).ratingSum(sum).updatedAt(updatedAt).build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.complexapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RatingAggregatorTest {
+
+    private final RatingAggregator aggregator = new RatingAggregator();
+
+    @Test
+    void foldsReviewsOfOneProductIntoOneDelta() {
+        aggregator.add(1L, 5, 1);
+        aggregator.add(1L, 5, 1);
+        aggregator.add(1L, 2, 1);
+        aggregator.add(2L, 4, 1);
+
+        Map<Long, long[]> drained = aggregator.drain();
+
+        assertThat(drained).containsOnlyKeys(1L, 2L);
+        assertThat(drained.get(1L)).containsExactly(0, 1, 0, 0, 2);
+        assertThat(drained.get(2L)).containsExactly(0, 0, 0, 1, 0);
+        assertThat(aggregator.pendingProducts()).isZero();
+    }
+
+    @Test
+    void removalCancelsAPendingReview() {
+        aggregator.add(1L, 3, 1);
+        aggregator.add(1L, 3, -1);
+        aggregator.add(2L, 1, -1);
+
+        Map<Long, long[]> drained = aggregator.drain();
+
+        // Product 1 nets to zero and is skipped; a removal alone still reaches the summary
+        assertThat(drained).containsOnlyKeys(2L);
+        assertThat(drained.get(2L)).containsExactly(-1, 0, 0, 0, 0);
+    }
+
+    @Test
+    void mergedDeltasFoldIntoPendingOnes() {
+        aggregator.add(1L, 4, 1);
+        aggregator.merge(1L, new long[] {0, 0, 0, 2, -1});
+
+        assertThat(aggregator.drain().get(1L)).containsExactly(0, 0, 0, 3, -1);
+    }
+
+    @Test
+    void discardDropsPendingDeltas() {
+        aggregator.add(1L, 4, 1);
+        aggregator.discard(1L);
+
+        assertThat(aggregator.drain()).isEmpty();
+    }
+
+    @Test
+    void rejectsStarsOutsideTheScale() {
+        assertThatThrownBy(() -> aggregator.add(1L, 6, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> aggregator.add(1L, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.complexapp.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 5, 200, 100, 10, clock::get);
+
+    @Test
+    void growsWhileLatencyHoldsSteady() {
+        for (int window = 0; window < 40; window++) {
+            runWindow(limit.getLimit(), 20);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(100);
+    }
+
+    @Test
+    void shrinksWhenLatencyClimbs() {
+        for (int window = 0; window < 20; window++) {
+            runWindow(limit.getLimit(), 20);
+        }
+        int settled = limit.getLimit();
+
+        for (int window = 0; window < 10; window++) {
+            runWindow(limit.getLimit(), 80);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(settled * 2 / 3);
+    }
+
+    @Test
+    void doesNotGrowWhenTrafficIsFarBelowTheLimit() {
+        for (int window = 0; window < 40; window++) {
+            runWindow(10, 20);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void backsOffOnDrops() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire(1.0)).isTrue();
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < 10; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(5), true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(45);
+    }
+
+    @Test
+    void lowerPrioritiesHitTheirShareFirst() {
+        int browseAdmitted = 0;
+        while (limit.tryAcquire(0.7)) {
+            browseAdmitted++;
+        }
+        int criticalAdmitted = 0;
+        while (limit.tryAcquire(1.0)) {
+            criticalAdmitted++;
+        }
+
+        assertThat(browseAdmitted).isEqualTo(35);
+        assertThat(criticalAdmitted).isEqualTo(15);
+        assertThat(limit.getInFlight()).isEqualTo(50);
+    }
+
+    // Takes the given number of slots, lets a window pass, then releases them all with the given latency
+    private void runWindow(int concurrency, long rttMillis) {
+        int acquired = 0;
+        while (acquired < concurrency && limit.tryAcquire(1.0)) {
+            acquired++;
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < acquired; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.complexapp.web;
+
+import com.example.complexapp.event.CatalogChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogResponseCacheFilterTest {
+
+    private static final String PRODUCT_RATINGS = "/api/products/7/ratings";
+    private static final String BODY = "{\"productId\":7,\"distribution\":\"" + "*".repeat(2048) + "\"}";
+
+    private final CatalogResponseCache cache = new CatalogResponseCache(Clock.systemUTC(), 1 << 20,
+            Duration.ofMinutes(1), true, 1024);
+    private final CatalogResponseCacheFilter filter = new CatalogResponseCacheFilter(cache, new SimpleMeterRegistry());
+    private final AtomicInteger served = new AtomicInteger();
+
+    @Test
+    void replaysTheStoredBodyGzippedWithoutRunningTheController() throws Exception {
+        MockHttpServletResponse first = perform(get(PRODUCT_RATINGS), controller("\"v1\""));
+        MockHttpServletRequest request = get(PRODUCT_RATINGS);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        MockHttpServletResponse second = perform(request, controller("\"v1\""));
+
+        assertThat(served).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo(BODY);
+        assertThat(first.getHeader(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+        assertThat(second.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo("\"v1-gzip\"");
+        assertThat(second.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(second.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(gunzip(second.getContentAsByteArray())).isEqualTo(BODY);
+    }
+
+    @Test
+    void answersAMatchingIfNoneMatchWith304() throws Exception {
+        perform(get(PRODUCT_RATINGS), controller("\"v1\""));
+        MockHttpServletRequest identity = get(PRODUCT_RATINGS);
+        identity.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v0\", \"v1\"");
+        MockHttpServletRequest gzipped = get(PRODUCT_RATINGS);
+        gzipped.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"v1-gzip\"");
+        MockHttpServletRequest outdated = get(PRODUCT_RATINGS);
+        outdated.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v0\"");
+
+        assertThat(perform(identity, controller("\"v1\"")).getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(perform(gzipped, controller("\"v1\"")).getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        MockHttpServletResponse full = perform(outdated, controller("\"v1\""));
+        assertThat(full.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(full.getContentAsString()).isEqualTo(BODY);
+        assertThat(served).hasValue(1);
+    }
+
+    @Test
+    void dropsEntriesOfTheChangedScopeOnly() throws Exception {
+        perform(get(PRODUCT_RATINGS), controller("\"v1\""));
+        perform(get("/api/categories/3"), controller("\"c1\""));
+        perform(get("/api/categories/3/products?page=0"), controller("\"l1\""));
+
+        cache.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Scope.PRODUCTS));
+        MockHttpServletResponse ratings = perform(get(PRODUCT_RATINGS), controller("\"v2\""));
+        perform(get("/api/categories/3"), controller("\"c1\""));
+        perform(get("/api/categories/3/products?page=0"), controller("\"l2\""));
+
+        assertThat(ratings.getHeader(HttpHeaders.ETAG)).isEqualTo("\"v2\"");
+        assertThat(served).hasValue(5);
+    }
+
+    @Test
+    void doesNotServeAResponseReadWhileAChangeCommitted() throws Exception {
+        perform(get(PRODUCT_RATINGS), new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+                cache.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Scope.PRODUCTS));
+                controller("\"v1\"").service(request, response);
+            }
+        });
+        perform(get(PRODUCT_RATINGS), controller("\"v2\""));
+
+        assertThat(served).hasValue(2);
+    }
+
+    @Test
+    void passesThroughResponsesWithoutAStrongETag() throws Exception {
+        perform(get(PRODUCT_RATINGS), controller(null));
+        MockHttpServletResponse weak = perform(get(PRODUCT_RATINGS), controller("W/\"v1\""));
+        perform(get(PRODUCT_RATINGS), controller(null));
+
+        assertThat(weak.getContentAsString()).isEqualTo(BODY);
+        assertThat(served).hasValue(3);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void honoursGzipRefusals() {
+        MockHttpServletRequest refused = get(PRODUCT_RATINGS);
+        refused.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0");
+        MockHttpServletRequest accepted = get(PRODUCT_RATINGS);
+        accepted.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip; q=0.5");
+
+        assertThat(CatalogResponseCacheFilter.acceptsGzip(refused)).isFalse();
+        assertThat(CatalogResponseCacheFilter.acceptsGzip(accepted)).isTrue();
+        assertThat(CatalogResponseCacheFilter.acceptsGzip(get(PRODUCT_RATINGS))).isFalse();
+    }
+
+    private HttpServlet controller(String eTag) {
+        return new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                served.incrementAndGet();
+                if (eTag != null) {
+                    response.setHeader(HttpHeaders.ETAG, eTag);
+                }
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, HttpServlet servlet) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static MockHttpServletRequest get(String pathAndQuery) {
+        String[] parts = pathAndQuery.split("\\?", 2);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api" + parts[0]);
+        request.setContextPath("/api");
+        request.setServletPath(parts[0]);
+        if (parts.length > 1) {
+            request.setQueryString(parts[1]);
+        }
+        return request;
+    }
+
+    private static String gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.complexapp.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 100, 10);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, new ObjectMapper(), meterRegistry,
+            List.of("/api/orders/**"), List.of("/api/products/**"), 0.9, 0.5);
+
+    @Test
+    void classifiesRoutes() {
+        assertThat(filter.priorityOf("/api/orders/42")).isEqualTo(ConcurrencyLimitFilter.Priority.CRITICAL);
+        assertThat(filter.priorityOf("/api/products/7/ratings")).isEqualTo(ConcurrencyLimitFilter.Priority.BROWSE);
+        assertThat(filter.priorityOf("/api/users/me")).isEqualTo(ConcurrencyLimitFilter.Priority.DEFAULT);
+    }
+
+    @Test
+    void shedsBrowseTrafficWhileOrdersStillGetThrough() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire(1.0);
+        }
+
+        MockHttpServletResponse browse = perform("/api/products/7");
+        MockHttpServletResponse order = perform("/api/orders/42");
+
+        assertThat(browse.getStatus()).isEqualTo(503);
+        assertThat(browse.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(browse.getContentAsString()).startsWith("{\"status\":503");
+        assertThat(order.getStatus()).isEqualTo(200);
+        assertThat(limit.getInFlight()).isEqualTo(5);
+        assertThat(meterRegistry.get("http.concurrency.shed").tag("priority", "browse").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.concurrency.shed").tag("priority", "critical").counter().count()).isZero();
+    }
+
+    @Test
+    void neverLimitsActuator() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire(1.0);
+        }
+
+        assertThat(perform("/actuator/health").getStatus()).isEqualTo(200);
+        assertThat(perform("/api/orders/42").getStatus()).isEqualTo(503);
+    }
+
+    private MockHttpServletResponse perform(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api" + path);
+        request.setContextPath("/api");
+        request.setServletPath(path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.complexapp.web;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DebugSamplingFilterTest {
+
+    private final Logger appLogger = (Logger) LoggerFactory.getLogger("com.example.complexapp.service.SomeService");
+    private final Logger otherLogger = (Logger) LoggerFactory.getLogger("org.apache.catalina.SomeValve");
+    private Level appLevel;
+    private Level otherLevel;
+    private DebugSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        appLevel = appLogger.getLevel();
+        otherLevel = otherLogger.getLevel();
+        appLogger.setLevel(Level.INFO);
+        otherLogger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (filter != null) {
+            filter.unregister();
+        }
+        appLogger.setLevel(appLevel);
+        otherLogger.setLevel(otherLevel);
+    }
+
+    @Test
+    void enablesDebugForTheConfiguredLoggersWhileASampledRequestRuns() throws Exception {
+        filter = new DebugSamplingFilter("X-Debug-Log", 0, 60, List.of("com.example.complexapp"));
+        filter.register();
+        List<Boolean> seen = new ArrayList<>();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader("X-Debug-Log", "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            seen.add(appLogger.isDebugEnabled());
+            seen.add(otherLogger.isDebugEnabled());
+        });
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), new MockHttpServletResponse(),
+                (req, res) -> seen.add(appLogger.isDebugEnabled()));
+
+        assertThat(seen).containsExactly(true, false, false);
+        assertThat(response.getHeader("X-Debug-Log")).isEqualTo("sampled");
+        assertThat(appLogger.isDebugEnabled()).isFalse();
+    }
+
+    @Test
+    void samplesByRateAndCapsRequestsPerMinute() {
+        filter = new DebugSamplingFilter("X-Debug-Log", 1.0, 2, List.of("com.example.complexapp"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/categories/1");
+
+        assertThat(filter.shouldSample(request)).isTrue();
+        assertThat(filter.shouldSample(request)).isTrue();
+        assertThat(filter.shouldSample(request)).isFalse();
+        assertThat(filter.acquire(System.currentTimeMillis() + 60_000)).isTrue();
+
+        DebugSamplingFilter headerOnly = new DebugSamplingFilter("X-Debug-Log", 0, 2, List.of("com.example.complexapp"));
+        assertThat(headerOnly.shouldSample(request)).isFalse();
+    }
+}
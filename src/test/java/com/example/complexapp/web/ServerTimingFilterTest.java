@@ -0,0 +1,80 @@
+package com.example.complexapp.web;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingFilterTest {
+
+    @Test
+    void reportsThePhasesRecordedBeforeTheBodyIsWritten() throws Exception {
+        MockHttpServletResponse response = perform(new ServerTimingFilter(true, 0, 1000), new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RequestTiming.record(RequestTiming.Phase.AUTH, TimeUnit.MICROSECONDS.toNanos(150));
+                RequestTiming.record(RequestTiming.Phase.DB, TimeUnit.MILLISECONDS.toNanos(2));
+                RequestTiming.record(RequestTiming.Phase.DB, TimeUnit.MICROSECONDS.toNanos(1500));
+                response.getWriter().write("{}");
+                // Too late for the header
+                RequestTiming.record(RequestTiming.Phase.JSON, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        });
+
+        assertThat(response.getHeader(ServerTimingFilter.HEADER))
+                .startsWith("auth;dur=0.150, db;dur=3.500;desc=\"2 statements\", total;dur=")
+                .doesNotContain("json");
+        assertThat(response.getContentAsString()).isEqualTo("{}");
+    }
+
+    @Test
+    void addsTheHeaderToResponsesWithoutBody() throws Exception {
+        MockHttpServletResponse response = perform(new ServerTimingFilter(true, 0, 1000), new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+                RequestTiming.record(RequestTiming.Phase.CACHE, TimeUnit.MICROSECONDS.toNanos(42));
+                response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            }
+        });
+
+        assertThat(response.getHeader(ServerTimingFilter.HEADER)).startsWith("cache;dur=0.042;desc=\"1 ops\", total;dur=");
+    }
+
+    @Test
+    void keepsTheHeaderOffWhenNotExposed() throws Exception {
+        MockHttpServletResponse response = perform(new ServerTimingFilter(false, 0, 1000), new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RequestTiming.record(RequestTiming.Phase.DB, 1_000_000);
+                response.getWriter().write("{}");
+            }
+        });
+
+        assertThat(response.getHeader(ServerTimingFilter.HEADER)).isNull();
+    }
+
+    @Test
+    void ignoresRecordingOutsideARequest() throws Exception {
+        perform(new ServerTimingFilter(true, 0, 1000), new HttpServlet() {
+        });
+
+        RequestTiming.record(RequestTiming.Phase.DB, 1_000_000);
+
+        assertThat(RequestTiming.isActive()).isFalse();
+    }
+
+    private MockHttpServletResponse perform(ServerTimingFilter filter, HttpServlet servlet) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/api/products/7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+}
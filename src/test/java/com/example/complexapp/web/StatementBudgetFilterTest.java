@@ -0,0 +1,105 @@
+package com.example.complexapp.web;
+
+import com.example.complexapp.exception.StatementBudgetExceededException;
+import com.example.complexapp.monitoring.StatementCountingInspector;
+import com.example.complexapp.monitoring.StatementTally;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementBudgetFilterTest {
+
+    private static final String ITEMS_BY_ORDER = "select oi1_0.order_id,oi1_0.id from order_items oi1_0 where oi1_0.order_id=?";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatementCountingInspector inspector = new StatementCountingInspector();
+
+    @AfterEach
+    void tearDown() {
+        StatementTally.current().stop();
+    }
+
+    @Test
+    void countsRepeatedSelectsAsPossibleNPlusOne() throws Exception {
+        perform(filter("warn"), "/api/orders", () -> {
+            inspector.inspect("select o1_0.id from orders o1_0");
+            for (int i = 0; i < 6; i++) {
+                inspector.inspect(ITEMS_BY_ORDER);
+            }
+        });
+
+        assertThat(meterRegistry.get("hibernate.statements.repeated").tag("endpoint", "GET /api/orders")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("hibernate.statements.budget.exceeded").counter()).isNull();
+        assertThat(meterRegistry.get("hibernate.statements.per.request").summary().totalAmount()).isEqualTo(7);
+    }
+
+    @Test
+    void ignoresRepeatedWrites() throws Exception {
+        perform(filter("fail"), "/api/orders", () -> {
+            for (int i = 0; i < 6; i++) {
+                inspector.inspect("insert into order_items (order_id,id) values (?,?)");
+            }
+        });
+
+        assertThat(meterRegistry.find("hibernate.statements.repeated").counter()).isNull();
+    }
+
+    @Test
+    void failsRequestsOverTheirEndpointBudgetInFailMode() {
+        StatementBudgetFilter filter = filter("fail");
+
+        assertThat(filter.budgetFor("/api/categories/7")).isEqualTo(2);
+        assertThat(filter.budgetFor("/api/orders/7")).isEqualTo(10);
+        assertThatThrownBy(() -> perform(filter, "/api/categories/{id}", () -> {
+            inspector.inspect("select c1_0.id from categories c1_0 where c1_0.id=?");
+            inspector.inspect("select p1_0.id from categories p1_0 where p1_0.id=?");
+            inspector.inspect("select c1_0.id from categories c1_0 where c1_0.parent_id=?");
+        }))
+                .isInstanceOf(StatementBudgetExceededException.class)
+                .hasMessage("GET /api/categories/{id}: 3 statements, budget 2");
+    }
+
+    @Test
+    void leavesCountingToAnEnclosingScope() throws Exception {
+        StatementTally tally = StatementTally.start();
+
+        perform(filter("fail"), "/api/orders", () -> {
+            for (int i = 0; i < 20; i++) {
+                inspector.inspect(ITEMS_BY_ORDER);
+            }
+        });
+
+        assertThat(tally.selects()).isEqualTo(20);
+        assertThat(meterRegistry.find("hibernate.statements.per.request").summary()).isNull();
+    }
+
+    private StatementBudgetFilter filter(String mode) {
+        return new StatementBudgetFilter(meterRegistry, 10, List.of("/api/categories/**=2"), 5, mode);
+    }
+
+    private void perform(StatementBudgetFilter filter, String pattern, Runnable queries) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api" + pattern);
+        request.setServletPath(pattern.replace("{id}", "7"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+                queries.run();
+            }
+        }));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.complexapp.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimedJackson2HttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RequestTiming timing;
+
+    @AfterEach
+    void tearDown() {
+        if (timing != null) {
+            timing.stop();
+        }
+    }
+
+    @Test
+    void recordsSmallBodiesBeforeTheResponseIsOpened() throws Exception {
+        timing = RequestTiming.start();
+        OpenTrackingMessage message = new OpenTrackingMessage();
+
+        converter(true).write(Map.of("name", "small"), MediaType.APPLICATION_JSON, message);
+
+        assertThat(message.jsonCountWhenOpened).isEqualTo(1);
+        assertThat(message.getBodyAsString()).isEqualTo("{\"name\":\"small\"}");
+    }
+
+    @Test
+    void streamsBodiesThatOutgrowTheBuffer() throws Exception {
+        timing = RequestTiming.start();
+        OpenTrackingMessage message = new OpenTrackingMessage();
+        String large = "x".repeat(TimedJackson2HttpMessageConverter.MAX_BUFFERED_BODY);
+
+        converter(true).write(Map.of("name", large), MediaType.APPLICATION_JSON, message);
+
+        // Opened mid-serialization, so the header goes out without json; the log line still has it
+        assertThat(message.jsonCountWhenOpened).isZero();
+        assertThat(timing.count(RequestTiming.Phase.JSON)).isEqualTo(1);
+        assertThat(message.getBodyAsString()).isEqualTo("{\"name\":\"" + large + "\"}");
+    }
+
+    @Test
+    void writesStraightThroughWhenTheHeaderIsNotExposed() throws Exception {
+        timing = RequestTiming.start();
+        OpenTrackingMessage message = new OpenTrackingMessage();
+
+        converter(false).write(Map.of("name", "small"), MediaType.APPLICATION_JSON, message);
+
+        assertThat(message.jsonCountWhenOpened).isZero();
+        assertThat(timing.count(RequestTiming.Phase.JSON)).isEqualTo(1);
+        assertThat(message.getBodyAsString()).isEqualTo("{\"name\":\"small\"}");
+    }
+
+    private TimedJackson2HttpMessageConverter converter(boolean exposeHeader) {
+        return new TimedJackson2HttpMessageConverter(objectMapper, exposeHeader);
+    }
+
+    private final class OpenTrackingMessage extends MockHttpOutputMessage {
+
+        private int jsonCountWhenOpened = -1;
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (jsonCountWhenOpened < 0) {
+                jsonCountWhenOpened = timing.count(RequestTiming.Phase.JSON);
+            }
+            return super.getBody();
+        }
+    }
+}